@@ -1,5 +1,7 @@
 package io.p4r53c.telran.util;
 
+import java.util.function.BiConsumer;
+
 /**
  * An abstract implementation of the {@link Map} interface. This class provides
  * most of the methods of the interface, leaving the implementation of the
@@ -99,12 +101,13 @@ public abstract class AbstractMap<K, V> implements Map<K, V> {
      */
     @Override
     public Set<K> keySet() {
+        CollectionEvents.MapViewCopyEvent event = new CollectionEvents.MapViewCopyEvent();
+        event.begin();
 
         Set<K> result = getEmptyKeySet();
+        set.forEach(entry -> result.add(entry.getKey()));
 
-        for (Entry<K, V> entry : set) {
-            result.add(entry.getKey());
-        }
+        commitViewCopy(event, "keySet");
 
         return result;
     }
@@ -122,11 +125,13 @@ public abstract class AbstractMap<K, V> implements Map<K, V> {
      */
     @Override
     public Collection<V> values() {
+        CollectionEvents.MapViewCopyEvent event = new CollectionEvents.MapViewCopyEvent();
+        event.begin();
+
         Collection<V> result = new ArrayList<>();
+        set.forEach(entry -> result.add(entry.getValue()));
 
-        for (Entry<K, V> entry : set) {
-            result.add(entry.getValue());
-        }
+        commitViewCopy(event, "values");
 
         return result;
     }
@@ -146,4 +151,40 @@ public abstract class AbstractMap<K, V> implements Map<K, V> {
     public boolean isEmpty() {
         return set.isEmpty();
     }
+
+    /**
+     * Removes all entries by clearing the set of entries directly.
+     */
+    @Override
+    public void clear() {
+        set.clear();
+    }
+
+    /**
+     * Performs the given action for each entry by the internal iteration of
+     * the set of entries.
+     *
+     * @param action the action to be performed for each key and value
+     */
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        set.forEach(entry -> action.accept(entry.getKey(), entry.getValue()));
+    }
+
+    /**
+     * Commits the event of a copied view if it is recorded.
+     *
+     * @param event the event timed around the copy
+     * @param view  the name of the view
+     */
+    private void commitViewCopy(CollectionEvents.MapViewCopyEvent event, String view) {
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.setCollection(this);
+            event.view = view;
+            event.size = set.size();
+            event.commit();
+        }
+    }
 }
@@ -3,10 +3,14 @@ package io.p4r53c.telran.util;
 import java.util.Iterator;
 
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Objects;
 
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
+import java.util.stream.IntStream;
+
 import java.util.NoSuchElementException;
 
 /**
@@ -20,10 +24,14 @@ public class ArrayList<T> implements List<T> {
 
     private static final int DEFAULT_CAPACITY = 16;
 
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+
     private Object[] array;
 
     private int size;
 
+    private CollectionMetrics metrics;
+
     public ArrayList() {
         this(DEFAULT_CAPACITY);
     }
@@ -41,7 +49,7 @@ public class ArrayList<T> implements List<T> {
     @Override
     public boolean add(T obj) {
         if (size == array.length) {
-            reallocate();
+            grow();
         }
         array[size++] = obj;
         return true;
@@ -115,7 +123,7 @@ public class ArrayList<T> implements List<T> {
         checkIndex(index, true);
 
         if (size == array.length) {
-            reallocate();
+            grow();
         }
 
         System.arraycopy(array, index, array, index + 1, size - index);
@@ -177,11 +185,105 @@ public class ArrayList<T> implements List<T> {
         }
 
         int removed = size - left;
+        Arrays.fill(array, left, size, null);
         size = left;
 
         return removed > 0;
     }
 
+    /**
+     * Removes elements matching the predicate, evaluating it in parallel.
+     * <p>
+     * The predicate is tested on chunks of 64 elements in the common fork-join
+     * pool, each chunk setting the bits of the elements to be removed in its
+     * own word of a bitmap. A single sequential pass then compacts the array.
+     * Small lists are processed by {@link #removeIf(Predicate)}.
+     * <p>
+     * The predicate is called concurrently and in no particular order, so it
+     * must be stateless and thread-safe.
+     *
+     * @param predicate a predicate to test elements for removal
+     * @return true if any elements were removed, false otherwise
+     */
+    @SuppressWarnings("unchecked")
+    public boolean parallelRemoveIf(Predicate<T> predicate) {
+        boolean result;
+
+        if (size < PARALLEL_THRESHOLD) {
+            result = removeIf(predicate);
+        } else {
+            long[] removed = new long[(size + Long.SIZE - 1) / Long.SIZE];
+
+            IntStream.range(0, removed.length).parallel().forEach(word -> {
+                int end = Math.min(size, (word + 1) * Long.SIZE);
+
+                for (int i = word * Long.SIZE; i < end; i++) {
+                    if (predicate.test((T) array[i])) {
+                        removed[word] |= 1L << i;
+                    }
+                }
+            });
+
+            int left = 0;
+
+            for (int right = 0; right < size; right++) {
+                if ((removed[right >>> 6] & (1L << right)) == 0) {
+                    array[left++] = array[right];
+                }
+            }
+
+            result = left < size;
+            Arrays.fill(array, left, size, null);
+            size = left;
+        }
+
+        return result;
+    }
+
+    /**
+     * Sorts the list in place on the backing array.
+     *
+     * @param comparator the comparator, or null for the natural order
+     */
+    @SuppressWarnings("unchecked")
+    public void sort(Comparator<? super T> comparator) {
+        Arrays.sort((T[]) array, 0, size, comparator);
+    }
+
+    /**
+     * Sorts the list in place on the backing array, merging sorted chunks in
+     * the common fork-join pool. Small lists are sorted sequentially.
+     *
+     * @param comparator the comparator, or null for the natural order
+     */
+    @SuppressWarnings("unchecked")
+    public void parallelSort(Comparator<? super T> comparator) {
+        Arrays.parallelSort((T[]) array, 0, size, comparator);
+    }
+
+    /**
+     * Removes all elements, releasing the references held by the array.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(array, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Performs the given action for each element, reading the array directly
+     * without an iterator.
+     *
+     * @param action the action to be performed for each element
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept((T) array[i]);
+        }
+    }
+
     /**
      * Returns the element at given position in the list.
      *
@@ -231,9 +333,90 @@ public class ArrayList<T> implements List<T> {
     }
 
     /**
-     * Doubles the capacity of the list if it is full.
+     * Shrinks the capacity of the list to its size.
+     */
+    public void trimToSize() {
+        if (size < array.length) {
+            reallocate(size);
+        }
+    }
+
+    /**
+     * Grows the capacity of the list in advance, so that the given number of
+     * elements can be held without further reallocations.
+     *
+     * @param capacity the number of elements the list should hold
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > array.length) {
+            reallocate(capacity);
+        }
+    }
+
+    /**
+     * Starts collecting metrics: reallocations of the array and its length.
+     *
+     * @return the metrics of the list
+     */
+    public CollectionMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new CollectionMetrics(this, list -> list.array.length, null, null);
+        }
+
+        return metrics;
+    }
+
+    /**
+     * Stops collecting metrics and unregisters them from JMX.
      */
-    private void reallocate() {
-        array = Arrays.copyOf(array, array.length * 2);
+    public void disableMetrics() {
+        if (metrics != null) {
+            metrics.unregisterMBean();
+            metrics = null;
+        }
+    }
+
+    /**
+     * Returns the metrics of the list.
+     *
+     * @return the metrics, or null if they are not enabled
+     */
+    public CollectionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Doubles the capacity of the full list. A list of zero capacity gets the
+     * default capacity.
+     */
+    private void grow() {
+        reallocate(array.length == 0 ? DEFAULT_CAPACITY : array.length * 2);
+    }
+
+    /**
+     * Copies the elements to an array of the given capacity, recording the
+     * reallocation in the metrics and as a JFR event.
+     *
+     * @param capacity the new capacity, not less than the size
+     */
+    private void reallocate(int capacity) {
+        CollectionEvents.ReallocationEvent event = new CollectionEvents.ReallocationEvent();
+        event.begin();
+
+        int oldCapacity = array.length;
+        array = Arrays.copyOf(array, capacity);
+
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.setCollection(this);
+            event.oldCapacity = oldCapacity;
+            event.newCapacity = array.length;
+            event.commit();
+        }
+
+        if (metrics != null) {
+            metrics.recordResize();
+        }
     }
 }
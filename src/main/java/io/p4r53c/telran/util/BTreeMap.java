@@ -0,0 +1,24 @@
+package io.p4r53c.telran.util;
+
+/**
+ * A class implementing the Map interface based on a B+-tree of entries.
+ * 
+ * @author p4r53c
+ * 
+ * @param <K> type of keys in the map
+ * @param <V> type of values in the map
+ */
+public class BTreeMap<K, V> extends AbstractMap<K, V> {
+
+    public BTreeMap() {
+        set = new BTreeSet<>();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Set<K> getEmptyKeySet() {
+        return new BTreeSet<>();
+    }
+}
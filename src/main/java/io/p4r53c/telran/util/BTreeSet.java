@@ -0,0 +1,827 @@
+package io.p4r53c.telran.util;
+
+import java.util.Iterator;
+
+import java.util.Arrays;
+
+import java.util.Comparator;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A B+-tree implementation of the {@link SortedSet} interface.
+ * <p>
+ * Elements are stored only in wide array-based leaves, which are linked with
+ * each other in ascending order. Inner nodes hold separator keys only. With
+ * the default order of 64 a lookup visits about log64(n) nodes instead of the
+ * log2(n) nodes of {@link TreeSet}, and iteration as well as
+ * {@link #subSet(Object, Object)} are sequential walks over leaf arrays.
+ * <p>
+ * Separator {@code keys[i]} of an inner node is less than or equal to every
+ * element of subtree {@code children[i + 1]} and greater than every element
+ * of subtree {@code children[i]}.
+ *
+ * @author p4r53c
+ *
+ * @param <T> type of elements in the set
+ */
+public class BTreeSet<T> implements SortedSet<T> {
+
+    private static final int DEFAULT_ORDER = 64;
+    private static final int MIN_ORDER = 4;
+
+    private final int order;
+
+    private final int minKeys;
+
+    private Comparator<T> comparator;
+
+    private Node<T> root;
+
+    private Leaf<T> head;
+
+    private int size;
+
+    public BTreeSet(int order, Comparator<T> comparator) {
+        if (order < MIN_ORDER) {
+            throw new IllegalArgumentException("Order must be at least " + MIN_ORDER);
+        }
+
+        this.order = order;
+        this.minKeys = order / 2;
+        this.comparator = comparator;
+        this.head = new Leaf<>(order);
+        this.root = head;
+    }
+
+    public BTreeSet(Comparator<T> comparator) {
+        this(DEFAULT_ORDER, comparator);
+    }
+
+    @SuppressWarnings("unchecked")
+    public BTreeSet() {
+        this((Comparator<T>) Comparator.naturalOrder());
+    }
+
+    /**
+     * A node of the tree. Arrays have one spare slot, so a node may
+     * temporarily hold {@code order + 1} keys before it is split.
+     */
+    private abstract static class Node<T> {
+        Object[] keys;
+        int count;
+
+        Node(int order) {
+            keys = new Object[order + 1];
+        }
+    }
+
+    private static class Leaf<T> extends Node<T> {
+        Leaf<T> next;
+        Leaf<T> prev;
+
+        Leaf(int order) {
+            super(order);
+        }
+    }
+
+    private static class Inner<T> extends Node<T> {
+        Node<T>[] children;
+
+        Inner(int order) {
+            super(order);
+            @SuppressWarnings({ "unchecked", "rawtypes" })
+            Node<T>[] nodes = new Node[order + 2];
+            children = nodes;
+        }
+    }
+
+    private class BTreeSetIterator implements Iterator<T> {
+
+        Leaf<T> leaf;
+        int index;
+        T prev;
+
+        public BTreeSetIterator() {
+            leaf = head;
+            index = 0;
+            setBoundary();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return leaf != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            prev = (T) leaf.keys[index++];
+            setBoundary();
+
+            return prev;
+        }
+
+        /**
+         * Removes the last returned element. Removal may borrow or merge leaves,
+         * so the iterator is repositioned on the next element afterwards.
+         */
+        @SuppressWarnings("unchecked")
+        @Override
+        public void remove() {
+            if (prev == null) {
+                throw new IllegalStateException();
+            }
+
+            T nextObj = hasNext() ? (T) leaf.keys[index] : null;
+
+            BTreeSet.this.remove(prev);
+            prev = null;
+
+            if (nextObj != null) {
+                leaf = findLeaf(nextObj);
+                index = search(leaf, nextObj);
+            }
+        }
+
+        /**
+         * Moves the iterator to the next non-exhausted leaf, or beyond the last
+         * leaf if there are no more elements.
+         */
+        private void setBoundary() {
+            while (leaf != null && index >= leaf.count) {
+                leaf = leaf.next;
+                index = 0;
+            }
+        }
+    }
+
+    /**
+     * Adds the given element to the set.
+     *
+     * @param obj the element to be added
+     * @return true if the element was added, false otherwise
+     */
+    @Override
+    public boolean add(T obj) {
+        boolean result = insert(root, obj);
+
+        if (root.count > order) {
+            Inner<T> newRoot = new Inner<>(order);
+            newRoot.children[0] = root;
+            root = newRoot;
+            splitChild(newRoot, 0);
+        }
+
+        return result;
+    }
+
+    /**
+     * Removes the given element from the set.
+     *
+     * @param pattern the element to be removed
+     * @return true if the element was found and removed, false otherwise
+     */
+    @Override
+    public boolean remove(T pattern) {
+        boolean result = delete(root, pattern);
+
+        if (root.count == 0 && root instanceof Inner) {
+            root = ((Inner<T>) root).children[0];
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of elements in the set.
+     *
+     * @return the number of elements in the set
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the set is empty.
+     *
+     * @return true if the set is empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns true if the set contains the given element.
+     *
+     * @param pattern the element to be searched for
+     * @return true if the set contains the given element, false otherwise
+     */
+    @Override
+    public boolean contains(T pattern) {
+        return search(findLeaf(pattern), pattern) >= 0;
+    }
+
+    /**
+     * Removes all elements by replacing the tree with a single empty leaf.
+     */
+    @Override
+    public void clear() {
+        head = new Leaf<>(order);
+        root = head;
+        size = 0;
+    }
+
+    /**
+     * Returns an iterator over the elements of the set in ascending order.
+     *
+     * @return an iterator over the elements of the set
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new BTreeSetIterator();
+    }
+
+    /**
+     * Returns the element of the set equal to the given pattern, or null if
+     * the set does not contain such element.
+     *
+     * @param pattern the element to be searched for
+     * @return the element equal to the pattern, or null if not found
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get(Object pattern) {
+        Leaf<T> leaf = findLeaf((T) pattern);
+        int index = search(leaf, (T) pattern);
+
+        return index < 0 ? null : (T) leaf.keys[index];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public T first() {
+        return head.count == 0 ? null : (T) head.keys[0];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public T last() {
+        Node<T> node = root;
+
+        while (node instanceof Inner) {
+            node = ((Inner<T>) node).children[node.count];
+        }
+
+        return node.count == 0 ? null : (T) node.keys[node.count - 1];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public T floor(T key) {
+        T result = null;
+        Leaf<T> leaf = findLeaf(key);
+        int index = search(leaf, key);
+
+        if (index >= 0) {
+            result = (T) leaf.keys[index];
+        } else {
+            index = -index - 2;
+
+            if (index >= 0) {
+                result = (T) leaf.keys[index];
+            } else if (leaf.prev != null) {
+                result = (T) leaf.prev.keys[leaf.prev.count - 1];
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public T ceiling(T key) {
+        T result = null;
+        Leaf<T> leaf = findLeaf(key);
+        int index = search(leaf, key);
+
+        if (index >= 0) {
+            result = (T) leaf.keys[index];
+        } else {
+            index = -index - 1;
+
+            if (index < leaf.count) {
+                result = (T) leaf.keys[index];
+            } else if (leaf.next != null) {
+                result = (T) leaf.next.keys[0];
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns a new set with the elements from {@code from} inclusive to
+     * {@code to} exclusive. The range is collected by a sequential walk over
+     * the linked leaves starting from the leaf of {@code from}, copying whole
+     * runs of keys into the leaves of the new set, whose inner levels are then
+     * built bottom-up. No element is inserted from the root, so the copy takes
+     * O(log n + k) for k elements in the range.
+     *
+     * @param from the lowest element to be included in the returned set
+     * @param to   the upper bound (exclusive) of the returned set
+     * @return a set with the specified range of this set
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public SortedSet<T> subSet(T from, T to) {
+        BTreeSet<T> subSet = new BTreeSet<>(order, comparator);
+        ArrayList<Node<T>> leaves = new ArrayList<>();
+        Leaf<T> target = subSet.head;
+        leaves.add(target);
+
+        Leaf<T> leaf = findLeaf(from);
+        int index = search(leaf, from);
+        index = index < 0 ? -index - 1 : index;
+
+        boolean withinBounds = true;
+
+        while (leaf != null && withinBounds) {
+            int end = leaf.count;
+
+            if (end > 0 && comparator.compare((T) leaf.keys[end - 1], to) >= 0) {
+                end = search(leaf, to);
+                end = end < 0 ? -end - 1 : end;
+                withinBounds = false;
+            }
+
+            while (index < end) {
+                if (target.count == order) {
+                    target = appendLeaf(target);
+                    leaves.add(target);
+                }
+
+                int length = Math.min(end - index, order - target.count);
+                System.arraycopy(leaf.keys, index, target.keys, target.count, length);
+                target.count += length;
+                subSet.size += length;
+                index += length;
+            }
+
+            leaf = leaf.next;
+            index = 0;
+        }
+
+        fillLastLeaf(leaves);
+        subSet.root = buildInnerLevels(leaves);
+
+        return subSet;
+    }
+
+    /**
+     * Links a new empty leaf after the given last leaf.
+     *
+     * @param last the last leaf
+     * @return the new last leaf
+     */
+    private Leaf<T> appendLeaf(Leaf<T> last) {
+        Leaf<T> result = new Leaf<>(order);
+        result.prev = last;
+        last.next = result;
+
+        return result;
+    }
+
+    /**
+     * Moves keys from the full next-to-last leaf into the last one, if the
+     * last leaf of several has fewer than the minimal number of keys.
+     *
+     * @param leaves the leaves in ascending order, all but the last full
+     */
+    private void fillLastLeaf(ArrayList<Node<T>> leaves) {
+        Node<T> last = leaves.get(leaves.size() - 1);
+
+        if (leaves.size() > 1 && last.count < minKeys) {
+            Node<T> previous = leaves.get(leaves.size() - 2);
+            int moved = minKeys - last.count;
+
+            System.arraycopy(last.keys, 0, last.keys, moved, last.count);
+            System.arraycopy(previous.keys, previous.count - moved, last.keys, 0, moved);
+            Arrays.fill(previous.keys, previous.count - moved, previous.count, null);
+
+            previous.count -= moved;
+            last.count += moved;
+        }
+    }
+
+    /**
+     * Builds the inner levels over the given leaves bottom-up. Each level
+     * spreads its nodes evenly over the least number of parents that can hold
+     * them, so every inner node but the root has at least the minimal number
+     * of keys. The separator of a child is the least key of its subtree.
+     *
+     * @param leaves the leaves in ascending order
+     * @return the root of the tree
+     */
+    private Node<T> buildInnerLevels(ArrayList<Node<T>> leaves) {
+        ArrayList<Node<T>> nodes = leaves;
+        ArrayList<Object> lows = new ArrayList<>(leaves.size());
+
+        for (int i = 0; i < leaves.size(); i++) {
+            lows.add(leaves.get(i).keys[0]);
+        }
+
+        while (nodes.size() > 1) {
+            int count = nodes.size();
+            int parents = (count + order) / (order + 1);
+            ArrayList<Node<T>> upper = new ArrayList<>(parents);
+            ArrayList<Object> upperLows = new ArrayList<>(parents);
+            int from = 0;
+
+            for (int i = 1; i <= parents; i++) {
+                int to = (int) ((long) count * i / parents);
+                Inner<T> inner = new Inner<>(order);
+
+                for (int child = from; child < to; child++) {
+                    if (child > from) {
+                        inner.keys[inner.count++] = lows.get(child);
+                    }
+
+                    inner.children[child - from] = nodes.get(child);
+                }
+
+                upper.add(inner);
+                upperLows.add(lows.get(from));
+                from = to;
+            }
+
+            nodes = upper;
+            lows = upperLows;
+        }
+
+        return nodes.get(0);
+    }
+
+    /**
+     * Inserts the element into the subtree of the given node. Overflowed
+     * children are split on the way back, the root is split by
+     * {@link #add(Object)}.
+     *
+     * @param node the root of the subtree
+     * @param obj  the element to be inserted
+     * @return true if the element was inserted, false if it was already present
+     */
+    private boolean insert(Node<T> node, T obj) {
+        boolean result = false;
+
+        if (node instanceof Inner) {
+            Inner<T> inner = (Inner<T>) node;
+            int index = childIndex(inner, obj);
+            Node<T> child = inner.children[index];
+
+            result = insert(child, obj);
+
+            if (child.count > order) {
+                splitChild(inner, index);
+            }
+        } else {
+            int index = search(node, obj);
+
+            if (index < 0) {
+                insertKey(node, -index - 1, obj);
+                size++;
+                result = true;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Removes the element from the subtree of the given node. Underflowed
+     * children are fixed on the way back by borrowing from a sibling or merging
+     * with it.
+     *
+     * @param node    the root of the subtree
+     * @param pattern the element to be removed
+     * @return true if the element was removed, false if it was not found
+     */
+    private boolean delete(Node<T> node, T pattern) {
+        boolean result = false;
+
+        if (node instanceof Inner) {
+            Inner<T> inner = (Inner<T>) node;
+            int index = childIndex(inner, pattern);
+
+            result = delete(inner.children[index], pattern);
+
+            if (result && inner.children[index].count < minKeys) {
+                fixUnderflow(inner, index);
+            }
+        } else {
+            int index = search(node, pattern);
+
+            if (index >= 0) {
+                removeKey(node, index);
+                size--;
+                result = true;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Splits the overflowed child at the given index into two nodes and inserts
+     * the separator and the new right node into the parent.
+     * <p>
+     * A leaf keeps its lower half and the separator is the first key of the
+     * new right leaf, which is linked right after the split one. An inner node
+     * promotes its middle key to the parent.
+     *
+     * @param parent the parent of the overflowed child
+     * @param index  the index of the overflowed child
+     */
+    private void splitChild(Inner<T> parent, int index) {
+        Node<T> child = parent.children[index];
+        int middle = child.count / 2;
+        Object separator;
+        Node<T> right;
+
+        if (child instanceof Leaf) {
+            Leaf<T> leaf = (Leaf<T>) child;
+            Leaf<T> rightLeaf = new Leaf<>(order);
+
+            moveKeys(leaf, middle, rightLeaf);
+            separator = rightLeaf.keys[0];
+
+            rightLeaf.next = leaf.next;
+            rightLeaf.prev = leaf;
+
+            if (leaf.next != null) {
+                leaf.next.prev = rightLeaf;
+            }
+
+            leaf.next = rightLeaf;
+            right = rightLeaf;
+        } else {
+            Inner<T> inner = (Inner<T>) child;
+            Inner<T> rightInner = new Inner<>(order);
+            int count = inner.count;
+
+            separator = inner.keys[middle];
+
+            System.arraycopy(inner.children, middle + 1, rightInner.children, 0, count - middle);
+            Arrays.fill(inner.children, middle + 1, count + 1, null);
+
+            moveKeys(inner, middle + 1, rightInner);
+            inner.keys[middle] = null;
+            inner.count = middle;
+            right = rightInner;
+        }
+
+        System.arraycopy(parent.keys, index, parent.keys, index + 1, parent.count - index);
+        System.arraycopy(parent.children, index + 1, parent.children, index + 2, parent.count - index);
+
+        parent.keys[index] = separator;
+        parent.children[index + 1] = right;
+        parent.count++;
+    }
+
+    /**
+     * Fixes the underflowed child at the given index by borrowing a key from a
+     * sibling that has spare keys, or by merging with a sibling otherwise.
+     *
+     * @param parent the parent of the underflowed child
+     * @param index  the index of the underflowed child
+     */
+    private void fixUnderflow(Inner<T> parent, int index) {
+        Node<T> left = index > 0 ? parent.children[index - 1] : null;
+        Node<T> right = index < parent.count ? parent.children[index + 1] : null;
+
+        if (left != null && left.count > minKeys) {
+            borrowFromLeft(parent, index);
+        } else if (right != null && right.count > minKeys) {
+            borrowFromRight(parent, index);
+        } else if (left != null) {
+            merge(parent, index - 1);
+        } else {
+            merge(parent, index);
+        }
+    }
+
+    /**
+     * Moves the greatest key of the left sibling into the child at the given
+     * index and updates the separator between them.
+     *
+     * @param parent the parent of the child
+     * @param index  the index of the child
+     */
+    private void borrowFromLeft(Inner<T> parent, int index) {
+        Node<T> child = parent.children[index];
+        Node<T> left = parent.children[index - 1];
+
+        if (child instanceof Leaf) {
+            insertKey(child, 0, left.keys[left.count - 1]);
+            removeKey(left, left.count - 1);
+            parent.keys[index - 1] = child.keys[0];
+        } else {
+            Inner<T> innerChild = (Inner<T>) child;
+            Inner<T> innerLeft = (Inner<T>) left;
+
+            System.arraycopy(innerChild.children, 0, innerChild.children, 1, child.count + 1);
+            innerChild.children[0] = innerLeft.children[left.count];
+            innerLeft.children[left.count] = null;
+
+            insertKey(child, 0, parent.keys[index - 1]);
+            parent.keys[index - 1] = left.keys[left.count - 1];
+            removeKey(left, left.count - 1);
+        }
+    }
+
+    /**
+     * Moves the least key of the right sibling into the child at the given
+     * index and updates the separator between them.
+     *
+     * @param parent the parent of the child
+     * @param index  the index of the child
+     */
+    private void borrowFromRight(Inner<T> parent, int index) {
+        Node<T> child = parent.children[index];
+        Node<T> right = parent.children[index + 1];
+
+        if (child instanceof Leaf) {
+            insertKey(child, child.count, right.keys[0]);
+            removeKey(right, 0);
+            parent.keys[index] = right.keys[0];
+        } else {
+            Inner<T> innerChild = (Inner<T>) child;
+            Inner<T> innerRight = (Inner<T>) right;
+
+            innerChild.children[child.count + 1] = innerRight.children[0];
+            System.arraycopy(innerRight.children, 1, innerRight.children, 0, right.count);
+            innerRight.children[right.count] = null;
+
+            insertKey(child, child.count, parent.keys[index]);
+            parent.keys[index] = right.keys[0];
+            removeKey(right, 0);
+        }
+    }
+
+    /**
+     * Merges the child at the given index with its right sibling and removes
+     * the separator between them from the parent.
+     *
+     * @param parent the parent of the children
+     * @param index  the index of the left child
+     */
+    private void merge(Inner<T> parent, int index) {
+        Node<T> left = parent.children[index];
+        Node<T> right = parent.children[index + 1];
+
+        if (left instanceof Leaf) {
+            Leaf<T> leftLeaf = (Leaf<T>) left;
+            Leaf<T> rightLeaf = (Leaf<T>) right;
+
+            leftLeaf.next = rightLeaf.next;
+
+            if (rightLeaf.next != null) {
+                rightLeaf.next.prev = leftLeaf;
+            }
+        } else {
+            System.arraycopy(((Inner<T>) right).children, 0, ((Inner<T>) left).children, left.count + 1,
+                    right.count + 1);
+            left.keys[left.count++] = parent.keys[index];
+        }
+
+        moveKeys(right, 0, left);
+
+        removeKey(parent, index);
+        System.arraycopy(parent.children, index + 2, parent.children, index + 1, parent.count - index);
+        parent.children[parent.count + 1] = null;
+    }
+
+    /**
+     * Moves the keys of the source node starting from the given index to the
+     * end of the target node.
+     *
+     * @param source the node to move keys from
+     * @param from   the index of the first key to be moved
+     * @param target the node to move keys to
+     */
+    private void moveKeys(Node<T> source, int from, Node<T> target) {
+        int length = source.count - from;
+
+        System.arraycopy(source.keys, from, target.keys, target.count, length);
+        Arrays.fill(source.keys, from, source.count, null);
+
+        target.count += length;
+        source.count = from;
+    }
+
+    /**
+     * Inserts the key at the given position of the node shifting the greater
+     * keys to the right.
+     *
+     * @param node  the node
+     * @param index the position of the key
+     * @param key   the key to be inserted
+     */
+    private void insertKey(Node<T> node, int index, Object key) {
+        System.arraycopy(node.keys, index, node.keys, index + 1, node.count - index);
+        node.keys[index] = key;
+        node.count++;
+    }
+
+    /**
+     * Removes the key at the given position of the node shifting the greater
+     * keys to the left.
+     *
+     * @param node  the node
+     * @param index the position of the key
+     */
+    private void removeKey(Node<T> node, int index) {
+        System.arraycopy(node.keys, index + 1, node.keys, index, node.count - index - 1);
+        node.keys[--node.count] = null;
+    }
+
+    /**
+     * Returns the leaf which contains the given key, or should contain it if
+     * the key is not present.
+     *
+     * @param key the key to look up
+     * @return the leaf for the given key
+     */
+    private Leaf<T> findLeaf(T key) {
+        Node<T> node = root;
+
+        while (node instanceof Inner) {
+            Inner<T> inner = (Inner<T>) node;
+            node = inner.children[childIndex(inner, key)];
+        }
+
+        return (Leaf<T>) node;
+    }
+
+    /**
+     * Returns the index of the child of the inner node whose subtree should
+     * contain the given key.
+     *
+     * @param node the inner node
+     * @param key  the key to look up
+     * @return the index of the child
+     */
+    private int childIndex(Inner<T> node, T key) {
+        int index = search(node, key);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * Binary search of the key among the keys of the node.
+     *
+     * @param node the node to search in
+     * @param key  the key to look up
+     * @return the index of the key if it is found, otherwise
+     *         {@code -(insertion point) - 1}, as
+     *         {@link Arrays#binarySearch(Object[], Object)} does
+     */
+    @SuppressWarnings("unchecked")
+    private int search(Node<T> node, T key) {
+        int low = 0;
+        int high = node.count - 1;
+        int result = -1;
+
+        while (low <= high && result < 0) {
+            int middle = (low + high) >>> 1;
+            int comparatorResult = comparator.compare((T) node.keys[middle], key);
+
+            if (comparatorResult < 0) {
+                low = middle + 1;
+            } else if (comparatorResult > 0) {
+                high = middle - 1;
+            } else {
+                result = middle;
+            }
+        }
+
+        return result >= 0 ? result : -(low + 1);
+    }
+}
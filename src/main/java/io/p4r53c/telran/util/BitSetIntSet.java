@@ -0,0 +1,447 @@
+package io.p4r53c.telran.util;
+
+import java.util.Iterator;
+
+import java.util.Arrays;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A dense implementation of the {@link SortedSet} interface for integers of
+ * a small fixed range, such as enum ordinals or ids up to 65535.
+ * <p>
+ * Every value of the range {@code [min, max]} is one bit of a {@code long}
+ * array, so the set takes {@code (max - min + 1) / 8} bytes whatever its
+ * size, lookups are a single word access without hashing or boxed nodes, and
+ * iteration, {@link #floor}, {@link #ceiling} and the set algebra
+ * ({@link #and}, {@link #or}, {@link #andNot}) work a word at a time.
+ * <p>
+ * Adding a value outside the range throws {@link IllegalArgumentException};
+ * looking up or removing such a value simply finds nothing.
+ *
+ * @author p4r53c
+ */
+public class BitSetIntSet implements SortedSet<Integer> {
+
+    private static final int DEFAULT_MAX = 0xFFFF;
+
+    private final int min;
+
+    private final int max;
+
+    private final long[] words;
+
+    private int size;
+
+    /**
+     * Creates an empty set for the values from {@code min} to {@code max}
+     * inclusive.
+     *
+     * @param min the least value of the range
+     * @param max the greatest value of the range
+     * @throws IllegalArgumentException if {@code min > max} or the range has
+     *                                  more than {@link Integer#MAX_VALUE}
+     *                                  values
+     */
+    public BitSetIntSet(int min, int max) {
+        if (min > max || (long) max - min >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Illegal range: [" + min + ", " + max + "]");
+        }
+
+        this.min = min;
+        this.max = max;
+        words = new long[(max - min) / Long.SIZE + 1];
+    }
+
+    public BitSetIntSet(int max) {
+        this(0, max);
+    }
+
+    public BitSetIntSet() {
+        this(DEFAULT_MAX);
+    }
+
+    private class BitSetIntSetIterator implements Iterator<Integer> {
+
+        int current = nextSetBit(0);
+        int prev = -1;
+
+        @Override
+        public boolean hasNext() {
+            return current >= 0;
+        }
+
+        @Override
+        public Integer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            prev = current;
+            current = nextSetBit(current + 1);
+
+            return min + prev;
+        }
+
+        @Override
+        public void remove() {
+            if (prev < 0) {
+                throw new IllegalStateException();
+            }
+
+            clearBit(prev);
+            prev = -1;
+        }
+    }
+
+    /**
+     * Adds the given value to the set.
+     *
+     * @param obj the value to be added
+     * @return true if the value was added, false if it was already in the set
+     * @throws IllegalArgumentException if the value is out of the range of the
+     *                                  set
+     */
+    @Override
+    public boolean add(Integer obj) {
+        if (!isInRange(obj)) {
+            throw new IllegalArgumentException("Value " + obj + " is out of range [" + min + ", " + max + "]");
+        }
+
+        int index = obj - min;
+        long mask = 1L << index;
+        boolean result = (words[index >>> 6] & mask) == 0;
+
+        if (result) {
+            words[index >>> 6] |= mask;
+            size++;
+        }
+
+        return result;
+    }
+
+    /**
+     * Removes the given value from the set.
+     *
+     * @param pattern the value to be removed
+     * @return true if the value was removed, false if it was not in the set
+     */
+    @Override
+    public boolean remove(Integer pattern) {
+        boolean result = contains(pattern);
+
+        if (result) {
+            clearBit(pattern - min);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of values in the set.
+     *
+     * @return the number of values in the set
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the set is empty.
+     *
+     * @return true if the set is empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns true if the set contains the given value.
+     *
+     * @param pattern the value to be searched for
+     * @return true if the set contains the given value, false otherwise
+     */
+    @Override
+    public boolean contains(Integer pattern) {
+        int index = pattern - min;
+        return isInRange(pattern) && (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns the given value if it is in the set.
+     *
+     * @param pattern the value to be searched for
+     * @return the value, or null if it is not in the set
+     */
+    @Override
+    public Integer get(Object pattern) {
+        return pattern instanceof Integer && contains((Integer) pattern) ? (Integer) pattern : null;
+    }
+
+    /**
+     * Returns an iterator over the values in ascending order.
+     *
+     * @return an iterator over the values of the set
+     */
+    @Override
+    public Iterator<Integer> iterator() {
+        return new BitSetIntSetIterator();
+    }
+
+    /**
+     * Performs the given action for each value in ascending order, taking
+     * set bits of every word with {@link Long#numberOfTrailingZeros(long)}.
+     *
+     * @param action the action to be performed for each value
+     */
+    @Override
+    public void forEach(Consumer<? super Integer> action) {
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+
+            while (word != 0) {
+                action.accept(min + i * Long.SIZE + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * Removes values matching the predicate in a single pass over the words.
+     *
+     * @param predicate a predicate to test values for removal
+     * @return true if any values were removed, false otherwise
+     */
+    @Override
+    public boolean removeIf(Predicate<Integer> predicate) {
+        int oldSize = size;
+
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+
+            while (word != 0) {
+                long bit = word & -word;
+
+                if (predicate.test(min + i * Long.SIZE + Long.numberOfTrailingZeros(word))) {
+                    words[i] &= ~bit;
+                    size--;
+                }
+
+                word ^= bit;
+            }
+        }
+
+        return size < oldSize;
+    }
+
+    /**
+     * Removes all values keeping the range.
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0);
+        size = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer first() {
+        return toValue(nextSetBit(0));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer last() {
+        return toValue(previousSetBit(max - min));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer floor(Integer key) {
+        return key < min ? null : toValue(previousSetBit(Math.min(key, max) - min));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer ceiling(Integer key) {
+        return key > max ? null : toValue(nextSetBit(Math.max(key, min) - min));
+    }
+
+    /**
+     * Returns a new set of the same range with the values from {@code from}
+     * inclusive to {@code to} exclusive, copied a word at a time.
+     *
+     * @param from the lower bound, inclusive
+     * @param to   the upper bound, exclusive
+     * @return the set of the values within the bounds
+     */
+    @Override
+    public SortedSet<Integer> subSet(Integer from, Integer to) {
+        BitSetIntSet result = new BitSetIntSet(min, max);
+        long fromIndex = Math.max((long) from - min, 0);
+        long toIndex = Math.min((long) to - min, (long) max - min + 1);
+
+        if (fromIndex < toIndex) {
+            int first = (int) (fromIndex >>> 6);
+            int last = (int) ((toIndex - 1) >>> 6);
+
+            for (int i = first; i <= last; i++) {
+                long word = words[i];
+
+                if (i == first) {
+                    word &= -1L << fromIndex;
+                }
+
+                if (i == last) {
+                    word &= -1L >>> (Long.SIZE - 1 - ((toIndex - 1) & 63));
+                }
+
+                result.words[i] = word;
+                result.size += Long.bitCount(word);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the intersection of this set and the other one.
+     *
+     * @param other the set of the same range
+     * @return a new set of the values contained in both sets
+     * @throws IllegalArgumentException if the ranges of the sets differ
+     */
+    public BitSetIntSet and(BitSetIntSet other) {
+        BitSetIntSet result = newWithSameRange(other);
+
+        for (int i = 0; i < words.length; i++) {
+            result.words[i] = words[i] & other.words[i];
+            result.size += Long.bitCount(result.words[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the union of this set and the other one.
+     *
+     * @param other the set of the same range
+     * @return a new set of the values contained in either set
+     * @throws IllegalArgumentException if the ranges of the sets differ
+     */
+    public BitSetIntSet or(BitSetIntSet other) {
+        BitSetIntSet result = newWithSameRange(other);
+
+        for (int i = 0; i < words.length; i++) {
+            result.words[i] = words[i] | other.words[i];
+            result.size += Long.bitCount(result.words[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the difference of this set and the other one.
+     *
+     * @param other the set of the same range
+     * @return a new set of the values contained in this set but not in the
+     *         other one
+     * @throws IllegalArgumentException if the ranges of the sets differ
+     */
+    public BitSetIntSet andNot(BitSetIntSet other) {
+        BitSetIntSet result = newWithSameRange(other);
+
+        for (int i = 0; i < words.length; i++) {
+            result.words[i] = words[i] & ~other.words[i];
+            result.size += Long.bitCount(result.words[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the least value of the range.
+     *
+     * @return the least value the set may contain
+     */
+    public int getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the greatest value of the range.
+     *
+     * @return the greatest value the set may contain
+     */
+    public int getMax() {
+        return max;
+    }
+
+    private boolean isInRange(int value) {
+        return value >= min && value <= max;
+    }
+
+    private Integer toValue(int index) {
+        return index < 0 ? null : min + index;
+    }
+
+    private void clearBit(int index) {
+        words[index >>> 6] &= ~(1L << index);
+        size--;
+    }
+
+    /**
+     * Returns the index of the first set bit at or after the given one.
+     *
+     * @param index the bit index to start from
+     * @return the index of the set bit, or -1 if there is none
+     */
+    private int nextSetBit(int index) {
+        int wordIndex = index >>> 6;
+        long word = wordIndex < words.length ? words[wordIndex] & (-1L << index) : 0;
+
+        while (word == 0 && ++wordIndex < words.length) {
+            word = words[wordIndex];
+        }
+
+        return word == 0 ? -1 : wordIndex * Long.SIZE + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Returns the index of the last set bit at or before the given one.
+     *
+     * @param index the bit index to start from, not negative
+     * @return the index of the set bit, or -1 if there is none
+     */
+    private int previousSetBit(int index) {
+        int wordIndex = index >>> 6;
+        long word = words[wordIndex] & (-1L >>> (Long.SIZE - 1 - (index & 63)));
+
+        while (word == 0 && --wordIndex >= 0) {
+            word = words[wordIndex];
+        }
+
+        return word == 0 ? -1 : wordIndex * Long.SIZE + Long.SIZE - 1 - Long.numberOfLeadingZeros(word);
+    }
+
+    private BitSetIntSet newWithSameRange(BitSetIntSet other) {
+        if (other.min != min || other.max != max) {
+            throw new IllegalArgumentException("Sets have different ranges");
+        }
+
+        return new BitSetIntSet(min, max);
+    }
+}
@@ -0,0 +1,222 @@
+package io.p4r53c.telran.util;
+
+import java.io.Serializable;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import java.util.Arrays;
+
+/**
+ * A Bloom filter: a probabilistic set that answers whether an element might
+ * have been added. A negative answer is always right, a positive one is wrong
+ * with about the configured false-positive rate once the expected number of
+ * elements has been added.
+ * <p>
+ * The number of bits {@code m} and of hash functions {@code k} are derived
+ * from the expected number of elements {@code n} and the false-positive rate
+ * {@code p} as {@code m = -n ln p / (ln 2)^2} and {@code k = m / n ln 2}. The
+ * {@code k} bit positions are produced by double hashing from a 64-bit mix of
+ * the element's {@code hashCode}, so filters built in different processes are
+ * compatible as long as the elements' hash codes are stable, as they are for
+ * strings and boxed numbers. {@link #toByteArray()} and
+ * {@link #fromByteArray(byte[])} provide a compact portable form.
+ *
+ * @author p4r53c
+ *
+ * @param <T> type of elements
+ */
+public class BloomFilter<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAGIC = 0x424C4F4D;
+
+    private static final int MIN_BITS = Long.SIZE;
+
+    private final long[] bits;
+
+    private final int nBits;
+
+    private final int nHashes;
+
+    /**
+     * Creates an empty filter sized for the given number of elements and
+     * false-positive rate.
+     *
+     * @param expectedElements  the expected number of elements
+     * @param falsePositiveRate the desired false-positive rate, between 0 and 1
+     *                          exclusive
+     * @throws IllegalArgumentException if the number of elements is negative or
+     *                                  the rate is out of range
+     */
+    public BloomFilter(int expectedElements, double falsePositiveRate) {
+        if (expectedElements < 0) {
+            throw new IllegalArgumentException("Illegal expected number of elements: " + expectedElements);
+        }
+
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("Illegal false positive rate: " + falsePositiveRate);
+        }
+
+        int n = Math.max(expectedElements, 1);
+        double m = -n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+
+        nBits = (int) Math.min(Integer.MAX_VALUE - Long.SIZE, Math.max(MIN_BITS, (long) Math.ceil(m)));
+        nHashes = Math.max(1, (int) Math.round((double) nBits / n * Math.log(2)));
+        bits = new long[(nBits + Long.SIZE - 1) / Long.SIZE];
+    }
+
+    /**
+     * Creates a filter from its parts.
+     *
+     * @param bits    the bit array
+     * @param nBits   the number of bits used
+     * @param nHashes the number of hash functions
+     */
+    private BloomFilter(long[] bits, int nBits, int nHashes) {
+        this.bits = bits;
+        this.nBits = nBits;
+        this.nHashes = nHashes;
+    }
+
+    /**
+     * Adds the element to the filter.
+     *
+     * @param obj the element to be added
+     * @return true if any bit has changed, i.e. the element has definitely not
+     *         been added before, false otherwise
+     */
+    public boolean add(T obj) {
+        boolean result = false;
+        long hash = Hashing.mix(obj.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        for (int i = 0; i < nHashes; i++) {
+            int bit = position(h1 + i * h2);
+            long mask = 1L << bit;
+            result |= (bits[bit >>> 6] & mask) == 0;
+            bits[bit >>> 6] |= mask;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns true if the element might have been added to the filter.
+     *
+     * @param obj the element to be checked
+     * @return false if the element has definitely not been added, true
+     *         otherwise
+     */
+    public boolean mightContain(Object obj) {
+        long hash = Hashing.mix(obj.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        boolean result = true;
+        int i = 0;
+
+        while (result && i < nHashes) {
+            int bit = position(h1 + i++ * h2);
+            result = (bits[bit >>> 6] & (1L << bit)) != 0;
+        }
+
+        return result;
+    }
+
+    /**
+     * Adds all elements of the other filter to this one.
+     *
+     * @param other the filter of the same size and number of hash functions
+     * @throws IllegalArgumentException if the filters are not compatible
+     */
+    public void merge(BloomFilter<T> other) {
+        if (other.nBits != nBits || other.nHashes != nHashes) {
+            throw new IllegalArgumentException("Bloom filters are not compatible");
+        }
+
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] |= other.bits[i];
+        }
+    }
+
+    /**
+     * Removes all elements from the filter.
+     */
+    public void clear() {
+        Arrays.fill(bits, 0);
+    }
+
+    /**
+     * Returns the number of bits of the filter.
+     *
+     * @return the number of bits
+     */
+    public int getBitSize() {
+        return nBits;
+    }
+
+    /**
+     * Returns the number of hash functions of the filter.
+     *
+     * @return the number of hash functions
+     */
+    public int getHashCount() {
+        return nHashes;
+    }
+
+    /**
+     * Returns the filter as bytes: a magic number, the number of bits, the
+     * number of hash functions and the bit array, all big-endian.
+     *
+     * @return the bytes of the filter
+     */
+    public byte[] toByteArray() {
+        ByteBuffer buffer = ByteBuffer.allocate(3 * Integer.BYTES + bits.length * Long.BYTES);
+        buffer.putInt(MAGIC).putInt(nBits).putInt(nHashes);
+        buffer.asLongBuffer().put(bits);
+
+        return buffer.array();
+    }
+
+    /**
+     * Restores a filter from the bytes returned by {@link #toByteArray()}.
+     *
+     * @param <T>   type of elements
+     * @param bytes the bytes of the filter
+     * @return the filter
+     * @throws IllegalArgumentException if the bytes are not a valid filter
+     */
+    public static <T> BloomFilter<T> fromByteArray(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        try {
+            int magic = buffer.getInt();
+            int nBits = buffer.getInt();
+            int nHashes = buffer.getInt();
+            int nLongs = (nBits + Long.SIZE - 1) / Long.SIZE;
+
+            if (magic != MAGIC || nBits < MIN_BITS || nHashes < 1 || buffer.remaining() != nLongs * Long.BYTES) {
+                throw new IllegalArgumentException("Not a valid Bloom filter");
+            }
+
+            long[] bits = new long[nLongs];
+            buffer.asLongBuffer().get(bits);
+
+            return new BloomFilter<>(bits, nBits, nHashes);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Not a valid Bloom filter", e);
+        }
+    }
+
+    /**
+     * Maps a combined hash to a bit position.
+     *
+     * @param hash the combined hash
+     * @return the bit position in {@code [0, nBits)}
+     */
+    private int position(int hash) {
+        return (hash & Integer.MAX_VALUE) % nBits;
+    }
+}
@@ -0,0 +1,275 @@
+package io.p4r53c.telran.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import java.util.Arrays;
+
+/**
+ * A buffered reader of the binary format written by {@link CodecOutput}. The
+ * channel is read in buffer loads as the values are consumed, so it may hold
+ * more data after the collection; bytes read ahead stay in this input. To
+ * read several payloads written in a row, keep one input for the channel and
+ * pass it to the {@code readFrom} methods taking a {@code CodecInput}.
+ *
+ * @author p4r53c
+ */
+public final class CodecInput {
+
+    /**
+     * The number of bytes of an array of a length read from the channel that
+     * are allocated before they arrive. Longer arrays grow as their bytes are
+     * read, so a corrupt length ends in an {@link EOFException} instead of an
+     * allocation of its size.
+     */
+    static final int PREALLOCATED_BYTES = 1 << 16;
+
+    private final ReadableByteChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(CodecOutput.BUFFER_SIZE);
+
+    /**
+     * Creates an input reading the channel from its current position.
+     *
+     * @param channel the channel to be read
+     */
+    public CodecInput(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.flip();
+    }
+
+    /**
+     * Reads a byte.
+     *
+     * @return the byte
+     * @throws EOFException if the channel ends first
+     * @throws IOException  if the channel fails
+     */
+    public byte readByte() throws IOException {
+        ensureAvailable(Byte.BYTES);
+        return buffer.get();
+    }
+
+    /**
+     * Reads a fixed-width big-endian int of 4 bytes.
+     *
+     * @return the value
+     * @throws EOFException if the channel ends first
+     * @throws IOException  if the channel fails
+     */
+    public int readInt() throws IOException {
+        ensureAvailable(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    /**
+     * Reads a fixed-width big-endian long of 8 bytes.
+     *
+     * @return the value
+     * @throws EOFException if the channel ends first
+     * @throws IOException  if the channel fails
+     */
+    public long readLong() throws IOException {
+        ensureAvailable(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    /**
+     * Reads a big-endian IEEE 754 double of 8 bytes.
+     *
+     * @return the value
+     * @throws EOFException if the channel ends first
+     * @throws IOException  if the channel fails
+     */
+    public double readDouble() throws IOException {
+        ensureAvailable(Double.BYTES);
+        return buffer.getDouble();
+    }
+
+    /**
+     * Reads a value written by {@link CodecOutput#writeVarInt(int)}.
+     *
+     * @return the value
+     * @throws IOException if the channel fails, ends or the value does not
+     *                     fit an int
+     */
+    public int readVarInt() throws IOException {
+        long value = readVarLong();
+
+        if (value >>> Integer.SIZE != 0) {
+            throw new StreamCorruptedException("Variable-length int out of range: " + value);
+        }
+
+        return (int) value;
+    }
+
+    /**
+     * Reads a value written by {@link CodecOutput#writeVarLong(long)}.
+     *
+     * @return the value
+     * @throws IOException if the channel fails, ends or the value is longer
+     *                     than 10 bytes
+     */
+    public long readVarLong() throws IOException {
+        long result = 0;
+        int shift = 0;
+        byte b;
+
+        do {
+            if (shift >= Long.SIZE) {
+                throw new StreamCorruptedException("Variable-length long is too long");
+            }
+
+            b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+
+        return result;
+    }
+
+    /**
+     * Reads a string written by {@link CodecOutput#writeString(String)}.
+     *
+     * @return the string
+     * @throws IOException if the channel fails or ends
+     */
+    public String readString() throws IOException {
+        int length = readVarInt();
+        byte[] bytes = new byte[Math.min(length, PREALLOCATED_BYTES)];
+        int from = 0;
+
+        while (from < length) {
+            if (from == bytes.length) {
+                bytes = Arrays.copyOf(bytes, grownLength(bytes.length, length));
+            }
+
+            ensureAvailable(1);
+            int count = Math.min(bytes.length - from, buffer.remaining());
+            buffer.get(bytes, from, count);
+            from += count;
+        }
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads fixed-width values written by
+     * {@link CodecOutput#writeInts(int[], int, int)} into a range of an array.
+     *
+     * @param array the array
+     * @param from  the first index, inclusive
+     * @param to    the last index, exclusive
+     * @throws IOException if the channel fails or ends
+     */
+    public void readInts(int[] array, int from, int to) throws IOException {
+        while (from < to) {
+            ensureAvailable(Integer.BYTES);
+            int length = Math.min(to - from, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().get(array, from, length);
+            buffer.position(buffer.position() + length * Integer.BYTES);
+            from += length;
+        }
+    }
+
+    /**
+     * Reads fixed-width values written by
+     * {@link CodecOutput#writeLongs(long[], int, int)} into a range of an
+     * array.
+     *
+     * @param array the array
+     * @param from  the first index, inclusive
+     * @param to    the last index, exclusive
+     * @throws IOException if the channel fails or ends
+     */
+    public void readLongs(long[] array, int from, int to) throws IOException {
+        while (from < to) {
+            ensureAvailable(Long.BYTES);
+            int length = Math.min(to - from, buffer.remaining() / Long.BYTES);
+            buffer.asLongBuffer().get(array, from, length);
+            buffer.position(buffer.position() + length * Long.BYTES);
+            from += length;
+        }
+    }
+
+    /**
+     * Reads the given number of fixed-width ints into a new array, which grows
+     * as the values arrive.
+     *
+     * @param length the number of values, read from the channel
+     * @return the array of the values
+     * @throws IOException if the channel fails or ends
+     */
+    int[] readIntArray(int length) throws IOException {
+        int[] result = new int[Math.min(length, PREALLOCATED_BYTES / Integer.BYTES)];
+        int from = 0;
+
+        while (from < length) {
+            if (from == result.length) {
+                result = Arrays.copyOf(result, grownLength(result.length, length));
+            }
+
+            readInts(result, from, result.length);
+            from = result.length;
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads the given number of fixed-width longs into a new array, which
+     * grows as the values arrive.
+     *
+     * @param length the number of values, read from the channel
+     * @return the array of the values
+     * @throws IOException if the channel fails or ends
+     */
+    long[] readLongArray(int length) throws IOException {
+        long[] result = new long[Math.min(length, PREALLOCATED_BYTES / Long.BYTES)];
+        int from = 0;
+
+        while (from < length) {
+            if (from == result.length) {
+                result = Arrays.copyOf(result, grownLength(result.length, length));
+            }
+
+            readLongs(result, from, result.length);
+            from = result.length;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the doubled length of a full array, up to the final length.
+     */
+    static int grownLength(int length, int finalLength) {
+        return (int) Math.min(finalLength, 2L * length);
+    }
+
+    /**
+     * Reads from the channel until the buffer holds at least the given number
+     * of bytes.
+     *
+     * @param bytes the number of bytes needed, at most the buffer size
+     * @throws IOException if the channel fails or ends first
+     */
+    private void ensureAvailable(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            buffer.compact();
+
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Unexpected end of the channel");
+                }
+            }
+
+            buffer.flip();
+        }
+    }
+}
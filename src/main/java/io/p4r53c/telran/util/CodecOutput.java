@@ -0,0 +1,191 @@
+package io.p4r53c.telran.util;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A buffered writer of the binary format of {@link CollectionCodec} to a
+ * channel. Values are written into a fixed buffer that is drained to the
+ * channel whenever it fills up, so a collection of any size is streamed
+ * without intermediate arrays. The channel is neither flushed nor closed
+ * before {@link #flush()}.
+ * <p>
+ * Lengths and the elements of {@link ElementCodec#INTEGER} and
+ * {@link ElementCodec#LONG} are written as variable-length integers, 7 bits
+ * per byte; the bulk {@code writeInts}/{@code writeLongs} write fixed-width
+ * big-endian values.
+ *
+ * @author p4r53c
+ */
+public final class CodecOutput implements Flushable {
+
+    static final int BUFFER_SIZE = 1 << 13;
+
+    private final WritableByteChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * Creates an output writing to the channel at its current position.
+     *
+     * @param channel the channel to be written
+     */
+    public CodecOutput(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Writes the low-order byte of the value.
+     *
+     * @param value the value to be written
+     * @throws IOException if the channel fails
+     */
+    public void writeByte(int value) throws IOException {
+        ensureRemaining(Byte.BYTES);
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes a fixed-width big-endian int of 4 bytes.
+     *
+     * @param value the value to be written
+     * @throws IOException if the channel fails
+     */
+    public void writeInt(int value) throws IOException {
+        ensureRemaining(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    /**
+     * Writes a fixed-width big-endian long of 8 bytes.
+     *
+     * @param value the value to be written
+     * @throws IOException if the channel fails
+     */
+    public void writeLong(long value) throws IOException {
+        ensureRemaining(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    /**
+     * Writes a big-endian IEEE 754 double of 8 bytes.
+     *
+     * @param value the value to be written
+     * @throws IOException if the channel fails
+     */
+    public void writeDouble(double value) throws IOException {
+        ensureRemaining(Double.BYTES);
+        buffer.putDouble(value);
+    }
+
+    /**
+     * Writes a non-negative value in 1 to 5 bytes.
+     *
+     * @param value the value to be written
+     * @throws IOException if the channel fails
+     */
+    public void writeVarInt(int value) throws IOException {
+        writeVarLong(value & 0xFFFF_FFFFL);
+    }
+
+    /**
+     * Writes a value as an unsigned number in 1 to 10 bytes, 7 bits per byte
+     * with the high bit set on all bytes but the last.
+     *
+     * @param value the value to be written
+     * @throws IOException if the channel fails
+     */
+    public void writeVarLong(long value) throws IOException {
+        ensureRemaining(10);
+
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Writes a string as its UTF-8 length followed by its UTF-8 bytes.
+     *
+     * @param value the string to be written
+     * @throws IOException if the channel fails
+     */
+    public void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        int offset = 0;
+
+        while (offset < bytes.length) {
+            ensureRemaining(1);
+            int length = Math.min(bytes.length - offset, buffer.remaining());
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Writes a range of an array as fixed-width values, copying whole buffer
+     * loads at a time.
+     *
+     * @param array the array
+     * @param from  the first index, inclusive
+     * @param to    the last index, exclusive
+     * @throws IOException if the channel fails
+     */
+    public void writeInts(int[] array, int from, int to) throws IOException {
+        while (from < to) {
+            ensureRemaining(Integer.BYTES);
+            int length = Math.min(to - from, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().put(array, from, length);
+            buffer.position(buffer.position() + length * Integer.BYTES);
+            from += length;
+        }
+    }
+
+    /**
+     * Writes a range of an array as fixed-width values, copying whole buffer
+     * loads at a time.
+     *
+     * @param array the array
+     * @param from  the first index, inclusive
+     * @param to    the last index, exclusive
+     * @throws IOException if the channel fails
+     */
+    public void writeLongs(long[] array, int from, int to) throws IOException {
+        while (from < to) {
+            ensureRemaining(Long.BYTES);
+            int length = Math.min(to - from, buffer.remaining() / Long.BYTES);
+            buffer.asLongBuffer().put(array, from, length);
+            buffer.position(buffer.position() + length * Long.BYTES);
+            from += length;
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the channel.
+     *
+     * @throws IOException if the channel fails
+     */
+    @Override
+    public void flush() throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+}
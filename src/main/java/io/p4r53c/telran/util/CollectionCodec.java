@@ -0,0 +1,285 @@
+package io.p4r53c.telran.util;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import java.util.function.Supplier;
+
+/**
+ * A compact binary format of collections, streamed to and from channels
+ * through {@link CodecOutput} and {@link CodecInput}. A collection is written
+ * as a header, which is a magic number, the kind of the content and the
+ * number of elements, followed by the elements encoded by a pluggable
+ * {@link ElementCodec}. {@link MapCodec} writes maps the same way,
+ * {@link IntArrayList} and {@link LongArrayList} write their elements as
+ * fixed-width primitives.
+ * <p>
+ * Elements are read straight into the target collection; a
+ * {@link TreeSet} is linked into a balanced tree by
+ * {@link TreeSet#fromSorted(Iterator, int, Comparator)} as the elements
+ * arrive. Sizes read from a header are not trusted for allocation: arrays
+ * grow as their bytes arrive, so a corrupt header ends in an
+ * {@link java.io.EOFException} rather than a huge allocation.
+ *
+ * @author p4r53c
+ *
+ * @param <T> type of elements
+ */
+public final class CollectionCodec<T> {
+
+    static final int MAGIC = 0x7463_6F6C;
+
+    static final byte KIND_COLLECTION = 'C';
+    static final byte KIND_MAP = 'M';
+    static final byte KIND_INTS = 'I';
+    static final byte KIND_LONGS = 'L';
+
+    private final ElementCodec<T> codec;
+
+    /**
+     * Creates a codec of collections with the given codec of elements.
+     *
+     * @param codec the codec of elements
+     */
+    public CollectionCodec(ElementCodec<T> codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * Writes the collection to the channel in iteration order.
+     *
+     * @param collection the collection to be written
+     * @param channel    the channel
+     * @throws IOException if the channel fails
+     */
+    public void writeTo(Collection<? extends T> collection, WritableByteChannel channel) throws IOException {
+        CodecOutput out = new CodecOutput(channel);
+        writeTo(collection, out);
+        out.flush();
+    }
+
+    /**
+     * Writes the collection to an output owned by the caller in iteration
+     * order, without flushing it, so several collections and other values
+     * can be written in a row.
+     *
+     * @param collection the collection to be written
+     * @param out        the output
+     * @throws IOException if the channel fails
+     */
+    public void writeTo(Collection<? extends T> collection, CodecOutput out) throws IOException {
+        writeHeader(out, KIND_COLLECTION, collection.size());
+
+        for (T element : collection) {
+            codec.write(out, element);
+        }
+    }
+
+    /**
+     * Reads a collection from the channel and adds its elements to a new
+     * collection. The channel is read ahead in buffer loads, so bytes
+     * following the collection are consumed as well; several payloads written
+     * in a row are read with {@link #readFrom(CodecInput, Supplier)} and a
+     * single input.
+     *
+     * @param <C>     type of the collection
+     * @param channel the channel
+     * @param factory creates the empty collection
+     * @return the collection holding the elements read
+     * @throws IOException if the channel fails, ends early or does not hold a
+     *                     collection
+     */
+    public <C extends Collection<T>> C readFrom(ReadableByteChannel channel, Supplier<C> factory) throws IOException {
+        return readFrom(new CodecInput(channel), factory);
+    }
+
+    /**
+     * Reads a collection from an input owned by the caller and adds its
+     * elements to a new collection. The input keeps the bytes it read ahead,
+     * so the next payload can be read from it.
+     *
+     * @param <C>     type of the collection
+     * @param in      the input
+     * @param factory creates the empty collection
+     * @return the collection holding the elements read
+     * @throws IOException if the channel fails, ends early or does not hold a
+     *                     collection
+     */
+    public <C extends Collection<T>> C readFrom(CodecInput in, Supplier<C> factory) throws IOException {
+        int size = readHeader(in, KIND_COLLECTION);
+        C result = factory.get();
+
+        for (int i = 0; i < size; i++) {
+            result.add(codec.read(in));
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads a collection written in ascending order of the comparator, for
+     * example from a {@link TreeSet} with the same comparator, into a
+     * balanced tree set in linear time. Bytes following the collection are
+     * consumed as by {@link #readFrom(ReadableByteChannel, Supplier)}.
+     *
+     * @param channel    the channel
+     * @param comparator the comparator of the set
+     * @return the balanced tree set holding the elements read
+     * @throws IOException              if the channel fails, ends early or does
+     *                                  not hold a collection
+     * @throws IllegalArgumentException if the elements are not in strictly
+     *                                  ascending order
+     */
+    public TreeSet<T> readTreeSet(ReadableByteChannel channel, Comparator<T> comparator) throws IOException {
+        return readTreeSet(new CodecInput(channel), comparator);
+    }
+
+    /**
+     * Reads a collection written in ascending order of the comparator from an
+     * input owned by the caller into a balanced tree set in linear time.
+     *
+     * @param in         the input
+     * @param comparator the comparator of the set
+     * @return the balanced tree set holding the elements read
+     * @throws IOException              if the channel fails, ends early or does
+     *                                  not hold a collection
+     * @throws IllegalArgumentException if the elements are not in strictly
+     *                                  ascending order
+     */
+    public TreeSet<T> readTreeSet(CodecInput in, Comparator<T> comparator) throws IOException {
+        int size = readHeader(in, KIND_COLLECTION);
+
+        return readSorted(() -> TreeSet.fromSorted(new ElementIterator<>(in, size, codec::read), size, comparator));
+    }
+
+    /**
+     * Reads a collection written in ascending natural order into a balanced
+     * tree set in linear time.
+     *
+     * @param channel the channel
+     * @return the balanced tree set holding the elements read
+     * @throws IOException              if the channel fails, ends early or does
+     *                                  not hold a collection
+     * @throws IllegalArgumentException if the elements are not in strictly
+     *                                  ascending order
+     */
+    @SuppressWarnings("unchecked")
+    public TreeSet<T> readTreeSet(ReadableByteChannel channel) throws IOException {
+        return readTreeSet(channel, (Comparator<T>) Comparator.naturalOrder());
+    }
+
+    /**
+     * Reads a collection written in ascending natural order from an input
+     * owned by the caller into a balanced tree set in linear time.
+     *
+     * @param in the input
+     * @return the balanced tree set holding the elements read
+     * @throws IOException              if the channel fails, ends early or does
+     *                                  not hold a collection
+     * @throws IllegalArgumentException if the elements are not in strictly
+     *                                  ascending order
+     */
+    @SuppressWarnings("unchecked")
+    public TreeSet<T> readTreeSet(CodecInput in) throws IOException {
+        return readTreeSet(in, (Comparator<T>) Comparator.naturalOrder());
+    }
+
+    static void writeHeader(CodecOutput out, byte kind, int size) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(kind);
+        out.writeVarInt(size);
+    }
+
+    static int readHeader(CodecInput in, byte kind) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new StreamCorruptedException("Not a collection stream");
+        }
+
+        byte actualKind = in.readByte();
+
+        if (actualKind != kind) {
+            throw new StreamCorruptedException("Expected content '" + (char) kind + "', found '"
+                    + (char) actualKind + "'");
+        }
+
+        int size = in.readVarInt();
+
+        if (size < 0) {
+            throw new StreamCorruptedException("Negative size " + size);
+        }
+
+        return size;
+    }
+
+    /**
+     * Runs a tree builder consuming an {@link ElementIterator} and rethrows
+     * the I/O errors the iterator had to wrap.
+     *
+     * @param <R>     type of the result
+     * @param builder the builder
+     * @return the result of the builder
+     * @throws IOException if reading an element failed
+     */
+    static <R> R readSorted(Supplier<R> builder) throws IOException {
+        try {
+            return builder.get();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Reads a single element from an input.
+     *
+     * @param <E> type of elements
+     */
+    interface ElementReader<E> {
+        E read(CodecInput in) throws IOException;
+    }
+
+    /**
+     * Iterates over the given number of elements read lazily from an input.
+     *
+     * @param <E> type of elements
+     */
+    static final class ElementIterator<E> implements Iterator<E> {
+
+        private final CodecInput in;
+        private final ElementReader<E> reader;
+        private int remaining;
+
+        ElementIterator(CodecInput in, int size, ElementReader<E> reader) {
+            this.in = in;
+            this.remaining = size;
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            remaining--;
+
+            try {
+                return reader.read(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package io.p4r53c.telran.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events of the collections, so that a standard
+ * recording shows which collection stalled on an expensive internal
+ * operation. Every event carries the class of the collection and its identity
+ * hash code to tell instances apart.
+ * <p>
+ * The events follow the usual JFR pattern: an event object is created and
+ * timed around the operation and its fields are only filled in if
+ * {@code shouldCommit()} says it is recorded. With JFR off the JIT compiler
+ * eliminates the event object.
+ *
+ * @author p4r53c
+ */
+final class CollectionEvents {
+
+    static final String CATEGORY = "Collections";
+
+    private CollectionEvents() {
+    }
+
+    /**
+     * A base event identifying the collection that emitted it.
+     */
+    abstract static class CollectionEvent extends Event {
+
+        @Label("Collection Class")
+        Class<?> collectionClass;
+
+        @Label("Collection Identity")
+        @Description("The identity hash code of the collection")
+        int collectionIdentity;
+
+        void setCollection(Object collection) {
+            collectionClass = collection.getClass();
+            collectionIdentity = System.identityHashCode(collection);
+        }
+    }
+
+    @Name("io.p4r53c.telran.util.Rehash")
+    @Label("Hash Table Rehash")
+    @Description("A hash table was rebuilt with a new length")
+    @Category(CATEGORY)
+    static final class RehashEvent extends CollectionEvent {
+
+        @Label("Old Capacity")
+        int oldCapacity;
+
+        @Label("New Capacity")
+        int newCapacity;
+
+        @Label("Size")
+        int size;
+    }
+
+    @Name("io.p4r53c.telran.util.Reallocation")
+    @Label("Array Reallocation")
+    @Description("The backing array of a list was copied into a larger one")
+    @Category(CATEGORY)
+    static final class ReallocationEvent extends CollectionEvent {
+
+        @Label("Old Capacity")
+        int oldCapacity;
+
+        @Label("New Capacity")
+        int newCapacity;
+    }
+
+    @Name("io.p4r53c.telran.util.Rebalance")
+    @Label("Tree Rebalance")
+    @Description("A tree was rebuilt into a balanced one")
+    @Category(CATEGORY)
+    static final class RebalanceEvent extends CollectionEvent {
+
+        @Label("Size")
+        int size;
+
+        @Label("New Height")
+        int newHeight;
+    }
+
+    @Name("io.p4r53c.telran.util.DegenerateTree")
+    @Label("Degenerate Tree Depth")
+    @Description("A lookup walked much deeper than a balanced tree of the same size is high")
+    @Category(CATEGORY)
+    static final class DegenerateTreeEvent extends CollectionEvent {
+
+        @Label("Size")
+        int size;
+
+        @Label("Depth")
+        int depth;
+    }
+
+    @Name("io.p4r53c.telran.util.MapViewCopy")
+    @Label("Map View Copy")
+    @Description("The keys or values of a map were copied into a new collection")
+    @Category(CATEGORY)
+    static final class MapViewCopyEvent extends CollectionEvent {
+
+        @Label("View")
+        String view;
+
+        @Label("Size")
+        int size;
+    }
+}
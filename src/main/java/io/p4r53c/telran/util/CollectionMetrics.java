@@ -0,0 +1,245 @@
+package io.p4r53c.telran.util;
+
+import java.lang.management.ManagementFactory;
+
+import java.lang.ref.WeakReference;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and gauges describing how a collection behaves on its hot paths.
+ * <p>
+ * Metrics are opt-in: a collection creates them on
+ * {@code enableMetrics()} and until then pays a single null check per
+ * instrumented operation. The counters are:
+ * <ul>
+ * <li>lookups and probes: for {@link HashSet} the elements of a bucket
+ * compared per lookup, for {@link TreeSet} the comparator calls per
+ * root-to-node walk;</li>
+ * <li>resizes: rehashes of the {@link HashSet} table and reallocations of the
+ * {@link ArrayList} array.</li>
+ * </ul>
+ * The gauges (capacity, tree height, bucket-length histogram) are read from
+ * the collection on demand; the ones a collection does not have are reported
+ * as -1 or an empty histogram.
+ * <p>
+ * The gauges hold the collection weakly, so neither the metrics nor their
+ * MBean keep it reachable. Once the collection is garbage collected its
+ * gauges are reported as missing, while the counters keep their last values.
+ * <p>
+ * Counters may be read from any thread, for example through JMX after
+ * {@link #registerMBean(String)}. Gauges read a collection which is not
+ * thread-safe, so they are only approximate while it is being changed.
+ *
+ * @author p4r53c
+ */
+public final class CollectionMetrics implements CollectionMetricsMXBean {
+
+    /**
+     * The length of the bucket-length histogram. Its last slot counts the
+     * buckets of this length minus one or longer.
+     */
+    public static final int HISTOGRAM_LENGTH = 9;
+
+    private static final String DOMAIN = "io.p4r53c.telran.util";
+
+    private final LongAdder lookups = new LongAdder();
+
+    private final LongAdder probes = new LongAdder();
+
+    private final LongAdder resizes = new LongAdder();
+
+    private final IntSupplier capacity;
+
+    private final IntSupplier height;
+
+    private final Supplier<long[]> bucketLengthHistogram;
+
+    private ObjectName objectName;
+
+    /**
+     * Creates metrics with the given gauges of the collection. The gauges
+     * must not capture the collection, which is only held weakly.
+     *
+     * @param <C>                   type of the collection
+     * @param collection            the collection
+     * @param capacity              the capacity gauge, or null
+     * @param height                the height gauge, or null
+     * @param bucketLengthHistogram the histogram gauge, or null
+     */
+    <C> CollectionMetrics(C collection, ToIntFunction<C> capacity, ToIntFunction<C> height,
+            Function<C, long[]> bucketLengthHistogram) {
+        WeakReference<C> reference = new WeakReference<>(collection);
+
+        this.capacity = weakGauge(reference, capacity);
+        this.height = weakGauge(reference, height);
+        this.bucketLengthHistogram = bucketLengthHistogram == null ? null : () -> {
+            C referent = reference.get();
+            return referent == null ? new long[0] : bucketLengthHistogram.apply(referent);
+        };
+    }
+
+    private static <C> IntSupplier weakGauge(WeakReference<C> reference, ToIntFunction<C> gauge) {
+        return gauge == null ? null : () -> {
+            C referent = reference.get();
+            return referent == null ? -1 : gauge.applyAsInt(referent);
+        };
+    }
+
+    void recordLookup(int probeCount) {
+        lookups.increment();
+        probes.add(probeCount);
+    }
+
+    void recordResize() {
+        resizes.increment();
+    }
+
+    /**
+     * Returns the number of lookups, including the ones made by insertions
+     * and removals.
+     *
+     * @return the number of lookups
+     */
+    @Override
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    /**
+     * Returns the total number of probes of all lookups.
+     *
+     * @return the number of probes
+     */
+    @Override
+    public long getProbeCount() {
+        return probes.sum();
+    }
+
+    /**
+     * Returns the average number of probes per lookup.
+     *
+     * @return the average number of probes, or 0 if there were no lookups
+     */
+    @Override
+    public double getAverageProbes() {
+        long lookupCount = lookups.sum();
+        return lookupCount == 0 ? 0 : (double) probes.sum() / lookupCount;
+    }
+
+    /**
+     * Returns the number of resizes.
+     *
+     * @return the number of resizes
+     */
+    @Override
+    public long getResizeCount() {
+        return resizes.sum();
+    }
+
+    /**
+     * Returns the current capacity of the collection: the length of the hash
+     * table or of the array.
+     *
+     * @return the capacity, or -1 if the collection has none
+     */
+    @Override
+    public int getCapacity() {
+        return capacity == null ? -1 : capacity.getAsInt();
+    }
+
+    /**
+     * Returns the current height of the tree.
+     *
+     * @return the height, or -1 if the collection is not a tree
+     */
+    @Override
+    public int getHeight() {
+        return height == null ? -1 : height.getAsInt();
+    }
+
+    /**
+     * Returns the current numbers of buckets by their length: slot {@code i}
+     * counts the buckets holding {@code i} elements, the last slot counts
+     * longer buckets too.
+     *
+     * @return the histogram, or an empty array if the collection has no
+     *         buckets
+     */
+    @Override
+    public long[] getBucketLengthHistogram() {
+        return bucketLengthHistogram == null ? new long[0] : bucketLengthHistogram.get();
+    }
+
+    /**
+     * Resets all counters to zero.
+     */
+    @Override
+    public void reset() {
+        lookups.reset();
+        probes.reset();
+        resizes.reset();
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server under the name
+     * {@code io.p4r53c.telran.util:type=CollectionMetrics,name=<name>}.
+     * <p>
+     * The server holds the metrics until {@link #unregisterMBean()} or the
+     * {@code disableMetrics()} method of the collection is called. The
+     * collection itself is not kept reachable, but the registration and its
+     * name stay taken after the collection is garbage collected, so callers
+     * registering short-lived collections must unregister them.
+     *
+     * @param name the name of the collection
+     * @throws IllegalStateException if the registration fails, for example
+     *                               because the name is already taken
+     */
+    public synchronized void registerMBean(String name) {
+        unregisterMBean();
+
+        try {
+            ObjectName newName = new ObjectName(DOMAIN + ":type=CollectionMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, newName);
+            objectName = newName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register metrics of " + name, e);
+        }
+    }
+
+    /**
+     * Unregisters the metrics from the platform MBean server, if they are
+     * registered.
+     */
+    public synchronized void unregisterMBean() {
+        if (objectName != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+            try {
+                server.unregisterMBean(objectName);
+            } catch (JMException e) {
+                // already unregistered by someone else
+            }
+
+            objectName = null;
+        }
+    }
+
+    /**
+     * Returns the name the metrics are registered under.
+     *
+     * @return the name, or null if the metrics are not registered
+     */
+    public synchronized ObjectName getObjectName() {
+        return objectName;
+    }
+}
@@ -0,0 +1,26 @@
+package io.p4r53c.telran.util;
+
+/**
+ * The management interface of {@link CollectionMetrics}, so the metrics of a
+ * collection can be watched with any JMX console.
+ *
+ * @author p4r53c
+ */
+public interface CollectionMetricsMXBean {
+
+    long getLookupCount();
+
+    long getProbeCount();
+
+    double getAverageProbes();
+
+    long getResizeCount();
+
+    int getCapacity();
+
+    int getHeight();
+
+    long[] getBucketLengthHistogram();
+
+    void reset();
+}
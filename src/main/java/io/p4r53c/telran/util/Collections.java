@@ -0,0 +1,823 @@
+package io.p4r53c.telran.util;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+import java.util.concurrent.locks.StampedLock;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Factories of thread-safe wrappers over the collections and maps of this
+ * package.
+ * <p>
+ * Two flavours are offered. The {@code synchronizedX} wrappers serialize every
+ * operation on a single monitor. The {@code stampedX} wrappers use a
+ * {@link StampedLock}: readers share the read lock and writers take the
+ * exclusive lock. Only {@code size} and {@code isEmpty} are tried as
+ * optimistic reads without blocking, falling back to the read lock if a
+ * writer intervened. An optimistic read may observe the wrapped structure in
+ * the middle of a change, which is only safe for reads of a few fields that
+ * are validated before they are used; {@code size} and {@code isEmpty} of the
+ * collections of this package are such reads. Lookups walk trees, buckets
+ * and iterators, and may record metrics or events, so they always take the
+ * read lock.
+ * <p>
+ * Bulk operations ({@code forEach}, {@code removeIf}, {@code clear}) are
+ * executed under a single lock acquisition. A {@link StampedLock} is not
+ * reentrant, so the stamped wrappers never call the action of
+ * {@code forEach} or the predicate of {@code removeIf} under the lock: they
+ * are called over a snapshot, then {@code removeIf} removes the matching
+ * elements under a single write lock. Such callbacks may therefore use the
+ * wrapper itself, as they may in the monitor flavour. Iterators and
+ * streams work on a snapshot copied under a single lock acquisition, so they
+ * need no external locking; {@code remove} of such an iterator goes through
+ * the wrapper.
+ *
+ * @author p4r53c
+ */
+public final class Collections {
+
+    private Collections() {
+    }
+
+    /**
+     * Returns a collection whose operations are serialized on a monitor.
+     *
+     * @param <T>        type of elements
+     * @param collection the collection to be wrapped
+     * @return the thread-safe collection
+     */
+    public static <T> Collection<T> synchronizedCollection(Collection<T> collection) {
+        return new GuardedCollection<>(collection, new MonitorGuard());
+    }
+
+    /**
+     * Returns a list whose operations are serialized on a monitor.
+     *
+     * @param <T>  type of elements
+     * @param list the list to be wrapped
+     * @return the thread-safe list
+     */
+    public static <T> List<T> synchronizedList(List<T> list) {
+        return new GuardedList<>(list, new MonitorGuard());
+    }
+
+    /**
+     * Returns a set whose operations are serialized on a monitor.
+     *
+     * @param <T> type of elements
+     * @param set the set to be wrapped
+     * @return the thread-safe set
+     */
+    public static <T> Set<T> synchronizedSet(Set<T> set) {
+        return new GuardedSet<>(set, new MonitorGuard());
+    }
+
+    /**
+     * Returns a sorted set whose operations are serialized on a monitor.
+     *
+     * @param <T>       type of elements
+     * @param sortedSet the sorted set to be wrapped
+     * @return the thread-safe sorted set
+     */
+    public static <T> SortedSet<T> synchronizedSortedSet(SortedSet<T> sortedSet) {
+        return new GuardedSortedSet<>(sortedSet, new MonitorGuard());
+    }
+
+    /**
+     * Returns a map whose operations are serialized on a monitor.
+     *
+     * @param <K> type of keys
+     * @param <V> type of values
+     * @param map the map to be wrapped
+     * @return the thread-safe map
+     */
+    public static <K, V> Map<K, V> synchronizedMap(Map<K, V> map) {
+        return new GuardedMap<>(map, new MonitorGuard());
+    }
+
+    /**
+     * Returns a collection guarded by a {@link StampedLock} with shared
+     * reads.
+     *
+     * @param <T>        type of elements
+     * @param collection the collection to be wrapped
+     * @return the thread-safe collection
+     */
+    public static <T> Collection<T> stampedCollection(Collection<T> collection) {
+        return new GuardedCollection<>(collection, new StampedGuard());
+    }
+
+    /**
+     * Returns a list guarded by a {@link StampedLock} with shared reads.
+     *
+     * @param <T>  type of elements
+     * @param list the list to be wrapped
+     * @return the thread-safe list
+     */
+    public static <T> List<T> stampedList(List<T> list) {
+        return new GuardedList<>(list, new StampedGuard());
+    }
+
+    /**
+     * Returns a set guarded by a {@link StampedLock} with shared reads.
+     *
+     * @param <T> type of elements
+     * @param set the set to be wrapped
+     * @return the thread-safe set
+     */
+    public static <T> Set<T> stampedSet(Set<T> set) {
+        return new GuardedSet<>(set, new StampedGuard());
+    }
+
+    /**
+     * Returns a sorted set guarded by a {@link StampedLock} with shared
+     * reads.
+     *
+     * @param <T>       type of elements
+     * @param sortedSet the sorted set to be wrapped
+     * @return the thread-safe sorted set
+     */
+    public static <T> SortedSet<T> stampedSortedSet(SortedSet<T> sortedSet) {
+        return new GuardedSortedSet<>(sortedSet, new StampedGuard());
+    }
+
+    /**
+     * Returns a map guarded by a {@link StampedLock} with shared reads.
+     *
+     * @param <K> type of keys
+     * @param <V> type of values
+     * @param map the map to be wrapped
+     * @return the thread-safe map
+     */
+    public static <K, V> Map<K, V> stampedMap(Map<K, V> map) {
+        return new GuardedMap<>(map, new StampedGuard());
+    }
+
+    /**
+     * A locking policy shared by all wrappers.
+     */
+    private interface Guard {
+
+        /**
+         * Executes a read-only action of a few field reads without side
+         * effects, which may be executed more than once and may observe a
+         * structure in the middle of a change.
+         *
+         * @param <R>    type of the result
+         * @param action the action
+         * @return the result of the action
+         */
+        <R> R peek(Supplier<R> action);
+
+        /**
+         * Executes a read-only action exactly once under the read lock.
+         *
+         * @param <R>    type of the result
+         * @param action the action
+         * @return the result of the action
+         */
+        <R> R read(Supplier<R> action);
+
+        /**
+         * Executes a modifying action under the exclusive lock.
+         *
+         * @param <R>    type of the result
+         * @param action the action
+         * @return the result of the action
+         */
+        <R> R write(Supplier<R> action);
+
+        /**
+         * Returns true if a thread holding the lock may acquire it again, so
+         * user callbacks may be called under the lock.
+         *
+         * @return true if the lock is reentrant
+         */
+        boolean isReentrant();
+
+        /**
+         * Executes a modifying action without result under the exclusive lock.
+         *
+         * @param action the action
+         */
+        default void update(Runnable action) {
+            write(() -> {
+                action.run();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * A guard serializing all actions on its own monitor.
+     */
+    private static final class MonitorGuard implements Guard {
+
+        @Override
+        public synchronized <R> R peek(Supplier<R> action) {
+            return action.get();
+        }
+
+        @Override
+        public synchronized <R> R read(Supplier<R> action) {
+            return action.get();
+        }
+
+        @Override
+        public synchronized <R> R write(Supplier<R> action) {
+            return action.get();
+        }
+
+        @Override
+        public boolean isReentrant() {
+            return true;
+        }
+    }
+
+    /**
+     * A guard based on a {@link StampedLock}. A peek copies fields
+     * optimistically and is repeated under the read lock if the stamp is not
+     * valid afterwards; all other reads take the read lock.
+     */
+    private static final class StampedGuard implements Guard {
+
+        private final StampedLock lock = new StampedLock();
+
+        @Override
+        public <R> R peek(Supplier<R> action) {
+            long stamp = lock.tryOptimisticRead();
+            R result = stamp == 0 ? null : action.get();
+
+            return stamp != 0 && lock.validate(stamp) ? result : read(action);
+        }
+
+        @Override
+        public <R> R read(Supplier<R> action) {
+            long stamp = lock.readLock();
+
+            try {
+                return action.get();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        public <R> R write(Supplier<R> action) {
+            long stamp = lock.writeLock();
+
+            try {
+                return action.get();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @Override
+        public boolean isReentrant() {
+            return false;
+        }
+    }
+
+    /**
+     * An iterator over a snapshot of a wrapped collection. Removal is passed
+     * to the wrapper together with the current position of the element.
+     *
+     * @param <T> type of elements
+     */
+    private static class SnapshotIterator<T> implements Iterator<T> {
+
+        private final Object[] snapshot;
+
+        private final BiConsumer<T, Integer> remover;
+
+        private int current;
+
+        private int removed;
+
+        private boolean hasPrev;
+
+        /**
+         * Creates an iterator over the snapshot.
+         *
+         * @param snapshot the elements copied under the lock
+         * @param remover  removes an element given its expected position
+         */
+        SnapshotIterator(Object[] snapshot, BiConsumer<T, Integer> remover) {
+            this.snapshot = snapshot;
+            this.remover = remover;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return current < snapshot.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            hasPrev = true;
+
+            return (T) snapshot[current++];
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void remove() {
+            if (!hasPrev) {
+                throw new IllegalStateException();
+            }
+
+            remover.accept((T) snapshot[current - 1], current - 1 - removed);
+            removed++;
+            hasPrev = false;
+        }
+    }
+
+    /**
+     * Tells which elements of a collection matched a predicate tested over its
+     * snapshot. While the collection iterates in the order of the snapshot,
+     * its elements are matched by position; once they diverge, because the
+     * collection was modified after the snapshot was taken, the elements are
+     * looked up among the matching ones of the snapshot.
+     *
+     * @param <T> type of elements
+     */
+    private static final class SnapshotMatcher<T> implements Predicate<T> {
+
+        private final Object[] snapshot;
+
+        private final boolean[] matching;
+
+        private int position;
+
+        private HashSet<Object> matched;
+
+        SnapshotMatcher(Object[] snapshot, boolean[] matching) {
+            this.snapshot = snapshot;
+            this.matching = matching;
+        }
+
+        @Override
+        public boolean test(T obj) {
+            boolean result;
+
+            if (matched == null && position < snapshot.length && snapshot[position] == obj) {
+                result = matching[position++];
+            } else {
+                result = getMatched().contains(obj);
+            }
+
+            return result;
+        }
+
+        private HashSet<Object> getMatched() {
+            if (matched == null) {
+                matched = new HashSet<>();
+
+                for (int i = 0; i < snapshot.length; i++) {
+                    if (matching[i]) {
+                        matched.add(snapshot[i]);
+                    }
+                }
+            }
+
+            return matched;
+        }
+    }
+
+    /**
+     * A collection wrapper executing every operation through a guard.
+     *
+     * @param <T> type of elements
+     */
+    private static class GuardedCollection<T> implements Collection<T> {
+
+        protected final Collection<T> collection;
+
+        protected final Guard guard;
+
+        /**
+         * Creates a wrapper.
+         *
+         * @param collection the collection to be wrapped
+         * @param guard      the guard for all operations
+         */
+        GuardedCollection(Collection<T> collection, Guard guard) {
+            this.collection = Objects.requireNonNull(collection);
+            this.guard = guard;
+        }
+
+        @Override
+        public boolean add(T obj) {
+            return guard.write(() -> collection.add(obj));
+        }
+
+        @Override
+        public boolean remove(T pattern) {
+            return guard.write(() -> collection.remove(pattern));
+        }
+
+        @Override
+        public int size() {
+            return guard.peek(collection::size);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return guard.peek(collection::isEmpty);
+        }
+
+        @Override
+        public boolean contains(T pattern) {
+            return guard.read(() -> collection.contains(pattern));
+        }
+
+        /**
+         * Removes the elements matching the predicate. With a non-reentrant
+         * guard the predicate is tested over a snapshot and the matching
+         * elements are then removed under a single write lock.
+         *
+         * @param predicate the predicate
+         * @return true if any element was removed
+         */
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean removeIf(Predicate<T> predicate) {
+            boolean result;
+
+            if (guard.isReentrant()) {
+                result = guard.write(() -> collection.removeIf(predicate));
+            } else {
+                Object[] snapshot = toArray();
+                boolean[] matching = new boolean[snapshot.length];
+                boolean isMatched = false;
+
+                for (int i = 0; i < snapshot.length; i++) {
+                    matching[i] = predicate.test((T) snapshot[i]);
+                    isMatched |= matching[i];
+                }
+
+                result = isMatched && guard.write(() -> collection.removeIf(new SnapshotMatcher<>(snapshot, matching)));
+            }
+
+            return result;
+        }
+
+        @Override
+        public void clear() {
+            guard.update(collection::clear);
+        }
+
+        /**
+         * Performs the action for each element, over a snapshot if the guard
+         * is not reentrant.
+         *
+         * @param action the action
+         */
+        @SuppressWarnings("unchecked")
+        @Override
+        public void forEach(Consumer<? super T> action) {
+            if (guard.isReentrant()) {
+                guard.read(() -> {
+                    collection.forEach(action);
+                    return null;
+                });
+            } else {
+                for (Object obj : toArray()) {
+                    action.accept((T) obj);
+                }
+            }
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new SnapshotIterator<>(toArray(), (obj, index) -> remove(obj));
+        }
+
+        /**
+         * Returns a spliterator over a snapshot, so streams need no locking.
+         *
+         * @return a spliterator over the elements
+         */
+        @Override
+        public Spliterator<T> spliterator() {
+            return Spliterators.spliterator(toArray(), Spliterator.ORDERED | Spliterator.IMMUTABLE);
+        }
+
+        /**
+         * Copies all elements under a single lock acquisition.
+         *
+         * @return the array of elements
+         */
+        protected Object[] toArray() {
+            return guard.read(() -> {
+                Object[] result = new Object[collection.size()];
+                int index = 0;
+
+                for (T obj : collection) {
+                    result[index++] = obj;
+                }
+
+                return result;
+            });
+        }
+    }
+
+    /**
+     * A list wrapper executing every operation through a guard.
+     *
+     * @param <T> type of elements
+     */
+    private static class GuardedList<T> extends GuardedCollection<T> implements List<T> {
+
+        private final List<T> list;
+
+        /**
+         * Creates a wrapper.
+         *
+         * @param list  the list to be wrapped
+         * @param guard the guard for all operations
+         */
+        GuardedList(List<T> list, Guard guard) {
+            super(list, guard);
+            this.list = list;
+        }
+
+        @Override
+        public void add(int index, T obj) {
+            guard.update(() -> list.add(index, obj));
+        }
+
+        @Override
+        public T remove(int index) {
+            return guard.write(() -> list.remove(index));
+        }
+
+        @Override
+        public boolean remove(T pattern) {
+            return guard.write(() -> list.remove(pattern));
+        }
+
+        @Override
+        public boolean contains(T pattern) {
+            return guard.read(() -> list.contains(pattern));
+        }
+
+        @Override
+        public T get(int index) {
+            return guard.read(() -> list.get(index));
+        }
+
+        @Override
+        public int indexOf(T pattern) {
+            return guard.read(() -> list.indexOf(pattern));
+        }
+
+        @Override
+        public int lastIndexOf(T pattern) {
+            return guard.read(() -> list.lastIndexOf(pattern));
+        }
+
+        /**
+         * Returns an iterator over a snapshot. Its {@code remove} removes the
+         * element at its expected position if it is still there, otherwise
+         * the first equal element.
+         *
+         * @return an iterator over the elements
+         */
+        @Override
+        public Iterator<T> iterator() {
+            return new SnapshotIterator<T>(toArray(), (obj, index) -> guard.update(() -> {
+                if (index < list.size() && Objects.equals(list.get(index), obj)) {
+                    list.remove((int) index);
+                } else {
+                    list.remove(obj);
+                }
+            }));
+        }
+    }
+
+    /**
+     * A set wrapper executing every operation through a guard.
+     *
+     * @param <T> type of elements
+     */
+    private static class GuardedSet<T> extends GuardedCollection<T> implements Set<T> {
+
+        private final Set<T> set;
+
+        /**
+         * Creates a wrapper.
+         *
+         * @param set   the set to be wrapped
+         * @param guard the guard for all operations
+         */
+        GuardedSet(Set<T> set, Guard guard) {
+            super(set, guard);
+            this.set = set;
+        }
+
+        @Override
+        public T get(Object pattern) {
+            return guard.read(() -> set.get(pattern));
+        }
+    }
+
+    /**
+     * A sorted set wrapper executing every operation through a guard.
+     *
+     * @param <T> type of elements
+     */
+    private static class GuardedSortedSet<T> extends GuardedSet<T> implements SortedSet<T> {
+
+        private final SortedSet<T> sortedSet;
+
+        /**
+         * Creates a wrapper.
+         *
+         * @param sortedSet the sorted set to be wrapped
+         * @param guard     the guard for all operations
+         */
+        GuardedSortedSet(SortedSet<T> sortedSet, Guard guard) {
+            super(sortedSet, guard);
+            this.sortedSet = sortedSet;
+        }
+
+        @Override
+        public T first() {
+            return guard.read(sortedSet::first);
+        }
+
+        @Override
+        public T last() {
+            return guard.read(sortedSet::last);
+        }
+
+        @Override
+        public T floor(T key) {
+            return guard.read(() -> sortedSet.floor(key));
+        }
+
+        @Override
+        public T ceiling(T key) {
+            return guard.read(() -> sortedSet.ceiling(key));
+        }
+
+        /**
+         * Returns the subset wrapped with the same guard, as the subset may be a
+         * view backed by the wrapped set.
+         *
+         * @param from the lowest element to be included
+         * @param to   the upper bound of the subset
+         * @return the thread-safe subset
+         */
+        @Override
+        public SortedSet<T> subSet(T from, T to) {
+            return new GuardedSortedSet<>(guard.read(() -> sortedSet.subSet(from, to)), guard);
+        }
+    }
+
+    /**
+     * A map wrapper executing every operation through a guard. The key set,
+     * entry set and values are wrapped with the same guard.
+     *
+     * @param <K> type of keys
+     * @param <V> type of values
+     */
+    private static class GuardedMap<K, V> implements Map<K, V> {
+
+        private final Map<K, V> map;
+
+        private final Guard guard;
+
+        /**
+         * Creates a wrapper.
+         *
+         * @param map   the map to be wrapped
+         * @param guard the guard for all operations
+         */
+        GuardedMap(Map<K, V> map, Guard guard) {
+            this.map = Objects.requireNonNull(map);
+            this.guard = guard;
+        }
+
+        @Override
+        public V get(Object key) {
+            return guard.read(() -> map.get(key));
+        }
+
+        @Override
+        public V put(K key, V value) {
+            return guard.write(() -> map.put(key, value));
+        }
+
+        @Override
+        public V remove(K key) {
+            return guard.write(() -> map.remove(key));
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return guard.read(() -> map.containsKey(key));
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+            return guard.read(() -> map.containsValue(value));
+        }
+
+        @Override
+        public Set<K> keySet() {
+            return new GuardedSet<>(guard.read(map::keySet), guard);
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return new GuardedSet<>(map.entrySet(), guard);
+        }
+
+        @Override
+        public Collection<V> values() {
+            return new GuardedCollection<>(guard.read(map::values), guard);
+        }
+
+        @Override
+        public int size() {
+            return guard.peek(map::size);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return guard.peek(map::isEmpty);
+        }
+
+        @Override
+        public V getOrDefault(K key, V defaultValue) {
+            return guard.read(() -> map.getOrDefault(key, defaultValue));
+        }
+
+        @Override
+        public void clear() {
+            guard.update(map::clear);
+        }
+
+        /**
+         * Performs the action for each entry, over a snapshot of the entries
+         * if the guard is not reentrant.
+         *
+         * @param action the action
+         */
+        @SuppressWarnings("unchecked")
+        @Override
+        public void forEach(BiConsumer<? super K, ? super V> action) {
+            if (guard.isReentrant()) {
+                guard.read(() -> {
+                    map.forEach(action);
+                    return null;
+                });
+            } else {
+                Object[][] entries = guard.read(() -> {
+                    Object[][] result = new Object[2][map.size()];
+                    int index = 0;
+
+                    for (Entry<K, V> entry : map.entrySet()) {
+                        result[0][index] = entry.getKey();
+                        result[1][index++] = entry.getValue();
+                    }
+
+                    return result;
+                });
+
+                for (int i = 0; i < entries[0].length; i++) {
+                    action.accept((K) entries[0][i], (V) entries[1][i]);
+                }
+            }
+        }
+
+        /**
+         * Puts the value if the key is absent; the check and the insertion are
+         * made under the same lock.
+         *
+         * @param key   the key
+         * @param value the value
+         * @return the current value or null if the key was absent
+         */
+        @Override
+        public V putIfAbsent(K key, V value) {
+            return guard.write(() -> map.putIfAbsent(key, value));
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package io.p4r53c.telran.util;
+
+import java.util.Arrays;
+
+/**
+ * A compact insertion-ordered hash table shared by
+ * {@link CompactLinkedHashSet} and {@link CompactLinkedHashMap}.
+ * <p>
+ * Keys are appended to a dense array together with their hashes (and values,
+ * for maps, in a parallel array), so the array itself keeps the insertion
+ * order and iteration is a plain array scan. A separate sparse index table of
+ * {@code int} positions with linear probing maps hashes to positions in the
+ * dense array. No node or entry objects are created per element.
+ * <p>
+ * A removed key leaves a null hole in the dense array and a {@link #DUMMY}
+ * mark in the index table, so positions of the other keys do not change.
+ * Holes are compacted when the dense array is full. The index table is twice
+ * as long as the dense array, so it is never more than half full.
+ *
+ * @author p4r53c
+ */
+abstract class CompactHashTable {
+
+    static final int DEFAULT_CAPACITY = 8;
+
+    private static final int EMPTY = -1;
+    private static final int DUMMY = -2;
+
+    private final boolean hasValues;
+
+    Object[] keys;
+
+    Object[] values;
+
+    private int[] hashes;
+
+    private int[] index;
+
+    int count;
+
+    int size;
+
+    /**
+     * Creates an empty table.
+     *
+     * @param capacity  the initial capacity, rounded up to a power of two
+     * @param hasValues whether a parallel array of values is kept
+     */
+    CompactHashTable(int capacity, boolean hasValues) {
+        this.hasValues = hasValues;
+        allocate(Integer.highestOneBit(Math.max(capacity - 1, 1)) * 2);
+    }
+
+    /**
+     * Returns the hash code of the key with the high bits spread to the low
+     * ones, as the index table uses only the low bits.
+     *
+     * @param key the key
+     * @return the hash of the key
+     */
+    static int hash(Object key) {
+        int hashCode = key.hashCode();
+        return hashCode ^ (hashCode >>> 16);
+    }
+
+    /**
+     * Returns the position in the dense array of the key equal to the given one.
+     *
+     * @param key the key to be searched for
+     * @return the position, or -1 if there is no such key
+     */
+    int positionOf(Object key) {
+        int slot = findSlot(key, hash(key));
+        return slot < 0 ? -1 : index[slot];
+    }
+
+    /**
+     * Appends a key known to be absent to the dense array, compacting or
+     * growing the arrays if they are full.
+     *
+     * @param key  the key to be appended
+     * @param hash the hash of the key
+     * @return the position of the key in the dense array
+     */
+    int append(Object key, int hash) {
+        if (count == keys.length) {
+            resize(size >= keys.length / 2 ? keys.length * 2 : keys.length);
+        }
+
+        keys[count] = key;
+        hashes[count] = hash;
+        index[findFreeSlot(hash)] = count;
+        size++;
+
+        return count++;
+    }
+
+    /**
+     * Removes the key equal to the given one, leaving a hole in the dense array.
+     *
+     * @param key the key to be removed
+     * @return the former position of the key, or -1 if there is no such key
+     */
+    int removeKey(Object key) {
+        int slot = findSlot(key, hash(key));
+        int position = slot < 0 ? -1 : index[slot];
+
+        if (position >= 0) {
+            keys[position] = null;
+
+            if (hasValues) {
+                values[position] = null;
+            }
+
+            index[slot] = DUMMY;
+            size--;
+        }
+
+        return position;
+    }
+
+    /**
+     * Marks the key at the given position as removed without touching the
+     * index table. Used by bulk removals followed by {@link #compact()}.
+     *
+     * @param position the position in the dense array
+     */
+    void clearAt(int position) {
+        keys[position] = null;
+
+        if (hasValues) {
+            values[position] = null;
+        }
+
+        size--;
+    }
+
+    /**
+     * Removes all holes and rebuilds the index table keeping the capacity.
+     */
+    void compact() {
+        resize(keys.length);
+    }
+
+    /**
+     * Removes all keys keeping the current capacity.
+     */
+    void clearTable() {
+        Arrays.fill(keys, 0, count, null);
+
+        if (hasValues) {
+            Arrays.fill(values, 0, count, null);
+        }
+
+        Arrays.fill(index, EMPTY);
+        count = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns the position of the first key not being a hole starting from the
+     * given position.
+     *
+     * @param position the position to start from
+     * @return the position of the key, or {@link #count} if there is none
+     */
+    int skipHoles(int position) {
+        while (position < count && keys[position] == null) {
+            position++;
+        }
+
+        return position;
+    }
+
+    /**
+     * Returns the slot of the index table pointing to the key equal to the
+     * given one. Probing is linear and passes over {@link #DUMMY} marks.
+     *
+     * @param key  the key to be searched for
+     * @param hash the hash of the key
+     * @return the slot, or -1 if there is no such key
+     */
+    private int findSlot(Object key, int hash) {
+        int mask = index.length - 1;
+        int slot = hash & mask;
+
+        while (index[slot] != EMPTY && !isAt(index[slot], key, hash)) {
+            slot = (slot + 1) & mask;
+        }
+
+        return index[slot] == EMPTY ? -1 : slot;
+    }
+
+    /**
+     * Returns true if the dense array holds the given key at the given
+     * position. Hashes are compared before calling {@code equals}.
+     *
+     * @param position the position in the dense array or {@link #DUMMY}
+     * @param key      the key
+     * @param hash     the hash of the key
+     * @return true if the key is at the position, false otherwise
+     */
+    private boolean isAt(int position, Object key, int hash) {
+        return position >= 0 && hashes[position] == hash && keys[position].equals(key);
+    }
+
+    /**
+     * Returns the first empty or {@link #DUMMY} slot for the given hash.
+     *
+     * @param hash the hash of the key
+     * @return the free slot
+     */
+    private int findFreeSlot(int hash) {
+        int mask = index.length - 1;
+        int slot = hash & mask;
+
+        while (index[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Moves the keys and values without holes into arrays of the given
+     * capacity and rebuilds the index table, which drops all {@link #DUMMY}
+     * marks.
+     *
+     * @param capacity the new capacity of the dense array
+     */
+    private void resize(int capacity) {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        int oldCount = count;
+
+        allocate(capacity);
+
+        for (int i = 0; i < oldCount; i++) {
+            if (oldKeys[i] != null) {
+                keys[count] = oldKeys[i];
+                hashes[count] = oldHashes[i];
+
+                if (hasValues) {
+                    values[count] = oldValues[i];
+                }
+
+                index[findFreeSlot(oldHashes[i])] = count;
+                count++;
+            }
+        }
+    }
+
+    /**
+     * Allocates empty arrays for the given capacity, the index table being
+     * twice as long.
+     *
+     * @param capacity the capacity of the dense array, a power of two
+     */
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        values = hasValues ? new Object[capacity] : null;
+        hashes = new int[capacity];
+        index = new int[capacity * 2];
+        Arrays.fill(index, EMPTY);
+        count = 0;
+    }
+}
@@ -0,0 +1,214 @@
+package io.p4r53c.telran.util;
+
+import java.util.Objects;
+
+import java.util.function.BiConsumer;
+
+/**
+ * A compact insertion-ordered implementation of {@link Map} interface.
+ * <p>
+ * Keys and values are kept in the parallel dense arrays of
+ * {@link CompactHashTable}, so no entry objects are stored and iteration in
+ * insertion order is a plain array scan. Removed entries leave holes that are
+ * compacted when the arrays are full.
+ * <p>
+ * {@link #keySet()}, {@link #entrySet()} and {@link #values()} return ordered
+ * copies, so changes to them are not reflected in the map.
+ *
+ * @author p4r53c
+ *
+ * @param <K> type of keys in the map
+ * @param <V> type of values in the map
+ */
+public class CompactLinkedHashMap<K, V> extends CompactHashTable implements Map<K, V> {
+
+    public CompactLinkedHashMap(int capacity) {
+        super(capacity, true);
+    }
+
+    public CompactLinkedHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+        int position = key == null ? -1 : positionOf(key);
+        return position < 0 ? null : (V) values[position];
+    }
+
+    /**
+     * Associates the value with the key. A new key is appended to the end of
+     * the insertion order, an existing key keeps its place.
+     *
+     * @param key   the key to associate with the value
+     * @param value the value to associate with the key
+     * @return the previous value associated with the key or null if the key was
+     *         not present
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public V put(K key, V value) {
+        V result = null;
+        int position = positionOf(key);
+
+        if (position >= 0) {
+            result = (V) values[position];
+        } else {
+            position = append(key, hash(key));
+        }
+
+        values[position] = value;
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public V remove(K key) {
+        V result = null;
+        int position = key == null ? -1 : positionOf(key);
+
+        if (position >= 0) {
+            result = (V) values[position];
+            removeKey(key);
+        }
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return key != null && positionOf(key) >= 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsValue(Object value) {
+        int position = skipHoles(0);
+
+        while (position < count && !Objects.equals(values[position], value)) {
+            position = skipHoles(position + 1);
+        }
+
+        return position < count;
+    }
+
+    /**
+     * Returns a copy of the keys in insertion order.
+     *
+     * @return a set of keys in the map
+     */
+    @Override
+    public Set<K> keySet() {
+        CompactLinkedHashSet<K> result = new CompactLinkedHashSet<>(size);
+        forEach((key, value) -> result.add(key));
+
+        return result;
+    }
+
+    /**
+     * Returns a copy of the entries in insertion order.
+     *
+     * @return a set of entries in the map
+     */
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        CompactLinkedHashSet<Entry<K, V>> result = new CompactLinkedHashSet<>(size);
+        forEach((key, value) -> result.add(new Entry<>(key, value)));
+
+        return result;
+    }
+
+    /**
+     * Returns a copy of the values in insertion order.
+     *
+     * @return a collection of values in the map
+     */
+    @Override
+    public Collection<V> values() {
+        Collection<V> result = new ArrayList<>(size);
+        forEach((key, value) -> result.add(value));
+
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Associates the value with the key if the key is absent, with a single
+     * lookup.
+     *
+     * @param key   the key to associate with the value
+     * @param value the value to associate with the key
+     * @return the current value associated with the key or null if the key
+     *         was not present
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public V putIfAbsent(K key, V value) {
+        V result = null;
+        int position = positionOf(key);
+
+        if (position >= 0 && values[position] != null) {
+            result = (V) values[position];
+        } else {
+            if (position < 0) {
+                position = append(key, hash(key));
+            }
+
+            values[position] = value;
+        }
+
+        return result;
+    }
+
+    /**
+     * Removes all entries keeping the current capacity.
+     */
+    @Override
+    public void clear() {
+        clearTable();
+    }
+
+    /**
+     * Performs the given action for each key and value in insertion order,
+     * scanning the dense arrays.
+     *
+     * @param action the action to be performed for each key and value
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int i = 0; i < count; i++) {
+            if (keys[i] != null) {
+                action.accept((K) keys[i], (V) values[i]);
+            }
+        }
+    }
+}
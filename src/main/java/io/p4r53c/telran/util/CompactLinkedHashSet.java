@@ -0,0 +1,201 @@
+package io.p4r53c.telran.util;
+
+import java.util.Iterator;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A compact insertion-ordered implementation of {@link Set} interface.
+ * <p>
+ * Elements are kept in the dense array of {@link CompactHashTable}, so
+ * iteration in insertion order is a plain array scan and no node or entry
+ * objects are created per element.
+ *
+ * @author p4r53c
+ *
+ * @param <T> type of elements in the set
+ */
+public class CompactLinkedHashSet<T> extends CompactHashTable implements Set<T> {
+
+    public CompactLinkedHashSet(int capacity) {
+        super(capacity, false);
+    }
+
+    public CompactLinkedHashSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * An iterator over the dense array skipping holes.
+     */
+    private class CompactLinkedHashSetIterator implements Iterator<T> {
+
+        int current = skipHoles(0);
+        int prev = -1;
+
+        @Override
+        public boolean hasNext() {
+            return current < count;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            prev = current;
+            current = skipHoles(current + 1);
+
+            return (T) keys[prev];
+        }
+
+        @Override
+        public void remove() {
+            if (prev < 0) {
+                throw new IllegalStateException();
+            }
+
+            removeKey(keys[prev]);
+            prev = -1;
+        }
+    }
+
+    /**
+     * Adds the given element to the end of the insertion order if it is not
+     * in the set yet.
+     *
+     * @param obj the element to be added
+     * @return true if the element was added, false otherwise
+     */
+    @Override
+    public boolean add(T obj) {
+        boolean result = positionOf(obj) < 0;
+
+        if (result) {
+            append(obj, hash(obj));
+        }
+
+        return result;
+    }
+
+    /**
+     * Removes the given element, leaving a hole in the dense array.
+     *
+     * @param pattern the element to be removed
+     * @return true if the element was found and removed, false otherwise
+     */
+    @Override
+    public boolean remove(T pattern) {
+        return removeKey(pattern) >= 0;
+    }
+
+    /**
+     * Returns the number of elements in the set.
+     *
+     * @return the number of elements in the set
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the set is empty.
+     *
+     * @return true if the set is empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns true if the set contains the given element.
+     *
+     * @param pattern the element to be searched for
+     * @return true if the set contains the given element, false otherwise
+     */
+    @Override
+    public boolean contains(T pattern) {
+        return positionOf(pattern) >= 0;
+    }
+
+    /**
+     * Returns the element of the set equal to the given one with a single
+     * lookup.
+     *
+     * @param pattern the element to be searched for
+     * @return the element equal to the pattern, or null if there is no such
+     *         element
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get(Object pattern) {
+        int position = positionOf(pattern);
+        return position < 0 ? null : (T) keys[position];
+    }
+
+    /**
+     * Returns an iterator over the elements in insertion order.
+     *
+     * @return an iterator over the elements of the set
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new CompactLinkedHashSetIterator();
+    }
+
+    /**
+     * Performs the given action for each element in insertion order, scanning
+     * the dense array.
+     *
+     * @param action the action to be performed for each element
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        for (int i = 0; i < count; i++) {
+            if (keys[i] != null) {
+                action.accept((T) keys[i]);
+            }
+        }
+    }
+
+    /**
+     * Removes elements matching the predicate in a single pass and then
+     * compacts the dense array and rebuilds the index table.
+     *
+     * @param predicate a predicate to test elements for removal
+     * @return true if any elements were removed, false otherwise
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean removeIf(Predicate<T> predicate) {
+        int oldSize = size;
+
+        for (int i = 0; i < count; i++) {
+            if (keys[i] != null && predicate.test((T) keys[i])) {
+                clearAt(i);
+            }
+        }
+
+        if (size < oldSize) {
+            compact();
+        }
+
+        return size < oldSize;
+    }
+
+    /**
+     * Removes all elements keeping the current capacity.
+     */
+    @Override
+    public void clear() {
+        clearTable();
+    }
+}
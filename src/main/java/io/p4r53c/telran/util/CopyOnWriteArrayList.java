@@ -0,0 +1,367 @@
+package io.p4r53c.telran.util;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A thread-safe implementation of {@link List} interface for read-mostly
+ * lists, such as registries of listeners.
+ * <p>
+ * Every mutation copies the backing array under a lock and publishes the new
+ * array through a volatile field. Reads never lock: they work on the array
+ * that is current at the moment of the call. Iterators, {@link #forEach} and
+ * streams work on a snapshot of the array taken when they are created, so
+ * they never see concurrent changes and never throw because of them.
+ *
+ * @author p4r53c
+ *
+ * @param <T> type of elements in the list
+ */
+public class CopyOnWriteArrayList<T> implements List<T> {
+
+    private static final Object[] EMPTY_ARRAY = {};
+
+    private final Object lock = new Object();
+
+    private volatile Object[] array = EMPTY_ARRAY;
+
+    /**
+     * An iterator over the snapshot of the array taken at its creation.
+     */
+    private class SnapshotIterator implements Iterator<T> {
+
+        private final Object[] snapshot = array;
+
+        private int current;
+
+        private int removed;
+
+        private boolean hasPrev;
+
+        @Override
+        public boolean hasNext() {
+            return current < snapshot.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            hasPrev = true;
+
+            return (T) snapshot[current++];
+        }
+
+        /**
+         * Removes the last returned element from the list. The snapshot is not
+         * changed, so the iteration continues over the original elements.
+         */
+        @Override
+        public void remove() {
+            if (!hasPrev) {
+                throw new IllegalStateException();
+            }
+
+            removeElement(snapshot[current - 1], current - 1 - removed);
+            removed++;
+            hasPrev = false;
+        }
+    }
+
+    /**
+     * Adds given element to the end of the list.
+     *
+     * @param obj the element to be added
+     * @return true
+     */
+    @Override
+    public boolean add(T obj) {
+        synchronized (lock) {
+            Object[] current = array;
+            Object[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = obj;
+            array = updated;
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds all elements of the given collection to the end of the list with a
+     * single copy of the array.
+     *
+     * @param collection the elements to be added
+     * @return true if the list was changed, false otherwise
+     */
+    public boolean addAll(Collection<? extends T> collection) {
+        Object[] added = collection.stream().toArray();
+
+        synchronized (lock) {
+            Object[] current = array;
+            Object[] updated = Arrays.copyOf(current, current.length + added.length);
+            System.arraycopy(added, 0, updated, current.length, added.length);
+            array = updated;
+        }
+
+        return added.length > 0;
+    }
+
+    /**
+     * Inserts given element at given position in the list.
+     *
+     * @param index the position where the element should be inserted
+     * @param obj   the element to be inserted
+     */
+    @Override
+    public void add(int index, T obj) {
+        synchronized (lock) {
+            Object[] current = array;
+            checkIndex(index, true);
+
+            Object[] updated = new Object[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index, updated, index + 1, current.length - index);
+            updated[index] = obj;
+            array = updated;
+        }
+    }
+
+    /**
+     * Removes the element at given position in the list.
+     *
+     * @param index the position of the element to be removed
+     * @return the removed element
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public T remove(int index) {
+        synchronized (lock) {
+            Object[] current = array;
+            checkIndex(index, false);
+
+            array = copyWithout(current, index);
+
+            return (T) current[index];
+        }
+    }
+
+    /**
+     * Removes the first occurrence of given element in the list. The search and
+     * the removal are made under the same lock.
+     *
+     * @param pattern the element to be removed
+     * @return true if the element was found and removed, false otherwise
+     */
+    @Override
+    public boolean remove(T pattern) {
+        synchronized (lock) {
+            int index = indexOf(pattern);
+
+            if (index >= 0) {
+                array = copyWithout(array, index);
+            }
+
+            return index >= 0;
+        }
+    }
+
+    /**
+     * Removes elements matching the predicate with a single copy of the
+     * array.
+     *
+     * @param predicate a predicate to test elements for removal
+     * @return true if any elements were removed, false otherwise
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean removeIf(Predicate<T> predicate) {
+        synchronized (lock) {
+            Object[] current = array;
+            Object[] updated = new Object[current.length];
+            int size = 0;
+
+            for (Object obj : current) {
+                if (!predicate.test((T) obj)) {
+                    updated[size++] = obj;
+                }
+            }
+
+            if (size < current.length) {
+                array = Arrays.copyOf(updated, size);
+            }
+
+            return size < current.length;
+        }
+    }
+
+    /**
+     * Removes all elements by publishing an empty array.
+     */
+    @Override
+    public void clear() {
+        synchronized (lock) {
+            array = EMPTY_ARRAY;
+        }
+    }
+
+    /**
+     * Returns the element at given position in the list.
+     *
+     * @param index the position of the element to be returned
+     * @return the element at given position in the list
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get(int index) {
+        Object[] current = array;
+
+        if (index < 0 || index >= current.length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        return (T) current[index];
+    }
+
+    /**
+     * Returns the number of elements in the list.
+     *
+     * @return the number of elements in the list
+     */
+    @Override
+    public int size() {
+        return array.length;
+    }
+
+    /**
+     * Returns true if the list is empty.
+     *
+     * @return true if the list is empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return array.length == 0;
+    }
+
+    /**
+     * Returns the index of the first occurrence of given element in the list.
+     *
+     * @param pattern the element to be searched for
+     * @return the index of the first occurrence of given element in the list, or -1
+     *         if the element is not found
+     */
+    @Override
+    public int indexOf(T pattern) {
+        Object[] current = array;
+        int index = 0;
+
+        while (index < current.length && !Objects.equals(current[index], pattern)) {
+            index++;
+        }
+
+        return index == current.length ? -1 : index;
+    }
+
+    /**
+     * Returns the index of the last occurrence of given element in the list.
+     *
+     * @param pattern the element to be searched for
+     * @return the index of the last occurrence of given element in the list, or -1
+     *         if the element is not found
+     */
+    @Override
+    public int lastIndexOf(T pattern) {
+        Object[] current = array;
+        int index = current.length - 1;
+
+        while (index >= 0 && !Objects.equals(current[index], pattern)) {
+            index--;
+        }
+
+        return index;
+    }
+
+    /**
+     * Returns an iterator over the snapshot of the list.
+     *
+     * @return an iterator over the elements of the list
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new SnapshotIterator();
+    }
+
+    /**
+     * Performs the action for each element of the snapshot of the list.
+     *
+     * @param action the action to be performed for each element
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        for (Object obj : array) {
+            action.accept((T) obj);
+        }
+    }
+
+    /**
+     * Returns a sized spliterator over the snapshot of the list, which also
+     * makes {@link #stream()} and {@link #parallelStream()} snapshot-consistent.
+     *
+     * @return a spliterator over the elements of the list
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliterator(array, Spliterator.ORDERED | Spliterator.IMMUTABLE);
+    }
+
+    /**
+     * Removes the given element found by identity, checking the expected
+     * position first. Used by iterators, whose snapshot may be outdated.
+     *
+     * @param obj   the element to be removed
+     * @param index the expected position of the element
+     */
+    private void removeElement(Object obj, int index) {
+        synchronized (lock) {
+            Object[] current = array;
+
+            if (index >= current.length || current[index] != obj) {
+                index = 0;
+
+                while (index < current.length && current[index] != obj) {
+                    index++;
+                }
+            }
+
+            if (index < current.length) {
+                array = copyWithout(current, index);
+            }
+        }
+    }
+
+    /**
+     * Returns a copy of the array without the element at the given index.
+     *
+     * @param current the array
+     * @param index   the index of the element to be skipped
+     * @return the copy of the array
+     */
+    private Object[] copyWithout(Object[] current, int index) {
+        Object[] updated = new Object[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+        return updated;
+    }
+}
@@ -0,0 +1,256 @@
+package io.p4r53c.telran.util;
+
+import java.io.Serializable;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import java.util.Arrays;
+
+/**
+ * A Count-Min sketch estimating how many times each element has been added in
+ * a fixed amount of memory.
+ * <p>
+ * The sketch is a table of {@code depth} rows of {@code width} counters. Each
+ * element increments one counter per row, chosen by double hashing from a
+ * 64-bit mix of its {@code hashCode}, and its count is estimated as the
+ * minimum of those counters. The estimate is never less than the true count
+ * and, with probability {@code confidence}, exceeds it by at most
+ * {@code epsilon} times the total of all counts; the width is
+ * {@code ceil(e / epsilon)} and the depth {@code ceil(ln(1 / (1 - confidence)))}.
+ * <p>
+ * Sketches of the same dimensions can be merged, e.g. to combine counts from
+ * several shards, and stored with {@link #toByteArray()}.
+ *
+ * @author p4r53c
+ *
+ * @param <T> type of elements
+ */
+public class CountMinSketch<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAGIC = 0x434D534B;
+
+    /**
+     * The largest array length supported by common virtual machines.
+     */
+    private static final int MAX_COUNTERS = Integer.MAX_VALUE - 8;
+
+    private final int width;
+
+    private final int depth;
+
+    private final long[] counters;
+
+    private long total;
+
+    /**
+     * Creates an empty sketch for the given error and confidence.
+     *
+     * @param epsilon    the maximal overestimate as a fraction of the total
+     *                   count, between 0 and 1 exclusive
+     * @param confidence the probability of staying within the error, between 0
+     *                   and 1 exclusive
+     * @throws IllegalArgumentException if a parameter is out of range or the
+     *                                  table of counters would exceed the
+     *                                  maximal array length
+     */
+    public CountMinSketch(double epsilon, double confidence) {
+        this(dimension(Math.E / checkFraction(epsilon, "epsilon")),
+                dimension(Math.log(1 / (1 - checkFraction(confidence, "confidence")))));
+    }
+
+    /**
+     * Creates an empty sketch of the given dimensions.
+     *
+     * @param width the number of counters per row
+     * @param depth the number of rows
+     * @throws IllegalArgumentException if the table would exceed the maximal
+     *                                  array length
+     */
+    private CountMinSketch(int width, int depth) {
+        long size = (long) width * depth;
+
+        if (size > MAX_COUNTERS) {
+            throw new IllegalArgumentException("Sketch of " + width + " x " + depth + " counters is too large");
+        }
+
+        this.width = width;
+        this.depth = depth;
+        counters = new long[(int) size];
+    }
+
+    /**
+     * Adds one occurrence of the element to the sketch.
+     *
+     * @param obj the element to be added
+     * @return true
+     */
+    public boolean add(T obj) {
+        return add(obj, 1);
+    }
+
+    /**
+     * Adds the given number of occurrences of the element to the sketch.
+     *
+     * @param obj   the element to be added
+     * @param count the number of occurrences, not negative
+     * @return true if the sketch has changed, false otherwise
+     * @throws IllegalArgumentException if the count is negative
+     */
+    public boolean add(T obj, long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Negative count: " + count);
+        }
+
+        long hash = Hashing.mix(obj.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        for (int row = 0; row < depth; row++) {
+            counters[position(row, h1 + row * h2)] += count;
+        }
+
+        total += count;
+
+        return count > 0;
+    }
+
+    /**
+     * Returns the estimated number of occurrences of the element.
+     *
+     * @param obj the element
+     * @return the estimate, never less than the true number of occurrences
+     */
+    public long estimateCount(Object obj) {
+        long hash = Hashing.mix(obj.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long result = Long.MAX_VALUE;
+
+        for (int row = 0; row < depth; row++) {
+            result = Math.min(result, counters[position(row, h1 + row * h2)]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the total number of occurrences added to the sketch.
+     *
+     * @return the total count
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Adds all counts of the other sketch to this one.
+     *
+     * @param other the sketch of the same dimensions
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public void merge(CountMinSketch<T> other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Count-Min sketches are not compatible");
+        }
+
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += other.counters[i];
+        }
+
+        total += other.total;
+    }
+
+    /**
+     * Removes all counts from the sketch.
+     */
+    public void clear() {
+        Arrays.fill(counters, 0);
+        total = 0;
+    }
+
+    /**
+     * Returns the sketch as bytes: a magic number, the width, the depth, the
+     * total and the counters, all big-endian.
+     *
+     * @return the bytes of the sketch
+     */
+    public byte[] toByteArray() {
+        ByteBuffer buffer = ByteBuffer.allocate(3 * Integer.BYTES + (counters.length + 1) * Long.BYTES);
+        buffer.putInt(MAGIC).putInt(width).putInt(depth).putLong(total);
+        buffer.asLongBuffer().put(counters);
+
+        return buffer.array();
+    }
+
+    /**
+     * Restores a sketch from the bytes returned by {@link #toByteArray()}.
+     *
+     * @param <T>   type of elements
+     * @param bytes the bytes of the sketch
+     * @return the sketch
+     * @throws IllegalArgumentException if the bytes are not a valid sketch
+     */
+    public static <T> CountMinSketch<T> fromByteArray(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        try {
+            int magic = buffer.getInt();
+            int width = buffer.getInt();
+            int depth = buffer.getInt();
+            long total = buffer.getLong();
+
+            if (magic != MAGIC || width < 1 || depth < 1
+                    || buffer.remaining() != (long) width * depth * Long.BYTES) {
+                throw new IllegalArgumentException("Not a valid Count-Min sketch");
+            }
+
+            CountMinSketch<T> result = new CountMinSketch<>(width, depth);
+            buffer.asLongBuffer().get(result.counters);
+            result.total = total;
+
+            return result;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Not a valid Count-Min sketch", e);
+        }
+    }
+
+    /**
+     * Maps a combined hash to a counter of the given row.
+     *
+     * @param row  the row
+     * @param hash the combined hash
+     * @return the index of the counter
+     */
+    private int position(int row, int hash) {
+        return row * width + (hash & Integer.MAX_VALUE) % width;
+    }
+
+    /**
+     * Rounds a computed dimension up to an integer of at least 1.
+     *
+     * @param value the computed dimension
+     * @return the dimension
+     */
+    private static int dimension(double value) {
+        return Math.max(1, (int) Math.ceil(value));
+    }
+
+    /**
+     * Checks that the value lies between 0 and 1 exclusive.
+     *
+     * @param value the value
+     * @param name  the name of the parameter
+     * @return the value
+     * @throws IllegalArgumentException if the value is out of range
+     */
+    private static double checkFraction(double value, String name) {
+        if (!(value > 0 && value < 1)) {
+            throw new IllegalArgumentException("Illegal " + name + ": " + value);
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,101 @@
+package io.p4r53c.telran.util;
+
+import java.io.IOException;
+
+/**
+ * Writes and reads single elements of a collection in the binary format of
+ * {@link CollectionCodec} and {@link MapCodec}. Implementations for other
+ * element types are plugged into the codecs the same way as the standard ones
+ * below.
+ *
+ * @author p4r53c
+ *
+ * @param <T> type of elements
+ */
+public interface ElementCodec<T> {
+
+    /**
+     * Integers as ZigZag variable-length numbers: 1 byte for -64..63, 5 bytes
+     * at most.
+     */
+    ElementCodec<Integer> INTEGER = new ElementCodec<>() {
+
+        @Override
+        public void write(CodecOutput out, Integer element) throws IOException {
+            out.writeVarInt(element << 1 ^ element >> 31);
+        }
+
+        @Override
+        public Integer read(CodecInput in) throws IOException {
+            int value = in.readVarInt();
+            return value >>> 1 ^ -(value & 1);
+        }
+    };
+
+    /**
+     * Longs as ZigZag variable-length numbers, 10 bytes at most.
+     */
+    ElementCodec<Long> LONG = new ElementCodec<>() {
+
+        @Override
+        public void write(CodecOutput out, Long element) throws IOException {
+            out.writeVarLong(element << 1 ^ element >> 63);
+        }
+
+        @Override
+        public Long read(CodecInput in) throws IOException {
+            long value = in.readVarLong();
+            return value >>> 1 ^ -(value & 1);
+        }
+    };
+
+    /**
+     * Doubles as their 8-byte IEEE 754 bits.
+     */
+    ElementCodec<Double> DOUBLE = new ElementCodec<>() {
+
+        @Override
+        public void write(CodecOutput out, Double element) throws IOException {
+            out.writeDouble(element);
+        }
+
+        @Override
+        public Double read(CodecInput in) throws IOException {
+            return in.readDouble();
+        }
+    };
+
+    /**
+     * Strings as their UTF-8 length and bytes.
+     */
+    ElementCodec<String> STRING = new ElementCodec<>() {
+
+        @Override
+        public void write(CodecOutput out, String element) throws IOException {
+            out.writeString(element);
+        }
+
+        @Override
+        public String read(CodecInput in) throws IOException {
+            return in.readString();
+        }
+    };
+
+    /**
+     * Writes an element.
+     *
+     * @param out     the output
+     * @param element the element, not null
+     * @throws IOException if the output fails
+     */
+    void write(CodecOutput out, T element) throws IOException;
+
+    /**
+     * Reads an element.
+     *
+     * @param in the input
+     * @return the element
+     * @throws IOException if the input fails, ends or is malformed
+     */
+    T read(CodecInput in) throws IOException;
+}
@@ -0,0 +1,637 @@
+package io.p4r53c.telran.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+import java.util.function.Predicate;
+
+import java.util.stream.Stream;
+
+/**
+ * Sorts data sets larger than the heap. Elements are collected into a bounded
+ * in-memory run, which is sorted by {@link ArrayList#parallelSort} and spilled
+ * to a temporary file in the format of {@link CollectionCodec} once it is
+ * full. The sorted result is a k-way merge of the spilled runs and the last
+ * run still in memory, read lazily through a priority queue holding the head
+ * of each run, so only one run and one element per spilled run are ever held
+ * in memory. The result is read through {@link #iterator()} or the read-only
+ * {@link #toSortedSet()} view, which both stream the runs, or copied into an
+ * in-memory {@link #toTreeSet()}.
+ * <p>
+ * With deduplication enabled every run is spilled without duplicates and
+ * equal elements of different runs are merged into the first one. The sorter
+ * owns its temporary files and deletes them on {@link #close()}.
+ *
+ * @author p4r53c
+ *
+ * @param <T> type of elements
+ */
+public class ExternalSorter<T> implements AutoCloseable {
+
+    private final ElementCodec<T> codec;
+
+    private final Comparator<T> comparator;
+
+    private final int runSize;
+
+    private final boolean distinct;
+
+    private final Path directory;
+
+    private final ArrayList<T> run;
+
+    private final ArrayList<Path> files = new ArrayList<>();
+
+    private final ArrayList<FileChannel> channels = new ArrayList<>();
+
+    private final ArrayList<T> lasts = new ArrayList<>();
+
+    private long additions;
+
+    private boolean closed;
+
+    /**
+     * Creates a sorter spilling runs to the given directory.
+     *
+     * @param codec      the codec of the elements in the spilled runs
+     * @param comparator the order of the elements
+     * @param runSize    the maximal number of elements sorted in memory
+     * @param distinct   true to drop elements equal to a preceding one
+     * @param directory  the directory of the temporary files
+     * @throws IllegalArgumentException if the run size is not positive
+     * @throws NullPointerException     if the comparator is null
+     */
+    public ExternalSorter(ElementCodec<T> codec, Comparator<T> comparator, int runSize, boolean distinct,
+            Path directory) {
+        if (runSize <= 0) {
+            throw new IllegalArgumentException("Run size must be positive: " + runSize);
+        }
+
+        this.codec = codec;
+        this.comparator = Objects.requireNonNull(comparator, "comparator");
+        this.runSize = runSize;
+        this.distinct = distinct;
+        this.directory = directory;
+        this.run = new ArrayList<>(runSize);
+    }
+
+    /**
+     * Creates a sorter spilling runs to the default temporary-file directory.
+     *
+     * @param codec      the codec of the elements in the spilled runs
+     * @param comparator the order of the elements
+     * @param runSize    the maximal number of elements sorted in memory
+     * @param distinct   true to drop elements equal to a preceding one
+     * @throws IllegalArgumentException if the run size is not positive
+     * @throws NullPointerException     if the comparator is null
+     */
+    public ExternalSorter(ElementCodec<T> codec, Comparator<T> comparator, int runSize, boolean distinct) {
+        this(codec, comparator, runSize, distinct, Path.of(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Adds an element, spilling the in-memory run if it is full.
+     *
+     * @param element the element
+     * @throws IOException           if spilling the run fails
+     * @throws IllegalStateException if the sorter is closed
+     */
+    public void add(T element) throws IOException {
+        checkOpen();
+        run.add(element);
+        additions++;
+
+        if (run.size() == runSize) {
+            spill();
+        }
+    }
+
+    /**
+     * Adds all elements of the stream, consuming it sequentially.
+     *
+     * @param elements the elements
+     * @throws IOException           if spilling a run fails
+     * @throws IllegalStateException if the sorter is closed
+     */
+    public void addAll(Stream<? extends T> elements) throws IOException {
+        Iterator<? extends T> it = elements.iterator();
+
+        while (it.hasNext()) {
+            add(it.next());
+        }
+    }
+
+    /**
+     * Returns the number of runs spilled to temporary files so far.
+     *
+     * @return the number of spilled runs
+     */
+    public int spilledRuns() {
+        return files.size();
+    }
+
+    /**
+     * Returns the number of spilled runs currently open by iterators.
+     *
+     * @return the number of open runs
+     */
+    int openRuns() {
+        return channels.size();
+    }
+
+    /**
+     * Returns an iterator over all elements added so far in sorted order,
+     * without duplicates if the sorter deduplicates. Sorts the in-memory run
+     * and opens every spilled run; the files are read as the iterator
+     * advances, and each is closed once it is read to the end. Runs of an
+     * iterator abandoned early stay open until {@link #close()}. No elements
+     * may be added while the iterator is in use.
+     *
+     * @return the merged iterator, throwing {@link UncheckedIOException} if
+     *         reading a run fails
+     * @throws IOException           if opening a run fails
+     * @throws IllegalStateException if the sorter is closed
+     */
+    public Iterator<T> iterator() throws IOException {
+        return merge(distinct);
+    }
+
+    /**
+     * Returns a read-only sorted set view of all elements added so far,
+     * without duplicates. Nothing is copied into the heap: every operation
+     * merges the runs anew and stops reading them as soon as it has its
+     * answer, closing the runs it opened. Iteration, {@code first},
+     * {@code floor}, {@code ceiling}, {@code get} and {@code contains} read
+     * the runs up to the element looked for; {@code last} of a view without
+     * an upper bound takes the greatest of the last elements recorded as the
+     * runs were spilled; {@code size} reads all runs once and is cached until
+     * elements are added. {@code subSet} returns a view of the range, from
+     * inclusive to exclusive. The view follows elements added later; runs of
+     * its iterators abandoned early stay open until {@link #close()}.
+     *
+     * @return the sorted set view, throwing {@link UncheckedIOException} if
+     *         reading a run fails, {@link UnsupportedOperationException} on
+     *         modifications and {@link IllegalStateException} once the
+     *         sorter is closed
+     */
+    public SortedSet<T> toSortedSet() {
+        return new SortedView(null, null);
+    }
+
+    /**
+     * Builds a balanced tree set of all elements added so far in linear time
+     * from the merged runs. Duplicates are always dropped. Unlike
+     * {@link #toSortedSet()} this loads every element into the heap, so it is
+     * only for results that fit in memory, for example after heavy
+     * deduplication.
+     *
+     * @return the tree set
+     * @throws IOException           if opening or reading a run fails
+     * @throws IllegalStateException if the sorter is closed
+     */
+    public TreeSet<T> toTreeSet() throws IOException {
+        Iterator<T> it = merge(true);
+
+        return CollectionCodec.readSorted(() -> TreeSet.fromSorted(it, comparator));
+    }
+
+    /**
+     * Closes the runs still open by iterators and deletes the temporary files.
+     *
+     * @throws IOException if closing a run or deleting a file fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            run.clear();
+
+            for (FileChannel channel : channels) {
+                channel.close();
+            }
+
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+
+            channels.clear();
+            files.clear();
+            lasts.clear();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Sorter is closed");
+        }
+    }
+
+    private void spill() throws IOException {
+        run.parallelSort(comparator);
+        Path file = Files.createTempFile(directory, "run", ".bin");
+        files.add(file);
+        lasts.add(run.get(run.size() - 1));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            CodecOutput out = new CodecOutput(channel);
+            CollectionCodec.writeHeader(out, CollectionCodec.KIND_COLLECTION, distinct ? countDistinct() : run.size());
+            T previous = null;
+
+            for (int i = 0; i < run.size(); i++) {
+                T element = run.get(i);
+
+                if (i == 0 || !distinct || comparator.compare(previous, element) != 0) {
+                    codec.write(out, element);
+                }
+
+                previous = element;
+            }
+
+            out.flush();
+        }
+
+        run.clear();
+    }
+
+    private int countDistinct() {
+        int result = Math.min(run.size(), 1);
+
+        for (int i = 1; i < run.size(); i++) {
+            if (comparator.compare(run.get(i - 1), run.get(i)) != 0) {
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    private MergeIterator merge(boolean dropDuplicates) throws IOException {
+        checkOpen();
+        run.parallelSort(comparator);
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(files.size() + 1,
+                (cursor1, cursor2) -> comparator.compare(cursor1.head, cursor2.head));
+
+        try {
+            for (Path file : files) {
+                FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+                channels.add(channel);
+                CodecInput in = new CodecInput(channel);
+                int size = CollectionCodec.readHeader(in, CollectionCodec.KIND_COLLECTION);
+                addCursor(heads, new Cursor(new CollectionCodec.ElementIterator<>(in, size, codec::read), channel));
+            }
+
+            addCursor(heads, new Cursor(run.iterator(), null));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        return new MergeIterator(heads, dropDuplicates ? comparator : null);
+    }
+
+    private void addCursor(PriorityQueue<Cursor> heads, Cursor cursor) {
+        if (cursor.advance()) {
+            heads.add(cursor);
+        }
+    }
+
+    /**
+     * Closes the channel of a run read to the end.
+     *
+     * @param channel the channel
+     */
+    private void closeRun(FileChannel channel) {
+        channels.remove(channel);
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The current head of a sorted run. The channel of a spilled run is
+     * closed as soon as the run is read to the end.
+     */
+    private final class Cursor {
+
+        private final Iterator<T> source;
+
+        private final FileChannel channel;
+
+        private T head;
+
+        Cursor(Iterator<T> source, FileChannel channel) {
+            this.source = source;
+            this.channel = channel;
+        }
+
+        boolean advance() {
+            boolean result = source.hasNext();
+            head = result ? source.next() : null;
+
+            if (!result) {
+                close();
+            }
+
+            return result;
+        }
+
+        void close() {
+            if (channel != null) {
+                closeRun(channel);
+            }
+        }
+    }
+
+    /**
+     * Repeatedly takes the least head of the runs and advances its run.
+     */
+    private final class MergeIterator implements Iterator<T> {
+
+        private final PriorityQueue<Cursor> heads;
+
+        private final Comparator<T> distinctComparator;
+
+        private T previous;
+
+        private boolean started;
+
+        MergeIterator(PriorityQueue<Cursor> heads, Comparator<T> distinctComparator) {
+            this.heads = heads;
+            this.distinctComparator = distinctComparator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (distinctComparator != null && started) {
+                while (!heads.isEmpty() && distinctComparator.compare(previous, heads.peek().head) == 0) {
+                    poll();
+                }
+            }
+
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            previous = poll();
+            started = true;
+
+            return previous;
+        }
+
+        /**
+         * Closes the runs not read to the end, so the iterator may be
+         * abandoned early.
+         */
+        void close() {
+            while (!heads.isEmpty()) {
+                heads.poll().close();
+            }
+        }
+
+        private T poll() {
+            Cursor cursor = heads.poll();
+            T result = cursor.head;
+
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Iterates the merged runs from the lower bound inclusive to the upper
+     * bound exclusive, one element ahead. The runs are closed once the upper
+     * bound is reached.
+     */
+    private final class RangeIterator implements Iterator<T> {
+
+        private final MergeIterator merge;
+
+        private final T to;
+
+        private T next;
+
+        private boolean hasNext;
+
+        RangeIterator(T from, T to) {
+            this.merge = openMerge();
+            this.to = to;
+            advance();
+
+            while (hasNext && from != null && comparator.compare(next, from) < 0) {
+                advance();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext) {
+                throw new NoSuchElementException();
+            }
+
+            T result = next;
+            advance();
+
+            return result;
+        }
+
+        void close() {
+            merge.close();
+        }
+
+        private void advance() {
+            hasNext = merge.hasNext();
+            next = hasNext ? merge.next() : null;
+
+            if (hasNext && to != null && comparator.compare(next, to) >= 0) {
+                hasNext = false;
+                next = null;
+                close();
+            }
+        }
+
+        private MergeIterator openMerge() {
+            try {
+                return merge(true);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * A read-only view of the merged runs between optional bounds, from
+     * inclusive to exclusive.
+     */
+    private final class SortedView implements SortedSet<T> {
+
+        private final T from;
+
+        private final T to;
+
+        private int size = -1;
+
+        private long sizeAdditions;
+
+        SortedView(T from, T to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new RangeIterator(from, to);
+        }
+
+        @Override
+        public int size() {
+            if (size < 0 || sizeAdditions != additions) {
+                int count = 0;
+                Iterator<T> it = iterator();
+
+                while (it.hasNext()) {
+                    it.next();
+                    count++;
+                }
+
+                size = count;
+                sizeAdditions = additions;
+            }
+
+            return size;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return first() == null;
+        }
+
+        @Override
+        public boolean contains(T pattern) {
+            return get(pattern) != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T get(Object pattern) {
+            T result = ceiling((T) pattern);
+
+            return result != null && comparator.compare(result, (T) pattern) == 0 ? result : null;
+        }
+
+        @Override
+        public T first() {
+            return ceiling(from);
+        }
+
+        @Override
+        public T last() {
+            T result = null;
+
+            if (to == null) {
+                checkOpen();
+
+                for (int i = 0; i < lasts.size(); i++) {
+                    result = greater(result, lasts.get(i));
+                }
+
+                for (int i = 0; i < run.size(); i++) {
+                    result = greater(result, run.get(i));
+                }
+
+                if (result != null && from != null && comparator.compare(result, from) < 0) {
+                    result = null;
+                }
+            } else {
+                Iterator<T> it = iterator();
+
+                while (it.hasNext()) {
+                    result = it.next();
+                }
+            }
+
+            return result;
+        }
+
+        @Override
+        public T floor(T key) {
+            T result = null;
+            RangeIterator it = new RangeIterator(from, to);
+            boolean isBelow = true;
+
+            while (isBelow && it.hasNext()) {
+                T element = it.next();
+                isBelow = comparator.compare(element, key) <= 0;
+
+                if (isBelow) {
+                    result = element;
+                }
+            }
+
+            it.close();
+
+            return result;
+        }
+
+        @Override
+        public T ceiling(T key) {
+            RangeIterator it = new RangeIterator(greater(from, key), to);
+            T result = it.hasNext() ? it.next() : null;
+            it.close();
+
+            return result;
+        }
+
+        @Override
+        public SortedSet<T> subSet(T from, T to) {
+            T upper = this.to == null || comparator.compare(to, this.to) < 0 ? to : this.to;
+
+            return new SortedView(greater(this.from, from), upper);
+        }
+
+        @Override
+        public boolean add(T obj) {
+            throw new UnsupportedOperationException("Sorted runs are read-only");
+        }
+
+        @Override
+        public boolean remove(T pattern) {
+            throw new UnsupportedOperationException("Sorted runs are read-only");
+        }
+
+        @Override
+        public boolean removeIf(Predicate<T> predicate) {
+            throw new UnsupportedOperationException("Sorted runs are read-only");
+        }
+
+        private T greater(T element1, T element2) {
+            return element1 == null || element2 != null && comparator.compare(element2, element1) > 0 ? element2
+                    : element1;
+        }
+    }
+}
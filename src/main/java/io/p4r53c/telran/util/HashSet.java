@@ -1,9 +1,13 @@
 package io.p4r53c.telran.util;
 
+import java.util.Arrays;
 import java.util.Iterator;
 
 import java.util.NoSuchElementException;
 
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
 /**
  * Hash-based implementation of {@link Set} interface.
  *
@@ -16,32 +20,51 @@ public class HashSet<T> implements Set<T> {
     private static final int DEFAULT_CAPACITY = 16;
     private static final float DEFAULT_LOAD_FACTOR = 0.75f;
 
+    private static final int SHRINK_DIVISOR = 4;
+
+    private static final int STALE_DIVISOR = 4;
+
     List<T>[] hashTable;
 
     float loadFactor;
 
     int size;
 
+    private final int initialLength;
+
+    private BloomFilter<T> bloomFilter;
+
+    private double bloomFilterRate;
+
+    private int bloomFilterRemovals;
+
+    private CollectionMetrics metrics;
+
     @SuppressWarnings("unchecked")
     public HashSet(int hashTableLength, float loadFactor) {
         hashTable = new List[hashTableLength];
         this.loadFactor = loadFactor;
+        initialLength = hashTableLength;
     }
 
     public HashSet() {
         this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
     }
 
+    /**
+     * An iterator walking the hash table by bucket index and position inside
+     * the bucket. Buckets are accessed directly, so no per-bucket iterator is
+     * allocated.
+     */
     private class HashSetIterator implements Iterator<T> {
 
-        Iterator<T> current;
-        Iterator<T> prev;
         int index;
+        int position;
+        int prevIndex = -1;
+        int prevPosition;
 
         public HashSetIterator() {
-            index = 0;
-            current = extractIterator(0);
-            setBoundary();
+            skipEmptyBuckets();
         }
 
         @Override
@@ -55,52 +78,43 @@ public class HashSet<T> implements Set<T> {
                 throw new NoSuchElementException();
             }
 
-            prev = current;
-            T obj = current.next();
+            List<T> bucket = hashTable[index];
+            prevIndex = index;
+            prevPosition = position;
+            T obj = bucket.get(position++);
 
-            setBoundary();
+            if (position == bucket.size()) {
+                index++;
+                position = 0;
+                skipEmptyBuckets();
+            }
 
             return obj;
         }
 
         @Override
         public void remove() {
-            if (prev == null) {
+            if (prevIndex < 0) {
                 throw new IllegalStateException();
             }
 
-            prev.remove();
-            prev = null;
-            size--;
-        }
+            hashTable[prevIndex].remove(prevPosition);
 
-        /**
-         * Returns an iterator of the list at the given index or null if the list
-         * is null.
-         *
-         * @param index the index of the list
-         * @return an iterator of the list or null if the list is null
-         */
-        private Iterator<T> extractIterator(int index) {
-            List<T> list = hashTable[index];
-            return list == null ? null : list.iterator();
+            if (prevIndex == index) {
+                position--;
+            }
+
+            prevIndex = -1;
+            size--;
+            countBloomFilterRemoval();
         }
 
         /**
-         * Sets the boundary for the iterator by moving to the next index or
-         * beyond the boundary if there are no more elements in the list. If the
-         * current index is beyond the boundary, or the current list is null or
-         * does not have a next element, the index is incremented.
+         * Moves the bucket index forward to the first non-empty bucket, or beyond
+         * the table if there is no such bucket.
          */
-        private void setBoundary() {
-            int boundary = hashTable.length - 1;
-
-            while (index < boundary && (current == null || !current.hasNext())) {
-                index++;
-                current = extractIterator(index);
-            }
-
-            if (index == boundary && (hashTable[index] == null || !current.hasNext())) {
+        private void skipEmptyBuckets() {
+            while (index < hashTable.length && (hashTable[index] == null || hashTable[index].isEmpty())) {
                 index++;
             }
         }
@@ -130,6 +144,10 @@ public class HashSet<T> implements Set<T> {
             }
 
             addObjInHashTable(obj, hashTable);
+
+            if (bloomFilter != null) {
+                bloomFilter.add(obj);
+            }
             size++;
         }
 
@@ -152,6 +170,10 @@ public class HashSet<T> implements Set<T> {
             int index = getIndex(pattern, hashTable.length);
             hashTable[index].remove(pattern);
             size--;
+
+            if (!shrinkIfSparse()) {
+                countBloomFilterRemoval();
+            }
         }
 
         return result;
@@ -185,9 +207,8 @@ public class HashSet<T> implements Set<T> {
      */
     @Override
     public boolean contains(T pattern) {
-        int index = getIndex(pattern, hashTable.length);
-        List<T> list = hashTable[index];
-        return list != null && list.contains(pattern);
+        List<T> list = hashTable[getIndex(pattern, hashTable.length)];
+        return findInBucket(list, pattern) != null;
     }
 
     /**
@@ -201,34 +222,165 @@ public class HashSet<T> implements Set<T> {
     }
 
     /**
-     * Returns the first occurrence of the given element in this set.
+     * Performs the given action for each element of the set, walking the
+     * buckets directly without creating iterators.
      *
-     * @param pattern the element to be searched for
-     * @return the first occurrence of the given element in this set, or
-     *         null if the element is not found
+     * @param action the action to be performed for each element
      */
-    @SuppressWarnings("unchecked")
     @Override
-    public T get(Object pattern) {
-        T result = null;
-        int index = getIndex((T) pattern, hashTable.length);
+    public void forEach(Consumer<? super T> action) {
+        for (List<T> bucket : hashTable) {
+            if (bucket != null) {
+                for (int i = 0; i < bucket.size(); i++) {
+                    action.accept(bucket.get(i));
+                }
+            }
+        }
+    }
 
-        List<T> list = hashTable[index];
+    /**
+     * Removes elements matching the predicate bucket by bucket, each bucket
+     * being compacted in a single pass.
+     *
+     * @param predicate a predicate to test elements for removal
+     * @return true if any elements were removed, false otherwise
+     */
+    @Override
+    public boolean removeIf(Predicate<T> predicate) {
+        int oldSize = size;
 
-        if (list != null) {
-            Iterator<T> iterator = list.iterator();
+        for (List<T> bucket : hashTable) {
+            if (bucket != null) {
+                int bucketSize = bucket.size();
 
-            while (iterator.hasNext()) {
-                T element = iterator.next();
-                
-                if (element.equals(pattern)) {
-                    result = element;
-                    break;
+                if (bucket.removeIf(predicate)) {
+                    size -= bucketSize - bucket.size();
                 }
             }
         }
 
-        return result;
+        if (!shrinkIfSparse() && size < oldSize) {
+            rebuildBloomFilter();
+        }
+
+        return size < oldSize;
+    }
+
+    /**
+     * Removes all elements by dropping all buckets. A table grown beyond its
+     * initial length is replaced by a table of the initial length.
+     */
+    @Override
+    public void clear() {
+        if (hashTable.length > initialLength) {
+            @SuppressWarnings({ "unchecked", "rawtypes" })
+            List<T>[] table = new List[initialLength];
+            hashTable = table;
+        } else {
+            Arrays.fill(hashTable, null);
+        }
+
+        size = 0;
+        rebuildBloomFilter();
+    }
+
+    /**
+     * Puts a Bloom filter in front of the hash table, so that most lookups of
+     * absent elements are answered without touching the buckets. The filter
+     * is sized for the current table and rebuilt whenever the table is
+     * rehashed. Removed elements stay in the filter until then, or until
+     * they reach a quarter of the capacity of the filter, so that churn at a
+     * steady size does not raise the false-positive rate.
+     *
+     * @param falsePositiveRate the false-positive rate of the filter, between
+     *                          0 and 1 exclusive
+     */
+    public void enableBloomFilter(double falsePositiveRate) {
+        bloomFilterRate = falsePositiveRate;
+        rebuildBloomFilter();
+    }
+
+    /**
+     * Removes the Bloom filter.
+     */
+    public void disableBloomFilter() {
+        bloomFilterRate = 0;
+        bloomFilter = null;
+    }
+
+    /**
+     * Starts collecting metrics: elements compared per lookup, rehashes, the
+     * table length and the bucket-length histogram.
+     *
+     * @return the metrics of the set
+     */
+    public CollectionMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new CollectionMetrics(this, set -> set.hashTable.length, null,
+                    HashSet::bucketLengthHistogram);
+        }
+
+        return metrics;
+    }
+
+    /**
+     * Stops collecting metrics and unregisters them from JMX.
+     */
+    public void disableMetrics() {
+        if (metrics != null) {
+            metrics.unregisterMBean();
+            metrics = null;
+        }
+    }
+
+    /**
+     * Returns the metrics of the set.
+     *
+     * @return the metrics, or null if they are not enabled
+     */
+    public CollectionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Shrinks the hash table to the smallest length that keeps the current
+     * elements within the load factor.
+     */
+    public void trimToSize() {
+        int length = Math.max(1, (int) Math.ceil(size / loadFactor) + 1);
+
+        if (length < hashTable.length) {
+            rehash(length);
+        }
+    }
+
+    /**
+     * Grows the hash table in advance, so that the given number of elements
+     * can be added without further reallocations.
+     *
+     * @param capacity the number of elements the set should hold
+     */
+    public void ensureCapacity(int capacity) {
+        int length = (int) Math.ceil(capacity / loadFactor) + 1;
+
+        if (length > hashTable.length) {
+            rehash(length);
+        }
+    }
+
+    /**
+     * Returns the first occurrence of the given element in this set.
+     *
+     * @param pattern the element to be searched for
+     * @return the first occurrence of the given element in this set, or
+     *         null if the element is not found
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get(Object pattern) {
+        List<T> list = hashTable[getIndex((T) pattern, hashTable.length)];
+
+        return findInBucket(list, (T) pattern);
     }
 
     /**
@@ -278,9 +430,47 @@ public class HashSet<T> implements Set<T> {
      * List is cleared after reallocation. See
      * {@link HashSetTest#testListClearAfterReallocation}.
      */
-    @SuppressWarnings("unchecked")
     private void hashTableReallocation() {
-        List<T>[] tempTable = new List[hashTable.length * 2];
+        rehash(hashTable.length * 2);
+    }
+
+    /**
+     * Halves the hash table while it stays at most half-full with respect to
+     * the load factor, once the number of elements has fallen below a quarter
+     * of the load factor. The gap between the grow and the shrink thresholds
+     * prevents resizing back and forth around one size. The table never
+     * shrinks below its initial length.
+     *
+     * @return true if the table was rehashed, false otherwise
+     */
+    private boolean shrinkIfSparse() {
+        int length = hashTable.length;
+        boolean result = length > initialLength && size < length * loadFactor / SHRINK_DIVISOR;
+
+        if (result) {
+            while (length / 2 >= initialLength && size < length / 2 * loadFactor / 2) {
+                length /= 2;
+            }
+
+            rehash(length);
+        }
+
+        return result;
+    }
+
+    /**
+     * Rehashes all elements into a new hash table of the given length. The
+     * lists of the old table are cleared.
+     *
+     * @param length the length of the new hash table
+     */
+    private void rehash(int length) {
+        CollectionEvents.RehashEvent event = new CollectionEvents.RehashEvent();
+        event.begin();
+
+        int oldCapacity = hashTable.length;
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        List<T>[] tempTable = new List[length];
 
         for (List<T> list : hashTable) {
             if (list != null) {
@@ -290,6 +480,107 @@ public class HashSet<T> implements Set<T> {
         }
 
         hashTable = tempTable;
+        rebuildBloomFilter();
+
+        if (metrics != null) {
+            metrics.recordResize();
+        }
+
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.setCollection(this);
+            event.oldCapacity = oldCapacity;
+            event.newCapacity = length;
+            event.size = size;
+            event.commit();
+        }
     }
 
+    /**
+     * Finds the given element in the bucket in a single indexed pass without
+     * an iterator, unless the Bloom filter rules it out, and records the
+     * elements compared if metrics are enabled.
+     *
+     * @param list    the bucket, or null
+     * @param pattern the element to be searched for
+     * @return the element of the bucket equal to the pattern, or null if the
+     *         element is not found
+     */
+    private T findInBucket(List<T> list, T pattern) {
+        T result = null;
+        int probes = 0;
+
+        if (list != null && mightContain(pattern)) {
+            for (int i = 0; result == null && i < list.size(); i++) {
+                T element = list.get(i);
+                probes++;
+
+                if (element.equals(pattern)) {
+                    result = element;
+                }
+            }
+        }
+
+        if (metrics != null) {
+            metrics.recordLookup(probes);
+        }
+
+        return result;
+    }
+
+    /**
+     * Counts the buckets by their length for {@link CollectionMetrics}.
+     *
+     * @return the histogram of bucket lengths
+     */
+    private long[] bucketLengthHistogram() {
+        long[] result = new long[CollectionMetrics.HISTOGRAM_LENGTH];
+
+        for (List<T> bucket : hashTable) {
+            int length = bucket == null ? 0 : bucket.size();
+            result[Math.min(length, result.length - 1)]++;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns false if the Bloom filter proves that the set does not contain
+     * the given element.
+     *
+     * @param pattern the element to be checked
+     * @return false if the element is definitely absent, true otherwise
+     */
+    private boolean mightContain(Object pattern) {
+        return bloomFilter == null || bloomFilter.mightContain(pattern);
+    }
+
+    /**
+     * Creates a new Bloom filter sized for the current table, if the filter is
+     * enabled, and adds all elements to it.
+     */
+    private void rebuildBloomFilter() {
+        if (bloomFilterRate > 0) {
+            bloomFilter = new BloomFilter<>(bloomFilterCapacity(), bloomFilterRate);
+            bloomFilterRemovals = 0;
+            forEach(bloomFilter::add);
+        }
+    }
+
+    /**
+     * Counts an element removed from the set but still set in the Bloom
+     * filter, and rebuilds the filter once such elements reach a quarter of
+     * its capacity. The rebuild costs O(capacity), so it is amortized over
+     * the removals.
+     */
+    private void countBloomFilterRemoval() {
+        if (bloomFilter != null && ++bloomFilterRemovals >= bloomFilterCapacity() / STALE_DIVISOR) {
+            rebuildBloomFilter();
+        }
+    }
+
+    private int bloomFilterCapacity() {
+        return (int) (hashTable.length * loadFactor) + 1;
+    }
 }
@@ -0,0 +1,32 @@
+package io.p4r53c.telran.util;
+
+/**
+ * Hash functions shared by the probabilistic structures of this package.
+ *
+ * @author p4r53c
+ */
+final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * Spreads a 32-bit hash code over 64 bits with the finalizer of
+     * MurmurHash3, so that the result can be split into independent hashes.
+     * The result depends only on the hash code, so it is the same in every
+     * process for elements with stable hash codes.
+     *
+     * @param hashCode the hash code
+     * @return the mixed 64-bit hash
+     */
+    static long mix(int hashCode) {
+        long hash = hashCode * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+}
@@ -0,0 +1,541 @@
+package io.p4r53c.telran.util;
+
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import java.util.Iterator;
+
+import java.util.Arrays;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import java.util.NoSuchElementException;
+
+/**
+ * An implementation of {@link List} interface backed by a primitive
+ * {@code int} array, so elements are stored without boxing.
+ * <p>
+ * Besides the {@link List} methods working with boxed values it has primitive
+ * counterparts ({@link #add(int)}, {@link #getInt(int)}, {@link #indexOf(int)}
+ * and others) and aggregate operations. Searches, {@link #sum()},
+ * {@link #min()}, {@link #max()} and {@link #removeMultiplesOf(int)} run the
+ * SIMD kernels of {@link VectorKernels}.
+ *
+ * @author p4r53c
+ */
+public class IntArrayList implements List<Integer> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] array;
+
+    private int size;
+
+    public IntArrayList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntArrayList(int capacity) {
+        array = new int[capacity];
+    }
+
+    private class IntArrayListIterator implements Iterator<Integer> {
+
+        int current;
+        boolean hasPrev;
+
+        @Override
+        public boolean hasNext() {
+            return current < size;
+        }
+
+        @Override
+        public Integer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            hasPrev = true;
+
+            return array[current++];
+        }
+
+        @Override
+        public void remove() {
+            if (!hasPrev) {
+                throw new IllegalStateException();
+            }
+
+            IntArrayList.this.remove(--current);
+            hasPrev = false;
+        }
+    }
+
+    /**
+     * Adds given element to the end of the list.
+     *
+     * @param value the element to be added
+     * @return true
+     */
+    public boolean add(int value) {
+        if (size == array.length) {
+            reallocate();
+        }
+
+        array[size++] = value;
+
+        return true;
+    }
+
+    /**
+     * Adds given element to the end of the list.
+     *
+     * @param obj the element to be added
+     * @return true
+     */
+    @Override
+    public boolean add(Integer obj) {
+        return add(obj.intValue());
+    }
+
+    /**
+     * Inserts given element at given position in the list.
+     *
+     * @param index the position where the element should be inserted
+     * @param value the element to be inserted
+     */
+    public void add(int index, int value) {
+        checkIndex(index, true);
+
+        if (size == array.length) {
+            reallocate();
+        }
+
+        System.arraycopy(array, index, array, index + 1, size - index);
+        array[index] = value;
+        size++;
+    }
+
+    /**
+     * Inserts given element at given position in the list.
+     *
+     * @param index the position where the element should be inserted
+     * @param obj   the element to be inserted
+     */
+    @Override
+    public void add(int index, Integer obj) {
+        add(index, obj.intValue());
+    }
+
+    /**
+     * Removes the element at given position in the list.
+     *
+     * @param index the position of the element to be removed
+     * @return the removed element
+     */
+    @Override
+    public Integer remove(int index) {
+        return removeInt(index);
+    }
+
+    /**
+     * Removes the element at given position in the list without boxing it.
+     *
+     * @param index the position of the element to be removed
+     * @return the removed element
+     */
+    public int removeInt(int index) {
+        checkIndex(index, false);
+
+        int result = array[index];
+        System.arraycopy(array, index + 1, array, index, size - index - 1);
+        size--;
+
+        return result;
+    }
+
+    /**
+     * Returns the element at given position in the list.
+     *
+     * @param index the position of the element to be returned
+     * @return the element at given position in the list
+     */
+    @Override
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    /**
+     * Returns the element at given position in the list without boxing it.
+     *
+     * @param index the position of the element to be returned
+     * @return the element at given position in the list
+     */
+    public int getInt(int index) {
+        checkIndex(index, false);
+        return array[index];
+    }
+
+    /**
+     * Replaces the element at given position in the list.
+     *
+     * @param index the position of the element to be replaced
+     * @param value the new element
+     * @return the former element
+     */
+    public int set(int index, int value) {
+        checkIndex(index, false);
+
+        int result = array[index];
+        array[index] = value;
+
+        return result;
+    }
+
+    /**
+     * Returns the index of the first occurrence of given element, comparing a
+     * vector of elements at a time.
+     *
+     * @param value the element to be searched for
+     * @return the index of the first occurrence, or -1 if the element is not
+     *         found
+     */
+    public int indexOf(int value) {
+        return VectorKernels.indexOf(array, size, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int indexOf(Integer pattern) {
+        return pattern == null ? -1 : indexOf(pattern.intValue());
+    }
+
+    /**
+     * Returns the index of the last occurrence of given element, comparing a
+     * vector of elements at a time.
+     *
+     * @param value the element to be searched for
+     * @return the index of the last occurrence, or -1 if the element is not
+     *         found
+     */
+    public int lastIndexOf(int value) {
+        return VectorKernels.lastIndexOf(array, size, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int lastIndexOf(Integer pattern) {
+        return pattern == null ? -1 : lastIndexOf(pattern.intValue());
+    }
+
+    /**
+     * Returns true if the list contains given element.
+     *
+     * @param value the element to be searched for
+     * @return true if the list contains the element, false otherwise
+     */
+    public boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the number of elements in the list.
+     *
+     * @return the number of elements in the list
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the list is empty.
+     *
+     * @return true if the list is empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns an iterator over the elements of the list.
+     *
+     * @return an iterator over the elements of the list
+     */
+    @Override
+    public Iterator<Integer> iterator() {
+        return new IntArrayListIterator();
+    }
+
+    /**
+     * Performs the given action for each element, reading the array directly.
+     *
+     * @param action the action to be performed for each element
+     */
+    @Override
+    public void forEach(Consumer<? super Integer> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(array[i]);
+        }
+    }
+
+    /**
+     * Removes elements matching the predicate in a single compaction pass.
+     *
+     * @param predicate a predicate to test elements for removal
+     * @return true if any elements were removed, false otherwise
+     */
+    @Override
+    public boolean removeIf(Predicate<Integer> predicate) {
+        int left = 0;
+
+        for (int right = 0; right < size; right++) {
+            if (!predicate.test(array[right])) {
+                array[left++] = array[right];
+            }
+        }
+
+        boolean result = left < size;
+        size = left;
+
+        return result;
+    }
+
+    /**
+     * Removes all multiples of the divisor, such as all even elements for the
+     * divisor 2, testing a vector of elements at a time.
+     *
+     * @param divisor the divisor
+     * @return true if any elements were removed, false otherwise
+     * @throws ArithmeticException if the divisor is zero
+     */
+    public boolean removeMultiplesOf(int divisor) {
+        if (divisor == 0) {
+            throw new ArithmeticException("Divisor is zero");
+        }
+
+        int oldSize = size;
+        size = VectorKernels.removeMultiplesOf(array, size, divisor);
+
+        return size < oldSize;
+    }
+
+    /**
+     * Removes all elements keeping the capacity.
+     */
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the sum of the elements.
+     *
+     * @return the sum of the elements, 0 for an empty list
+     */
+    public long sum() {
+        return VectorKernels.sum(array, size);
+    }
+
+    /**
+     * Returns the least element.
+     *
+     * @return the least element
+     * @throws NoSuchElementException if the list is empty
+     */
+    public int min() {
+        checkNotEmpty();
+        return VectorKernels.min(array, size);
+    }
+
+    /**
+     * Returns the greatest element.
+     *
+     * @return the greatest element
+     * @throws NoSuchElementException if the list is empty
+     */
+    public int max() {
+        checkNotEmpty();
+        return VectorKernels.max(array, size);
+    }
+
+    /**
+     * Returns a copy of the elements as an array.
+     *
+     * @return the array of the elements
+     */
+    public int[] toIntArray() {
+        return Arrays.copyOf(array, size);
+    }
+
+    /**
+     * Writes the list to the channel in the format of {@link CollectionCodec}
+     * with the elements as fixed-width ints, copied from the backing array a
+     * buffer load at a time.
+     *
+     * @param channel the channel
+     * @throws IOException if the channel fails
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        CodecOutput out = new CodecOutput(channel);
+        writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Writes the list to an output owned by the caller, without flushing it.
+     *
+     * @param out the output
+     * @throws IOException if the channel fails
+     */
+    public void writeTo(CodecOutput out) throws IOException {
+        CollectionCodec.writeHeader(out, CollectionCodec.KIND_INTS, size);
+        out.writeInts(array, 0, size);
+    }
+
+    /**
+     * Reads a list written by {@link #writeTo(WritableByteChannel)} straight
+     * into the backing array of a new list. The channel is read ahead in
+     * buffer loads, so bytes following the list are consumed as well; use
+     * {@link #readFrom(CodecInput)} to read several payloads from one
+     * channel.
+     *
+     * @param channel the channel
+     * @return the list read
+     * @throws IOException if the channel fails, ends early or does not hold a
+     *                     list of ints
+     */
+    public static IntArrayList readFrom(ReadableByteChannel channel) throws IOException {
+        return readFrom(new CodecInput(channel));
+    }
+
+    /**
+     * Reads a list written by {@link #writeTo(CodecOutput)} or
+     * {@link #writeTo(WritableByteChannel)} from an input owned by the caller.
+     *
+     * @param in the input
+     * @return the list read
+     * @throws IOException if the channel fails, ends early or does not hold a
+     *                     list of ints
+     */
+    public static IntArrayList readFrom(CodecInput in) throws IOException {
+        return fromArray(in.readIntArray(CollectionCodec.readHeader(in, CollectionCodec.KIND_INTS)));
+    }
+
+    /**
+     * Returns the number of bytes of a snapshot of the list.
+     *
+     * @return the size of the snapshot in bytes
+     */
+    public long snapshotBytes() {
+        return Snapshots.bytes(size, Integer.BYTES);
+    }
+
+    /**
+     * Writes a snapshot of the list to the channel, for example a
+     * {@link FileChannel}: a fixed header followed by the backing array as
+     * little-endian ints, copied in bulk through a direct buffer of 1 MB,
+     * so a large list is written at the bandwidth of the channel.
+     *
+     * @param channel the channel
+     * @throws IOException if the channel fails
+     */
+    public void writeSnapshot(WritableByteChannel channel) throws IOException {
+        Snapshots.write(channel, CollectionCodec.KIND_INTS, array, size);
+    }
+
+    /**
+     * Writes a snapshot of the list into the buffer at its position and
+     * advances the position past it. The byte order of the buffer is not
+     * changed.
+     *
+     * @param buffer the buffer, with at least {@link #snapshotBytes()}
+     *               remaining
+     * @throws java.nio.BufferOverflowException if the buffer has not enough
+     *                                          space remaining
+     */
+    public void writeSnapshot(ByteBuffer buffer) {
+        Snapshots.write(buffer, CollectionCodec.KIND_INTS, array, size);
+    }
+
+    /**
+     * Reads a snapshot written by {@link #writeSnapshot(WritableByteChannel)}
+     * straight into the backing array of a new list.
+     *
+     * @param channel the channel
+     * @return the list read
+     * @throws IOException if the channel fails, ends early or does not hold a
+     *                     snapshot of ints
+     */
+    public static IntArrayList readSnapshot(ReadableByteChannel channel) throws IOException {
+        return fromArray(Snapshots.readInts(channel, CollectionCodec.KIND_INTS));
+    }
+
+    /**
+     * Reads a snapshot written by {@link #writeSnapshot(ByteBuffer)} at the
+     * position of the buffer into a new list and advances the position past
+     * it.
+     *
+     * @param buffer the buffer
+     * @return the list read
+     * @throws IOException if the buffer does not hold a complete snapshot of
+     *                     ints
+     */
+    public static IntArrayList readSnapshot(ByteBuffer buffer) throws IOException {
+        return fromArray(Snapshots.readInts(buffer, CollectionCodec.KIND_INTS));
+    }
+
+    /**
+     * Maps a snapshot at the position of the file back without reading it:
+     * the returned buffer is a read-only view of the file whose pages are
+     * loaded on first access. The position of the file is moved past the
+     * snapshot. The mapping stays valid after the file is closed.
+     * <p>
+     * A single mapping is limited to {@link Integer#MAX_VALUE} bytes, so
+     * snapshots of more than about 536 million ints cannot be mapped; they are
+     * read by {@link #readSnapshot(ReadableByteChannel)}.
+     *
+     * @param channel the file
+     * @return the elements of the snapshot
+     * @throws IOException              if the file fails, is too short or does
+     *                                  not hold a snapshot of ints
+     * @throws IllegalArgumentException if the snapshot is too large to be
+     *                                  mapped
+     */
+    public static IntBuffer mapSnapshot(FileChannel channel) throws IOException {
+        return Snapshots.map(channel, CollectionCodec.KIND_INTS, Integer.BYTES).asIntBuffer();
+    }
+
+    private static IntArrayList fromArray(int[] elements) {
+        IntArrayList result = new IntArrayList(0);
+        result.array = elements;
+        result.size = elements.length;
+
+        return result;
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+    }
+
+    /**
+     * Doubles the capacity of the list if it is full. A list of zero capacity
+     * gets the default capacity.
+     */
+    private void reallocate() {
+        array = Arrays.copyOf(array, array.length == 0 ? DEFAULT_CAPACITY : array.length * 2);
+    }
+}
@@ -2,6 +2,9 @@ package io.p4r53c.telran.util;
 
 import java.util.Iterator;
 
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
 import io.p4r53c.telran.util.LinkedList.Node;
 
 /**
@@ -104,7 +107,8 @@ public class LinkedHashSet<T> implements Set<T> {
      */
     @Override
     public T get(Object pattern) {
-        return map.get(pattern) == null ? null : map.get(pattern).obj;
+        Node<T> node = map.get(pattern);
+        return node == null ? null : node.obj;
     }
 
     /**
@@ -147,4 +151,43 @@ public class LinkedHashSet<T> implements Set<T> {
     public Iterator<T> iterator() {
         return new LinkedHashSetIterator();
     }
+
+    /**
+     * Performs the given action for each element in insertion order.
+     *
+     * @param action the action to be performed for each element
+     */
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        list.forEach(action);
+    }
+
+    /**
+     * Removes elements matching the predicate in a single pass over the list,
+     * dropping the removed elements from the map as well.
+     *
+     * @param predicate a predicate to test elements for removal
+     * @return true if any elements were removed, false otherwise
+     */
+    @Override
+    public boolean removeIf(Predicate<T> predicate) {
+        return list.removeIf(obj -> {
+            boolean result = predicate.test(obj);
+
+            if (result) {
+                map.remove(obj);
+            }
+
+            return result;
+        });
+    }
+
+    /**
+     * Removes all elements from both the list and the map.
+     */
+    @Override
+    public void clear() {
+        list.clear();
+        map.clear();
+    }
 }
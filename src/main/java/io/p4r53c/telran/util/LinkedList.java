@@ -5,6 +5,9 @@ import java.util.Objects;
 
 import java.util.NoSuchElementException;
 
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
 /**
  * A doubly-linked list implementation of the {@link List} interface.
  *
@@ -109,6 +112,56 @@ public class LinkedList<T> implements List<T> {
         return new LinkedListIterator();
     }
 
+    /**
+     * Performs the given action for each element, walking the nodes directly
+     * without an iterator.
+     *
+     * @param action the action to be performed for each element
+     */
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        Node<T> current = head;
+
+        while (current != null) {
+            action.accept(current.obj);
+            current = current.next;
+        }
+    }
+
+    /**
+     * Removes elements matching the predicate in a single pass, unlinking each
+     * matching node in O(1).
+     *
+     * @param predicate a predicate to test elements for removal
+     * @return true if any elements were removed, false otherwise
+     */
+    @Override
+    public boolean removeIf(Predicate<T> predicate) {
+        int oldSize = size;
+        Node<T> current = head;
+
+        while (current != null) {
+            Node<T> next = current.next;
+
+            if (predicate.test(current.obj)) {
+                removeNode(current);
+            }
+
+            current = next;
+        }
+
+        return size < oldSize;
+    }
+
+    /**
+     * Removes all elements in O(1) by dropping the head and the tail.
+     */
+    @Override
+    public void clear() {
+        head = tail = null;
+        size = 0;
+    }
+
     /**
      * Adds the given element at the given position in the list.
      *
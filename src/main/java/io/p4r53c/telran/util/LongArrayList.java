@@ -0,0 +1,543 @@
+package io.p4r53c.telran.util;
+
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import java.util.Iterator;
+
+import java.util.Arrays;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import java.util.NoSuchElementException;
+
+/**
+ * An implementation of {@link List} interface backed by a primitive
+ * {@code long} array, so elements are stored without boxing.
+ * <p>
+ * Besides the {@link List} methods working with boxed values it has primitive
+ * counterparts ({@link #add(long)}, {@link #getLong(int)},
+ * {@link #indexOf(long)} and others) and aggregate operations. Searches,
+ * {@link #sum()}, {@link #min()}, {@link #max()} and
+ * {@link #removeMultiplesOf(long)} run the SIMD kernels of
+ * {@link VectorKernels}.
+ *
+ * @author p4r53c
+ */
+public class LongArrayList implements List<Long> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] array;
+
+    private int size;
+
+    public LongArrayList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongArrayList(int capacity) {
+        array = new long[capacity];
+    }
+
+    private class LongArrayListIterator implements Iterator<Long> {
+
+        int current;
+        boolean hasPrev;
+
+        @Override
+        public boolean hasNext() {
+            return current < size;
+        }
+
+        @Override
+        public Long next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            hasPrev = true;
+
+            return array[current++];
+        }
+
+        @Override
+        public void remove() {
+            if (!hasPrev) {
+                throw new IllegalStateException();
+            }
+
+            LongArrayList.this.remove(--current);
+            hasPrev = false;
+        }
+    }
+
+    /**
+     * Adds given element to the end of the list.
+     *
+     * @param value the element to be added
+     * @return true
+     */
+    public boolean add(long value) {
+        if (size == array.length) {
+            reallocate();
+        }
+
+        array[size++] = value;
+
+        return true;
+    }
+
+    /**
+     * Adds given element to the end of the list.
+     *
+     * @param obj the element to be added
+     * @return true
+     */
+    @Override
+    public boolean add(Long obj) {
+        return add(obj.longValue());
+    }
+
+    /**
+     * Inserts given element at given position in the list.
+     *
+     * @param index the position where the element should be inserted
+     * @param value the element to be inserted
+     */
+    public void add(int index, long value) {
+        checkIndex(index, true);
+
+        if (size == array.length) {
+            reallocate();
+        }
+
+        System.arraycopy(array, index, array, index + 1, size - index);
+        array[index] = value;
+        size++;
+    }
+
+    /**
+     * Inserts given element at given position in the list.
+     *
+     * @param index the position where the element should be inserted
+     * @param obj   the element to be inserted
+     */
+    @Override
+    public void add(int index, Long obj) {
+        add(index, obj.longValue());
+    }
+
+    /**
+     * Removes the element at given position in the list.
+     *
+     * @param index the position of the element to be removed
+     * @return the removed element
+     */
+    @Override
+    public Long remove(int index) {
+        return removeLong(index);
+    }
+
+    /**
+     * Removes the element at given position in the list without boxing it.
+     *
+     * @param index the position of the element to be removed
+     * @return the removed element
+     */
+    public long removeLong(int index) {
+        checkIndex(index, false);
+
+        long result = array[index];
+        System.arraycopy(array, index + 1, array, index, size - index - 1);
+        size--;
+
+        return result;
+    }
+
+    /**
+     * Returns the element at given position in the list.
+     *
+     * @param index the position of the element to be returned
+     * @return the element at given position in the list
+     */
+    @Override
+    public Long get(int index) {
+        return getLong(index);
+    }
+
+    /**
+     * Returns the element at given position in the list without boxing it.
+     *
+     * @param index the position of the element to be returned
+     * @return the element at given position in the list
+     */
+    public long getLong(int index) {
+        checkIndex(index, false);
+        return array[index];
+    }
+
+    /**
+     * Replaces the element at given position in the list.
+     *
+     * @param index the position of the element to be replaced
+     * @param value the new element
+     * @return the former element
+     */
+    public long set(int index, long value) {
+        checkIndex(index, false);
+
+        long result = array[index];
+        array[index] = value;
+
+        return result;
+    }
+
+    /**
+     * Returns the index of the first occurrence of given element, comparing a
+     * vector of elements at a time.
+     *
+     * @param value the element to be searched for
+     * @return the index of the first occurrence, or -1 if the element is not
+     *         found
+     */
+    public int indexOf(long value) {
+        return VectorKernels.indexOf(array, size, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int indexOf(Long pattern) {
+        return pattern == null ? -1 : indexOf(pattern.longValue());
+    }
+
+    /**
+     * Returns the index of the last occurrence of given element, comparing a
+     * vector of elements at a time.
+     *
+     * @param value the element to be searched for
+     * @return the index of the last occurrence, or -1 if the element is not
+     *         found
+     */
+    public int lastIndexOf(long value) {
+        return VectorKernels.lastIndexOf(array, size, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int lastIndexOf(Long pattern) {
+        return pattern == null ? -1 : lastIndexOf(pattern.longValue());
+    }
+
+    /**
+     * Returns true if the list contains given element.
+     *
+     * @param value the element to be searched for
+     * @return true if the list contains the element, false otherwise
+     */
+    public boolean contains(long value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the number of elements in the list.
+     *
+     * @return the number of elements in the list
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the list is empty.
+     *
+     * @return true if the list is empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns an iterator over the elements of the list.
+     *
+     * @return an iterator over the elements of the list
+     */
+    @Override
+    public Iterator<Long> iterator() {
+        return new LongArrayListIterator();
+    }
+
+    /**
+     * Performs the given action for each element, reading the array directly.
+     *
+     * @param action the action to be performed for each element
+     */
+    @Override
+    public void forEach(Consumer<? super Long> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(array[i]);
+        }
+    }
+
+    /**
+     * Removes elements matching the predicate in a single compaction pass.
+     *
+     * @param predicate a predicate to test elements for removal
+     * @return true if any elements were removed, false otherwise
+     */
+    @Override
+    public boolean removeIf(Predicate<Long> predicate) {
+        int left = 0;
+
+        for (int right = 0; right < size; right++) {
+            if (!predicate.test(array[right])) {
+                array[left++] = array[right];
+            }
+        }
+
+        boolean result = left < size;
+        size = left;
+
+        return result;
+    }
+
+    /**
+     * Removes all multiples of the divisor, such as all even elements for the
+     * divisor 2, testing a vector of elements at a time.
+     *
+     * @param divisor the divisor
+     * @return true if any elements were removed, false otherwise
+     * @throws ArithmeticException if the divisor is zero
+     */
+    public boolean removeMultiplesOf(long divisor) {
+        if (divisor == 0) {
+            throw new ArithmeticException("Divisor is zero");
+        }
+
+        int oldSize = size;
+        size = VectorKernels.removeMultiplesOf(array, size, divisor);
+
+        return size < oldSize;
+    }
+
+    /**
+     * Removes all elements keeping the capacity.
+     */
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the sum of the elements.
+     *
+     * @return the sum of the elements, 0 for an empty list, wrapping around
+     *         on overflow like {@code long} addition
+     */
+    public long sum() {
+        return VectorKernels.sum(array, size);
+    }
+
+    /**
+     * Returns the least element.
+     *
+     * @return the least element
+     * @throws NoSuchElementException if the list is empty
+     */
+    public long min() {
+        checkNotEmpty();
+        return VectorKernels.min(array, size);
+    }
+
+    /**
+     * Returns the greatest element.
+     *
+     * @return the greatest element
+     * @throws NoSuchElementException if the list is empty
+     */
+    public long max() {
+        checkNotEmpty();
+        return VectorKernels.max(array, size);
+    }
+
+    /**
+     * Returns a copy of the elements as an array.
+     *
+     * @return the array of the elements
+     */
+    public long[] toLongArray() {
+        return Arrays.copyOf(array, size);
+    }
+
+    /**
+     * Writes the list to the channel in the format of {@link CollectionCodec}
+     * with the elements as fixed-width longs, copied from the backing array a
+     * buffer load at a time.
+     *
+     * @param channel the channel
+     * @throws IOException if the channel fails
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        CodecOutput out = new CodecOutput(channel);
+        writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Writes the list to an output owned by the caller, without flushing it.
+     *
+     * @param out the output
+     * @throws IOException if the channel fails
+     */
+    public void writeTo(CodecOutput out) throws IOException {
+        CollectionCodec.writeHeader(out, CollectionCodec.KIND_LONGS, size);
+        out.writeLongs(array, 0, size);
+    }
+
+    /**
+     * Reads a list written by {@link #writeTo(WritableByteChannel)} straight
+     * into the backing array of a new list. The channel is read ahead in
+     * buffer loads, so bytes following the list are consumed as well; use
+     * {@link #readFrom(CodecInput)} to read several payloads from one
+     * channel.
+     *
+     * @param channel the channel
+     * @return the list read
+     * @throws IOException if the channel fails, ends early or does not hold a
+     *                     list of longs
+     */
+    public static LongArrayList readFrom(ReadableByteChannel channel) throws IOException {
+        return readFrom(new CodecInput(channel));
+    }
+
+    /**
+     * Reads a list written by {@link #writeTo(CodecOutput)} or
+     * {@link #writeTo(WritableByteChannel)} from an input owned by the caller.
+     *
+     * @param in the input
+     * @return the list read
+     * @throws IOException if the channel fails, ends early or does not hold a
+     *                     list of longs
+     */
+    public static LongArrayList readFrom(CodecInput in) throws IOException {
+        return fromArray(in.readLongArray(CollectionCodec.readHeader(in, CollectionCodec.KIND_LONGS)));
+    }
+
+    /**
+     * Returns the number of bytes of a snapshot of the list.
+     *
+     * @return the size of the snapshot in bytes
+     */
+    public long snapshotBytes() {
+        return Snapshots.bytes(size, Long.BYTES);
+    }
+
+    /**
+     * Writes a snapshot of the list to the channel, for example a
+     * {@link FileChannel}: a fixed header followed by the backing array as
+     * little-endian longs, copied in bulk through a direct buffer of 1 MB,
+     * so a large list is written at the bandwidth of the channel.
+     *
+     * @param channel the channel
+     * @throws IOException if the channel fails
+     */
+    public void writeSnapshot(WritableByteChannel channel) throws IOException {
+        Snapshots.write(channel, CollectionCodec.KIND_LONGS, array, size);
+    }
+
+    /**
+     * Writes a snapshot of the list into the buffer at its position and
+     * advances the position past it. The byte order of the buffer is not
+     * changed.
+     *
+     * @param buffer the buffer, with at least {@link #snapshotBytes()}
+     *               remaining
+     * @throws java.nio.BufferOverflowException if the buffer has not enough
+     *                                          space remaining
+     */
+    public void writeSnapshot(ByteBuffer buffer) {
+        Snapshots.write(buffer, CollectionCodec.KIND_LONGS, array, size);
+    }
+
+    /**
+     * Reads a snapshot written by {@link #writeSnapshot(WritableByteChannel)}
+     * straight into the backing array of a new list.
+     *
+     * @param channel the channel
+     * @return the list read
+     * @throws IOException if the channel fails, ends early or does not hold a
+     *                     snapshot of longs
+     */
+    public static LongArrayList readSnapshot(ReadableByteChannel channel) throws IOException {
+        return fromArray(Snapshots.readLongs(channel, CollectionCodec.KIND_LONGS));
+    }
+
+    /**
+     * Reads a snapshot written by {@link #writeSnapshot(ByteBuffer)} at the
+     * position of the buffer into a new list and advances the position past
+     * it.
+     *
+     * @param buffer the buffer
+     * @return the list read
+     * @throws IOException if the buffer does not hold a complete snapshot of
+     *                     longs
+     */
+    public static LongArrayList readSnapshot(ByteBuffer buffer) throws IOException {
+        return fromArray(Snapshots.readLongs(buffer, CollectionCodec.KIND_LONGS));
+    }
+
+    /**
+     * Maps a snapshot at the position of the file back without reading it:
+     * the returned buffer is a read-only view of the file whose pages are
+     * loaded on first access. The position of the file is moved past the
+     * snapshot. The mapping stays valid after the file is closed.
+     * <p>
+     * A single mapping is limited to {@link Integer#MAX_VALUE} bytes, so
+     * snapshots of more than about 268 million longs cannot be mapped; they are
+     * read by {@link #readSnapshot(ReadableByteChannel)}.
+     *
+     * @param channel the file
+     * @return the elements of the snapshot
+     * @throws IOException              if the file fails, is too short or does
+     *                                  not hold a snapshot of longs
+     * @throws IllegalArgumentException if the snapshot is too large to be
+     *                                  mapped
+     */
+    public static LongBuffer mapSnapshot(FileChannel channel) throws IOException {
+        return Snapshots.map(channel, CollectionCodec.KIND_LONGS, Long.BYTES).asLongBuffer();
+    }
+
+    private static LongArrayList fromArray(long[] elements) {
+        LongArrayList result = new LongArrayList(0);
+        result.array = elements;
+        result.size = elements.length;
+
+        return result;
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+    }
+
+    /**
+     * Doubles the capacity of the list if it is full. A list of zero capacity
+     * gets the default capacity.
+     */
+    private void reallocate() {
+        array = Arrays.copyOf(array, array.length == 0 ? DEFAULT_CAPACITY : array.length * 2);
+    }
+}
@@ -1,5 +1,7 @@
 package io.p4r53c.telran.util;
 
+import java.util.function.BiConsumer;
+
 /**
  * A interface for maps of objects. It provides basic operations for
  * adding, removing elements and checking the collection's properties.
@@ -204,4 +206,20 @@ public interface Map<K, V> {
         V result = get(key);
         return result == null ? put(key, value) : result;
     }
+
+    /**
+     * Removes all entries from the map.
+     */
+    default void clear() {
+        entrySet().clear();
+    }
+
+    /**
+     * Performs the given action for each key and value of the map.
+     * 
+     * @param action the action to be performed for each key and value
+     */
+    default void forEach(BiConsumer<? super K, ? super V> action) {
+        entrySet().forEach(entry -> action.accept(entry.getKey(), entry.getValue()));
+    }
 }
@@ -0,0 +1,140 @@
+package io.p4r53c.telran.util;
+
+import java.io.IOException;
+
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import java.util.function.Supplier;
+
+/**
+ * The binary format of {@link CollectionCodec} for maps: a header followed by
+ * the keys and values of the entries in iteration order, each encoded by its
+ * pluggable {@link ElementCodec}.
+ *
+ * @author p4r53c
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+public final class MapCodec<K, V> {
+
+    private final ElementCodec<K> keyCodec;
+
+    private final ElementCodec<V> valueCodec;
+
+    /**
+     * Creates a codec of maps with the given codecs of keys and values.
+     *
+     * @param keyCodec   the codec of keys
+     * @param valueCodec the codec of values
+     */
+    public MapCodec(ElementCodec<K> keyCodec, ElementCodec<V> valueCodec) {
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+    }
+
+    /**
+     * Writes the map to the channel in the iteration order of its entries.
+     *
+     * @param map     the map to be written
+     * @param channel the channel
+     * @throws IOException if the channel fails
+     */
+    public void writeTo(Map<? extends K, ? extends V> map, WritableByteChannel channel) throws IOException {
+        CodecOutput out = new CodecOutput(channel);
+        writeTo(map, out);
+        out.flush();
+    }
+
+    /**
+     * Writes the map to an output owned by the caller in the iteration order
+     * of its entries, without flushing it.
+     *
+     * @param map the map to be written
+     * @param out the output
+     * @throws IOException if the channel fails
+     */
+    public void writeTo(Map<? extends K, ? extends V> map, CodecOutput out) throws IOException {
+        CollectionCodec.writeHeader(out, CollectionCodec.KIND_MAP, map.size());
+
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            keyCodec.write(out, entry.getKey());
+            valueCodec.write(out, entry.getValue());
+        }
+    }
+
+    /**
+     * Reads a map from the channel and puts its entries into a new map. The
+     * channel is read ahead in buffer loads, so bytes following the map are
+     * consumed as well; several payloads written in a row are read with
+     * {@link #readFrom(CodecInput, Supplier)} and a single input.
+     *
+     * @param <M>     type of the map
+     * @param channel the channel
+     * @param factory creates the empty map
+     * @return the map holding the entries read
+     * @throws IOException if the channel fails, ends early or does not hold a
+     *                     map
+     */
+    public <M extends Map<K, V>> M readFrom(ReadableByteChannel channel, Supplier<M> factory) throws IOException {
+        return readFrom(new CodecInput(channel), factory);
+    }
+
+    /**
+     * Reads a map from an input owned by the caller and puts its entries into
+     * a new map.
+     *
+     * @param <M>     type of the map
+     * @param in      the input
+     * @param factory creates the empty map
+     * @return the map holding the entries read
+     * @throws IOException if the channel fails, ends early or does not hold a
+     *                     map
+     */
+    public <M extends Map<K, V>> M readFrom(CodecInput in, Supplier<M> factory) throws IOException {
+        int size = CollectionCodec.readHeader(in, CollectionCodec.KIND_MAP);
+        M result = factory.get();
+
+        for (int i = 0; i < size; i++) {
+            result.put(keyCodec.read(in), valueCodec.read(in));
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads a map written in ascending natural order of its keys, for example
+     * from a {@link TreeMap}, into a tree map with a balanced tree in linear
+     * time.
+     *
+     * @param channel the channel
+     * @return the tree map holding the entries read
+     * @throws IOException              if the channel fails, ends early or does
+     *                                  not hold a map
+     * @throws IllegalArgumentException if the keys are not in strictly
+     *                                  ascending order
+     */
+    public TreeMap<K, V> readTreeMap(ReadableByteChannel channel) throws IOException {
+        return readTreeMap(new CodecInput(channel));
+    }
+
+    /**
+     * Reads a map written in ascending natural order of its keys from an
+     * input owned by the caller into a tree map with a balanced tree in linear
+     * time.
+     *
+     * @param in the input
+     * @return the tree map holding the entries read
+     * @throws IOException              if the channel fails, ends early or does
+     *                                  not hold a map
+     * @throws IllegalArgumentException if the keys are not in strictly
+     *                                  ascending order
+     */
+    public TreeMap<K, V> readTreeMap(CodecInput in) throws IOException {
+        int size = CollectionCodec.readHeader(in, CollectionCodec.KIND_MAP);
+
+        return CollectionCodec.readSorted(() -> TreeMap.fromSorted(new CollectionCodec.ElementIterator<>(in, size,
+                input -> new Map.Entry<>(keyCodec.read(input), valueCodec.read(input))), size));
+    }
+}
@@ -0,0 +1,94 @@
+package io.p4r53c.telran.util;
+
+/**
+ * A persistent map based on {@link PersistentTreeSet} of entries.
+ * <p>
+ * {@link #with(Object, Object)} and {@link #without(Object)} return a new
+ * version of the map in O(log n) sharing structure with this one, and
+ * {@link #snapshot()} is O(1), so a read-only version can be handed to other
+ * threads without copying. {@link #put(Object, Object)} never changes an
+ * existing entry, it replaces the entry in a new version of the tree. Entries
+ * must not be changed with {@link Entry#setValue(Object)} as they may be
+ * shared with other versions.
+ * 
+ * @author p4r53c
+ * 
+ * @param <K> type of keys in the map
+ * @param <V> type of values in the map
+ */
+public class PersistentTreeMap<K, V> extends AbstractMap<K, V> {
+
+    public PersistentTreeMap() {
+        set = new PersistentTreeSet<>();
+    }
+
+    private PersistentTreeMap(PersistentTreeSet<Entry<K, V>> set) {
+        this.set = set;
+    }
+
+    /**
+     * Returns a new version of the map with the given key associated with the
+     * given value. This version is not changed.
+     * 
+     * @param key   the key
+     * @param value the value
+     * @return the new version of the map
+     */
+    public PersistentTreeMap<K, V> with(K key, V value) {
+        PersistentTreeMap<K, V> result = snapshot();
+        result.put(key, value);
+        return result;
+    }
+
+    /**
+     * Returns a new version of the map without the given key. This version is
+     * not changed.
+     * 
+     * @param key the key to be removed
+     * @return the new version of the map
+     */
+    public PersistentTreeMap<K, V> without(K key) {
+        return new PersistentTreeMap<>(getEntries().without(new Entry<>(key, null)));
+    }
+
+    /**
+     * Returns an independent map sharing the current version of the tree.
+     * 
+     * @return the snapshot of the map
+     */
+    public PersistentTreeMap<K, V> snapshot() {
+        return new PersistentTreeMap<>(getEntries().snapshot());
+    }
+
+    /**
+     * Associates the given key with the given value by replacing the entry in
+     * a new version of the tree.
+     * 
+     * @param key   the key to associate with the value
+     * @param value the value to associate with the key
+     * @return the previous value associated with the key or null if the key was
+     *         not present
+     */
+    @Override
+    public V put(K key, V value) {
+        Entry<K, V> previous = getEntries().put(new Entry<>(key, value));
+        return previous == null ? null : previous.getValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Set<K> getEmptyKeySet() {
+        return new PersistentTreeSet<>();
+    }
+
+    /**
+     * Returns the set of entries as a persistent set.
+     * 
+     * @return the set of entries
+     */
+    private PersistentTreeSet<Entry<K, V>> getEntries() {
+        return (PersistentTreeSet<Entry<K, V>>) set;
+    }
+}
@@ -0,0 +1,618 @@
+package io.p4r53c.telran.util;
+
+import java.util.Iterator;
+
+import java.util.Comparator;
+
+import java.util.NoSuchElementException;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import java.util.function.Predicate;
+
+/**
+ * A persistent implementation of the {@link SortedSet} interface based on an
+ * AVL tree with path copying.
+ * <p>
+ * Nodes are immutable. {@link #with(Object)} and {@link #without(Object)}
+ * return a new version of the set in O(log n), copying only the nodes on the
+ * path from the root and sharing the rest of the tree with this version.
+ * {@link #snapshot()} is O(1).
+ * <p>
+ * The set itself is a handle to the current root. Mutating methods
+ * {@link #add(Object)} and {@link #remove(Object)} build a new tree and swap
+ * the root with compare-and-set, so readers never lock and always see a
+ * consistent version, and iterators walk the version that was current when
+ * they were created.
+ *
+ * @author p4r53c
+ *
+ * @param <T> type of elements in the set
+ */
+public class PersistentTreeSet<T> implements SortedSet<T> {
+
+    private final Comparator<T> comparator;
+
+    private final AtomicReference<Node<T>> root;
+
+    public PersistentTreeSet(Comparator<T> comparator) {
+        this(comparator, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public PersistentTreeSet() {
+        this((Comparator<T>) Comparator.naturalOrder());
+    }
+
+    private PersistentTreeSet(Comparator<T> comparator, Node<T> root) {
+        this.comparator = comparator;
+        this.root = new AtomicReference<>(root);
+    }
+
+    /**
+     * An immutable node keeping the height and the size of its subtree.
+     */
+    private static final class Node<T> {
+        final T obj;
+        final Node<T> left;
+        final Node<T> right;
+        final int height;
+        final int size;
+
+        Node(T obj, Node<T> left, Node<T> right) {
+            this.obj = obj;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(getHeight(left), getHeight(right));
+            this.size = 1 + getSize(left) + getSize(right);
+        }
+    }
+
+    /**
+     * An in-order iterator over the version of the tree that was current when
+     * the iterator was created.
+     */
+    private class PersistentTreeSetIterator implements Iterator<T> {
+
+        Node<T>[] stack;
+        int top;
+        T prev;
+        boolean hasPrev;
+
+        public PersistentTreeSetIterator() {
+            this(root.get());
+        }
+
+        PersistentTreeSetIterator(Node<T> node) {
+            @SuppressWarnings({ "unchecked", "rawtypes" })
+            Node<T>[] nodes = new Node[getHeight(node)];
+            stack = nodes;
+            pushLeft(node);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return top > 0;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            Node<T> node = stack[--top];
+            pushLeft(node.right);
+
+            prev = node.obj;
+            hasPrev = true;
+
+            return prev;
+        }
+
+        /**
+         * Removes the last returned element from the set. The iteration
+         * continues over the version the iterator was created for.
+         */
+        @Override
+        public void remove() {
+            if (!hasPrev) {
+                throw new IllegalStateException();
+            }
+
+            PersistentTreeSet.this.remove(prev);
+            hasPrev = false;
+        }
+
+        /**
+         * Pushes the given node and all its left descendants onto the stack.
+         *
+         * @param node the node to start from
+         */
+        private void pushLeft(Node<T> node) {
+            while (node != null) {
+                stack[top++] = node;
+                node = node.left;
+            }
+        }
+    }
+
+    /**
+     * Returns a new version of the set with the given element added. This
+     * version is not changed.
+     *
+     * @param obj the element to be added
+     * @return the new version of the set
+     */
+    public PersistentTreeSet<T> with(T obj) {
+        Node<T> current = root.get();
+        return new PersistentTreeSet<>(comparator, insert(current, obj, false));
+    }
+
+    /**
+     * Returns a new version of the set without the given element. This version
+     * is not changed.
+     *
+     * @param pattern the element to be removed
+     * @return the new version of the set
+     */
+    public PersistentTreeSet<T> without(T pattern) {
+        Node<T> current = root.get();
+        return new PersistentTreeSet<>(comparator, delete(current, pattern));
+    }
+
+    /**
+     * Returns an independent set sharing the current version of the tree. This
+     * is an O(1) operation, later changes of either set are not visible in the
+     * other one.
+     *
+     * @return the snapshot of the set
+     */
+    public PersistentTreeSet<T> snapshot() {
+        return new PersistentTreeSet<>(comparator, root.get());
+    }
+
+    /**
+     * Adds the given element to the set by swapping the root with a new version.
+     *
+     * @param obj the element to be added
+     * @return true if the element was added, false otherwise
+     */
+    @Override
+    public boolean add(T obj) {
+        Node<T> current;
+        Node<T> updated;
+
+        do {
+            current = root.get();
+            updated = insert(current, obj, false);
+        } while (updated != current && !root.compareAndSet(current, updated));
+
+        return updated != current;
+    }
+
+    /**
+     * Adds the given element to the set, replacing an equal element if the set
+     * already contains it.
+     *
+     * @param obj the element to be put
+     * @return the replaced element, or null if the set did not contain it
+     */
+    T put(T obj) {
+        Node<T> current;
+        Node<T> updated;
+        T result;
+
+        do {
+            current = root.get();
+            result = getObj(current, obj);
+            updated = insert(current, obj, true);
+        } while (!root.compareAndSet(current, updated));
+
+        return result;
+    }
+
+    /**
+     * Removes the given element from the set by swapping the root with a new
+     * version.
+     *
+     * @param pattern the element to be removed
+     * @return true if the element was found and removed, false otherwise
+     */
+    @Override
+    public boolean remove(T pattern) {
+        Node<T> current;
+        Node<T> updated;
+
+        do {
+            current = root.get();
+            updated = delete(current, pattern);
+        } while (updated != current && !root.compareAndSet(current, updated));
+
+        return updated != current;
+    }
+
+    /**
+     * Removes elements matching the predicate. The remaining elements of the
+     * current version are collected in order and built into a new balanced
+     * tree in linear time, which is swapped in as a single new version.
+     *
+     * @param predicate a predicate that determines whether an element should be
+     *                  removed
+     * @return true if at least one element was removed, false otherwise
+     */
+    @Override
+    public boolean removeIf(Predicate<T> predicate) {
+        Node<T> current;
+        Node<T> updated;
+
+        do {
+            current = root.get();
+            ArrayList<T> remaining = new ArrayList<>(getSize(current) + 1);
+            Iterator<T> iterator = new PersistentTreeSetIterator(current);
+
+            while (iterator.hasNext()) {
+                T obj = iterator.next();
+
+                if (!predicate.test(obj)) {
+                    remaining.add(obj);
+                }
+            }
+
+            updated = remaining.size() == getSize(current) ? current
+                    : buildBalanced(remaining, 0, remaining.size() - 1);
+        } while (updated != current && !root.compareAndSet(current, updated));
+
+        return updated != current;
+    }
+
+    /**
+     * Removes all elements by swapping the root with an empty tree.
+     */
+    @Override
+    public void clear() {
+        root.set(null);
+    }
+
+    /**
+     * Returns the number of elements in the set.
+     *
+     * @return the number of elements in the set
+     */
+    @Override
+    public int size() {
+        return getSize(root.get());
+    }
+
+    /**
+     * Returns true if the set is empty.
+     *
+     * @return true if the set is empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return root.get() == null;
+    }
+
+    /**
+     * Returns true if the set contains the given element.
+     *
+     * @param pattern the element to be searched for
+     * @return true if the set contains the given element, false otherwise
+     */
+    @Override
+    public boolean contains(T pattern) {
+        return getObj(root.get(), pattern) != null;
+    }
+
+    /**
+     * Returns an iterator over the current version of the set.
+     *
+     * @return an iterator over the elements of the set
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new PersistentTreeSetIterator();
+    }
+
+    /**
+     * Returns the element of the set equal to the given pattern, or null if
+     * the set does not contain such element.
+     *
+     * @param pattern the element to be searched for
+     * @return the element equal to the pattern, or null if not found
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get(Object pattern) {
+        return getObj(root.get(), (T) pattern);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T first() {
+        Node<T> node = root.get();
+
+        while (node != null && node.left != null) {
+            node = node.left;
+        }
+
+        return node == null ? null : node.obj;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T last() {
+        Node<T> node = root.get();
+
+        while (node != null && node.right != null) {
+            node = node.right;
+        }
+
+        return node == null ? null : node.obj;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T floor(T key) {
+        return getNearestObj(key, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public T ceiling(T key) {
+        return getNearestObj(key, false);
+    }
+
+    /**
+     * Returns a new persistent set with the elements from {@code from}
+     * inclusive to {@code to} exclusive. The range is collected in order and
+     * built into a balanced tree in linear time.
+     *
+     * @param from the lowest element to be included in the returned set
+     * @param to   the upper bound (exclusive) of the returned set
+     * @return a set with the specified range of this set
+     */
+    @Override
+    public SortedSet<T> subSet(T from, T to) {
+        ArrayList<T> range = new ArrayList<>();
+        collectRange(root.get(), from, to, range);
+
+        return new PersistentTreeSet<>(comparator, buildBalanced(range, 0, range.size() - 1));
+    }
+
+    /**
+     * Returns a new subtree with the given element inserted into the subtree of
+     * the given node. Only the nodes on the path to the element are copied.
+     *
+     * @param node    the root of the subtree
+     * @param obj     the element to be inserted
+     * @param replace whether an equal element should be replaced
+     * @return the root of the new subtree, or the given node if nothing changed
+     */
+    private Node<T> insert(Node<T> node, T obj, boolean replace) {
+        Node<T> result = node;
+
+        if (node == null) {
+            result = new Node<>(obj, null, null);
+        } else {
+            int comparatorResult = comparator.compare(obj, node.obj);
+
+            if (comparatorResult < 0) {
+                Node<T> left = insert(node.left, obj, replace);
+                result = left == node.left ? node : rebalance(node.obj, left, node.right);
+            } else if (comparatorResult > 0) {
+                Node<T> right = insert(node.right, obj, replace);
+                result = right == node.right ? node : rebalance(node.obj, node.left, right);
+            } else if (replace) {
+                result = new Node<>(obj, node.left, node.right);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns a new subtree without the given element. Only the nodes on the
+     * path to the element are copied. A node with two children is replaced by
+     * the least node of its right subtree.
+     *
+     * @param node    the root of the subtree
+     * @param pattern the element to be removed
+     * @return the root of the new subtree, or the given node if nothing changed
+     */
+    private Node<T> delete(Node<T> node, T pattern) {
+        Node<T> result = node;
+
+        if (node != null) {
+            int comparatorResult = comparator.compare(pattern, node.obj);
+
+            if (comparatorResult < 0) {
+                Node<T> left = delete(node.left, pattern);
+                result = left == node.left ? node : rebalance(node.obj, left, node.right);
+            } else if (comparatorResult > 0) {
+                Node<T> right = delete(node.right, pattern);
+                result = right == node.right ? node : rebalance(node.obj, node.left, right);
+            } else if (node.left == null) {
+                result = node.right;
+            } else if (node.right == null) {
+                result = node.left;
+            } else {
+                Node<T> least = node.right;
+
+                while (least.left != null) {
+                    least = least.left;
+                }
+
+                result = rebalance(least.obj, node.left, deleteLeast(node.right));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns a new subtree without its least node.
+     *
+     * @param node the root of the subtree
+     * @return the root of the new subtree
+     */
+    private Node<T> deleteLeast(Node<T> node) {
+        return node.left == null ? node.right : rebalance(node.obj, deleteLeast(node.left), node.right);
+    }
+
+    /**
+     * Creates a node from the given element and subtrees whose heights differ
+     * by at most two, rotating it if the AVL balance is broken.
+     *
+     * @param obj   the element of the node
+     * @param left  the left subtree
+     * @param right the right subtree
+     * @return the root of the balanced subtree
+     */
+    private Node<T> rebalance(T obj, Node<T> left, Node<T> right) {
+        Node<T> result;
+        int leftHeight = getHeight(left);
+        int rightHeight = getHeight(right);
+
+        if (leftHeight > rightHeight + 1) {
+            if (getHeight(left.left) >= getHeight(left.right)) {
+                result = new Node<>(left.obj, left.left, new Node<>(obj, left.right, right));
+            } else {
+                Node<T> middle = left.right;
+                result = new Node<>(middle.obj, new Node<>(left.obj, left.left, middle.left),
+                        new Node<>(obj, middle.right, right));
+            }
+        } else if (rightHeight > leftHeight + 1) {
+            if (getHeight(right.right) >= getHeight(right.left)) {
+                result = new Node<>(right.obj, new Node<>(obj, left, right.left), right.right);
+            } else {
+                Node<T> middle = right.left;
+                result = new Node<>(middle.obj, new Node<>(obj, left, middle.left),
+                        new Node<>(right.obj, middle.right, right.right));
+            }
+        } else {
+            result = new Node<>(obj, left, right);
+        }
+
+        return result;
+    }
+
+    /**
+     * Adds the elements of the subtree from {@code from} inclusive to
+     * {@code to} exclusive to the list in ascending order, skipping the
+     * subtrees outside of the range.
+     *
+     * @param node the root of the subtree
+     * @param from the lower bound (inclusive)
+     * @param to   the upper bound (exclusive)
+     * @param list the list to add the elements to
+     */
+    private void collectRange(Node<T> node, T from, T to, List<T> list) {
+        if (node != null) {
+            boolean aboveFrom = comparator.compare(node.obj, from) >= 0;
+            boolean belowTo = comparator.compare(node.obj, to) < 0;
+
+            if (aboveFrom) {
+                collectRange(node.left, from, to, list);
+            }
+
+            if (aboveFrom && belowTo) {
+                list.add(node.obj);
+            }
+
+            if (belowTo) {
+                collectRange(node.right, from, to, list);
+            }
+        }
+    }
+
+    /**
+     * Builds a balanced subtree from a sorted range of the list.
+     *
+     * @param list  the sorted elements
+     * @param left  the start index of the range
+     * @param right the end index of the range
+     * @return the root of the balanced subtree
+     */
+    private Node<T> buildBalanced(List<T> list, int left, int right) {
+        Node<T> result = null;
+
+        if (left <= right) {
+            int middle = (left + right) / 2;
+            result = new Node<>(list.get(middle), buildBalanced(list, left, middle - 1),
+                    buildBalanced(list, middle + 1, right));
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the element of the given tree equal to the pattern.
+     *
+     * @param node    the root of the tree
+     * @param pattern the element to be searched for
+     * @return the element equal to the pattern, or null if not found
+     */
+    private T getObj(Node<T> node, T pattern) {
+        int comparatorResult = 1;
+
+        while (node != null && (comparatorResult = comparator.compare(pattern, node.obj)) != 0) {
+            node = comparatorResult < 0 ? node.left : node.right;
+        }
+
+        return node == null ? null : node.obj;
+    }
+
+    /**
+     * Returns the nearest element to the given key in the current version, see
+     * {@link TreeSet#floor(Object)} and {@link TreeSet#ceiling(Object)}.
+     *
+     * @param key          the key to look up
+     * @param isLowerBound true for the floor, false for the ceiling
+     * @return the nearest element, or null if there is no such element
+     */
+    private T getNearestObj(T key, boolean isLowerBound) {
+        T result = null;
+        int comparatorResult = 0;
+        Node<T> current = root.get();
+
+        while (current != null && (comparatorResult = comparator.compare(key, current.obj)) != 0) {
+            if ((comparatorResult < 0 && !isLowerBound) || (comparatorResult > 0 && isLowerBound)) {
+                result = current.obj;
+            }
+
+            current = comparatorResult < 0 ? current.left : current.right;
+        }
+
+        return current == null ? result : current.obj;
+    }
+
+    /**
+     * Returns the height of the subtree of the given node.
+     *
+     * @param node the root of the subtree
+     * @return the height of the subtree, or 0 if the node is null
+     */
+    private static int getHeight(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * Returns the number of elements in the subtree of the given node.
+     *
+     * @param node the root of the subtree
+     * @return the size of the subtree, or 0 if the node is null
+     */
+    private static int getSize(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+}
@@ -0,0 +1,607 @@
+package io.p4r53c.telran.util;
+
+import java.util.Iterator;
+import java.util.Objects;
+
+import java.util.NoSuchElementException;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import java.util.function.Predicate;
+
+/**
+ * A persistent implementation of the {@link List} interface based on a 32-way
+ * trie with a tail array, as the vector of Clojure.
+ * <p>
+ * Elements are kept in leaves of 32 elements, inner nodes have 32 children,
+ * and the last (up to 32) elements are kept in a separate tail array. Access
+ * by index, {@link #with(Object)}, {@link #with(int, Object)} and
+ * {@link #withoutLast()} take O(log32 n) and return a new version copying only
+ * the path to the changed leaf. {@link #snapshot()} is O(1).
+ * <p>
+ * The list itself is a handle to the current version swapped with
+ * compare-and-set, so readers never lock and iterators walk the version that
+ * was current when they were created. Insertion and removal in the middle of
+ * the list rebuild the trie in O(n).
+ *
+ * @author p4r53c
+ *
+ * @param <T> type of elements in the list
+ */
+public class PersistentVector<T> implements List<T> {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final Version EMPTY = new Version(0, BITS, new Object[WIDTH], new Object[0]);
+
+    private final AtomicReference<Version> version;
+
+    public PersistentVector() {
+        this(EMPTY);
+    }
+
+    private PersistentVector(Version version) {
+        this.version = new AtomicReference<>(version);
+    }
+
+    /**
+     * An immutable version of the vector. Arrays of a version are never
+     * changed after the version is created.
+     */
+    private static final class Version {
+        final int size;
+        final int shift;
+        final Object[] root;
+        final Object[] tail;
+
+        Version(int size, int shift, Object[] root, Object[] tail) {
+            this.size = size;
+            this.shift = shift;
+            this.root = root;
+            this.tail = tail;
+        }
+
+        /**
+         * Returns the index of the first element in the tail.
+         *
+         * @return the offset of the tail
+         */
+        int tailOffset() {
+            return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+        }
+
+        /**
+         * Returns the leaf array containing the element at the given index.
+         *
+         * @param index the index of the element
+         * @return the leaf or the tail containing the element
+         */
+        Object[] arrayFor(int index) {
+            Object[] node = tail;
+
+            if (index < tailOffset()) {
+                node = root;
+
+                for (int level = shift; level > 0; level -= BITS) {
+                    node = (Object[]) node[(index >>> level) & MASK];
+                }
+            }
+
+            return node;
+        }
+
+        /**
+         * Returns a new version with the given element appended. A full tail is
+         * pushed into the trie, growing it by one level when the root is full.
+         *
+         * @param obj the element to be appended
+         * @return the new version
+         */
+        Version append(Object obj) {
+            Version result;
+
+            if (size - tailOffset() < WIDTH) {
+                Object[] newTail = new Object[tail.length + 1];
+                System.arraycopy(tail, 0, newTail, 0, tail.length);
+                newTail[tail.length] = obj;
+                result = new Version(size + 1, shift, root, newTail);
+            } else {
+                Object[] newRoot;
+                int newShift = shift;
+
+                if ((size >>> BITS) > (1 << shift)) {
+                    newRoot = new Object[WIDTH];
+                    newRoot[0] = root;
+                    newRoot[1] = newPath(shift, tail);
+                    newShift += BITS;
+                } else {
+                    newRoot = pushTail(shift, root);
+                }
+
+                result = new Version(size + 1, newShift, newRoot, new Object[] { obj });
+            }
+
+            return result;
+        }
+
+        /**
+         * Returns a new version with the element at the given index replaced.
+         *
+         * @param index the index of the element
+         * @param obj   the new element
+         * @return the new version
+         */
+        Version set(int index, Object obj) {
+            Version result;
+
+            if (index >= tailOffset()) {
+                Object[] newTail = tail.clone();
+                newTail[index & MASK] = obj;
+                result = new Version(size, shift, root, newTail);
+            } else {
+                result = new Version(size, shift, setInNode(shift, root, index, obj), tail);
+            }
+
+            return result;
+        }
+
+        /**
+         * Returns a new version without the last element. When the tail
+         * becomes empty, the last leaf of the trie becomes the new tail and the
+         * trie loses a level if only one child of the root remains.
+         *
+         * @return the new version
+         */
+        Version pop() {
+            Version result;
+
+            if (size == 1) {
+                result = EMPTY;
+            } else if (size - tailOffset() > 1) {
+                Object[] newTail = new Object[tail.length - 1];
+                System.arraycopy(tail, 0, newTail, 0, newTail.length);
+                result = new Version(size - 1, shift, root, newTail);
+            } else {
+                Object[] newTail = arrayFor(size - 2);
+                Object[] newRoot = popTail(shift, root);
+                int newShift = shift;
+
+                if (newRoot == null) {
+                    newRoot = new Object[WIDTH];
+                }
+
+                if (shift > BITS && newRoot[1] == null) {
+                    newRoot = (Object[]) newRoot[0];
+                    newShift -= BITS;
+                }
+
+                result = new Version(size - 1, newShift, newRoot, newTail);
+            }
+
+            return result;
+        }
+
+        /**
+         * Returns a copy of the node with the tail inserted at the position of
+         * the last full leaf.
+         *
+         * @param level  the level of the node
+         * @param parent the node
+         * @return the copy of the node
+         */
+        private Object[] pushTail(int level, Object[] parent) {
+            int index = ((size - 1) >>> level) & MASK;
+            Object[] result = parent.clone();
+            Object[] child = (Object[]) parent[index];
+
+            if (level == BITS) {
+                result[index] = tail;
+            } else {
+                result[index] = child == null ? newPath(level - BITS, tail) : pushTail(level - BITS, child);
+            }
+
+            return result;
+        }
+
+        /**
+         * Returns a copy of the node without its last leaf, or null if the node
+         * becomes empty.
+         *
+         * @param level the level of the node
+         * @param node  the node
+         * @return the copy of the node, or null
+         */
+        private Object[] popTail(int level, Object[] node) {
+            int index = ((size - 2) >>> level) & MASK;
+            Object[] result = null;
+
+            if (level > BITS) {
+                Object[] child = popTail(level - BITS, (Object[]) node[index]);
+
+                if (child != null || index != 0) {
+                    result = node.clone();
+                    result[index] = child;
+                }
+            } else if (index != 0) {
+                result = node.clone();
+                result[index] = null;
+            }
+
+            return result;
+        }
+
+        /**
+         * Returns a copy of the node with the element at the given index
+         * replaced.
+         *
+         * @param level the level of the node
+         * @param node  the node
+         * @param index the index of the element
+         * @param obj   the new element
+         * @return the copy of the node
+         */
+        private static Object[] setInNode(int level, Object[] node, int index, Object obj) {
+            Object[] result = node.clone();
+
+            if (level == 0) {
+                result[index & MASK] = obj;
+            } else {
+                int childIndex = (index >>> level) & MASK;
+                result[childIndex] = setInNode(level - BITS, (Object[]) node[childIndex], index, obj);
+            }
+
+            return result;
+        }
+
+        /**
+         * Returns a chain of single-child nodes from the given level down to
+         * the leaf.
+         *
+         * @param level the level of the top node
+         * @param leaf  the leaf
+         * @return the top node of the chain
+         */
+        private static Object[] newPath(int level, Object[] leaf) {
+            Object[] result = leaf;
+
+            if (level > 0) {
+                result = new Object[WIDTH];
+                result[0] = newPath(level - BITS, leaf);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * An iterator over the version of the vector that was current when the
+     * iterator was created. Elements are read leaf by leaf.
+     */
+    private class PersistentVectorIterator implements Iterator<T> {
+
+        Version current;
+        Object[] leaf;
+        int index;
+        int removed;
+        boolean hasPrev;
+
+        public PersistentVectorIterator() {
+            current = version.get();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < current.size;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            if ((index & MASK) == 0) {
+                leaf = current.arrayFor(index);
+            }
+
+            hasPrev = true;
+
+            return (T) leaf[index++ & MASK];
+        }
+
+        /**
+         * Removes the last returned element from the list. The index is
+         * adjusted by the number of elements removed by this iterator, so
+         * other changes of the list made during the iteration are not taken
+         * into account.
+         */
+        @Override
+        public void remove() {
+            if (!hasPrev) {
+                throw new IllegalStateException();
+            }
+
+            PersistentVector.this.remove(index - 1 - removed);
+            removed++;
+            hasPrev = false;
+        }
+    }
+
+    /**
+     * Returns a new version of the list with the given element appended. This
+     * version is not changed.
+     *
+     * @param obj the element to be appended
+     * @return the new version of the list
+     */
+    public PersistentVector<T> with(T obj) {
+        return new PersistentVector<>(version.get().append(obj));
+    }
+
+    /**
+     * Returns a new version of the list with the element at the given index
+     * replaced. This version is not changed.
+     *
+     * @param index the index of the element
+     * @param obj   the new element
+     * @return the new version of the list
+     */
+    public PersistentVector<T> with(int index, T obj) {
+        Version current = version.get();
+        checkIndex(index, current.size);
+        return new PersistentVector<>(current.set(index, obj));
+    }
+
+    /**
+     * Returns a new version of the list without the last element. This
+     * version is not changed.
+     *
+     * @return the new version of the list
+     */
+    public PersistentVector<T> withoutLast() {
+        Version current = version.get();
+        checkIndex(current.size - 1, current.size);
+        return new PersistentVector<>(current.pop());
+    }
+
+    /**
+     * Returns an independent list sharing the current version of the trie.
+     *
+     * @return the snapshot of the list
+     */
+    public PersistentVector<T> snapshot() {
+        return new PersistentVector<>(version.get());
+    }
+
+    /**
+     * Appends the given element to the end of the list.
+     *
+     * @param obj the element to be added
+     * @return true
+     */
+    @Override
+    public boolean add(T obj) {
+        Version current;
+
+        do {
+            current = version.get();
+        } while (!version.compareAndSet(current, current.append(obj)));
+
+        return true;
+    }
+
+    /**
+     * Inserts the given element at the given position. Appending is
+     * O(log32 n), insertion in the middle rebuilds the trie.
+     *
+     * @param index the position where the element should be inserted
+     * @param obj   the element to be inserted
+     */
+    @Override
+    public void add(int index, T obj) {
+        Version current;
+        Version updated;
+
+        do {
+            current = version.get();
+
+            if (index < 0 || index > current.size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+
+            updated = EMPTY;
+
+            for (int i = 0; i < current.size; i++) {
+                if (i == index) {
+                    updated = updated.append(obj);
+                }
+
+                updated = updated.append(current.arrayFor(i)[i & MASK]);
+            }
+
+            if (index == current.size) {
+                updated = updated.append(obj);
+            }
+        } while (!version.compareAndSet(current, updated));
+    }
+
+    /**
+     * Removes the element at the given position. Removal of the last element
+     * is O(log32 n), removal in the middle rebuilds the trie.
+     *
+     * @param index the position of the element to be removed
+     * @return the removed element
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public T remove(int index) {
+        Version current;
+        Version updated;
+
+        do {
+            current = version.get();
+            checkIndex(index, current.size);
+
+            if (index == current.size - 1) {
+                updated = current.pop();
+            } else {
+                updated = EMPTY;
+
+                for (int i = 0; i < current.size; i++) {
+                    if (i != index) {
+                        updated = updated.append(current.arrayFor(i)[i & MASK]);
+                    }
+                }
+            }
+        } while (!version.compareAndSet(current, updated));
+
+        return (T) current.arrayFor(index)[index & MASK];
+    }
+
+    /**
+     * Removes elements matching the predicate by building a single new version
+     * from the remaining elements.
+     *
+     * @param predicate a predicate to test elements for removal
+     * @return true if any elements were removed, false otherwise
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean removeIf(Predicate<T> predicate) {
+        Version current;
+        Version updated;
+
+        do {
+            current = version.get();
+            updated = EMPTY;
+
+            for (int i = 0; i < current.size; i++) {
+                Object obj = current.arrayFor(i)[i & MASK];
+
+                if (!predicate.test((T) obj)) {
+                    updated = updated.append(obj);
+                }
+            }
+
+            updated = updated.size == current.size ? current : updated;
+        } while (updated != current && !version.compareAndSet(current, updated));
+
+        return updated != current;
+    }
+
+    /**
+     * Removes all elements by swapping in the empty version.
+     */
+    @Override
+    public void clear() {
+        version.set(EMPTY);
+    }
+
+    /**
+     * Returns the element at the given position.
+     *
+     * @param index the position of the element to be returned
+     * @return the element at the given position
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get(int index) {
+        Version current = version.get();
+        checkIndex(index, current.size);
+        return (T) current.arrayFor(index)[index & MASK];
+    }
+
+    /**
+     * Returns the number of elements in the list.
+     *
+     * @return the number of elements in the list
+     */
+    @Override
+    public int size() {
+        return version.get().size;
+    }
+
+    /**
+     * Returns true if the list is empty.
+     *
+     * @return true if the list is empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return version.get().size == 0;
+    }
+
+    /**
+     * Returns the index of the first occurrence of the given element in the
+     * current version.
+     *
+     * @param pattern the element to be searched for
+     * @return the index of the element, or -1 if the element is not found
+     */
+    @Override
+    public int indexOf(T pattern) {
+        Version current = version.get();
+        Object[] leaf = null;
+        int result = -1;
+        int index = 0;
+
+        while (index < current.size && result < 0) {
+            if ((index & MASK) == 0) {
+                leaf = current.arrayFor(index);
+            }
+
+            if (Objects.equals(leaf[index & MASK], pattern)) {
+                result = index;
+            }
+
+            index++;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the index of the last occurrence of the given element in the
+     * current version.
+     *
+     * @param pattern the element to be searched for
+     * @return the index of the element, or -1 if the element is not found
+     */
+    @Override
+    public int lastIndexOf(T pattern) {
+        Version current = version.get();
+        int index = current.size - 1;
+
+        while (index >= 0 && !Objects.equals(current.arrayFor(index)[index & MASK], pattern)) {
+            index--;
+        }
+
+        return index;
+    }
+
+    /**
+     * Returns an iterator over the current version of the list.
+     *
+     * @return an iterator over the elements of the list
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new PersistentVectorIterator();
+    }
+
+    /**
+     * Checks the index against the size of a version, the size of this list
+     * may already be different.
+     *
+     * @param index the index to be checked
+     * @param size  the size of the version
+     */
+    private void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+    }
+}
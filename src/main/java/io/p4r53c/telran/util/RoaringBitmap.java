@@ -0,0 +1,1158 @@
+package io.p4r53c.telran.util;
+
+import java.util.Iterator;
+
+import java.util.Arrays;
+
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A compressed implementation of the {@link SortedSet} interface for
+ * integers in the style of Roaring bitmaps.
+ * <p>
+ * The 32-bit range is split into chunks of 65536 values sharing the high 16
+ * bits. Every non-empty chunk keeps its low 16 bits in a container of one of
+ * three kinds:
+ * <ul>
+ * <li>a sorted {@code char} array for sparse chunks of up to 4096 values,
+ * 16 bits per value;</li>
+ * <li>a bitmap of 1024 {@code long} words for dense chunks, 1 bit per
+ * possible value;</li>
+ * <li>a sorted array of runs of consecutive values, created by
+ * {@link #runOptimize()} when it is smaller than the other two.</li>
+ * </ul>
+ * Containers switch between the array and bitmap kinds as their cardinality
+ * crosses 4096. Set algebra ({@link #and}, {@link #or}, {@link #andNot})
+ * works container by container, a word at a time for bitmaps, and returns a
+ * new set leaving the operands unchanged.
+ * <p>
+ * The high 16 bits are taken after flipping the sign bit, so the unsigned
+ * order of chunk keys matches the signed order of the values and iteration is
+ * ascending over the whole {@code int} range.
+ *
+ * @author p4r53c
+ */
+public class RoaringBitmap implements SortedSet<Integer> {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private static final int CHUNK_BITS = 16;
+    private static final int LOW_MASK = 0xFFFF;
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private char[] keys = new char[INITIAL_CAPACITY];
+
+    private Container[] containers = new Container[INITIAL_CAPACITY];
+
+    private int nContainers;
+
+    private long cardinality;
+
+    public RoaringBitmap() {
+    }
+
+    /**
+     * A container of the low 16 bits of the values of one chunk. Array and
+     * bitmap containers are changed in place, run containers are immutable
+     * and are replaced by an array or bitmap container on change. Set algebra
+     * always returns a new container.
+     */
+    private abstract static class Container {
+
+        abstract int cardinality();
+
+        abstract boolean contains(int low);
+
+        abstract Container add(int low);
+
+        abstract Container remove(int low);
+
+        abstract int first();
+
+        abstract int last();
+
+        /**
+         * Returns the least value greater than or equal to the given one, or
+         * -1 if there is none.
+         */
+        abstract int ceiling(int low);
+
+        /**
+         * Returns the greatest value less than or equal to the given one, or
+         * -1 if there is none.
+         */
+        abstract int floor(int low);
+
+        abstract void forEach(IntConsumer action);
+
+        abstract Container removeIf(IntPredicate predicate);
+
+        abstract BitmapContainer toBitmap();
+
+        abstract Container copy();
+
+        abstract int sizeInBytes();
+
+        int higher(int low) {
+            return low < LOW_MASK ? ceiling(low + 1) : -1;
+        }
+
+        int countRuns() {
+            int runs = 0;
+            int prev = -2;
+            int low = first();
+
+            while (low >= 0) {
+                if (low != prev + 1) {
+                    runs++;
+                }
+
+                prev = low;
+                low = higher(low);
+            }
+
+            return runs;
+        }
+
+        ArrayContainer toArray() {
+            char[] values = new char[cardinality()];
+            int count = 0;
+            int low = first();
+
+            while (low >= 0) {
+                values[count++] = (char) low;
+                low = higher(low);
+            }
+
+            return new ArrayContainer(values, count);
+        }
+
+        Container and(Container other) {
+            Container result;
+
+            if (this instanceof ArrayContainer) {
+                result = ((ArrayContainer) this).filter(other, true);
+            } else if (other instanceof ArrayContainer) {
+                result = ((ArrayContainer) other).filter(this, true);
+            } else {
+                result = toBitmap().andWords(other.toBitmap()).normalize();
+            }
+
+            return result;
+        }
+
+        Container or(Container other) {
+            Container result;
+
+            if (this instanceof ArrayContainer && other instanceof ArrayContainer
+                    && cardinality() + other.cardinality() <= ARRAY_MAX) {
+                result = ((ArrayContainer) this).merge((ArrayContainer) other);
+            } else {
+                result = toBitmap().orWords(other.toBitmap()).normalize();
+            }
+
+            return result;
+        }
+
+        Container andNot(Container other) {
+            return this instanceof ArrayContainer ? ((ArrayContainer) this).filter(other, false)
+                    : toBitmap().andNotWords(other.toBitmap()).normalize();
+        }
+    }
+
+    private static class ArrayContainer extends Container {
+
+        char[] values;
+        int card;
+
+        ArrayContainer(char[] values, int card) {
+            this.values = values;
+            this.card = card;
+        }
+
+        ArrayContainer(int low) {
+            this(new char[] { (char) low }, 1);
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        boolean contains(int low) {
+            return Arrays.binarySearch(values, 0, card, (char) low) >= 0;
+        }
+
+        @Override
+        Container add(int low) {
+            Container result = this;
+            int index = Arrays.binarySearch(values, 0, card, (char) low);
+
+            if (index < 0 && card == ARRAY_MAX) {
+                result = toBitmap().add(low);
+            } else if (index < 0) {
+                index = -index - 1;
+
+                if (card == values.length) {
+                    values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(INITIAL_CAPACITY, card * 2)));
+                }
+
+                System.arraycopy(values, index, values, index + 1, card - index);
+                values[index] = (char) low;
+                card++;
+            }
+
+            return result;
+        }
+
+        @Override
+        Container remove(int low) {
+            int index = Arrays.binarySearch(values, 0, card, (char) low);
+
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, card - index - 1);
+                card--;
+            }
+
+            return this;
+        }
+
+        @Override
+        int first() {
+            return values[0];
+        }
+
+        @Override
+        int last() {
+            return values[card - 1];
+        }
+
+        @Override
+        int ceiling(int low) {
+            int index = Arrays.binarySearch(values, 0, card, (char) low);
+            index = index < 0 ? -index - 1 : index;
+
+            return index < card ? values[index] : -1;
+        }
+
+        @Override
+        int floor(int low) {
+            int index = Arrays.binarySearch(values, 0, card, (char) low);
+            index = index < 0 ? -index - 2 : index;
+
+            return index >= 0 ? values[index] : -1;
+        }
+
+        @Override
+        void forEach(IntConsumer action) {
+            for (int i = 0; i < card; i++) {
+                action.accept(values[i]);
+            }
+        }
+
+        @Override
+        Container removeIf(IntPredicate predicate) {
+            int count = 0;
+
+            for (int i = 0; i < card; i++) {
+                if (!predicate.test(values[i])) {
+                    values[count++] = values[i];
+                }
+            }
+
+            card = count;
+
+            return this;
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            long[] words = new long[BITMAP_WORDS];
+
+            for (int i = 0; i < card; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+
+            return new BitmapContainer(words, card);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, card), card);
+        }
+
+        @Override
+        int sizeInBytes() {
+            return values.length * Character.BYTES;
+        }
+
+        /**
+         * Returns the values which are (or are not) contained in the other
+         * container.
+         */
+        ArrayContainer filter(Container other, boolean contained) {
+            char[] result = new char[card];
+            int count = 0;
+
+            for (int i = 0; i < card; i++) {
+                if (other.contains(values[i]) == contained) {
+                    result[count++] = values[i];
+                }
+            }
+
+            return new ArrayContainer(result, count);
+        }
+
+        /**
+         * Returns the union with the other array container by merging.
+         */
+        ArrayContainer merge(ArrayContainer other) {
+            char[] result = new char[card + other.card];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+
+            while (i < card || j < other.card) {
+                if (j == other.card || i < card && values[i] < other.values[j]) {
+                    result[count++] = values[i++];
+                } else if (i == card || values[i] > other.values[j]) {
+                    result[count++] = other.values[j++];
+                } else {
+                    result[count++] = values[i++];
+                    j++;
+                }
+            }
+
+            return new ArrayContainer(result, count);
+        }
+    }
+
+    private static class BitmapContainer extends Container {
+
+        final long[] words;
+        int card;
+
+        BitmapContainer(long[] words, int card) {
+            this.words = words;
+            this.card = card;
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        boolean contains(int low) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+
+        @Override
+        Container add(int low) {
+            long mask = 1L << low;
+
+            if ((words[low >>> 6] & mask) == 0) {
+                words[low >>> 6] |= mask;
+                card++;
+            }
+
+            return this;
+        }
+
+        @Override
+        Container remove(int low) {
+            long mask = 1L << low;
+
+            if ((words[low >>> 6] & mask) != 0) {
+                words[low >>> 6] &= ~mask;
+                card--;
+            }
+
+            return normalize();
+        }
+
+        @Override
+        int first() {
+            return ceiling(0);
+        }
+
+        @Override
+        int last() {
+            return floor(LOW_MASK);
+        }
+
+        @Override
+        int ceiling(int low) {
+            int index = low >>> 6;
+            long word = words[index] & (-1L << low);
+
+            while (word == 0 && ++index < BITMAP_WORDS) {
+                word = words[index];
+            }
+
+            return word == 0 ? -1 : index * Long.SIZE + Long.numberOfTrailingZeros(word);
+        }
+
+        @Override
+        int floor(int low) {
+            int index = low >>> 6;
+            long word = words[index] & (-1L >>> (Long.SIZE - 1 - (low & 63)));
+
+            while (word == 0 && --index >= 0) {
+                word = words[index];
+            }
+
+            return word == 0 ? -1 : index * Long.SIZE + Long.SIZE - 1 - Long.numberOfLeadingZeros(word);
+        }
+
+        @Override
+        void forEach(IntConsumer action) {
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long word = words[i];
+
+                while (word != 0) {
+                    action.accept(i * Long.SIZE + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        Container removeIf(IntPredicate predicate) {
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long word = words[i];
+
+                while (word != 0) {
+                    long bit = word & -word;
+
+                    if (predicate.test(i * Long.SIZE + Long.numberOfTrailingZeros(word))) {
+                        words[i] &= ~bit;
+                        card--;
+                    }
+
+                    word ^= bit;
+                }
+            }
+
+            return normalize();
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            return this;
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), card);
+        }
+
+        @Override
+        int sizeInBytes() {
+            return BITMAP_WORDS * Long.BYTES;
+        }
+
+        BitmapContainer andWords(BitmapContainer other) {
+            long[] result = new long[BITMAP_WORDS];
+            int count = 0;
+
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                result[i] = words[i] & other.words[i];
+                count += Long.bitCount(result[i]);
+            }
+
+            return new BitmapContainer(result, count);
+        }
+
+        BitmapContainer orWords(BitmapContainer other) {
+            long[] result = new long[BITMAP_WORDS];
+            int count = 0;
+
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                result[i] = words[i] | other.words[i];
+                count += Long.bitCount(result[i]);
+            }
+
+            return new BitmapContainer(result, count);
+        }
+
+        BitmapContainer andNotWords(BitmapContainer other) {
+            long[] result = new long[BITMAP_WORDS];
+            int count = 0;
+
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                result[i] = words[i] & ~other.words[i];
+                count += Long.bitCount(result[i]);
+            }
+
+            return new BitmapContainer(result, count);
+        }
+
+        /**
+         * Returns an array container with the same values if the bitmap has
+         * become sparse, or this container otherwise.
+         */
+        Container normalize() {
+            return card <= ARRAY_MAX ? toArray() : this;
+        }
+    }
+
+    /**
+     * An immutable container of runs of consecutive values. {@code runs}
+     * holds pairs of a run start and the run length minus one.
+     */
+    private static class RunContainer extends Container {
+
+        final char[] runs;
+        final int nRuns;
+        final int card;
+
+        RunContainer(Container container) {
+            nRuns = container.countRuns();
+            runs = new char[nRuns * 2];
+            card = container.cardinality();
+
+            int index = 0;
+            int low = container.first();
+
+            while (low >= 0) {
+                int end = low;
+                int next = container.higher(end);
+
+                while (next == end + 1) {
+                    end = next;
+                    next = container.higher(end);
+                }
+
+                runs[index++] = (char) low;
+                runs[index++] = (char) (end - low);
+                low = next;
+            }
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        boolean contains(int low) {
+            int index = runIndex(low);
+            return index >= 0 && low <= end(index);
+        }
+
+        @Override
+        Container add(int low) {
+            return contains(low) ? this : toMutable().add(low);
+        }
+
+        @Override
+        Container remove(int low) {
+            return contains(low) ? toMutable().remove(low) : this;
+        }
+
+        @Override
+        int first() {
+            return runs[0];
+        }
+
+        @Override
+        int last() {
+            return end(nRuns - 1);
+        }
+
+        @Override
+        int ceiling(int low) {
+            int index = runIndex(low);
+            int result;
+
+            if (index >= 0 && low <= end(index)) {
+                result = low;
+            } else {
+                result = index + 1 < nRuns ? runs[2 * (index + 1)] : -1;
+            }
+
+            return result;
+        }
+
+        @Override
+        int floor(int low) {
+            int index = runIndex(low);
+            return index < 0 ? -1 : Math.min(low, end(index));
+        }
+
+        @Override
+        void forEach(IntConsumer action) {
+            for (int i = 0; i < nRuns; i++) {
+                for (int low = runs[2 * i]; low <= end(i); low++) {
+                    action.accept(low);
+                }
+            }
+        }
+
+        @Override
+        Container removeIf(IntPredicate predicate) {
+            return toMutable().removeIf(predicate);
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            long[] words = new long[BITMAP_WORDS];
+            forEach(low -> words[low >>> 6] |= 1L << low);
+
+            return new BitmapContainer(words, card);
+        }
+
+        @Override
+        Container copy() {
+            return this;
+        }
+
+        @Override
+        int sizeInBytes() {
+            return runs.length * Character.BYTES;
+        }
+
+        @Override
+        int countRuns() {
+            return nRuns;
+        }
+
+        /**
+         * Returns a mutable container with the same values, an array or a
+         * bitmap depending on the cardinality.
+         */
+        private Container toMutable() {
+            return card <= ARRAY_MAX ? toArray() : toBitmap();
+        }
+
+        /**
+         * Returns the index of the last run starting at or before the given
+         * value, or -1 if there is none.
+         */
+        private int runIndex(int low) {
+            int left = 0;
+            int right = nRuns - 1;
+
+            while (left <= right) {
+                int middle = (left + right) >>> 1;
+
+                if (runs[2 * middle] <= low) {
+                    left = middle + 1;
+                } else {
+                    right = middle - 1;
+                }
+            }
+
+            return right;
+        }
+
+        private int end(int index) {
+            return runs[2 * index] + runs[2 * index + 1];
+        }
+    }
+
+    /**
+     * An iterator over the containers in key order. It keeps the next value
+     * as a container index and a low part, so removal through the set, which
+     * may replace or drop containers, does not invalidate it.
+     */
+    private class RoaringBitmapIterator implements Iterator<Integer> {
+
+        int index;
+        int low = nContainers > 0 ? containers[0].first() : -1;
+        Integer prev;
+
+        @Override
+        public boolean hasNext() {
+            return index < nContainers;
+        }
+
+        @Override
+        public Integer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            prev = value(keys[index], low);
+            low = containers[index].higher(low);
+
+            if (low < 0 && ++index < nContainers) {
+                low = containers[index].first();
+            }
+
+            return prev;
+        }
+
+        @Override
+        public void remove() {
+            if (prev == null) {
+                throw new IllegalStateException();
+            }
+
+            int oldContainers = nContainers;
+            RoaringBitmap.this.remove(prev);
+
+            if (nContainers < oldContainers) {
+                index--;
+            }
+
+            prev = null;
+        }
+    }
+
+    /**
+     * Adds the given value to the set.
+     *
+     * @param obj the value to be added
+     * @return true if the value was added, false if it was already in the set
+     */
+    @Override
+    public boolean add(Integer obj) {
+        int value = obj;
+        int index = indexOf(high(value));
+        boolean result = true;
+
+        if (index < 0) {
+            insertContainer(-index - 1, high(value), new ArrayContainer(low(value)));
+        } else {
+            Container container = containers[index];
+            int oldCardinality = container.cardinality();
+            containers[index] = container.add(low(value));
+            result = containers[index].cardinality() > oldCardinality;
+        }
+
+        if (result) {
+            cardinality++;
+        }
+
+        return result;
+    }
+
+    /**
+     * Removes the given value from the set, dropping its container if it
+     * becomes empty.
+     *
+     * @param pattern the value to be removed
+     * @return true if the value was removed, false if it was not in the set
+     */
+    @Override
+    public boolean remove(Integer pattern) {
+        int value = pattern;
+        int index = indexOf(high(value));
+        boolean result = false;
+
+        if (index >= 0) {
+            Container container = containers[index];
+            int oldCardinality = container.cardinality();
+            containers[index] = container.remove(low(value));
+            result = containers[index].cardinality() < oldCardinality;
+
+            if (containers[index].cardinality() == 0) {
+                removeContainer(index);
+            }
+        }
+
+        if (result) {
+            cardinality--;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of values in the set, or {@link Integer#MAX_VALUE} if
+     * there are more.
+     *
+     * @return the number of values in the set
+     */
+    @Override
+    public int size() {
+        return (int) Math.min(cardinality, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the number of values in the set, which may exceed
+     * {@link Integer#MAX_VALUE}.
+     *
+     * @return the number of values in the set
+     */
+    public long getLongCardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Returns true if the set is empty.
+     *
+     * @return true if the set is empty, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * Returns true if the set contains the given value.
+     *
+     * @param pattern the value to be searched for
+     * @return true if the set contains the given value, false otherwise
+     */
+    @Override
+    public boolean contains(Integer pattern) {
+        int value = pattern;
+        int index = indexOf(high(value));
+
+        return index >= 0 && containers[index].contains(low(value));
+    }
+
+    /**
+     * Returns the given value if it is in the set.
+     *
+     * @param pattern the value to be searched for
+     * @return the value, or null if it is not in the set
+     */
+    @Override
+    public Integer get(Object pattern) {
+        return pattern instanceof Integer && contains((Integer) pattern) ? (Integer) pattern : null;
+    }
+
+    /**
+     * Returns an iterator over the values in ascending order.
+     *
+     * @return an iterator over the values of the set
+     */
+    @Override
+    public Iterator<Integer> iterator() {
+        return new RoaringBitmapIterator();
+    }
+
+    /**
+     * Performs the given action for each value in ascending order, scanning
+     * every container directly.
+     *
+     * @param action the action to be performed for each value
+     */
+    @Override
+    public void forEach(Consumer<? super Integer> action) {
+        for (int i = 0; i < nContainers; i++) {
+            int high = keys[i];
+            containers[i].forEach(low -> action.accept(value(high, low)));
+        }
+    }
+
+    /**
+     * Removes values matching the predicate container by container, dropping
+     * containers which become empty.
+     *
+     * @param predicate a predicate to test values for removal
+     * @return true if any values were removed, false otherwise
+     */
+    @Override
+    public boolean removeIf(Predicate<Integer> predicate) {
+        long oldCardinality = cardinality;
+        int count = 0;
+
+        for (int i = 0; i < nContainers; i++) {
+            int high = keys[i];
+            int oldContainerCardinality = containers[i].cardinality();
+            Container container = containers[i].removeIf(low -> predicate.test(value(high, low)));
+            cardinality -= oldContainerCardinality - container.cardinality();
+
+            if (container.cardinality() > 0) {
+                keys[count] = keys[i];
+                containers[count++] = container;
+            }
+        }
+
+        Arrays.fill(containers, count, nContainers, null);
+        nContainers = count;
+
+        return cardinality < oldCardinality;
+    }
+
+    /**
+     * Removes all values.
+     */
+    @Override
+    public void clear() {
+        keys = new char[INITIAL_CAPACITY];
+        containers = new Container[INITIAL_CAPACITY];
+        nContainers = 0;
+        cardinality = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer first() {
+        return nContainers == 0 ? null : value(keys[0], containers[0].first());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer last() {
+        return nContainers == 0 ? null : value(keys[nContainers - 1], containers[nContainers - 1].last());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer floor(Integer key) {
+        int value = key;
+        int index = indexOf(high(value));
+        int low = -1;
+
+        if (index >= 0) {
+            low = containers[index].floor(low(value));
+            index = low < 0 ? index - 1 : index;
+        } else {
+            index = -index - 2;
+        }
+
+        if (low < 0 && index >= 0) {
+            low = containers[index].last();
+        }
+
+        return low < 0 ? null : value(keys[index], low);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer ceiling(Integer key) {
+        int value = key;
+        int index = indexOf(high(value));
+        int low = -1;
+
+        if (index >= 0) {
+            low = containers[index].ceiling(low(value));
+            index = low < 0 ? index + 1 : index;
+        } else {
+            index = -index - 1;
+        }
+
+        if (low < 0 && index < nContainers) {
+            low = containers[index].first();
+        }
+
+        return low < 0 ? null : value(keys[index], low);
+    }
+
+    /**
+     * Returns a new set of the values from {@code from} inclusive to
+     * {@code to} exclusive. Containers lying entirely within the range are
+     * copied as a whole.
+     *
+     * @param from the lower bound, inclusive
+     * @param to   the upper bound, exclusive
+     * @return the set of the values within the range
+     */
+    @Override
+    public SortedSet<Integer> subSet(Integer from, Integer to) {
+        RoaringBitmap result = new RoaringBitmap();
+        int fromValue = from;
+        int toValue = to;
+
+        if (fromValue < toValue) {
+            int lastValue = toValue - 1;
+            int fromHigh = high(fromValue);
+            int lastHigh = high(lastValue);
+            int index = indexOf(fromHigh);
+            index = index < 0 ? -index - 1 : index;
+
+            while (index < nContainers && keys[index] <= lastHigh) {
+                int high = keys[index];
+                int fromLow = high == fromHigh ? low(fromValue) : 0;
+                int lastLow = high == lastHigh ? low(lastValue) : LOW_MASK;
+                Container container = containers[index++].copy();
+
+                if (fromLow > 0 || lastLow < LOW_MASK) {
+                    container = container.removeIf(low -> low < fromLow || low > lastLow);
+                }
+
+                result.appendContainer(high, container);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the intersection of this set and the other one.
+     *
+     * @param other the other set
+     * @return a new set of the values contained in both sets
+     */
+    public RoaringBitmap and(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+
+        while (i < nContainers && j < other.nContainers) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.appendContainer(keys[i], containers[i++].and(other.containers[j++]));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the union of this set and the other one.
+     *
+     * @param other the other set
+     * @return a new set of the values contained in either set
+     */
+    public RoaringBitmap or(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+
+        while (i < nContainers || j < other.nContainers) {
+            if (j == other.nContainers || i < nContainers && keys[i] < other.keys[j]) {
+                result.appendContainer(keys[i], containers[i++].copy());
+            } else if (i == nContainers || keys[i] > other.keys[j]) {
+                result.appendContainer(other.keys[j], other.containers[j++].copy());
+            } else {
+                result.appendContainer(keys[i], containers[i++].or(other.containers[j++]));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the difference of this set and the other one.
+     *
+     * @param other the other set
+     * @return a new set of the values contained in this set but not in the
+     *         other one
+     */
+    public RoaringBitmap andNot(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int j = 0;
+
+        for (int i = 0; i < nContainers; i++) {
+            while (j < other.nContainers && other.keys[j] < keys[i]) {
+                j++;
+            }
+
+            result.appendContainer(keys[i], j < other.nContainers && other.keys[j] == keys[i]
+                    ? containers[i].andNot(other.containers[j])
+                    : containers[i].copy());
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts containers to run containers where these are smaller, which
+     * pays off for sets of long ranges of consecutive values. A run container
+     * is converted back to an array or a bitmap on the next change.
+     *
+     * @return true if any container was converted, false otherwise
+     */
+    public boolean runOptimize() {
+        boolean result = false;
+
+        for (int i = 0; i < nContainers; i++) {
+            Container container = containers[i];
+
+            if (!(container instanceof RunContainer)
+                    && container.countRuns() * 2 * Character.BYTES < container.sizeInBytes()) {
+                containers[i] = new RunContainer(container);
+                result = true;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of bytes taken by the keys and the container
+     * payloads, without object headers.
+     *
+     * @return the approximate size of the set in bytes
+     */
+    public long getSizeInBytes() {
+        long result = (long) keys.length * Character.BYTES;
+
+        for (int i = 0; i < nContainers; i++) {
+            result += containers[i].sizeInBytes();
+        }
+
+        return result;
+    }
+
+    private static int high(int value) {
+        return (value ^ Integer.MIN_VALUE) >>> CHUNK_BITS;
+    }
+
+    private static int low(int value) {
+        return value & LOW_MASK;
+    }
+
+    private static int value(int high, int low) {
+        return ((high << CHUNK_BITS) | low) ^ Integer.MIN_VALUE;
+    }
+
+    /**
+     * Returns the index of the container with the given key.
+     *
+     * @param high the key
+     * @return the index, or {@code -(insertion point) - 1} if there is none
+     */
+    private int indexOf(int high) {
+        return Arrays.binarySearch(keys, 0, nContainers, (char) high);
+    }
+
+    private void insertContainer(int index, int high, Container container) {
+        if (nContainers == keys.length) {
+            keys = Arrays.copyOf(keys, nContainers * 2);
+            containers = Arrays.copyOf(containers, nContainers * 2);
+        }
+
+        System.arraycopy(keys, index, keys, index + 1, nContainers - index);
+        System.arraycopy(containers, index, containers, index + 1, nContainers - index);
+        keys[index] = (char) high;
+        containers[index] = container;
+        nContainers++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, nContainers - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, nContainers - index - 1);
+        containers[--nContainers] = null;
+    }
+
+    /**
+     * Appends a container with a key greater than all present ones, unless
+     * the container is empty.
+     *
+     * @param high      the key
+     * @param container the container
+     */
+    private void appendContainer(int high, Container container) {
+        if (container.cardinality() > 0) {
+            insertContainer(nContainers, high, container);
+            cardinality += container.cardinality();
+        }
+    }
+}
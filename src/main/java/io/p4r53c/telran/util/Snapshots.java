@@ -0,0 +1,290 @@
+package io.p4r53c.telran.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import java.util.Arrays;
+
+/**
+ * The snapshot format of {@link IntArrayList} and {@link LongArrayList}: a
+ * 16-byte header, which is a magic number, the kind of the elements and the
+ * number of elements, followed by the backing array as little-endian
+ * fixed-width values. Unlike {@link CollectionCodec} the layout is fixed, so
+ * the elements can be bulk-copied in chunks of
+ * {@value #CHUNK_BYTES} bytes through a direct buffer, or mapped from a file
+ * and used in place. Every thread allocates its direct buffer once and
+ * reuses it for all snapshots it writes or reads, as direct memory is only
+ * freed when the buffer is garbage collected. A size read from a header is
+ * not allocated up front: arrays read from a channel grow as the elements
+ * arrive, and a mapping is limited to {@link Integer#MAX_VALUE} bytes.
+ *
+ * @author p4r53c
+ */
+final class Snapshots {
+
+    static final int MAGIC = 0x736E_6170;
+
+    static final int HEADER_BYTES = 16;
+
+    static final int CHUNK_BYTES = 1 << 20;
+
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private static final ThreadLocal<ByteBuffer> CHUNKS = ThreadLocal
+            .withInitial(() -> ByteBuffer.allocateDirect(CHUNK_BYTES).order(ORDER));
+
+    private Snapshots() {
+    }
+
+    static long bytes(int size, int elementBytes) {
+        return HEADER_BYTES + (long) size * elementBytes;
+    }
+
+    static void write(ByteBuffer buffer, byte kind, int[] array, int size) {
+        ByteBuffer target = slice(buffer, bytes(size, Integer.BYTES));
+        putHeader(target, kind, size);
+        target.asIntBuffer().put(array, 0, size);
+    }
+
+    static void write(ByteBuffer buffer, byte kind, long[] array, int size) {
+        ByteBuffer target = slice(buffer, bytes(size, Long.BYTES));
+        putHeader(target, kind, size);
+        target.asLongBuffer().put(array, 0, size);
+    }
+
+    static int[] readInts(ByteBuffer buffer, byte kind) throws IOException {
+        ByteBuffer source = buffer.slice().order(ORDER);
+        int size = getHeader(source, kind, Integer.BYTES, source.remaining());
+        int[] result = new int[size];
+
+        source.asIntBuffer().get(result);
+        buffer.position(buffer.position() + (int) bytes(size, Integer.BYTES));
+
+        return result;
+    }
+
+    static long[] readLongs(ByteBuffer buffer, byte kind) throws IOException {
+        ByteBuffer source = buffer.slice().order(ORDER);
+        int size = getHeader(source, kind, Long.BYTES, source.remaining());
+        long[] result = new long[size];
+
+        source.asLongBuffer().get(result);
+        buffer.position(buffer.position() + (int) bytes(size, Long.BYTES));
+
+        return result;
+    }
+
+    static void write(WritableByteChannel channel, byte kind, int[] array, int size) throws IOException {
+        ByteBuffer chunk = chunk();
+        putHeader(chunk, kind, size);
+        int from = 0;
+
+        do {
+            int length = Math.min(size - from, chunk.remaining() / Integer.BYTES);
+            chunk.asIntBuffer().put(array, from, length);
+            chunk.position(chunk.position() + length * Integer.BYTES);
+            from += length;
+            drain(channel, chunk);
+        } while (from < size);
+    }
+
+    static void write(WritableByteChannel channel, byte kind, long[] array, int size) throws IOException {
+        ByteBuffer chunk = chunk();
+        putHeader(chunk, kind, size);
+        int from = 0;
+
+        do {
+            int length = Math.min(size - from, chunk.remaining() / Long.BYTES);
+            chunk.asLongBuffer().put(array, from, length);
+            chunk.position(chunk.position() + length * Long.BYTES);
+            from += length;
+            drain(channel, chunk);
+        } while (from < size);
+    }
+
+    static int[] readInts(ReadableByteChannel channel, byte kind) throws IOException {
+        ByteBuffer chunk = chunk();
+        int size = readHeader(channel, chunk, kind, Integer.BYTES);
+        int[] result = new int[Math.min(size, CodecInput.PREALLOCATED_BYTES / Integer.BYTES)];
+        int from = 0;
+
+        while (from < size) {
+            if (from == result.length) {
+                result = Arrays.copyOf(result, CodecInput.grownLength(result.length, size));
+            }
+
+            chunk.clear().limit((int) Math.min(CHUNK_BYTES, (long) (result.length - from) * Integer.BYTES));
+            fill(channel, chunk);
+            int length = chunk.remaining() / Integer.BYTES;
+            chunk.asIntBuffer().get(result, from, length);
+            from += length;
+        }
+
+        return result;
+    }
+
+    static long[] readLongs(ReadableByteChannel channel, byte kind) throws IOException {
+        ByteBuffer chunk = chunk();
+        int size = readHeader(channel, chunk, kind, Long.BYTES);
+        long[] result = new long[Math.min(size, CodecInput.PREALLOCATED_BYTES / Long.BYTES)];
+        int from = 0;
+
+        while (from < size) {
+            if (from == result.length) {
+                result = Arrays.copyOf(result, CodecInput.grownLength(result.length, size));
+            }
+
+            chunk.clear().limit((int) Math.min(CHUNK_BYTES, (long) (result.length - from) * Long.BYTES));
+            fill(channel, chunk);
+            int length = chunk.remaining() / Long.BYTES;
+            chunk.asLongBuffer().get(result, from, length);
+            from += length;
+        }
+
+        return result;
+    }
+
+    /**
+     * Maps the elements of the snapshot at the current position of the file
+     * read-only and moves the position past the snapshot. Nothing is read but
+     * the header; the pages of the elements are loaded by the operating
+     * system on first access.
+     *
+     * @param channel      the file
+     * @param kind         the expected kind of the elements
+     * @param elementBytes the size of an element
+     * @return the little-endian buffer of the elements
+     * @throws IOException              if the file fails, is too short or does
+     *                                  not hold a snapshot of the kind
+     * @throws IllegalArgumentException if the elements exceed the
+     *                                  {@link Integer#MAX_VALUE} bytes of a
+     *                                  single mapping
+     */
+    static ByteBuffer map(FileChannel channel, byte kind, int elementBytes) throws IOException {
+        long position = channel.position();
+        long available = channel.size() - position;
+
+        if (available < HEADER_BYTES) {
+            throw new EOFException("No snapshot header");
+        }
+
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, position, HEADER_BYTES).order(ORDER);
+        int size = getHeader(header, kind, elementBytes, available);
+        long length = (long) size * elementBytes;
+
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Snapshot of " + size + " elements of " + elementBytes
+                    + " bytes exceeds the maximal mapping of " + Integer.MAX_VALUE + " bytes");
+        }
+
+        ByteBuffer result = channel.map(FileChannel.MapMode.READ_ONLY, position + HEADER_BYTES, length)
+                .order(ORDER);
+
+        channel.position(position + HEADER_BYTES + length);
+
+        return result;
+    }
+
+    /**
+     * Returns the cleared direct buffer of the current thread.
+     */
+    private static ByteBuffer chunk() {
+        return CHUNKS.get().clear();
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, long bytes) {
+        if (buffer.remaining() < bytes) {
+            throw new BufferOverflowException();
+        }
+
+        ByteBuffer result = buffer.slice().order(ORDER);
+        buffer.position(buffer.position() + (int) bytes);
+
+        return result;
+    }
+
+    private static void putHeader(ByteBuffer buffer, byte kind, int size) {
+        buffer.putInt(MAGIC);
+        buffer.putInt(kind);
+        buffer.putLong(size);
+    }
+
+    /**
+     * Reads and checks a header.
+     *
+     * @param buffer       the buffer positioned at the header
+     * @param kind         the expected kind of the elements
+     * @param elementBytes the size of an element
+     * @param available    the number of bytes of the snapshot available
+     * @return the number of elements
+     * @throws IOException if the header is invalid or more elements are
+     *                     declared than available
+     */
+    private static int getHeader(ByteBuffer buffer, byte kind, int elementBytes, long available)
+            throws IOException {
+        if (available < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            throw new StreamCorruptedException("Not a snapshot");
+        }
+
+        int actualKind = buffer.getInt();
+
+        if (actualKind != kind) {
+            throw new StreamCorruptedException("Expected snapshot of '" + (char) kind + "', found '"
+                    + (char) actualKind + "'");
+        }
+
+        long size = buffer.getLong();
+
+        if (size < 0 || size > Integer.MAX_VALUE) {
+            throw new StreamCorruptedException("Invalid snapshot size " + size);
+        }
+
+        if (bytes((int) size, elementBytes) > available) {
+            throw new EOFException("Snapshot of " + size + " elements is truncated");
+        }
+
+        return (int) size;
+    }
+
+    private static int readHeader(ReadableByteChannel channel, ByteBuffer chunk, byte kind, int elementBytes)
+            throws IOException {
+        chunk.clear().limit(HEADER_BYTES);
+        fill(channel, chunk);
+
+        return getHeader(chunk, kind, elementBytes, Long.MAX_VALUE);
+    }
+
+    /**
+     * Reads from the channel until the buffer is full and flips it.
+     */
+    private static void fill(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Snapshot is truncated");
+            }
+        }
+
+        buffer.flip();
+    }
+
+    /**
+     * Writes the buffer to the channel and clears it.
+     */
+    private static void drain(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+}
@@ -1,5 +1,7 @@
 package io.p4r53c.telran.util;
 
+import java.util.Iterator;
+
 /**
  * A class implementing the Map interface based on a tree structure.
  * 
@@ -14,6 +16,45 @@ public class TreeMap<K, V> extends AbstractMap<K, V> {
         set = new TreeSet<>();
     }
 
+    /**
+     * Builds a tree map in linear time from entries given in strictly ascending
+     * order of their keys. The entries are used as they are, the underlying
+     * tree is balanced.
+     *
+     * @param <K>     type of keys in the map
+     * @param <V>     type of values in the map
+     * @param entries the entries in strictly ascending order of their keys
+     * @return the tree map containing the given entries
+     * @throws IllegalArgumentException if the keys are not in strictly
+     *                                  ascending order or contain duplicates
+     */
+    public static <K, V> TreeMap<K, V> fromSorted(Iterator<Entry<K, V>> entries) {
+        TreeMap<K, V> treeMap = new TreeMap<>();
+        treeMap.set = TreeSet.fromSorted(entries);
+        return treeMap;
+    }
+
+    /**
+     * Builds a tree map in linear time from the given number of entries in
+     * strictly ascending order of their keys, linking the nodes of the
+     * balanced tree as the entries arrive.
+     *
+     * @param <K>     type of keys in the map
+     * @param <V>     type of values in the map
+     * @param entries the entries in strictly ascending order of their keys
+     * @param size    the number of entries to be read
+     * @return the tree map containing the given entries
+     * @throws IllegalArgumentException if the size is negative, or the keys
+     *                                  are not in strictly ascending order or
+     *                                  contain duplicates
+     * @throws java.util.NoSuchElementException if there are fewer entries
+     */
+    public static <K, V> TreeMap<K, V> fromSorted(Iterator<Entry<K, V>> entries, int size) {
+        TreeMap<K, V> treeMap = new TreeMap<>();
+        treeMap.set = TreeSet.fromSorted(entries, size);
+        return treeMap;
+    }
+
     /**
      * {@inheritDoc}
      */
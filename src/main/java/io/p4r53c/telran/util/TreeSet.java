@@ -2,10 +2,14 @@ package io.p4r53c.telran.util;
 
 import java.util.Iterator;
 
+import java.util.Arrays;
 import java.util.Comparator;
 
 import java.util.NoSuchElementException;
 
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
 /**
  * A Tree Set implementation of the {@link Set} interface.
  *
@@ -15,12 +19,37 @@ import java.util.NoSuchElementException;
  */
 public class TreeSet<T> implements SortedSet<T> {
 
+    private static final int MIN_BLOOM_FILTER_CAPACITY = 1024;
+
+    /**
+     * Walks up to this depth are never reported as degenerate.
+     */
+    private static final int DEGENERATE_MIN_DEPTH = 64;
+
+    /**
+     * How many times deeper than a balanced tree a walk has to be to be
+     * reported as degenerate.
+     */
+    private static final int DEGENERATE_HEIGHT_FACTOR = 4;
+
     private Node<T> root;
 
     private Comparator<T> comparator;
 
     int size;
 
+    private int leaves;
+
+    private BloomFilter<T> bloomFilter;
+
+    private double bloomFilterRate;
+
+    private int bloomFilterCapacity;
+
+    private CollectionMetrics metrics;
+
+    private int reportedDepth = DEGENERATE_MIN_DEPTH;
+
     private String printSymbol = " ";
     private int symbolsPerLevel = 2;
 
@@ -33,11 +62,126 @@ public class TreeSet<T> implements SortedSet<T> {
         this((Comparator<T>) Comparator.naturalOrder());
     }
 
+    /**
+     * Builds a balanced tree set in linear time from elements given in strictly
+     * ascending order of the comparator. No element comparisons besides the
+     * order check are made, the nodes are linked by {@link #balanceArray}.
+     *
+     * @param <T>        type of elements in the set
+     * @param iterator   the elements in strictly ascending order
+     * @param comparator the comparator of the set
+     * @return the balanced tree set containing the given elements
+     * @throws IllegalArgumentException if the elements are not in strictly
+     *                                  ascending order or contain duplicates
+     */
+    public static <T> TreeSet<T> fromSorted(Iterator<T> iterator, Comparator<T> comparator) {
+        TreeSet<T> treeSet = new TreeSet<>(comparator);
+        Node<T>[] nodes = treeSet.createSortedNodesArray(iterator);
+
+        treeSet.root = treeSet.balanceArray(nodes, 0, treeSet.size - 1, null);
+
+        return treeSet;
+    }
+
+    /**
+     * Builds a balanced tree set in linear time from elements given in strictly
+     * ascending natural order.
+     *
+     * @param <T>      type of elements in the set
+     * @param iterator the elements in strictly ascending order
+     * @return the balanced tree set containing the given elements
+     * @throws IllegalArgumentException if the elements are not in strictly
+     *                                  ascending order or contain duplicates
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> TreeSet<T> fromSorted(Iterator<T> iterator) {
+        return fromSorted(iterator, (Comparator<T>) Comparator.naturalOrder());
+    }
+
+    /**
+     * Builds a balanced tree set in linear time from the given number of
+     * elements in strictly ascending order of the comparator. As the size is
+     * known in advance, the nodes are linked in order as the elements arrive,
+     * as {@code java.util.TreeMap.buildFromSorted} does, without an
+     * intermediate array of nodes; elements after the first {@code size} are
+     * not read.
+     *
+     * @param <T>        type of elements in the set
+     * @param iterator   the elements in strictly ascending order
+     * @param size       the number of elements to be read
+     * @param comparator the comparator of the set
+     * @return the balanced tree set containing the given elements
+     * @throws IllegalArgumentException if the size is negative, or the
+     *                                  elements are not in strictly ascending
+     *                                  order or contain duplicates
+     * @throws NoSuchElementException   if the iterator has fewer elements
+     */
+    public static <T> TreeSet<T> fromSorted(Iterator<T> iterator, int size, Comparator<T> comparator) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Negative size: " + size);
+        }
+
+        TreeSet<T> treeSet = new TreeSet<>(comparator);
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Node<T>[] previous = new Node[1];
+        treeSet.root = treeSet.buildFromSorted(iterator, size, previous);
+
+        return treeSet;
+    }
+
+    /**
+     * Builds a balanced tree set in linear time from the given number of
+     * elements in strictly ascending natural order.
+     *
+     * @param <T>      type of elements in the set
+     * @param iterator the elements in strictly ascending order
+     * @param size     the number of elements to be read
+     * @return the balanced tree set containing the given elements
+     * @throws IllegalArgumentException if the size is negative, or the
+     *                                  elements are not in strictly ascending
+     *                                  order or contain duplicates
+     * @throws NoSuchElementException   if the iterator has fewer elements
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> TreeSet<T> fromSorted(Iterator<T> iterator, int size) {
+        return fromSorted(iterator, size, (Comparator<T>) Comparator.naturalOrder());
+    }
+
+    /**
+     * Builds a balanced tree set in linear time from an array sorted in strictly
+     * ascending order of the comparator.
+     *
+     * @param <T>        type of elements in the set
+     * @param array      the elements in strictly ascending order
+     * @param comparator the comparator of the set
+     * @return the balanced tree set containing the given elements
+     * @throws IllegalArgumentException if the elements are not in strictly
+     *                                  ascending order or contain duplicates
+     */
+    public static <T> TreeSet<T> fromSorted(T[] array, Comparator<T> comparator) {
+        return fromSorted(Arrays.asList(array).iterator(), comparator);
+    }
+
+    /**
+     * Builds a balanced tree set in linear time from an array sorted in strictly
+     * ascending natural order.
+     *
+     * @param <T>   type of elements in the set
+     * @param array the elements in strictly ascending order
+     * @return the balanced tree set containing the given elements
+     * @throws IllegalArgumentException if the elements are not in strictly
+     *                                  ascending order or contain duplicates
+     */
+    public static <T> TreeSet<T> fromSorted(T[] array) {
+        return fromSorted(Arrays.asList(array).iterator());
+    }
+
     private static class Node<T> {
         T obj;
         Node<T> parent;
         Node<T> left;
         Node<T> right;
+        int height = 1;
 
         Node(T obj) {
             this.obj = obj;
@@ -112,6 +256,7 @@ public class TreeSet<T> implements SortedSet<T> {
             }
 
             size++;
+            addToBloomFilter(obj);
         }
 
         return result;
@@ -175,6 +320,84 @@ public class TreeSet<T> implements SortedSet<T> {
         return new TreeSetIterator();
     }
 
+    /**
+     * Performs the given action for each element in ascending order, walking
+     * the nodes directly without an iterator.
+     *
+     * @param action the action to be performed for each element
+     */
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        Node<T> current = getLeastNodeFrom(root);
+
+        while (current != null) {
+            action.accept(current.obj);
+            current = getNextNode(current);
+        }
+    }
+
+    /**
+     * Removes elements matching the predicate in a single in-order pass. If
+     * nothing matches, the tree is left as it is, and a single match is
+     * unlinked as by {@link #remove}. If several elements match, the
+     * remaining nodes are collected in ascending order and relinked into a
+     * balanced tree, so no per-element unlinking is done; this reshapes the
+     * tree, and {@link #height()} and {@link #width()} change as after
+     * {@link #balance()}.
+     *
+     * @param predicate a predicate to test elements for removal
+     * @return true if any elements were removed, false otherwise
+     */
+    @Override
+    public boolean removeIf(Predicate<T> predicate) {
+        Node<T>[] remaining = null;
+        Node<T> firstRemoved = null;
+        int count = 0;
+        Node<T> current = getLeastNodeFrom(root);
+
+        while (current != null) {
+            if (!predicate.test(current.obj)) {
+                if (remaining != null) {
+                    remaining[count] = current;
+                }
+
+                count++;
+            } else if (firstRemoved == null) {
+                firstRemoved = current;
+            } else if (remaining == null) {
+                remaining = collectNodes(count, firstRemoved, size - 2);
+            }
+
+            current = getNextNode(current);
+        }
+
+        int removed = size - count;
+
+        if (removed == 1) {
+            removeNode(firstRemoved);
+        } else if (removed > 1) {
+            size = count;
+            leaves = 0;
+            root = balanceArray(remaining, 0, count - 1, null);
+            rebuildBloomFilter();
+            reportedDepth = DEGENERATE_MIN_DEPTH;
+        }
+
+        return removed > 0;
+    }
+
+    /**
+     * Removes all elements in O(1) by dropping the root.
+     */
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+        leaves = 0;
+        rebuildBloomFilter();
+        reportedDepth = DEGENERATE_MIN_DEPTH;
+    }
+
     /**
      * Returns the first occurrence of the given element in the set, if it is
      * present. If the set does not contain the element, null is returned.
@@ -242,43 +465,126 @@ public class TreeSet<T> implements SortedSet<T> {
     /**
      * Prints the tree in a rotated manner.
      * The output is done to the console.
+     * <p>
+     * The right subtree is displayed first, then the root object, and finally
+     * the left subtree. The traversal follows parent references, so it needs
+     * no stack whatever the depth of the tree is.
      */
     public void displayTreeRotated() {
-        displayTreeRotated(root, 0);
+        Node<T> current = root;
+        int level = 0;
+
+        if (current != null) {
+            while (current.right != null) {
+                current = current.right;
+                level++;
+            }
+        }
+
+        while (current != null) {
+            displayRootObject(current.obj, level);
+
+            if (current.left != null) {
+                current = current.left;
+                level++;
+
+                while (current.right != null) {
+                    current = current.right;
+                    level++;
+                }
+            } else {
+                Node<T> child = current;
+                current = current.parent;
+                level--;
+
+                while (current != null && current.left == child) {
+                    child = current;
+                    current = current.parent;
+                    level--;
+                }
+            }
+        }
     }
 
     /**
      * Prints the tree in a rotated manner with parent and children.
      * The output is done to the console.
+     * <p>
+     * The root object is displayed first, then the left subtree, and finally
+     * the right subtree. The traversal follows parent references, so it needs
+     * no stack whatever the depth of the tree is.
      */
     public void displayTreeParentChildren() {
-        displayTreeParentChildren(root, 0);
+        Node<T> current = root;
+        int level = 0;
+
+        while (current != null) {
+            displayRootObject(current.obj, level);
+
+            if (current.left != null) {
+                current = current.left;
+                level++;
+            } else if (current.right != null) {
+                current = current.right;
+                level++;
+            } else {
+                Node<T> child = current;
+                current = current.parent;
+                level--;
+
+                while (current != null && (current.right == null || current.right == child)) {
+                    child = current;
+                    current = current.parent;
+                    level--;
+                }
+
+                if (current != null) {
+                    current = current.right;
+                    level++;
+                }
+            }
+        }
     }
 
     /**
-     * Returns the width of the tree.
+     * Returns the width of the tree, i.e. the number of its leaves. The number
+     * is maintained on every insertion and removal, so the call is O(1).
      * 
      * @return the width of the tree
      */
     public int width() {
-        return width(root);
+        return leaves;
     }
 
     /**
-     * Returns the height of the tree.
+     * Returns the height of the tree. The height of the tree is defined as the
+     * number of nodes along the longest path from the root node down to the
+     * farthest leaf node. Every node keeps the height of its subtree, so the
+     * call is O(1).
      * 
      * @return the height of the tree
      */
     public int height() {
-        return height(root);
+        return getHeight(root);
     }
 
     /**
-     * Inverts the tree by reversing the comparator and inverting the tree in place.
+     * Inverts the tree by reversing the comparator and inverting the tree in
+     * place. The left and right subtrees of each node are swapped in pre-order
+     * following parent references, so no stack is needed.
      */
     public void inversion() {
         comparator = comparator.reversed();
-        inversion(root);
+
+        Node<T> current = root;
+
+        while (current != null) {
+            Node<T> node = current.left;
+            current.left = current.right;
+            current.right = node;
+
+            current = getNextPreorderNode(current);
+        }
     }
 
     /**
@@ -287,8 +593,82 @@ public class TreeSet<T> implements SortedSet<T> {
      * tree.
      */
     public void balance() {
+        CollectionEvents.RebalanceEvent event = new CollectionEvents.RebalanceEvent();
+        event.begin();
+
         Node<T>[] nodes = getSortedNodesArray();
+        leaves = 0;
         root = balanceArray(nodes, 0, nodes.length - 1, null);
+        rebuildBloomFilter();
+        reportedDepth = DEGENERATE_MIN_DEPTH;
+
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.setCollection(this);
+            event.size = size;
+            event.newHeight = height();
+            event.commit();
+        }
+    }
+
+    /**
+     * Puts a Bloom filter in front of the tree, so that most lookups of absent
+     * elements are answered without a root-to-leaf walk. The filter is sized
+     * for twice the current number of elements and rebuilt when it is
+     * outgrown, on {@link #balance()}, {@link #removeIf} and {@link #clear()};
+     * removed elements stay in the filter until then.
+     * <p>
+     * The filter relies on {@code hashCode} and {@code equals} of the elements
+     * being consistent with the comparator of the set.
+     *
+     * @param falsePositiveRate the false-positive rate of the filter, between
+     *                          0 and 1 exclusive
+     */
+    public void enableBloomFilter(double falsePositiveRate) {
+        bloomFilterRate = falsePositiveRate;
+        rebuildBloomFilter();
+    }
+
+    /**
+     * Removes the Bloom filter.
+     */
+    public void disableBloomFilter() {
+        bloomFilterRate = 0;
+        bloomFilter = null;
+    }
+
+    /**
+     * Starts collecting metrics: comparator calls per lookup and the height
+     * of the tree.
+     *
+     * @return the metrics of the set
+     */
+    public CollectionMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new CollectionMetrics(this, null, TreeSet::height, null);
+        }
+
+        return metrics;
+    }
+
+    /**
+     * Stops collecting metrics and unregisters them from JMX.
+     */
+    public void disableMetrics() {
+        if (metrics != null) {
+            metrics.unregisterMBean();
+            metrics = null;
+        }
+    }
+
+    /**
+     * Returns the metrics of the set.
+     *
+     * @return the metrics, or null if they are not enabled
+     */
+    public CollectionMetrics getMetrics() {
+        return metrics;
     }
 
     /**
@@ -299,6 +679,10 @@ public class TreeSet<T> implements SortedSet<T> {
     private void addAfterParent(Node<T> node) {
         Node<T> parent = getParent(node.obj);
 
+        if (parent.left != null || parent.right != null) {
+            leaves++;
+        }
+
         if (comparator.compare(node.obj, parent.obj) > 0) {
             parent.right = node;
         } else {
@@ -306,6 +690,8 @@ public class TreeSet<T> implements SortedSet<T> {
         }
 
         node.parent = parent;
+
+        updateHeights(parent);
     }
 
     /**
@@ -315,6 +701,35 @@ public class TreeSet<T> implements SortedSet<T> {
      */
     private void addRoot(Node<T> node) {
         root = node;
+        leaves = 1;
+    }
+
+    /**
+     * Updates the heights of the given node and its ancestors after a change
+     * of the node's children. The update stops at the first node whose height
+     * has not changed.
+     *
+     * @param node the node whose children have changed
+     */
+    private void updateHeights(Node<T> node) {
+        boolean changed = true;
+
+        while (node != null && changed) {
+            int height = 1 + Math.max(getHeight(node.left), getHeight(node.right));
+            changed = height != node.height;
+            node.height = height;
+            node = node.parent;
+        }
+    }
+
+    /**
+     * Returns the height of the subtree of the given node.
+     *
+     * @param node the root of the subtree
+     * @return the height of the subtree, or 0 if the node is null
+     */
+    private int getHeight(Node<T> node) {
+        return node == null ? 0 : node.height;
     }
 
     /**
@@ -327,7 +742,7 @@ public class TreeSet<T> implements SortedSet<T> {
      */
     private Node<T> getNode(T pattern) {
         Node<T> result = null;
-        Node<T> node = getParentOrNode(pattern);
+        Node<T> node = mightContain(pattern) ? getParentOrNode(pattern) : null;
 
         // We should check Node for Null and equals to pattern!!!
         if (node != null && comparator.compare(node.obj, pattern) == 0) {
@@ -363,15 +778,56 @@ public class TreeSet<T> implements SortedSet<T> {
         Node<T> current = root;
         Node<T> parent = null;
         int comparatorResult = 0;
+        int depth = 0;
 
         while (current != null && (comparatorResult = comparator.compare(pattern, current.obj)) != 0) {
             parent = current;
             current = comparatorResult > 0 ? current.right : current.left;
+            depth++;
+        }
+
+        if (current != null) {
+            depth++;
+        }
+
+        if (metrics != null) {
+            metrics.recordLookup(depth);
+        }
+
+        if (depth > reportedDepth) {
+            reportDegenerateDepth(depth);
         }
 
         return current == null ? parent : current;
     }
 
+    /**
+     * Emits a {@link CollectionEvents.DegenerateTreeEvent} if a walk of the
+     * given depth is far deeper than a balanced tree of this size would be.
+     * Only walks deeper than any reported since the last
+     * {@link #balance()}, {@link #removeIf(Predicate)} or {@link #clear()}
+     * are reported, so a degenerate tree does not flood the recording. A walk
+     * counts as reported only if the event was committed, so a tree which
+     * degenerated before the recording started is still reported.
+     *
+     * @param depth the number of nodes visited by the walk
+     */
+    private void reportDegenerateDepth(int depth) {
+        int balancedHeight = 32 - Integer.numberOfLeadingZeros(size);
+
+        if (depth > DEGENERATE_HEIGHT_FACTOR * balancedHeight) {
+            CollectionEvents.DegenerateTreeEvent event = new CollectionEvents.DegenerateTreeEvent();
+
+            if (event.shouldCommit()) {
+                event.setCollection(this);
+                event.size = size;
+                event.depth = depth;
+                event.commit();
+                reportedDepth = depth;
+            }
+        }
+    }
+
     /**
      * Removes a node from the tree.
      *
@@ -442,8 +898,16 @@ public class TreeSet<T> implements SortedSet<T> {
 
         if (child != null) {
             child.parent = parent;
+        } else {
+            leaves--;
+
+            if (parent != null && parent.left == null && parent.right == null) {
+                leaves++;
+            }
         }
 
+        updateHeights(parent);
+
         // Same cleanup for GC as in LinkedList
         node.obj = null;
         node.parent = null;
@@ -577,38 +1041,6 @@ public class TreeSet<T> implements SortedSet<T> {
         return getCurrentNode(current);
     }
 
-    /**
-     * Displays the tree rotated to the right by the given level, with the root
-     * object displayed at the given level. The right subtree is displayed first,
-     * then the root object, and finally the left subtree.
-     * 
-     * @param root  the root node of the tree
-     * @param level the level of the root node
-     */
-    private void displayTreeRotated(Node<T> root, int level) {
-        if (root != null) {
-            displayTreeRotated(root.right, level + 1);
-            displayRootObject(root.obj, level);
-            displayTreeRotated(root.left, level + 1);
-        }
-    }
-
-    /**
-     * Displays the tree in parent-children order, with the root object displayed
-     * at the given level. The root object is displayed first, then the left
-     * subtree, and finally the right subtree.
-     * 
-     * @param root  the root node of the tree
-     * @param level the level of the root node
-     */
-    private void displayTreeParentChildren(Node<T> root, int level) {
-        if (root != null) {
-            displayRootObject(root.obj, level);
-            displayTreeParentChildren(root.left, level + 1);
-            displayTreeParentChildren(root.right, level + 1);
-        }
-    }
-
     /**
      * Displays the given object at the given level in the tree. The object is
      * displayed indented with the given level, with each level indented by
@@ -623,55 +1055,26 @@ public class TreeSet<T> implements SortedSet<T> {
     }
 
     /**
-     * Inverts the tree by swapping the left and right subtrees of each node.
+     * Returns the next node in pre-order: the left child, the right child, or
+     * the right child of the closest ancestor whose left subtree contains the
+     * given node.
      * 
-     * @param root the root node of the tree
-     */
-    private void inversion(Node<T> root) {
-        if (root != null) {
-
-            // Swap left and right
-            Node<T> node = root.left;
-            root.left = root.right;
-            root.right = node;
-
-            inversion(root.left);
-            inversion(root.right);
-        }
-    }
-
-    /**
-     * Calculates the width of the given tree. The width of the tree is defined
-     * as the number of nodes in the widest level of the tree.
-     * 
-     * @param root the root of the tree
-     * @return the width of the tree
+     * @param current the current node
+     * @return the next node in pre-order, or null if the node is the last one
      */
-    private int width(Node<T> root) {
-        int result = 0;
-
-        if (root != null) {
-            result = root.left == null && root.right == null ? 1 : width(root.left) + width(root.right);
-        }
+    private Node<T> getNextPreorderNode(Node<T> current) {
+        Node<T> result = current.left != null ? current.left : current.right;
 
-        return result;
-    }
+        if (result == null) {
+            Node<T> child = current;
+            Node<T> parent = current.parent;
 
-    /**
-     * Calculates the height of the given tree. The height of the tree is
-     * defined as the number of nodes along the longest path from the root
-     * node down to the farthest leaf node.
-     * 
-     * @param root the root of the tree
-     * @return the height of the tree
-     */
-    private int height(Node<T> root) {
-        int result = 0;
+            while (parent != null && (parent.right == null || parent.right == child)) {
+                child = parent;
+                parent = parent.parent;
+            }
 
-        if (root != null) {
-            int left = height(root.left);
-            int right = height(root.right);
-            result = 1 + Math.max(left, right);
+            result = parent == null ? null : parent.right;
         }
 
         return result;
@@ -680,8 +1083,13 @@ public class TreeSet<T> implements SortedSet<T> {
     /**
      * Creates a balanced tree from the given array of nodes. The tree is
      * balanced by choosing the middle element of the array as the root node
-     * and recursively creating the left and right subtrees from the left and
-     * right halves of the array, respectively.
+     * and creating the left and right subtrees from the left and right halves
+     * of the array, respectively.
+     * <p>
+     * The halves are processed with an explicit stack of index ranges, which
+     * never holds more than two ranges per level. The height of a subtree built
+     * from a range of length {@code n} is {@code floor(log2(n)) + 1}, and every
+     * range of length 1 becomes a leaf counted in {@link #leaves}.
      * 
      * @param array  the array of nodes to be balanced
      * @param left   the start index of the array
@@ -692,19 +1100,99 @@ public class TreeSet<T> implements SortedSet<T> {
     private Node<T> balanceArray(Node<T>[] array, int left, int right, Node<T> parent) {
         Node<T> rootNode = null;
 
+        // Triples of (left, right, index of parent node or -1 for the given parent)
+        int[] stack = new int[3 * 2 * Integer.SIZE];
+        int top = 0;
+
         if (left <= right) {
-            int middle = (left + right) / 2;
+            stack[top++] = left;
+            stack[top++] = right;
+            stack[top++] = -1;
+        }
+
+        while (top > 0) {
+            int parentIndex = stack[--top];
+            int to = stack[--top];
+            int from = stack[--top];
+            int middle = (from + to) / 2;
 
-            rootNode = array[middle];
-            rootNode.parent = parent;
+            Node<T> node = array[middle];
+            node.left = null;
+            node.right = null;
+            node.height = Integer.SIZE - Integer.numberOfLeadingZeros(to - from + 1);
+
+            if (parentIndex < 0) {
+                node.parent = parent;
+                rootNode = node;
+            } else {
+                node.parent = array[parentIndex];
+
+                if (middle < parentIndex) {
+                    node.parent.left = node;
+                } else {
+                    node.parent.right = node;
+                }
+            }
+
+            if (from == to) {
+                leaves++;
+            }
+
+            if (middle < to) {
+                stack[top++] = middle + 1;
+                stack[top++] = to;
+                stack[top++] = middle;
+            }
 
-            rootNode.left = balanceArray(array, left, middle - 1, rootNode);
-            rootNode.right = balanceArray(array, middle + 1, right, rootNode);
+            if (from < middle) {
+                stack[top++] = from;
+                stack[top++] = middle - 1;
+                stack[top++] = middle;
+            }
         }
 
         return rootNode;
     }
 
+    /**
+     * Returns false if the Bloom filter proves that the set does not contain
+     * the given element.
+     *
+     * @param pattern the element to be checked
+     * @return false if the element is definitely absent, true otherwise
+     */
+    private boolean mightContain(T pattern) {
+        return bloomFilter == null || pattern == null || bloomFilter.mightContain(pattern);
+    }
+
+    /**
+     * Adds the element to the Bloom filter, if it is enabled, rebuilding the
+     * filter when the number of elements exceeds its capacity.
+     *
+     * @param obj the element added to the set
+     */
+    private void addToBloomFilter(T obj) {
+        if (bloomFilter != null) {
+            if (size > bloomFilterCapacity) {
+                rebuildBloomFilter();
+            } else {
+                bloomFilter.add(obj);
+            }
+        }
+    }
+
+    /**
+     * Creates a new Bloom filter for twice the current number of elements, if
+     * the filter is enabled, and adds all elements to it.
+     */
+    private void rebuildBloomFilter() {
+        if (bloomFilterRate > 0) {
+            bloomFilterCapacity = Math.max(2 * size, MIN_BLOOM_FILTER_CAPACITY);
+            bloomFilter = new BloomFilter<>(bloomFilterCapacity, bloomFilterRate);
+            forEach(bloomFilter::add);
+        }
+    }
+
     /**
      * Returns an array of nodes in the tree in ascending order. The array is
      * created by traversing the tree in an in-order fashion, starting from the
@@ -725,4 +1213,116 @@ public class TreeSet<T> implements SortedSet<T> {
         return array;
     }
 
+    /**
+     * Returns a node array of the given length holding the first
+     * {@code count} nodes of the tree in ascending order, not counting the
+     * skipped node.
+     *
+     * @param count   the number of least nodes to be collected
+     * @param skipped the node to be left out
+     * @param length  the length of the array
+     * @return the array of nodes
+     */
+    private Node<T>[] collectNodes(int count, Node<T> skipped, int length) {
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Node<T>[] array = new Node[length];
+        Node<T> current = getLeastNodeFrom(root);
+        int index = 0;
+
+        while (index < count) {
+            if (current != skipped) {
+                array[index++] = current;
+            }
+
+            current = getNextNode(current);
+        }
+
+        return array;
+    }
+
+    /**
+     * Links the next {@code count} elements of the iterator into a balanced
+     * subtree: the left subtree is built first, then its root is read, then
+     * the right subtree. The split is the one of {@link #balanceArray}, so
+     * the height of the subtree is the bit length of {@code count}.
+     *
+     * @param iterator the elements in strictly ascending order
+     * @param count    the number of elements of the subtree
+     * @param previous holds the node built last, for the order check
+     * @return the root of the subtree, or null if count is 0
+     */
+    private Node<T> buildFromSorted(Iterator<T> iterator, int count, Node<T>[] previous) {
+        Node<T> node = null;
+
+        if (count > 0) {
+            int leftCount = (count - 1) / 2;
+            Node<T> left = buildFromSorted(iterator, leftCount, previous);
+            T obj = iterator.next();
+
+            if (previous[0] != null && comparator.compare(previous[0].obj, obj) >= 0) {
+                throw new IllegalArgumentException(
+                        "Elements are not in strictly ascending order at position " + size + ": " + obj);
+            }
+
+            node = new Node<>(obj);
+            node.height = Integer.SIZE - Integer.numberOfLeadingZeros(count);
+            previous[0] = node;
+            size++;
+
+            Node<T> right = buildFromSorted(iterator, count - 1 - leftCount, previous);
+            node.left = left;
+            node.right = right;
+
+            if (left != null) {
+                left.parent = node;
+            }
+
+            if (right != null) {
+                right.parent = node;
+            }
+
+            if (count == 1) {
+                leaves++;
+            }
+        }
+
+        return node;
+    }
+
+    /**
+     * Wraps the elements of the iterator into unlinked nodes checking that
+     * every element is strictly greater than the previous one. The node array
+     * grows the same way as {@link ArrayList} does, and {@link #size} is set
+     * to the number of nodes.
+     *
+     * @param iterator the elements in strictly ascending order
+     * @return the array of nodes, possibly longer than {@link #size}
+     * @throws IllegalArgumentException if the elements are not in strictly
+     *                                  ascending order or contain duplicates
+     */
+    private Node<T>[] createSortedNodesArray(Iterator<T> iterator) {
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Node<T>[] array = new Node[16];
+        int count = 0;
+
+        while (iterator.hasNext()) {
+            T obj = iterator.next();
+
+            if (count > 0 && comparator.compare(array[count - 1].obj, obj) >= 0) {
+                throw new IllegalArgumentException(
+                        "Elements are not in strictly ascending order at position " + count + ": " + obj);
+            }
+
+            if (count == array.length) {
+                array = Arrays.copyOf(array, array.length * 2);
+            }
+
+            array[count++] = new Node<>(obj);
+        }
+
+        size = count;
+
+        return array;
+    }
+
 }
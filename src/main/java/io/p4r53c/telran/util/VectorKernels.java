@@ -0,0 +1,427 @@
+package io.p4r53c.telran.util;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Scans of {@code int} and {@code long} arrays for {@link IntArrayList} and
+ * {@link LongArrayList}, processing as many elements per instruction as the
+ * preferred SIMD width of the platform holds with the incubating Vector API.
+ * <p>
+ * The {@code jdk.incubator.vector} module has to be added at run time with
+ * {@code --add-modules jdk.incubator.vector}. Without it every kernel falls
+ * back to the equivalent scalar loop, which is also available directly for
+ * comparison. The vector code lives in the nested {@code Simd} class, so it is
+ * never loaded when the module is absent.
+ *
+ * @author p4r53c
+ */
+final class VectorKernels {
+
+    static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private VectorKernels() {
+    }
+
+    static int indexOf(int[] array, int length, int value) {
+        return VECTORIZED ? Simd.indexOf(array, length, value) : scalarIndexOf(array, 0, length, value);
+    }
+
+    static int lastIndexOf(int[] array, int length, int value) {
+        return VECTORIZED ? Simd.lastIndexOf(array, length, value) : scalarLastIndexOf(array, length, value);
+    }
+
+    static long sum(int[] array, int length) {
+        return VECTORIZED ? Simd.sum(array, length) : scalarSum(array, 0, length);
+    }
+
+    static int min(int[] array, int length) {
+        return VECTORIZED ? Simd.min(array, length) : scalarMin(array, 0, length, Integer.MAX_VALUE);
+    }
+
+    static int max(int[] array, int length) {
+        return VECTORIZED ? Simd.max(array, length) : scalarMax(array, 0, length, Integer.MIN_VALUE);
+    }
+
+    static int removeMultiplesOf(int[] array, int length, int divisor) {
+        return VECTORIZED ? Simd.removeMultiplesOf(array, length, divisor)
+                : scalarRemoveMultiplesOf(array, 0, 0, length, divisor);
+    }
+
+    static int indexOf(long[] array, int length, long value) {
+        return VECTORIZED ? Simd.indexOf(array, length, value) : scalarIndexOf(array, 0, length, value);
+    }
+
+    static int lastIndexOf(long[] array, int length, long value) {
+        return VECTORIZED ? Simd.lastIndexOf(array, length, value) : scalarLastIndexOf(array, length, value);
+    }
+
+    static long sum(long[] array, int length) {
+        return VECTORIZED ? Simd.sum(array, length) : scalarSum(array, 0, length);
+    }
+
+    static long min(long[] array, int length) {
+        return VECTORIZED ? Simd.min(array, length) : scalarMin(array, 0, length, Long.MAX_VALUE);
+    }
+
+    static long max(long[] array, int length) {
+        return VECTORIZED ? Simd.max(array, length) : scalarMax(array, 0, length, Long.MIN_VALUE);
+    }
+
+    static int removeMultiplesOf(long[] array, int length, long divisor) {
+        return VECTORIZED ? Simd.removeMultiplesOf(array, length, divisor)
+                : scalarRemoveMultiplesOf(array, 0, 0, length, divisor);
+    }
+
+    static int scalarIndexOf(int[] array, int from, int to, int value) {
+        int index = from;
+
+        while (index < to && array[index] != value) {
+            index++;
+        }
+
+        return index == to ? -1 : index;
+    }
+
+    static int scalarLastIndexOf(int[] array, int to, int value) {
+        int index = to - 1;
+
+        while (index >= 0 && array[index] != value) {
+            index--;
+        }
+
+        return index;
+    }
+
+    static long scalarSum(int[] array, int from, int to) {
+        long result = 0;
+
+        for (int i = from; i < to; i++) {
+            result += array[i];
+        }
+
+        return result;
+    }
+
+    static int scalarMin(int[] array, int from, int to, int initial) {
+        int result = initial;
+
+        for (int i = from; i < to; i++) {
+            result = Math.min(result, array[i]);
+        }
+
+        return result;
+    }
+
+    static int scalarMax(int[] array, int from, int to, int initial) {
+        int result = initial;
+
+        for (int i = from; i < to; i++) {
+            result = Math.max(result, array[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Moves the elements of {@code [from, to)} which are not multiples of the
+     * divisor to the positions starting at {@code left}.
+     *
+     * @return the position after the last kept element
+     */
+    static int scalarRemoveMultiplesOf(int[] array, int left, int from, int to, int divisor) {
+        for (int i = from; i < to; i++) {
+            if (array[i] % divisor != 0) {
+                array[left++] = array[i];
+            }
+        }
+
+        return left;
+    }
+
+    static int scalarIndexOf(long[] array, int from, int to, long value) {
+        int index = from;
+
+        while (index < to && array[index] != value) {
+            index++;
+        }
+
+        return index == to ? -1 : index;
+    }
+
+    static int scalarLastIndexOf(long[] array, int to, long value) {
+        int index = to - 1;
+
+        while (index >= 0 && array[index] != value) {
+            index--;
+        }
+
+        return index;
+    }
+
+    static long scalarSum(long[] array, int from, int to) {
+        long result = 0;
+
+        for (int i = from; i < to; i++) {
+            result += array[i];
+        }
+
+        return result;
+    }
+
+    static long scalarMin(long[] array, int from, int to, long initial) {
+        long result = initial;
+
+        for (int i = from; i < to; i++) {
+            result = Math.min(result, array[i]);
+        }
+
+        return result;
+    }
+
+    static long scalarMax(long[] array, int from, int to, long initial) {
+        long result = initial;
+
+        for (int i = from; i < to; i++) {
+            result = Math.max(result, array[i]);
+        }
+
+        return result;
+    }
+
+    static int scalarRemoveMultiplesOf(long[] array, int left, int from, int to, long divisor) {
+        for (int i = from; i < to; i++) {
+            if (array[i] % divisor != 0) {
+                array[left++] = array[i];
+            }
+        }
+
+        return left;
+    }
+
+    /**
+     * The vector kernels. Every kernel runs over whole vectors up to
+     * {@link VectorSpecies#loopBound(int)} and finishes the tail with the
+     * scalar loop.
+     */
+    private static final class Simd {
+
+        private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+        private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+        /**
+         * The number of vectors after which the 16-bit halves accumulated in
+         * {@code int} lanes by {@link #sum(int[], int)} are flushed to a
+         * {@code long}, so that neither the lanes nor their total overflow.
+         */
+        private static final int SUM_FLUSH_VECTORS = Integer.MAX_VALUE / 0xFFFF / INTS.length();
+
+        private Simd() {
+        }
+
+        static int indexOf(int[] array, int length, int value) {
+            int bound = INTS.loopBound(length);
+            int result = -1;
+            int i = 0;
+
+            while (result < 0 && i < bound) {
+                VectorMask<Integer> found = IntVector.fromArray(INTS, array, i).eq(value);
+                result = found.anyTrue() ? i + found.firstTrue() : -1;
+                i += INTS.length();
+            }
+
+            return result >= 0 ? result : scalarIndexOf(array, bound, length, value);
+        }
+
+        static int lastIndexOf(int[] array, int length, int value) {
+            int result = -1;
+            int i = length;
+
+            while (result < 0 && i >= INTS.length()) {
+                i -= INTS.length();
+                VectorMask<Integer> found = IntVector.fromArray(INTS, array, i).eq(value);
+                result = found.anyTrue() ? i + found.lastTrue() : -1;
+            }
+
+            return result >= 0 ? result : scalarLastIndexOf(array, i, value);
+        }
+
+        /**
+         * Sums the low and the high 16-bit halves of the elements in separate
+         * {@code int} lanes, which cannot overflow between flushes.
+         */
+        static long sum(int[] array, int length) {
+            int bound = INTS.loopBound(length);
+            long result = 0;
+            int i = 0;
+
+            while (i < bound) {
+                int blockEnd = Math.min(bound, i + SUM_FLUSH_VECTORS * INTS.length());
+                IntVector low = IntVector.zero(INTS);
+                IntVector high = IntVector.zero(INTS);
+
+                for (; i < blockEnd; i += INTS.length()) {
+                    IntVector vector = IntVector.fromArray(INTS, array, i);
+                    low = low.add(vector.and(0xFFFF));
+                    high = high.add(vector.lanewise(VectorOperators.ASHR, 16));
+                }
+
+                result += low.reduceLanesToLong(VectorOperators.ADD)
+                        + (high.reduceLanesToLong(VectorOperators.ADD) << 16);
+            }
+
+            return result + scalarSum(array, bound, length);
+        }
+
+        static int min(int[] array, int length) {
+            int bound = INTS.loopBound(length);
+            IntVector result = IntVector.broadcast(INTS, Integer.MAX_VALUE);
+
+            for (int i = 0; i < bound; i += INTS.length()) {
+                result = result.min(IntVector.fromArray(INTS, array, i));
+            }
+
+            return scalarMin(array, bound, length, result.reduceLanes(VectorOperators.MIN));
+        }
+
+        static int max(int[] array, int length) {
+            int bound = INTS.loopBound(length);
+            IntVector result = IntVector.broadcast(INTS, Integer.MIN_VALUE);
+
+            for (int i = 0; i < bound; i += INTS.length()) {
+                result = result.max(IntVector.fromArray(INTS, array, i));
+            }
+
+            return scalarMax(array, bound, length, result.reduceLanes(VectorOperators.MAX));
+        }
+
+        /**
+         * Compacts the array in place. A vector without multiples is stored
+         * whole, one of multiples only is skipped, and only mixed vectors are
+         * compacted lane by lane.
+         */
+        static int removeMultiplesOf(int[] array, int length, int divisor) {
+            int bound = INTS.loopBound(length);
+            int left = 0;
+
+            for (int i = 0; i < bound; i += INTS.length()) {
+                IntVector vector = IntVector.fromArray(INTS, array, i);
+                VectorMask<Integer> multiples = multiplesOf(vector, divisor);
+
+                if (!multiples.anyTrue()) {
+                    vector.intoArray(array, left);
+                    left += INTS.length();
+                } else if (!multiples.allTrue()) {
+                    long lanes = multiples.toLong();
+
+                    for (int lane = 0; lane < INTS.length(); lane++) {
+                        if ((lanes & (1L << lane)) == 0) {
+                            array[left++] = array[i + lane];
+                        }
+                    }
+                }
+            }
+
+            return scalarRemoveMultiplesOf(array, left, bound, length, divisor);
+        }
+
+        /**
+         * Returns the lanes holding multiples of the divisor. Powers of two,
+         * including {@link Integer#MIN_VALUE}, are tested with a mask, other
+         * divisors with a lanewise division.
+         */
+        private static VectorMask<Integer> multiplesOf(IntVector vector, int divisor) {
+            return (divisor & (divisor - 1)) == 0 ? vector.and(divisor - 1).eq(0)
+                    : vector.sub(vector.div(divisor).mul(divisor)).eq(0);
+        }
+
+        static int indexOf(long[] array, int length, long value) {
+            int bound = LONGS.loopBound(length);
+            int result = -1;
+            int i = 0;
+
+            while (result < 0 && i < bound) {
+                VectorMask<Long> found = LongVector.fromArray(LONGS, array, i).eq(value);
+                result = found.anyTrue() ? i + found.firstTrue() : -1;
+                i += LONGS.length();
+            }
+
+            return result >= 0 ? result : scalarIndexOf(array, bound, length, value);
+        }
+
+        static int lastIndexOf(long[] array, int length, long value) {
+            int result = -1;
+            int i = length;
+
+            while (result < 0 && i >= LONGS.length()) {
+                i -= LONGS.length();
+                VectorMask<Long> found = LongVector.fromArray(LONGS, array, i).eq(value);
+                result = found.anyTrue() ? i + found.lastTrue() : -1;
+            }
+
+            return result >= 0 ? result : scalarLastIndexOf(array, i, value);
+        }
+
+        static long sum(long[] array, int length) {
+            int bound = LONGS.loopBound(length);
+            LongVector result = LongVector.zero(LONGS);
+
+            for (int i = 0; i < bound; i += LONGS.length()) {
+                result = result.add(LongVector.fromArray(LONGS, array, i));
+            }
+
+            return result.reduceLanes(VectorOperators.ADD) + scalarSum(array, bound, length);
+        }
+
+        static long min(long[] array, int length) {
+            int bound = LONGS.loopBound(length);
+            LongVector result = LongVector.broadcast(LONGS, Long.MAX_VALUE);
+
+            for (int i = 0; i < bound; i += LONGS.length()) {
+                result = result.min(LongVector.fromArray(LONGS, array, i));
+            }
+
+            return scalarMin(array, bound, length, result.reduceLanes(VectorOperators.MIN));
+        }
+
+        static long max(long[] array, int length) {
+            int bound = LONGS.loopBound(length);
+            LongVector result = LongVector.broadcast(LONGS, Long.MIN_VALUE);
+
+            for (int i = 0; i < bound; i += LONGS.length()) {
+                result = result.max(LongVector.fromArray(LONGS, array, i));
+            }
+
+            return scalarMax(array, bound, length, result.reduceLanes(VectorOperators.MAX));
+        }
+
+        static int removeMultiplesOf(long[] array, int length, long divisor) {
+            int bound = LONGS.loopBound(length);
+            int left = 0;
+
+            for (int i = 0; i < bound; i += LONGS.length()) {
+                LongVector vector = LongVector.fromArray(LONGS, array, i);
+                VectorMask<Long> multiples = (divisor & (divisor - 1)) == 0 ? vector.and(divisor - 1).eq(0)
+                        : vector.sub(vector.div(divisor).mul(divisor)).eq(0);
+
+                if (!multiples.anyTrue()) {
+                    vector.intoArray(array, left);
+                    left += LONGS.length();
+                } else if (!multiples.allTrue()) {
+                    long lanes = multiples.toLong();
+
+                    for (int lane = 0; lane < LONGS.length(); lane++) {
+                        if ((lanes & (1L << lane)) == 0) {
+                            array[left++] = array[i + lane];
+                        }
+                    }
+                }
+            }
+
+            return scalarRemoveMultiplesOf(array, left, bound, length, divisor);
+        }
+    }
+}
@@ -112,6 +112,29 @@ public abstract class AbstractMapTest {
 		runTest(expected, actual);
 	}
 
+	@Test
+	void testForEach() {
+		int[] sums = new int[2];
+
+		map.forEach((key, value) -> {
+			sums[0] += key;
+			sums[1] += value;
+		});
+
+		assertEquals(13, sums[0]);
+		assertEquals(75, sums[1]);
+	}
+
+	@Test
+	void testClear() {
+		map.clear();
+
+		assertTrue(map.isEmpty());
+		assertNull(map.get(4));
+		assertNull(map.put(4, 1));
+		assertEquals(1, map.size());
+	}
+
 	abstract <T> void runTest(T[] expected, T[] actual);
 
 	abstract <T> T[] fromCollection(Collection<T> collection, T[] array);
@@ -0,0 +1,184 @@
+package io.p4r53c.telran.util;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileInputStream;
+
+import java.nio.file.Path;
+
+import java.util.Properties;
+import java.util.Random;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Measures the bytes allocated per operation by filling and iterating the
+ * collections, using the JMH GC profiler ({@code -prof gc}). After the run
+ * the normalized allocation rate of every benchmark is printed per element as
+ * a {@link FootprintReport} and stored in {@code target/allocation.properties}.
+ * Passing a previous file with {@code -Dallocation.baseline=<file>} flags the
+ * rows that allocate more than 5% above it.
+ */
+@State(Scope.Thread)
+public class AllocationPerformanceTest {
+
+    static final String[] COLLECTIONS = {
+            "HashSet", "TreeSet", "LinkedHashSet", "HashMap", "TreeMap", "ArrayList", "LinkedList"
+    };
+
+    static final int[] SIZES = { 16, 1_000, 100_000 };
+
+    private static final double TOLERANCE = 0.05;
+
+    private static final String ALLOCATION_RATE = "gc.alloc.rate.norm";
+
+    @Param({ "HashSet", "TreeSet", "LinkedHashSet", "HashMap", "TreeMap", "ArrayList", "LinkedList" })
+    String collection;
+
+    @Param({ "16", "1000", "100000" })
+    int size;
+
+    private Integer[] elements;
+    private Object filled;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        elements = elements(size);
+        filled = fill(collection, elements);
+    }
+
+    @Disabled("Not for regular test cases")
+    @Test
+    void runBenchmarks() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(this.getClass().getName() + ".*")
+                .mode(Mode.AverageTime)
+                .warmupTime(TimeValue.seconds(1))
+                .warmupIterations(6)
+                .threads(1)
+                .measurementIterations(6)
+                .forks(1)
+                .addProfiler(GCProfiler.class)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .build();
+
+        String baselineFile = System.getProperty("allocation.baseline");
+        Properties baseline = FootprintReport.loadBaseline(
+                baselineFile == null ? null : new FileInputStream(baselineFile));
+        FootprintReport report = new FootprintReport("Allocated bytes per element and operation", baseline,
+                TOLERANCE);
+
+        for (RunResult result : new Runner(options).run()) {
+            String benchmark = result.getParams().getBenchmark();
+            String name = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+            int elementCount = Integer.parseInt(result.getParams().getParam("size"));
+            Result<?> allocated = result.getSecondaryResults().get(ALLOCATION_RATE);
+
+            report.add(name + "." + result.getParams().getParam("collection"), elementCount,
+                    allocated.getScore() / elementCount);
+        }
+
+        System.out.println(report);
+        report.store(Path.of("target", "allocation.properties"));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object testFill() {
+        return fill(collection, elements);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void testIterate(Blackhole blackhole) {
+        if (filled instanceof Map) {
+            ((Map<?, ?>) filled).forEach((key, value) -> blackhole.consume(value));
+        } else {
+            for (Object element : (Collection<?>) filled) {
+                blackhole.consume(element);
+            }
+        }
+    }
+
+    /**
+     * Returns the numbers from 0 to the given size in a fixed random order, so
+     * that the trees are filled in their average shape.
+     *
+     * @param size the number of elements
+     * @return the shuffled elements
+     */
+    static Integer[] elements(int size) {
+        Integer[] result = new Integer[size];
+        Random random = new Random(size);
+
+        for (int i = 0; i < size; i++) {
+            int j = random.nextInt(i + 1);
+            result[i] = result[j];
+            result[j] = i;
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates the collection of the given name holding the given elements;
+     * maps map every element to itself.
+     *
+     * @param collection the simple class name of the collection
+     * @param elements   the elements to be added
+     * @return the filled collection or map
+     */
+    static Object fill(String collection, Integer[] elements) {
+        Object result;
+
+        if (collection.endsWith("Map")) {
+            Map<Integer, Integer> map = collection.equals("HashMap") ? new HashMap<>() : new TreeMap<>();
+
+            for (Integer element : elements) {
+                map.put(element, element);
+            }
+
+            result = map;
+        } else {
+            Collection<Integer> elementCollection = newCollection(collection);
+
+            for (Integer element : elements) {
+                elementCollection.add(element);
+            }
+
+            result = elementCollection;
+        }
+
+        return result;
+    }
+
+    private static Collection<Integer> newCollection(String collection) {
+        return switch (collection) {
+            case "HashSet" -> new HashSet<>();
+            case "TreeSet" -> new TreeSet<>();
+            case "LinkedHashSet" -> new LinkedHashSet<>();
+            case "ArrayList" -> new ArrayList<>();
+            case "LinkedList" -> new LinkedList<>();
+            default -> throw new IllegalArgumentException("Unknown collection " + collection);
+        };
+    }
+}
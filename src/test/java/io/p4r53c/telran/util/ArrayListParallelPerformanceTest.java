@@ -0,0 +1,87 @@
+package io.p4r53c.telran.util;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Compares sequential and parallel sorting and removal on an
+ * {@link ArrayList} of 1M elements. The list is refilled before every
+ * invocation, as both operations change it.
+ */
+@State(Scope.Thread)
+public class ArrayListParallelPerformanceTest {
+
+    private static final int N_ELEMENTS = 1_000_000;
+
+    private int[] source = new Random().ints(N_ELEMENTS).toArray();
+    private ArrayList<Integer> list;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        list = new ArrayList<>(N_ELEMENTS);
+
+        for (int n : source) {
+            list.add(n);
+        }
+    }
+
+    @Disabled("Not for regular test cases")
+    @Test
+    void runBenchmarks() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(this.getClass().getName() + ".*")
+                .mode(Mode.AverageTime)
+                .warmupTime(TimeValue.seconds(1))
+                .warmupIterations(6)
+                .threads(1)
+                .measurementIterations(6)
+                .forks(1)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean testRemoveIf() {
+        return list.removeIf(n -> n % 2 == 0);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean testParallelRemoveIf() {
+        return list.parallelRemoveIf(n -> n % 2 == 0);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ArrayList<Integer> testSort() {
+        list.sort(Integer::compare);
+        return list;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ArrayList<Integer> testParallelSort() {
+        list.parallelSort(Integer::compare);
+        return list;
+    }
+}
@@ -1,6 +1,16 @@
 package io.p4r53c.telran.util;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 
 public class ArrayListTest extends ListTest {
 
@@ -10,4 +20,94 @@ public class ArrayListTest extends ListTest {
         collection = new ArrayList<>(3);
         super.setUp();
     }
+
+    @Test
+    void testTrimToSizeAndEnsureCapacity() {
+        ArrayList<Integer> list = new ArrayList<>(0);
+
+        list.add(1);
+        list.ensureCapacity(100);
+        list.add(2);
+        list.trimToSize();
+        list.add(3);
+        list.trimToSize();
+
+        assertEquals(3, list.size());
+        assertEquals(3, list.get(2));
+
+        list.clear();
+        list.trimToSize();
+        list.add(4);
+
+        assertEquals(4, list.get(0));
+    }
+
+    @Test
+    void testSort() {
+        ArrayList<Integer> list = (ArrayList<Integer>) collection;
+
+        list.sort(null);
+        runTest(new Integer[] { -10, 1, 3, 8, 10, 17, 20, 100 });
+
+        list.sort(Comparator.reverseOrder());
+        runTest(new Integer[] { 100, 20, 17, 10, 8, 3, 1, -10 });
+    }
+
+    @Test
+    void testParallelSort() {
+        ArrayList<Integer> list = new ArrayList<>();
+        Integer[] expected = new Random().ints(N_ELEMENTS).boxed().toArray(Integer[]::new);
+        Arrays.stream(expected).forEach(list::add);
+
+        list.parallelSort(Integer::compare);
+        Arrays.sort(expected);
+
+        assertArrayEquals(expected, list.stream().toArray(Integer[]::new));
+    }
+
+    @Test
+    void testParallelRemoveIf() {
+        ArrayList<Integer> list = new ArrayList<>();
+        ArrayList<Integer> expected = new ArrayList<>();
+        new Random().ints(N_ELEMENTS).forEach(n -> {
+            list.add(n);
+            expected.add(n);
+        });
+
+        assertTrue(list.parallelRemoveIf(n -> n % 3 == 0));
+        expected.removeIf(n -> n % 3 == 0);
+
+        assertArrayEquals(expected.stream().toArray(), list.stream().toArray());
+        assertFalse(list.parallelRemoveIf(n -> n % 3 == 0));
+
+        ArrayList<Integer> small = (ArrayList<Integer>) collection;
+        assertTrue(small.parallelRemoveIf(n -> n > 10));
+        runTest(new Integer[] { 3, -10, 1, 10, 8 });
+    }
+
+    @Test
+    void testMetrics() {
+        ArrayList<Integer> list = new ArrayList<>(2);
+        CollectionMetrics metrics = list.enableMetrics();
+
+        for (int i = 0; i < 10; i++) {
+            list.add(i);
+        }
+
+        assertEquals(3, metrics.getResizeCount());
+        assertEquals(16, metrics.getCapacity());
+        assertEquals(0, metrics.getLookupCount());
+
+        list.trimToSize();
+        list.ensureCapacity(100);
+        list.ensureCapacity(50);
+
+        assertEquals(5, metrics.getResizeCount());
+        assertEquals(100, metrics.getCapacity());
+
+        list.disableMetrics();
+        list.add(10);
+
+        assertEquals(5, metrics.getResizeCount());
+    }
 }
@@ -0,0 +1,38 @@
+package io.p4r53c.telran.util;
+
+import org.junit.jupiter.api.BeforeEach;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+
+public class BTreeMapTest extends AbstractMapTest {
+
+    @Override
+    @BeforeEach
+    void setUp() {
+        map = new BTreeMap<>();
+        super.setUp();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected <T> void runTest(T[] expected, T[] actual) {
+        Arrays.sort(expected, (o1, o2) -> ((Comparable<T>) o1).compareTo(o2));
+
+        for (T i : expected) {
+            assertEquals(i, actual[Arrays.asList(expected).indexOf(i)]);
+        }
+    }
+
+    @Override
+    protected <T> T[] fromCollection(Collection<T> collection, T[] array) {
+        int i = 0;
+
+        for (T o : collection) {
+            array[i++] = o;
+        }
+
+        return array;
+    }
+}
@@ -0,0 +1,105 @@
+package io.p4r53c.telran.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BTreeSetTest extends SortedSetTest {
+
+    private static final int SMALL_ORDER = 4;
+
+    @Override
+    @BeforeEach
+    void setUp() {
+        collection = new BTreeSet<>();
+        super.setUp();
+    }
+
+    @Test
+    void testIllegalOrder() {
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> new BTreeSet<Integer>(2, Integer::compare));
+    }
+
+    /**
+     * Tests splits, borrowing and merging of nodes on a tree of a small order
+     * against {@link java.util.TreeSet}.
+     */
+    @Test
+    void testRandomAddRemove() {
+        BTreeSet<Integer> bTreeSet = new BTreeSet<>(SMALL_ORDER, Integer::compare);
+        java.util.TreeSet<Integer> expected = new java.util.TreeSet<>();
+        Random random = new Random(1);
+
+        for (int i = 0; i < 100_000; i++) {
+            Integer obj = random.nextInt(2_000);
+
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(obj), bTreeSet.remove(obj));
+            } else {
+                assertEquals(expected.add(obj), bTreeSet.add(obj));
+            }
+
+            assertEquals(expected.floor(obj), bTreeSet.floor(obj));
+            assertEquals(expected.ceiling(obj), bTreeSet.ceiling(obj));
+        }
+
+        assertEquals(expected.size(), bTreeSet.size());
+        assertEquals(expected.first(), bTreeSet.first());
+        assertEquals(expected.last(), bTreeSet.last());
+        assertArrayEquals(expected.toArray(), bTreeSet.stream().toArray());
+        assertArrayEquals(expected.subSet(500, 1_500).toArray(), bTreeSet.subSet(500, 1_500).stream().toArray());
+
+        bTreeSet.removeIf(n -> n % 3 == 0);
+        expected.removeIf(n -> n % 3 == 0);
+        assertArrayEquals(expected.toArray(), bTreeSet.stream().toArray());
+    }
+
+    /**
+     * Builds subsets of every size up to several levels of a tree of a small
+     * order and changes them, so that a malformed bottom-up build shows up in
+     * splits, borrowing and merging.
+     */
+    @Test
+    void testSubSetBuild() {
+        BTreeSet<Integer> bTreeSet = new BTreeSet<>(SMALL_ORDER, Integer::compare);
+        Random random = new Random(1);
+
+        for (int i = 0; i < 1_000; i++) {
+            bTreeSet.add(i);
+        }
+
+        for (int size = 0; size < 300; size++) {
+            int from = random.nextInt(1_000 - size);
+            SortedSet<Integer> subSet = bTreeSet.subSet(from, from + size);
+            java.util.TreeSet<Integer> expected = new java.util.TreeSet<>();
+
+            for (int i = from; i < from + size; i++) {
+                expected.add(i);
+            }
+
+            assertEquals(size, subSet.size());
+            assertArrayEquals(expected.toArray(), subSet.stream().toArray());
+
+            for (int i = 0; i < 2 * size; i++) {
+                Integer obj = from - 10 + random.nextInt(size + 20);
+
+                if (random.nextBoolean()) {
+                    assertEquals(expected.remove(obj), subSet.remove(obj));
+                } else {
+                    assertEquals(expected.add(obj), subSet.add(obj));
+                }
+
+                assertEquals(expected.floor(obj), subSet.floor(obj));
+            }
+
+            assertArrayEquals(expected.toArray(), subSet.stream().toArray());
+            assertEquals(expected.isEmpty() ? null : expected.last(), subSet.last());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package io.p4r53c.telran.util;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Compares lookups and full scans of small-id sets held in
+ * {@link BitSetIntSet}, {@link HashSet} and {@link TreeSet}.
+ */
+@State(Scope.Thread)
+public class BitSetIntSetPerformanceTest {
+
+    private static final int MAX_ID = 0xFFFF;
+    private static final int N_ELEMENTS = 20_000;
+    private static final int N_KEYS = 1 << 16;
+
+    private Random random = new Random();
+    private BitSetIntSet bitSetIntSet;
+    private HashSet<Integer> hashSet;
+    private TreeSet<Integer> treeSet;
+    private int[] keys = new int[N_KEYS];
+    private int keyIndex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        bitSetIntSet = new BitSetIntSet(MAX_ID);
+        hashSet = new HashSet<>();
+        treeSet = new TreeSet<>();
+
+        for (int i = 0; i < N_ELEMENTS; i++) {
+            int id = random.nextInt(MAX_ID + 1);
+            bitSetIntSet.add(id);
+            hashSet.add(id);
+            treeSet.add(id);
+        }
+
+        for (int i = 0; i < N_KEYS; i++) {
+            keys[i] = random.nextInt(MAX_ID + 1);
+        }
+    }
+
+    @Disabled("Not for regular test cases")
+    @Test
+    void runBenchmarks() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(this.getClass().getName() + ".*")
+                .mode(Mode.AverageTime)
+                .warmupTime(TimeValue.seconds(1))
+                .warmupIterations(6)
+                .threads(1)
+                .measurementIterations(6)
+                .forks(1)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean testBitSetIntSetContains() {
+        return bitSetIntSet.contains(nextKey());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean testHashSetContains() {
+        return hashSet.contains(nextKey());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean testTreeSetContains() {
+        return treeSet.contains(nextKey());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Integer testBitSetIntSetCeiling() {
+        return bitSetIntSet.ceiling(nextKey());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Integer testTreeSetCeiling() {
+        return treeSet.ceiling(nextKey());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void testBitSetIntSetScan(Blackhole blackhole) {
+        bitSetIntSet.forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void testHashSetScan(Blackhole blackhole) {
+        hashSet.forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void testTreeSetScan(Blackhole blackhole) {
+        treeSet.forEach(blackhole::consume);
+    }
+
+    private int nextKey() {
+        keyIndex = (keyIndex + 1) & (N_KEYS - 1);
+        return keys[keyIndex];
+    }
+}
@@ -0,0 +1,103 @@
+package io.p4r53c.telran.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BitSetIntSetTest extends SortedSetTest {
+
+    private Random random = new Random();
+
+    @Override
+    @BeforeEach
+    void setUp() {
+        collection = new BitSetIntSet(-N_ELEMENTS, N_ELEMENTS);
+        super.setUp();
+    }
+
+    @Override
+    protected void fillBigCollection() {
+        IntStream.range(0, N_ELEMENTS)
+                .forEach(i -> collection.add(random.nextInt(2 * N_ELEMENTS + 1) - N_ELEMENTS));
+    }
+
+    @Test
+    void testRange() {
+        BitSetIntSet set = new BitSetIntSet(100);
+
+        assertThrowsExactly(IllegalArgumentException.class, () -> set.add(101));
+        assertThrowsExactly(IllegalArgumentException.class, () -> set.add(-1));
+        assertThrowsExactly(IllegalArgumentException.class, () -> new BitSetIntSet(1, 0));
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> new BitSetIntSet(Integer.MIN_VALUE, Integer.MAX_VALUE));
+
+        assertTrue(set.add(0));
+        assertTrue(set.add(100));
+        assertFalse(set.contains(-1));
+        assertFalse(set.remove(1_000));
+        assertNull(set.get(1_000));
+        assertEquals(100, set.floor(1_000));
+        assertNull(set.floor(-1));
+        assertEquals(0, set.ceiling(-1_000));
+        assertNull(set.ceiling(101));
+        assertArrayEquals(new Integer[] { 0, 100 }, set.subSet(-1_000, 1_000).stream().toArray(Integer[]::new));
+    }
+
+    @Test
+    void testRandomAddRemove() {
+        BitSetIntSet set = new BitSetIntSet(-1_000, 1_000);
+        java.util.TreeSet<Integer> expected = new java.util.TreeSet<>();
+        Random seeded = new Random(1);
+
+        for (int i = 0; i < 100_000; i++) {
+            Integer obj = seeded.nextInt(2_001) - 1_000;
+
+            if (seeded.nextInt(3) == 0) {
+                assertEquals(expected.remove(obj), set.remove(obj));
+            } else {
+                assertEquals(expected.add(obj), set.add(obj));
+            }
+
+            assertEquals(expected.floor(obj), set.floor(obj));
+            assertEquals(expected.ceiling(obj), set.ceiling(obj));
+        }
+
+        assertEquals(expected.size(), set.size());
+        assertEquals(expected.first(), set.first());
+        assertEquals(expected.last(), set.last());
+        assertArrayEquals(expected.toArray(), set.stream().toArray());
+        assertArrayEquals(expected.subSet(-500, 500).toArray(), set.subSet(-500, 500).stream().toArray());
+        assertEquals(expected.subSet(-500, 500).size(), set.subSet(-500, 500).size());
+
+        set.removeIf(n -> n % 3 == 0);
+        expected.removeIf(n -> n % 3 == 0);
+        assertArrayEquals(expected.toArray(), set.stream().toArray());
+    }
+
+    @Test
+    void testSetAlgebra() {
+        BitSetIntSet evens = new BitSetIntSet(0xFFFF);
+        BitSetIntSet threes = new BitSetIntSet(0xFFFF);
+        IntStream.rangeClosed(0, 0xFFFF).filter(n -> n % 2 == 0).forEach(evens::add);
+        IntStream.rangeClosed(0, 0xFFFF).filter(n -> n % 3 == 0).forEach(threes::add);
+
+        BitSetIntSet sixes = evens.and(threes);
+        assertEquals(IntStream.rangeClosed(0, 0xFFFF).filter(n -> n % 6 == 0).count(), sixes.size());
+        assertTrue(sixes.stream().allMatch(n -> n % 6 == 0));
+        assertEquals(evens.size() + threes.size() - sixes.size(), evens.or(threes).size());
+        assertEquals(evens.size() - sixes.size(), evens.andNot(threes).size());
+        assertTrue(evens.andNot(threes).stream().noneMatch(n -> n % 3 == 0));
+
+        assertThrowsExactly(IllegalArgumentException.class, () -> evens.and(new BitSetIntSet(100)));
+    }
+}
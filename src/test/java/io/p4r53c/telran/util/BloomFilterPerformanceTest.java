@@ -0,0 +1,97 @@
+package io.p4r53c.telran.util;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Compares lookups of absent elements in {@link HashSet} and {@link TreeSet}
+ * with and without a Bloom filter in front.
+ */
+@State(Scope.Thread)
+public class BloomFilterPerformanceTest {
+
+    private static final int N_ELEMENTS = 1_000_000;
+    private static final int N_KEYS = 1 << 16;
+
+    @Param({ "0", "0.01" })
+    double falsePositiveRate;
+
+    private Random random = new Random();
+    private HashSet<Integer> hashSet;
+    private TreeSet<Integer> treeSet;
+    private int[] missingKeys = new int[N_KEYS];
+    private int keyIndex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        hashSet = new HashSet<>();
+        treeSet = new TreeSet<>();
+
+        for (int i = 0; i < N_ELEMENTS; i++) {
+            int value = random.nextInt() & ~1;
+            hashSet.add(value);
+            treeSet.add(value);
+        }
+
+        for (int i = 0; i < N_KEYS; i++) {
+            missingKeys[i] = random.nextInt() | 1;
+        }
+
+        if (falsePositiveRate > 0) {
+            hashSet.enableBloomFilter(falsePositiveRate);
+            treeSet.enableBloomFilter(falsePositiveRate);
+        }
+    }
+
+    @Disabled("Not for regular test cases")
+    @Test
+    void runBenchmarks() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(this.getClass().getName() + ".*")
+                .mode(Mode.AverageTime)
+                .warmupTime(TimeValue.seconds(1))
+                .warmupIterations(6)
+                .threads(1)
+                .measurementIterations(6)
+                .forks(1)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean testHashSetMiss() {
+        return hashSet.contains(nextKey());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean testTreeSetMiss() {
+        return treeSet.contains(nextKey());
+    }
+
+    private int nextKey() {
+        keyIndex = (keyIndex + 1) & (N_KEYS - 1);
+        return missingKeys[keyIndex];
+    }
+}
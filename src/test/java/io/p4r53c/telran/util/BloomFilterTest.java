@@ -0,0 +1,68 @@
+package io.p4r53c.telran.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BloomFilterTest {
+
+    private static final int N_ELEMENTS = 100_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    BloomFilter<Integer> filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new BloomFilter<>(N_ELEMENTS, FALSE_POSITIVE_RATE);
+        IntStream.range(0, N_ELEMENTS).forEach(filter::add);
+    }
+
+    @Test
+    void testNoFalseNegatives() {
+        assertTrue(IntStream.range(0, N_ELEMENTS).allMatch(filter::mightContain));
+        assertFalse(filter.add(0));
+    }
+
+    @Test
+    void testFalsePositiveRate() {
+        long falsePositives = IntStream.range(N_ELEMENTS, 2 * N_ELEMENTS).filter(filter::mightContain).count();
+
+        assertTrue(falsePositives < 2 * FALSE_POSITIVE_RATE * N_ELEMENTS, "false positives: " + falsePositives);
+        assertEquals(7, filter.getHashCount());
+    }
+
+    @Test
+    void testMerge() {
+        BloomFilter<Integer> other = new BloomFilter<>(N_ELEMENTS, FALSE_POSITIVE_RATE);
+        other.add(-1);
+        filter.merge(other);
+
+        assertTrue(filter.mightContain(-1));
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> filter.merge(new BloomFilter<>(10, FALSE_POSITIVE_RATE)));
+    }
+
+    @Test
+    void testByteArray() {
+        BloomFilter<Integer> restored = BloomFilter.fromByteArray(filter.toByteArray());
+
+        assertEquals(filter.getBitSize(), restored.getBitSize());
+        assertTrue(IntStream.range(0, N_ELEMENTS).allMatch(restored::mightContain));
+        assertEquals(IntStream.range(N_ELEMENTS, 2 * N_ELEMENTS).filter(filter::mightContain).count(),
+                IntStream.range(N_ELEMENTS, 2 * N_ELEMENTS).filter(restored::mightContain).count());
+        assertThrowsExactly(IllegalArgumentException.class, () -> BloomFilter.fromByteArray(new byte[5]));
+    }
+
+    @Test
+    void testIllegalArguments() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> new BloomFilter<>(-1, FALSE_POSITIVE_RATE));
+        assertThrowsExactly(IllegalArgumentException.class, () -> new BloomFilter<>(N_ELEMENTS, 0));
+        assertThrowsExactly(IllegalArgumentException.class, () -> new BloomFilter<>(N_ELEMENTS, 1));
+    }
+}
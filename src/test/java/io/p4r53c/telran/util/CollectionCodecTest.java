@@ -0,0 +1,242 @@
+package io.p4r53c.telran.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class CollectionCodecTest {
+
+    private static final int N_ELEMENTS = 100_000;
+
+    private static final CollectionCodec<Integer> INTEGERS = new CollectionCodec<>(ElementCodec.INTEGER);
+
+    private Random random = new Random();
+
+    private interface ChannelWriter {
+        void write(WritableByteChannel channel) throws IOException;
+    }
+
+    @Test
+    void testHashSetRoundTrip() throws IOException {
+        HashSet<Integer> set = new HashSet<>();
+        random.ints(N_ELEMENTS).forEach(set::add);
+
+        byte[] bytes = write(channel -> INTEGERS.writeTo(set, channel));
+        HashSet<Integer> read = INTEGERS.readFrom(read(bytes), HashSet::new);
+
+        assertEquals(set.size(), read.size());
+        assertEquals(set.size(), set.stream().filter(read::contains).count());
+    }
+
+    @Test
+    void testTreeSetIsReadBalanced() throws IOException {
+        TreeSet<Integer> set = new TreeSet<>();
+        IntStream.range(0, 1_023).forEach(set::add);
+
+        TreeSet<Integer> read = INTEGERS.readTreeSet(read(write(channel -> INTEGERS.writeTo(set, channel))));
+
+        assertEquals(1_023, set.height());
+        assertEquals(10, read.height());
+        assertArrayEquals(set.stream().toArray(), read.stream().toArray());
+
+        TreeSet<Integer> reversed = new TreeSet<>(Comparator.<Integer>naturalOrder().reversed());
+        IntStream.range(0, 100).forEach(reversed::add);
+        TreeSet<Integer> readReversed = INTEGERS.readTreeSet(
+                read(write(channel -> INTEGERS.writeTo(reversed, channel))), Comparator.reverseOrder());
+
+        assertEquals(99, readReversed.first());
+        assertEquals(7, readReversed.height());
+    }
+
+    @Test
+    void testCompactIntegers() throws IOException {
+        ArrayList<Integer> list = new ArrayList<>();
+        IntStream.range(-64, 64).forEach(list::add);
+        list.add(Integer.MIN_VALUE);
+        list.add(Integer.MAX_VALUE);
+
+        byte[] bytes = write(channel -> INTEGERS.writeTo(list, channel));
+
+        assertEquals(4 + 1 + 2 + 128 + 5 + 5, bytes.length);
+        assertArrayEquals(list.stream().toArray(), INTEGERS.readFrom(read(bytes), ArrayList::new).stream().toArray());
+
+        LinkedList<Long> longs = new LinkedList<>();
+        longs.add(Long.MIN_VALUE);
+        longs.add(-1L);
+        longs.add(Long.MAX_VALUE);
+        CollectionCodec<Long> longCodec = new CollectionCodec<>(ElementCodec.LONG);
+        LinkedList<Long> readLongs = longCodec.readFrom(read(write(channel -> longCodec.writeTo(longs, channel))),
+                LinkedList::new);
+
+        assertArrayEquals(longs.stream().toArray(), readLongs.stream().toArray());
+    }
+
+    @Test
+    void testStrings() throws IOException {
+        LinkedList<String> list = new LinkedList<>();
+        list.add("");
+        list.add("hello");
+        list.add("\u05e9\u05dc\u05d5\u05dd \u043c\u0438\u0440 \ud83c\udf0d");
+        list.add("x".repeat(3 * CodecOutput.BUFFER_SIZE + 7));
+
+        CollectionCodec<String> codec = new CollectionCodec<>(ElementCodec.STRING);
+        LinkedList<String> read = codec.readFrom(read(write(channel -> codec.writeTo(list, channel))),
+                LinkedList::new);
+
+        assertArrayEquals(list.stream().toArray(), read.stream().toArray());
+    }
+
+    @Test
+    void testMaps() throws IOException {
+        HashMap<String, Double> hashMap = new HashMap<>();
+        TreeMap<Integer, String> treeMap = new TreeMap<>();
+
+        for (int i = 0; i < N_ELEMENTS; i++) {
+            hashMap.put("key" + i, i / 3.0);
+            treeMap.put(random.nextInt(), "value" + i);
+        }
+
+        MapCodec<String, Double> hashCodec = new MapCodec<>(ElementCodec.STRING, ElementCodec.DOUBLE);
+        HashMap<String, Double> readHashMap = hashCodec.readFrom(
+                read(write(channel -> hashCodec.writeTo(hashMap, channel))), HashMap::new);
+
+        assertEquals(hashMap.size(), readHashMap.size());
+        assertEquals(Double.valueOf(5.0), readHashMap.get("key15"));
+
+        MapCodec<Integer, String> treeCodec = new MapCodec<>(ElementCodec.INTEGER, ElementCodec.STRING);
+        TreeMap<Integer, String> readTreeMap = treeCodec.readTreeMap(
+                read(write(channel -> treeCodec.writeTo(treeMap, channel))));
+
+        assertArrayEquals(treeMap.entrySet().stream().map(Map.Entry::getKey).toArray(),
+                readTreeMap.entrySet().stream().map(Map.Entry::getKey).toArray());
+        assertArrayEquals(treeMap.values().stream().toArray(), readTreeMap.values().stream().toArray());
+    }
+
+    @Test
+    void testPrimitiveLists() throws IOException {
+        IntArrayList ints = new IntArrayList();
+        random.ints(N_ELEMENTS).forEach(ints::add);
+        ints.add(Integer.MIN_VALUE);
+
+        byte[] bytes = write(ints::writeTo);
+
+        assertEquals(4 + 1 + 3 + 4 * (N_ELEMENTS + 1), bytes.length);
+        assertArrayEquals(ints.toIntArray(), IntArrayList.readFrom(read(bytes)).toIntArray());
+
+        LongArrayList longs = new LongArrayList();
+        random.longs(N_ELEMENTS).forEach(longs::add);
+
+        assertArrayEquals(longs.toLongArray(), LongArrayList.readFrom(read(write(longs::writeTo))).toLongArray());
+        assertEquals(0, IntArrayList.readFrom(read(write(new IntArrayList()::writeTo))).size());
+    }
+
+    @Test
+    void testConsecutivePayloads() throws IOException {
+        ArrayList<Integer> list = new ArrayList<>();
+        random.ints(N_ELEMENTS).forEach(list::add);
+        TreeSet<Integer> treeSet = new TreeSet<>();
+        IntStream.range(0, 100).forEach(treeSet::add);
+        TreeMap<Integer, String> treeMap = new TreeMap<>();
+        IntStream.range(0, 100).forEach(i -> treeMap.put(i, "value" + i));
+        MapCodec<Integer, String> mapCodec = new MapCodec<>(ElementCodec.INTEGER, ElementCodec.STRING);
+        IntArrayList ints = new IntArrayList();
+        random.ints(N_ELEMENTS).forEach(ints::add);
+        LongArrayList longs = new LongArrayList();
+        random.longs(N_ELEMENTS).forEach(longs::add);
+
+        byte[] bytes = write(channel -> {
+            INTEGERS.writeTo(list, channel);
+            INTEGERS.writeTo(treeSet, channel);
+            mapCodec.writeTo(treeMap, channel);
+            CodecOutput out = new CodecOutput(channel);
+            ints.writeTo(out);
+            longs.writeTo(out);
+            mapCodec.writeTo(treeMap, out);
+            INTEGERS.writeTo(list, out);
+            out.flush();
+        });
+        CodecInput in = new CodecInput(read(bytes));
+
+        assertArrayEquals(list.stream().toArray(), INTEGERS.readFrom(in, ArrayList::new).stream().toArray());
+        assertArrayEquals(treeSet.stream().toArray(), INTEGERS.readTreeSet(in).stream().toArray());
+        assertArrayEquals(treeMap.values().stream().toArray(), mapCodec.readTreeMap(in).values().stream().toArray());
+        assertArrayEquals(ints.toIntArray(), IntArrayList.readFrom(in).toIntArray());
+        assertArrayEquals(longs.toLongArray(), LongArrayList.readFrom(in).toLongArray());
+        assertEquals(treeMap.size(), mapCodec.readFrom(in, HashMap::new).size());
+        assertEquals(list.size(), INTEGERS.readFrom(in, LinkedList::new).size());
+        assertThrowsExactly(EOFException.class, in::readByte);
+    }
+
+    @Test
+    void testMalformedInput() throws IOException {
+        IntArrayList ints = new IntArrayList();
+        IntStream.range(0, 1_000).forEach(ints::add);
+        byte[] bytes = write(ints::writeTo);
+        byte[] elements = write(channel -> INTEGERS.writeTo(ints, channel));
+
+        assertThrowsExactly(StreamCorruptedException.class, () -> INTEGERS.readFrom(read(bytes), ArrayList::new));
+        assertThrowsExactly(StreamCorruptedException.class, () -> LongArrayList.readFrom(read(bytes)));
+        assertThrowsExactly(StreamCorruptedException.class, () -> IntArrayList.readFrom(read(new byte[8])));
+        assertThrowsExactly(EOFException.class,
+                () -> IntArrayList.readFrom(read(Arrays.copyOf(bytes, bytes.length - 1))));
+        assertThrowsExactly(EOFException.class,
+                () -> INTEGERS.readTreeSet(read(Arrays.copyOf(elements, elements.length - 1))));
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> INTEGERS.readTreeSet(read(elements), Comparator.reverseOrder()));
+    }
+
+    /**
+     * Sizes of a corrupt header are not allocated up front, the input ends
+     * first.
+     */
+    @Test
+    void testHugeSizesInHeader() throws IOException {
+        byte[] ints = write(channel -> writeHeader(channel, CollectionCodec.KIND_INTS, Integer.MAX_VALUE, 7));
+        byte[] longs = write(channel -> writeHeader(channel, CollectionCodec.KIND_LONGS, Integer.MAX_VALUE, 7));
+        byte[] elements = write(channel -> writeHeader(channel, CollectionCodec.KIND_COLLECTION, Integer.MAX_VALUE,
+                Integer.MAX_VALUE));
+        CollectionCodec<String> strings = new CollectionCodec<>(ElementCodec.STRING);
+
+        assertThrowsExactly(EOFException.class, () -> IntArrayList.readFrom(read(ints)));
+        assertThrowsExactly(EOFException.class, () -> LongArrayList.readFrom(read(longs)));
+        assertThrowsExactly(EOFException.class, () -> strings.readFrom(read(elements), ArrayList::new));
+        assertThrowsExactly(EOFException.class, () -> strings.readTreeSet(read(elements)));
+    }
+
+    private static byte[] write(ChannelWriter writer) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(Channels.newChannel(out));
+
+        return out.toByteArray();
+    }
+
+    private static void writeHeader(WritableByteChannel channel, byte kind, int size, int next)
+            throws IOException {
+        CodecOutput out = new CodecOutput(channel);
+        CollectionCodec.writeHeader(out, kind, size);
+        out.writeVarInt(next);
+        out.flush();
+    }
+
+    private static ReadableByteChannel read(byte[] bytes) {
+        return Channels.newChannel(new ByteArrayInputStream(bytes));
+    }
+}
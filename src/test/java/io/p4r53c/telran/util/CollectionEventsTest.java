@@ -0,0 +1,155 @@
+package io.p4r53c.telran.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.List;
+import java.util.Random;
+
+import java.util.stream.IntStream;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.Test;
+
+class CollectionEventsTest {
+
+    private static final int N_ELEMENTS = 100_000;
+
+    private static final String[] EVENT_NAMES = {
+            "io.p4r53c.telran.util.Rehash",
+            "io.p4r53c.telran.util.Reallocation",
+            "io.p4r53c.telran.util.Rebalance",
+            "io.p4r53c.telran.util.DegenerateTree",
+            "io.p4r53c.telran.util.MapViewCopy"
+    };
+
+    @Test
+    void testEventsAreRecorded() throws IOException {
+        List<RecordedEvent> events;
+
+        try (Recording recording = new Recording()) {
+            for (String name : EVENT_NAMES) {
+                recording.enable(name);
+            }
+
+            recording.start();
+            runCollections();
+            recording.stop();
+
+            events = readEvents(recording);
+        }
+
+        RecordedEvent rehash = find(events, "io.p4r53c.telran.util.Rehash");
+        assertEquals(16, rehash.getInt("oldCapacity"));
+        assertEquals(32, rehash.getInt("newCapacity"));
+        assertEquals(HashSet.class.getName(), rehash.getClass("collectionClass").getName());
+
+        RecordedEvent reallocation = find(events, "io.p4r53c.telran.util.Reallocation");
+        assertEquals(1, reallocation.getInt("oldCapacity"));
+        assertEquals(2, reallocation.getInt("newCapacity"));
+
+        RecordedEvent rebalance = find(events, "io.p4r53c.telran.util.Rebalance");
+        assertEquals(200, rebalance.getInt("size"));
+        assertEquals(8, rebalance.getInt("newHeight"));
+
+        int maxDepth = events.stream()
+                .filter(e -> e.getEventType().getName().equals("io.p4r53c.telran.util.DegenerateTree"))
+                .mapToInt(e -> e.getInt("depth"))
+                .max()
+                .orElse(0);
+        assertEquals(200, maxDepth);
+
+        assertTrue(events.stream()
+                .anyMatch(e -> e.getEventType().getName().equals("io.p4r53c.telran.util.MapViewCopy")
+                        && e.getString("view").equals("keySet") && e.getInt("size") == 3));
+        assertTrue(events.stream()
+                .anyMatch(e -> e.getEventType().getName().equals("io.p4r53c.telran.util.MapViewCopy")
+                        && e.getString("view").equals("values")));
+    }
+
+    @Test
+    void testRandomTreeIsNotReported() throws IOException {
+        List<RecordedEvent> events;
+
+        try (Recording recording = new Recording()) {
+            recording.enable("io.p4r53c.telran.util.DegenerateTree");
+            recording.start();
+
+            TreeSet<Integer> set = new TreeSet<>();
+            new Random(1).ints(N_ELEMENTS).forEach(set::add);
+            IntStream.range(0, N_ELEMENTS).forEach(set::contains);
+            recording.stop();
+
+            events = readEvents(recording);
+        }
+
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void testTreeDegeneratedBeforeRecordingIsReported() throws IOException {
+        TreeSet<Integer> set = new TreeSet<>();
+        IntStream.range(0, 200).forEach(set::add);
+        set.contains(199);
+
+        List<RecordedEvent> events;
+
+        try (Recording recording = new Recording()) {
+            recording.enable("io.p4r53c.telran.util.DegenerateTree");
+            recording.start();
+            set.contains(199);
+            recording.stop();
+
+            events = readEvents(recording);
+        }
+
+        assertEquals(200, find(events, "io.p4r53c.telran.util.DegenerateTree").getInt("depth"));
+    }
+
+    private void runCollections() {
+        HashSet<Integer> hashSet = new HashSet<>();
+        IntStream.range(0, 13).forEach(hashSet::add);
+
+        ArrayList<Integer> list = new ArrayList<>(1);
+        list.add(1);
+        list.add(2);
+
+        TreeSet<Integer> treeSet = new TreeSet<>();
+        IntStream.range(0, 200).forEach(treeSet::add);
+        treeSet.contains(199);
+        treeSet.balance();
+
+        HashMap<String, Integer> map = new HashMap<>();
+        map.put("a", 1);
+        map.put("b", 2);
+        map.put("c", 3);
+        map.keySet();
+        map.values();
+    }
+
+    private List<RecordedEvent> readEvents(Recording recording) throws IOException {
+        Path file = Files.createTempFile("collections", ".jfr");
+
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private RecordedEvent find(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
 
 import java.util.Arrays;
 import java.util.Iterator;
@@ -70,6 +71,24 @@ public abstract class CollectionTest {
 
     }
 
+    @Test
+    void testForEachAfterRemoveIfAndClear() {
+        Integer[] expected = Arrays.stream(array).filter(n -> n % 2 != 0).sorted().toArray(Integer[]::new);
+        ArrayList<Integer> visited = new ArrayList<>();
+
+        collection.removeIf(n -> n % 2 == 0);
+        collection.forEach(visited::add);
+
+        assertArrayEquals(expected, visited.stream().sorted().toArray(Integer[]::new));
+
+        collection.clear();
+        collection.forEach(n -> fail());
+        collection.add(array[0]);
+
+        assertEquals(1, collection.size());
+        assertTrue(collection.contains(array[0]));
+    }
+
     @Test
     void testIteratorRemove() {
         Iterator<Integer> iterator = collection.iterator();
@@ -0,0 +1,58 @@
+package io.p4r53c.telran.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CompactLinkedHashMapTest extends AbstractMapTest {
+
+    private static final int N_KEYS = 10_000;
+
+    @Override
+    @BeforeEach
+    void setUp() {
+        map = new CompactLinkedHashMap<>();
+        super.setUp();
+    }
+
+    @Test
+    void testInsertionOrderAfterRemove() {
+        map.remove(4);
+        map.put(4, 0);
+        map.put(7, 0);
+
+        assertArrayEquals(new Integer[] { -1, 7, 3, 4 }, map.keySet().stream().toArray(Integer[]::new));
+        assertArrayEquals(new Integer[] { 1, 0, 9, 0 }, map.values().stream().toArray(Integer[]::new));
+    }
+
+    @Test
+    void testCompaction() {
+        for (int i = 0; i < N_KEYS; i++) {
+            map.put(N_KEYS + i, i);
+            map.remove(N_KEYS + i - 1);
+        }
+
+        assertEquals(5, map.size());
+        assertArrayEquals(new Integer[] { -1, 4, 7, 3, 2 * N_KEYS - 1 },
+                map.keySet().stream().toArray(Integer[]::new));
+        assertEquals(N_KEYS - 1, map.get(2 * N_KEYS - 1));
+    }
+
+    @Override
+    protected <T> void runTest(T[] expected, T[] actual) {
+        assertArrayEquals(expected, actual);
+    }
+
+    @Override
+    protected <T> T[] fromCollection(Collection<T> collection, T[] array) {
+        int i = 0;
+
+        for (T o : collection) {
+            array[i++] = o;
+        }
+
+        return array;
+    }
+}
@@ -0,0 +1,59 @@
+package io.p4r53c.telran.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Iterator;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CompactLinkedHashSetTest extends SetTest {
+
+    private static final int N_CHURN = 10_000;
+
+    @Override
+    @BeforeEach
+    void setUp() {
+        collection = new CompactLinkedHashSet<>();
+        super.setUp();
+    }
+
+    @Override
+    protected void runTest(Integer[] expected) {
+        Integer[] actual = collection.stream().toArray(Integer[]::new);
+        assertArrayEquals(expected, actual);
+        assertEquals(expected.length, collection.size());
+    }
+
+    @Test
+    void testOrderAfterRemoveAndReAdd() {
+        collection.remove(20);
+        collection.remove(3);
+        collection.add(20);
+
+        runTest(new Integer[] { -10, 1, 10, 8, 100, 17, 20 });
+    }
+
+    /**
+     * Removes the oldest element and appends a new one many times, so holes
+     * are compacted repeatedly while the capacity stays the same.
+     */
+    @Test
+    void testChurn() {
+        for (int i = 0; i < N_CHURN; i++) {
+            Iterator<Integer> iterator = collection.iterator();
+            iterator.next();
+            iterator.remove();
+            collection.add(N_CHURN + i);
+        }
+
+        runTest(IntStream.range(2 * N_CHURN - array.length, 2 * N_CHURN).boxed().toArray(Integer[]::new));
+        assertFalse(collection.contains(3));
+        assertTrue(collection.contains(2 * N_CHURN - 1));
+    }
+}
@@ -0,0 +1,286 @@
+package io.p4r53c.telran.util;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Measures how the thread-safe wrappers of {@link Collections} and
+ * {@link CopyOnWriteArrayList} scale against their
+ * {@code java.util.concurrent} equivalents under a mix of point reads and
+ * writes, with 5% and 50% writes.
+ * <p>
+ * {@code testPlatformThreads} runs on 1, 2, 4 and 8 JMH threads; the thread
+ * count is not a JMH parameter, so {@link #runBenchmarks()} runs it once per
+ * count. {@code testVirtualThreads} runs the same operations as
+ * {@value #N_VIRTUAL_TASKS} virtual threads per invocation, which is how a
+ * server on virtual threads would hit a shared collection. After the runs the
+ * throughput of each implementation is printed as a scaling table.
+ * <p>
+ * Maps and sets read with {@code get}/{@code contains} and write with
+ * {@code put}/{@code add} or {@code remove} of random keys, so they stay about
+ * half full. Lists read with {@code get} and write with {@code add} followed
+ * by {@code remove(0)}, which keeps their size.
+ */
+@State(Scope.Benchmark)
+public class ContentionPerformanceTest {
+
+    private static final int[] THREAD_COUNTS = { 1, 2, 4, 8 };
+    private static final int N_KEYS = 1 << 14;
+    private static final int N_LIST_ELEMENTS = 1_000;
+    private static final int N_VIRTUAL_TASKS = 1_000;
+    private static final int N_TASK_OPERATIONS = 100;
+
+    @Param({ "SynchronizedHashMap", "StampedHashMap", "SynchronizedTreeMap", "StampedTreeMap",
+            "ConcurrentHashMap", "ConcurrentSkipListMap", "SynchronizedHashSet", "StampedHashSet",
+            "ConcurrentHashSet", "CopyOnWriteArrayList", "StampedArrayList", "JdkCopyOnWriteArrayList" })
+    String implementation;
+
+    @Param({ "5", "50" })
+    int writePercent;
+
+    private Workload workload;
+
+    /**
+     * Point operations on one shared collection.
+     */
+    private interface Workload {
+
+        Object read(int key);
+
+        Object write(int key);
+    }
+
+    /**
+     * The random keys of a JMH thread.
+     */
+    @State(Scope.Thread)
+    public static class Keys {
+
+        private final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        workload = switch (implementation) {
+            case "SynchronizedHashMap" -> mapWorkload(Collections.synchronizedMap(new HashMap<>()));
+            case "StampedHashMap" -> mapWorkload(Collections.stampedMap(new HashMap<>()));
+            case "SynchronizedTreeMap" -> mapWorkload(Collections.synchronizedMap(new TreeMap<>()));
+            case "StampedTreeMap" -> mapWorkload(Collections.stampedMap(new TreeMap<>()));
+            case "ConcurrentHashMap" -> jdkMapWorkload(new ConcurrentHashMap<>());
+            case "ConcurrentSkipListMap" -> jdkMapWorkload(new ConcurrentSkipListMap<>());
+            case "SynchronizedHashSet" -> setWorkload(Collections.synchronizedSet(new HashSet<>()));
+            case "StampedHashSet" -> setWorkload(Collections.stampedSet(new HashSet<>()));
+            case "ConcurrentHashSet" -> jdkSetWorkload(ConcurrentHashMap.newKeySet());
+            case "CopyOnWriteArrayList" -> listWorkload(new CopyOnWriteArrayList<>());
+            case "StampedArrayList" -> listWorkload(Collections.stampedList(new ArrayList<>()));
+            default -> jdkListWorkload(new java.util.concurrent.CopyOnWriteArrayList<>());
+        };
+
+        SplittableRandom random = new SplittableRandom(1);
+
+        for (int i = 0; i < N_KEYS; i++) {
+            workload.write(random.nextInt(N_KEYS));
+        }
+    }
+
+    @Disabled("Not for regular test cases")
+    @Test
+    void runBenchmarks() throws Exception {
+        java.util.TreeMap<String, StringBuilder> rows = new java.util.TreeMap<>();
+
+        for (int threads : THREAD_COUNTS) {
+            collect(rows, run(".testPlatformThreads", threads));
+        }
+
+        collect(rows, run(".testVirtualThreads", 1));
+
+        StringBuilder table = new StringBuilder(String.format("%-32s", "ops/us by threads"));
+
+        for (int threads : THREAD_COUNTS) {
+            table.append(String.format(" %10d", threads));
+        }
+
+        table.append(String.format(" %10s%n", "virtual"));
+        rows.forEach((row, scores) -> table.append(String.format("%-32s", row)).append(scores)
+                .append(System.lineSeparator()));
+
+        System.out.println(table);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object testPlatformThreads(Keys keys) {
+        return operate(keys.random.nextInt(100), keys.random.nextInt(N_KEYS));
+    }
+
+    /**
+     * Runs {@value #N_TASK_OPERATIONS} operations in each of
+     * {@value #N_VIRTUAL_TASKS} virtual threads. The score is per invocation,
+     * {@link #runBenchmarks()} converts it to operations.
+     *
+     * @return the number of operations with a non-null result
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long testVirtualThreads() {
+        LongAdder found = new LongAdder();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < N_VIRTUAL_TASKS; i++) {
+                executor.execute(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+
+                    for (int j = 0; j < N_TASK_OPERATIONS; j++) {
+                        if (operate(random.nextInt(100), random.nextInt(N_KEYS)) != null) {
+                            found.increment();
+                        }
+                    }
+                });
+            }
+        }
+
+        return found.sum();
+    }
+
+    private Object operate(int percent, int key) {
+        return percent < writePercent ? workload.write(key) : workload.read(key);
+    }
+
+    private Iterable<RunResult> run(String benchmark, int threads) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(this.getClass().getName() + benchmark)
+                .mode(Mode.Throughput)
+                .warmupTime(TimeValue.seconds(1))
+                .warmupIterations(6)
+                .threads(threads)
+                .measurementIterations(6)
+                .forks(1)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .build();
+
+        return new Runner(options).run();
+    }
+
+    private static void collect(java.util.TreeMap<String, StringBuilder> rows, Iterable<RunResult> results) {
+        for (RunResult result : results) {
+            String row = result.getParams().getParam("implementation") + " "
+                    + result.getParams().getParam("writePercent") + "% writes";
+            double score = result.getPrimaryResult().getScore();
+
+            if (result.getParams().getBenchmark().endsWith("testVirtualThreads")) {
+                score *= N_VIRTUAL_TASKS * N_TASK_OPERATIONS;
+            }
+
+            rows.computeIfAbsent(row, r -> new StringBuilder()).append(String.format(" %10.2f", score));
+        }
+    }
+
+    private static Workload mapWorkload(Map<Integer, Integer> map) {
+        return keyedWorkload(map::get, key -> map.put(key, key), map::remove);
+    }
+
+    private static Workload jdkMapWorkload(java.util.Map<Integer, Integer> map) {
+        return keyedWorkload(map::get, key -> map.put(key, key), map::remove);
+    }
+
+    private static Workload setWorkload(Set<Integer> set) {
+        return keyedWorkload(set::contains, set::add, set::remove);
+    }
+
+    private static Workload jdkSetWorkload(java.util.Set<Integer> set) {
+        return keyedWorkload(set::contains, set::add, set::remove);
+    }
+
+    private static Workload listWorkload(List<Integer> list) {
+        return indexedWorkload(list::add, list::get, index -> list.remove(index));
+    }
+
+    private static Workload jdkListWorkload(java.util.List<Integer> list) {
+        return indexedWorkload(list::add, list::get, index -> list.remove(index));
+    }
+
+    /**
+     * The workload of a map or set, given its operations: even keys are
+     * inserted and odd keys remove the even key below them.
+     *
+     * @param read   looks up a key
+     * @param insert inserts a key
+     * @param delete removes a key
+     * @return the workload
+     */
+    private static Workload keyedWorkload(IntFunction<Object> read, IntFunction<Object> insert,
+            IntFunction<Object> delete) {
+        return new Workload() {
+
+            @Override
+            public Object read(int key) {
+                return read.apply(key);
+            }
+
+            @Override
+            public Object write(int key) {
+                return key % 2 == 0 ? insert.apply(key) : delete.apply(key - 1);
+            }
+        };
+    }
+
+    /**
+     * The workload of a list, given its operations: the list is filled with
+     * {@value #N_LIST_ELEMENTS} elements, and every write appends an element
+     * and removes the first one.
+     *
+     * @param append   appends an element
+     * @param get      gets the element at an index
+     * @param removeAt removes the element at an index
+     * @return the workload
+     */
+    private static Workload indexedWorkload(IntConsumer append, IntFunction<Object> get,
+            IntFunction<Object> removeAt) {
+        for (int i = 0; i < N_LIST_ELEMENTS; i++) {
+            append.accept(i);
+        }
+
+        return new Workload() {
+
+            @Override
+            public Object read(int key) {
+                return get.apply(key % N_LIST_ELEMENTS);
+            }
+
+            @Override
+            public Object write(int key) {
+                append.accept(key);
+                return removeAt.apply(0);
+            }
+        };
+    }
+}
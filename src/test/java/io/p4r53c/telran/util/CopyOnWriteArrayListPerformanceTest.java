@@ -0,0 +1,114 @@
+package io.p4r53c.telran.util;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Compares a read-mostly workload, seven readers iterating and one writer
+ * adding and removing, on {@link CopyOnWriteArrayList} and on an
+ * {@link ArrayList} guarded by its monitor.
+ */
+@State(Scope.Group)
+public class CopyOnWriteArrayListPerformanceTest {
+
+    private static final int N_ELEMENTS = 100;
+    private static final int N_READERS = 7;
+    private static final int N_WRITERS = 1;
+
+    private CopyOnWriteArrayList<Integer> copyOnWriteList;
+    private ArrayList<Integer> synchronizedList;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        copyOnWriteList = new CopyOnWriteArrayList<>();
+        synchronizedList = new ArrayList<>();
+
+        for (int i = 0; i < N_ELEMENTS; i++) {
+            copyOnWriteList.add(i);
+            synchronizedList.add(i);
+        }
+    }
+
+    @Disabled("Not for regular test cases")
+    @Test
+    void runBenchmarks() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(this.getClass().getName() + ".*")
+                .mode(Mode.Throughput)
+                .warmupTime(TimeValue.seconds(1))
+                .warmupIterations(6)
+                .measurementIterations(6)
+                .forks(1)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Benchmark
+    @Group("copyOnWrite")
+    @GroupThreads(N_READERS)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int copyOnWriteRead() {
+        int sum = 0;
+
+        for (Integer value : copyOnWriteList) {
+            sum += value;
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    @Group("copyOnWrite")
+    @GroupThreads(N_WRITERS)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Integer copyOnWriteWrite() {
+        copyOnWriteList.add(N_ELEMENTS);
+        return copyOnWriteList.remove(copyOnWriteList.size() - 1);
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(N_READERS)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int synchronizedRead() {
+        int sum = 0;
+
+        synchronized (synchronizedList) {
+            for (Integer value : synchronizedList) {
+                sum += value;
+            }
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(N_WRITERS)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Integer synchronizedWrite() {
+        synchronized (synchronizedList) {
+            synchronizedList.add(N_ELEMENTS);
+            return synchronizedList.remove(synchronizedList.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package io.p4r53c.telran.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CopyOnWriteArrayListTest extends ListTest {
+
+    private static final int N_READS = 1_000;
+
+    private static final int WRITTEN_FROM = 1_000_000;
+
+    private Random random = new Random();
+
+    CopyOnWriteArrayList<Integer> list;
+
+    @Override
+    @BeforeEach
+    void setUp() {
+        collection = new CopyOnWriteArrayList<>();
+        super.setUp();
+        list = (CopyOnWriteArrayList<Integer>) collection;
+    }
+
+    /**
+     * Every {@code add} copies the whole array, so a big list is filled with a
+     * single {@code addAll}, as it would be in real code.
+     */
+    @Override
+    protected void fillBigCollection() {
+        ArrayList<Integer> source = new ArrayList<>(N_ELEMENTS);
+        IntStream.range(0, N_ELEMENTS).forEach(i -> source.add(random.nextInt()));
+        list.addAll(source);
+    }
+
+    @Test
+    void testSnapshotIterator() {
+        Iterator<Integer> iterator = list.iterator();
+        list.add(0, 1000);
+        list.remove(Integer.valueOf(100));
+
+        Integer[] actual = new Integer[array.length];
+        int index = 0;
+
+        while (iterator.hasNext()) {
+            actual[index++] = iterator.next();
+        }
+
+        assertArrayEquals(array, actual);
+        assertEquals(array.length, list.size());
+        assertEquals(1000, list.get(0));
+    }
+
+    @Test
+    void testSnapshotIteratorRemove() {
+        Iterator<Integer> iterator = list.iterator();
+        list.add(0, 1000);
+
+        while (iterator.hasNext()) {
+            if (iterator.next() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+
+        assertArrayEquals(new Integer[] { 1000, 3, 1, 17 }, list.stream().toArray(Integer[]::new));
+    }
+
+    /**
+     * The writer adds and removes values outside of the initial range, so
+     * every snapshot a reader takes must hold the initial elements in order,
+     * followed by at most one of the written values.
+     */
+    @Test
+    void testConcurrentReadWrite() throws InterruptedException {
+        AtomicBoolean failed = new AtomicBoolean();
+        Thread writer = new Thread(() -> IntStream.range(WRITTEN_FROM, WRITTEN_FROM + N_READS).forEach(i -> {
+            list.add(i);
+            list.remove(Integer.valueOf(i));
+        }));
+
+        writer.start();
+
+        for (int i = 0; i < N_READS; i++) {
+            try {
+                Object[] snapshot = list.stream().toArray();
+
+                if (!isConsistent(snapshot)) {
+                    failed.set(true);
+                }
+            } catch (RuntimeException e) {
+                failed.set(true);
+            }
+        }
+
+        writer.join();
+
+        assertTrue(!failed.get());
+        assertArrayEquals(array, list.stream().toArray());
+    }
+
+    private boolean isConsistent(Object[] snapshot) {
+        boolean result = (snapshot.length == array.length || snapshot.length == array.length + 1)
+                && Arrays.equals(array, 0, array.length, snapshot, 0, array.length);
+
+        if (result && snapshot.length > array.length) {
+            int written = (Integer) snapshot[array.length];
+            result = written >= WRITTEN_FROM && written < WRITTEN_FROM + N_READS;
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,78 @@
+package io.p4r53c.telran.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class CountMinSketchTest {
+
+    private static final int N_WORDS = 10_000;
+    private static final double EPSILON = 0.001;
+    private static final double CONFIDENCE = 0.99;
+
+    CountMinSketch<String> sketch;
+
+    @BeforeEach
+    void setUp() {
+        sketch = new CountMinSketch<>(EPSILON, CONFIDENCE);
+
+        // word i occurs i % 10 + 1 times
+        IntStream.range(0, N_WORDS).forEach(i -> sketch.add("word" + i, i % 10 + 1));
+    }
+
+    @Test
+    void testEstimateCount() {
+        long maxError = (long) (EPSILON * sketch.getTotal());
+
+        for (int i = 0; i < N_WORDS; i++) {
+            long estimate = sketch.estimateCount("word" + i);
+            assertTrue(estimate >= i % 10 + 1 && estimate <= i % 10 + 1 + maxError, "estimate: " + estimate);
+        }
+
+        assertEquals(55 * N_WORDS / 10, sketch.getTotal());
+    }
+
+    @Test
+    void testAdd() {
+        long before = sketch.estimateCount("word1");
+
+        assertTrue(sketch.add("word1"));
+        assertEquals(before + 1, sketch.estimateCount("word1"));
+        assertThrowsExactly(IllegalArgumentException.class, () -> sketch.add("word1", -1));
+    }
+
+    @Test
+    void testMerge() {
+        CountMinSketch<String> other = new CountMinSketch<>(EPSILON, CONFIDENCE);
+        other.add("word1", 100);
+        long before = sketch.estimateCount("word1");
+        sketch.merge(other);
+
+        assertEquals(before + 100, sketch.estimateCount("word1"));
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> sketch.merge(new CountMinSketch<>(0.1, CONFIDENCE)));
+    }
+
+    @Test
+    void testByteArray() {
+        CountMinSketch<String> restored = CountMinSketch.fromByteArray(sketch.toByteArray());
+
+        assertEquals(sketch.getTotal(), restored.getTotal());
+        assertTrue(IntStream.range(0, N_WORDS)
+                .allMatch(i -> sketch.estimateCount("word" + i) == restored.estimateCount("word" + i)));
+        assertThrowsExactly(IllegalArgumentException.class, () -> CountMinSketch.fromByteArray(new byte[7]));
+    }
+
+    @Test
+    void testIllegalArguments() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> new CountMinSketch<>(0, CONFIDENCE));
+        assertThrowsExactly(IllegalArgumentException.class, () -> new CountMinSketch<>(EPSILON, 1));
+        assertThrowsExactly(IllegalArgumentException.class, () -> new CountMinSketch<>(1e-9, CONFIDENCE));
+        assertThrowsExactly(IllegalArgumentException.class, () -> new CountMinSketch<>(Double.MIN_VALUE, CONFIDENCE));
+    }
+}
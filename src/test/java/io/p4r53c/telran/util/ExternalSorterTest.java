@@ -0,0 +1,250 @@
+package io.p4r53c.telran.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import java.util.function.IntFunction;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ExternalSorterTest {
+
+    private static final int N_ELEMENTS = 100_000;
+
+    private static final int RUN_SIZE = 10_000;
+
+    private Random random = new Random();
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("sorter");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.delete(directory);
+    }
+
+    @Test
+    void testSort() throws IOException {
+        int[] expected = random.ints(N_ELEMENTS, 0, N_ELEMENTS / 10).toArray();
+        Arrays.sort(expected);
+
+        try (ExternalSorter<Integer> sorter = new ExternalSorter<>(ElementCodec.INTEGER, Comparator.naturalOrder(),
+                RUN_SIZE, false, directory)) {
+            Arrays.stream(shuffle(expected)).forEach(element -> add(sorter, element));
+
+            assertEquals(N_ELEMENTS / RUN_SIZE, sorter.spilledRuns());
+            assertEquals(N_ELEMENTS / RUN_SIZE, fileCount());
+            assertArrayEquals(expected, toArray(sorter.iterator()));
+            assertArrayEquals(expected, toArray(sorter.iterator()));
+        }
+
+        assertEquals(0, fileCount());
+    }
+
+    @Test
+    void testDistinct() throws IOException {
+        try (ExternalSorter<String> sorter = new ExternalSorter<>(ElementCodec.STRING, Comparator.reverseOrder(),
+                RUN_SIZE, true, directory)) {
+            String[] elements = random.ints(N_ELEMENTS, 0, N_ELEMENTS / 4).mapToObj(i -> "s" + i)
+                    .toArray(String[]::new);
+            sorter.addAll(Arrays.stream(elements));
+            String[] expected = Arrays.stream(elements).distinct().sorted(Comparator.reverseOrder())
+                    .toArray(String[]::new);
+
+            assertArrayEquals(expected, toArray(sorter.iterator(), String[]::new));
+
+            TreeSet<String> set = sorter.toTreeSet();
+
+            assertEquals(expected.length, set.size());
+            assertEquals(expected[0], set.first());
+            assertEquals(expected[expected.length - 1], set.last());
+            assertTrue(set.height() <= 32 - Integer.numberOfLeadingZeros(set.size()));
+        }
+    }
+
+    @Test
+    void testSortedSetDropsDuplicates() throws IOException {
+        try (ExternalSorter<Long> sorter = new ExternalSorter<>(ElementCodec.LONG, Comparator.naturalOrder(), 3,
+                false)) {
+            sorter.addAll(Stream.of(5L, 1L, 5L, 3L, 1L, 9L, 3L, 7L));
+
+            assertEquals(2, sorter.spilledRuns());
+            assertArrayEquals(new Object[] { 1L, 1L, 3L, 3L, 5L, 5L, 7L, 9L }, toArray(sorter.iterator(), Long[]::new));
+            assertArrayEquals(new Object[] { 1L, 3L, 5L, 7L, 9L }, sorter.toSortedSet().stream().toArray());
+        }
+    }
+
+    @Test
+    void testSortedSetView() throws IOException {
+        try (ExternalSorter<Integer> sorter = new ExternalSorter<>(ElementCodec.INTEGER, Comparator.naturalOrder(),
+                RUN_SIZE, false, directory)) {
+            int[] elements = random.ints(N_ELEMENTS, 0, N_ELEMENTS).map(i -> i * 2).toArray();
+            sorter.addAll(Arrays.stream(elements).boxed());
+            int[] expected = Arrays.stream(elements).distinct().sorted().toArray();
+            int middle = expected[expected.length / 2];
+            SortedSet<Integer> set = sorter.toSortedSet();
+
+            assertEquals(expected.length, set.size());
+            assertFalse(set.isEmpty());
+            assertEquals(expected[0], set.first());
+            assertEquals(expected[expected.length - 1], set.last());
+            assertTrue(set.contains(middle));
+            assertFalse(set.contains(middle + 1));
+            assertEquals(middle, set.floor(middle + 1));
+            assertEquals(middle, set.ceiling(middle - 1));
+            assertNull(set.floor(expected[0] - 1));
+            assertNull(set.ceiling(expected[expected.length - 1] + 1));
+            assertEquals(0, sorter.openRuns());
+
+            SortedSet<Integer> subSet = set.subSet(middle, middle + 1000).subSet(middle - 1000, middle + 500);
+            int[] expectedSubSet = Arrays.stream(expected).filter(i -> i >= middle && i < middle + 500).toArray();
+
+            assertArrayEquals(expectedSubSet, subSet.stream().mapToInt(Integer::intValue).toArray());
+            assertEquals(expectedSubSet.length, subSet.size());
+            assertEquals(expectedSubSet[expectedSubSet.length - 1], subSet.last());
+            assertTrue(set.subSet(middle + 1, middle + 1).isEmpty());
+            assertNull(set.subSet(expected[expected.length - 1] + 1, Integer.MAX_VALUE).last());
+            assertEquals(0, sorter.openRuns());
+
+            sorter.add(-1);
+
+            assertEquals(expected.length + 1, set.size());
+            assertEquals(-1, set.first());
+            assertThrowsExactly(UnsupportedOperationException.class, () -> set.add(1));
+            assertThrowsExactly(UnsupportedOperationException.class, () -> set.remove(middle));
+            assertThrowsExactly(UnsupportedOperationException.class, set::clear);
+        }
+    }
+
+    @Test
+    void testEmptyAndClosed() throws IOException {
+        ExternalSorter<Integer> sorter = new ExternalSorter<>(ElementCodec.INTEGER, Comparator.naturalOrder(), 1, true,
+                directory);
+        Iterator<Integer> it = sorter.iterator();
+
+        assertFalse(it.hasNext());
+        assertThrowsExactly(NoSuchElementException.class, it::next);
+        assertEquals(0, sorter.toSortedSet().size());
+
+        sorter.add(1);
+        sorter.add(1);
+        it = sorter.iterator();
+
+        assertEquals(2, fileCount());
+        assertEquals(1, it.next());
+        assertFalse(it.hasNext());
+
+        sorter.close();
+        sorter.close();
+
+        assertEquals(0, fileCount());
+        assertThrowsExactly(IllegalStateException.class, () -> sorter.add(2));
+        assertThrowsExactly(IllegalStateException.class, sorter::iterator);
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> new ExternalSorter<>(ElementCodec.INTEGER, Comparator.<Integer>naturalOrder(), 0, false));
+    }
+
+    @Test
+    void testRunsAreClosed() throws IOException {
+        try (ExternalSorter<Integer> sorter = new ExternalSorter<>(ElementCodec.INTEGER, Comparator.naturalOrder(),
+                RUN_SIZE, false, directory)) {
+            sorter.addAll(random.ints(N_ELEMENTS).boxed());
+
+            for (int i = 0; i < 10; i++) {
+                assertEquals(N_ELEMENTS, toArray(sorter.iterator()).length);
+                assertEquals(0, sorter.openRuns());
+            }
+
+            sorter.toTreeSet();
+            assertEquals(0, sorter.openRuns());
+
+            sorter.iterator().next();
+            assertEquals(sorter.spilledRuns(), sorter.openRuns());
+        }
+    }
+
+    @Test
+    void testCorruptRun() throws IOException {
+        try (ExternalSorter<Integer> sorter = new ExternalSorter<>(ElementCodec.INTEGER, Comparator.naturalOrder(),
+                RUN_SIZE, false, directory)) {
+            sorter.addAll(random.ints(RUN_SIZE).boxed());
+
+            try (Stream<Path> files = Files.list(directory)) {
+                Path run = files.findFirst().orElseThrow();
+                // magic, kind and the two-byte size of the run, but no elements
+                Files.write(run, Arrays.copyOf(Files.readAllBytes(run), 7));
+            }
+
+            assertThrowsExactly(EOFException.class, sorter::iterator);
+        }
+
+        assertThrowsExactly(NullPointerException.class,
+                () -> new ExternalSorter<>(ElementCodec.INTEGER, null, RUN_SIZE, false, directory));
+    }
+
+    private long fileCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static void add(ExternalSorter<Integer> sorter, int element) {
+        try {
+            sorter.add(element);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int[] shuffle(int[] array) {
+        int[] result = array.clone();
+
+        for (int i = result.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = result[i];
+            result[i] = result[j];
+            result[j] = tmp;
+        }
+
+        return result;
+    }
+
+    private static int[] toArray(Iterator<Integer> it) {
+        IntArrayList result = new IntArrayList();
+        it.forEachRemaining(result::add);
+
+        return result.toIntArray();
+    }
+
+    private static <T> T[] toArray(Iterator<T> it, IntFunction<T[]> generator) {
+        ArrayList<T> result = new ArrayList<>();
+        it.forEachRemaining(result::add);
+
+        return result.stream().toArray(generator);
+    }
+}
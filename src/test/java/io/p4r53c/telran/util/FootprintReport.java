@@ -0,0 +1,129 @@
+package io.p4r53c.telran.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Properties;
+
+/**
+ * A table of per-element byte counts by collection and size, compared with
+ * a baseline: rows exceeding their baseline by more than the tolerance are
+ * flagged as regressions.
+ */
+final class FootprintReport {
+
+    private static final String HEADER_FORMAT = "%-16s %10s %12s %12s %8s  %s%n";
+    private static final String ROW_FORMAT = "%-16s %10d %12.1f %12s %8s  %s%n";
+
+    private final String title;
+    private final double tolerance;
+    private final Properties baseline;
+    private final Properties results = new Properties();
+    private final StringBuilder rows = new StringBuilder();
+    private int regressions;
+
+    /**
+     * Creates a report.
+     *
+     * @param title     the title of the table
+     * @param baseline  the baseline values keyed by {@code collection.size}
+     * @param tolerance the relative increase over the baseline tolerated, for
+     *                  example 0.05 for 5%
+     */
+    FootprintReport(String title, Properties baseline, double tolerance) {
+        this.title = title;
+        this.baseline = baseline;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Adds a row.
+     *
+     * @param collection      the name of the collection
+     * @param size            the number of elements
+     * @param bytesPerElement the measured bytes per element
+     */
+    void add(String collection, int size, double bytesPerElement) {
+        String key = collection + "." + size;
+        String expected = baseline.getProperty(key);
+        String change = "";
+        String flag = "no baseline";
+
+        if (expected != null) {
+            double base = Double.parseDouble(expected);
+            double ratio = base == 0 ? (bytesPerElement == 0 ? 0 : Double.POSITIVE_INFINITY)
+                    : bytesPerElement / base - 1;
+            change = String.format("%+.1f%%", ratio * 100);
+            flag = ratio > tolerance ? "REGRESSION" : "ok";
+
+            if (ratio > tolerance) {
+                regressions++;
+            }
+        }
+
+        results.setProperty(key, String.format("%.1f", bytesPerElement));
+        rows.append(String.format(ROW_FORMAT, collection, size, bytesPerElement,
+                expected == null ? "-" : expected, change, flag));
+    }
+
+    /**
+     * Returns the number of rows flagged as regressions.
+     *
+     * @return the number of regressions
+     */
+    int getRegressions() {
+        return regressions;
+    }
+
+    /**
+     * Returns the measured values, which can be stored as the baseline of a
+     * later run.
+     *
+     * @return the values keyed by {@code collection.size}
+     */
+    Properties getResults() {
+        return results;
+    }
+
+    /**
+     * Writes the measured values to the given file.
+     *
+     * @param file the file to be written
+     * @throws IOException if the file cannot be written
+     */
+    void store(Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            results.store(out, title);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return title + System.lineSeparator()
+                + String.format(HEADER_FORMAT, "collection", "size", "bytes/elem", "baseline", "change", "")
+                + rows;
+    }
+
+    /**
+     * Loads a baseline from the given stream.
+     *
+     * @param in the stream, or null for an empty baseline
+     * @return the baseline values
+     * @throws IOException if the stream cannot be read
+     */
+    static Properties loadBaseline(InputStream in) throws IOException {
+        Properties result = new Properties();
+
+        if (in != null) {
+            try (in) {
+                result.load(in);
+            }
+        }
+
+        return result;
+    }
+}
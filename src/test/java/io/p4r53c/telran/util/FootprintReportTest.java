@@ -0,0 +1,58 @@
+package io.p4r53c.telran.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Measures the retained bytes per element of the collections at several
+ * sizes, boxed elements included, with JOL's {@link GraphLayout}, and fails
+ * if any grew by more than 5% over {@code footprint-baseline.properties}. JOL
+ * reads the actual field layout of the running JVM, so the baseline holds
+ * for 64-bit JVMs with the default compressed references. After an intended
+ * change of a layout, the values of the failure message become the new
+ * baseline.
+ */
+class FootprintReportTest {
+
+    private static final double TOLERANCE = 0.05;
+
+    @Test
+    void testFootprintRegressions() throws IOException {
+        Properties baseline = FootprintReport.loadBaseline(
+                getClass().getResourceAsStream("footprint-baseline.properties"));
+        FootprintReport report = new FootprintReport("Retained bytes per element", baseline, TOLERANCE);
+
+        for (String collection : AllocationPerformanceTest.COLLECTIONS) {
+            for (int size : AllocationPerformanceTest.SIZES) {
+                Object filled = AllocationPerformanceTest.fill(collection, AllocationPerformanceTest.elements(size));
+                report.add(collection, size, (double) GraphLayout.parseInstance(filled).totalSize() / size);
+            }
+        }
+
+        assertEquals(baseline.keySet(), report.getResults().keySet(), report.toString());
+        assertEquals(0, report.getRegressions(), report.toString());
+    }
+
+    @Test
+    void testRegressionFlag() {
+        Properties baseline = new Properties();
+        baseline.setProperty("A.10", "10.0");
+        baseline.setProperty("B.10", "10.0");
+        FootprintReport report = new FootprintReport("test", baseline, TOLERANCE);
+
+        report.add("A", 10, 10.4);
+        report.add("B", 10, 10.6);
+        report.add("C", 10, 1.0);
+
+        assertEquals(1, report.getRegressions());
+        assertTrue(report.toString().contains("REGRESSION"));
+        assertEquals("10.6", report.getResults().getProperty("B.10"));
+    }
+}
@@ -1,18 +1,25 @@
 package io.p4r53c.telran.util;
 
 import java.util.Arrays;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 class HashSetTest extends SetTest {
 
     @Override
@@ -75,4 +82,201 @@ class HashSetTest extends SetTest {
             fail("Reflection failed: " + e.getMessage());
         }
     }
+
+    @Test
+    void testForEach() {
+        HashSet<Integer> set = new HashSet<>(4, 0.75f);
+        ArrayList<Integer> visited = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            set.add(i);
+        }
+
+        set.forEach(visited::add);
+
+        assertEquals(100, visited.size());
+        assertArrayEquals(set.stream().toArray(Integer[]::new), visited.stream().toArray(Integer[]::new));
+    }
+
+    @Test
+    void testShrinkAfterRemove() {
+        HashSet<Integer> set = new HashSet<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            set.add(i);
+        }
+
+        int peakLength = set.hashTable.length;
+        set.removeIf(n -> n >= 1_000);
+
+        assertTrue(set.hashTable.length < peakLength / 16);
+        assertTrue(set.size() < set.hashTable.length * set.loadFactor);
+
+        for (int i = 1_000; i > 5; i--) {
+            set.remove(i - 1);
+        }
+
+        assertEquals(5, set.size());
+        assertEquals(16, set.hashTable.length);
+
+        set.add(1);
+        set.remove(1);
+        set.add(1);
+
+        assertEquals(16, set.hashTable.length);
+        assertTrue(set.contains(4));
+    }
+
+    @Test
+    void testTrimToSizeAndEnsureCapacity() {
+        HashSet<Integer> set = new HashSet<>();
+
+        set.ensureCapacity(1_000);
+        int length = set.hashTable.length;
+
+        for (int i = 0; i < 1_000; i++) {
+            set.add(i);
+        }
+
+        assertEquals(length, set.hashTable.length);
+
+        set.clear();
+
+        assertEquals(16, set.hashTable.length);
+
+        set.add(1);
+        set.add(2);
+        set.trimToSize();
+
+        assertEquals(4, set.hashTable.length);
+        assertTrue(set.contains(1));
+        assertTrue(set.contains(2));
+    }
+
+    @Test
+    void testBloomFilter() {
+        HashSet<Integer> set = new HashSet<>();
+        set.enableBloomFilter(0.01);
+
+        for (int i = 0; i < 5_000; i++) {
+            set.add(2 * i);
+        }
+
+        assertTrue(IntStream.range(0, 5_000).allMatch(i -> set.contains(2 * i)));
+        assertTrue(IntStream.range(0, 5_000).noneMatch(i -> set.contains(2 * i + 1)));
+        assertTrue(absentProbes(set, IntStream.range(0, 5_000).map(i -> 2 * i)) < 250);
+
+        set.removeIf(n -> n >= 100);
+        set.add(10_001);
+
+        assertEquals(51, set.size());
+        assertEquals(10_001, set.get(10_001));
+        assertTrue(set.contains(98));
+        assertFalse(set.contains(100));
+
+        set.clear();
+        set.add(1);
+
+        assertTrue(set.contains(1));
+    }
+
+    /**
+     * Elements are added and removed at a steady size, so the table is never
+     * rehashed; the filter must still be rebuilt to forget removed elements.
+     */
+    @Test
+    void testBloomFilterUnderChurn() {
+        HashSet<Integer> set = new HashSet<>();
+        set.enableBloomFilter(0.01);
+        IntStream.range(0, 1_000).forEach(set::add);
+        int length = set.hashTable.length;
+
+        for (int i = 0; i < 100_000; i++) {
+            set.add(1_000_000 + i);
+            set.remove(1_000_000 + i);
+        }
+
+        assertEquals(length, set.hashTable.length);
+        assertEquals(1_000, set.size());
+        assertTrue(absentProbes(set, IntStream.range(0, 1_000)) < 100);
+    }
+
+    /**
+     * Looks up absent elements sharing their buckets with the given elements
+     * of the set, and returns the number of elements compared. A lookup
+     * rejected by the Bloom filter compares none, while one let through
+     * compares at least the element of the bucket.
+     */
+    private static long absentProbes(HashSet<Integer> set, IntStream elements) {
+        CollectionMetrics metrics = set.enableMetrics();
+        metrics.reset();
+        int offset = set.hashTable.length * 1024;
+
+        assertTrue(elements.noneMatch(element -> set.contains(element + offset)));
+
+        long result = metrics.getProbeCount();
+        set.disableMetrics();
+
+        return result;
+    }
+
+    @Test
+    void testMetrics() throws Exception {
+        HashSet<Integer> set = new HashSet<>();
+        CollectionMetrics metrics = set.enableMetrics();
+        IntStream.range(0, 100).forEach(set::add);
+
+        assertEquals(100, metrics.getLookupCount());
+        assertEquals(4, metrics.getResizeCount());
+        assertEquals(256, metrics.getCapacity());
+        assertEquals(-1, metrics.getHeight());
+        assertArrayEquals(new long[] { 156, 100, 0, 0, 0, 0, 0, 0, 0 }, metrics.getBucketLengthHistogram());
+
+        metrics.reset();
+        set.add(356);
+        set.contains(612);
+        set.contains(356);
+
+        assertEquals(3, metrics.getLookupCount());
+        assertEquals(2, metrics.getProbeCount());
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        metrics.registerMBean("hash-set-test");
+        ObjectName name = metrics.getObjectName();
+
+        assertEquals(3L, server.getAttribute(name, "LookupCount"));
+
+        set.disableMetrics();
+
+        assertFalse(server.isRegistered(name));
+        assertNull(set.getMetrics());
+    }
+
+    @Test
+    void testRegisteredMetricsDoNotRetainSet() throws Exception {
+        CollectionMetrics metrics = registeredMetrics("hash-set-weak-test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        for (int i = 0; i < 100 && metrics.getCapacity() != -1; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertEquals(-1, metrics.getCapacity());
+        assertEquals(0, metrics.getBucketLengthHistogram().length);
+        assertEquals(10L, server.getAttribute(metrics.getObjectName(), "LookupCount"));
+
+        metrics.unregisterMBean();
+
+        assertNull(metrics.getObjectName());
+    }
+
+    private static CollectionMetrics registeredMetrics(String name) {
+        HashSet<Integer> set = new HashSet<>();
+        CollectionMetrics metrics = set.enableMetrics();
+        IntStream.range(0, 10).forEach(set::add);
+        metrics.registerMBean(name);
+
+        return metrics;
+    }
 }
@@ -0,0 +1,74 @@
+package io.p4r53c.telran.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class HyperLogLogTest {
+
+    private static final int N_DISTINCT = 1_000_000;
+    private static final double MAX_ERROR = 0.03;
+
+    HyperLogLog<String> sketch;
+
+    @BeforeEach
+    void setUp() {
+        sketch = new HyperLogLog<>();
+    }
+
+    @Test
+    void testEstimate() {
+        IntStream.range(0, N_DISTINCT).forEach(i -> sketch.add("user" + i % (N_DISTINCT / 2)));
+        IntStream.range(0, N_DISTINCT).forEach(i -> sketch.add("user" + i));
+
+        assertWithinError(N_DISTINCT, sketch.estimate());
+    }
+
+    @Test
+    void testSmallCardinality() {
+        assertEquals(0, sketch.estimate());
+
+        IntStream.range(0, 100).forEach(i -> sketch.add("user" + i));
+
+        assertEquals(100, sketch.estimate());
+        assertFalse(sketch.add("user0"));
+    }
+
+    @Test
+    void testMerge() {
+        HyperLogLog<String> other = new HyperLogLog<>();
+
+        IntStream.range(0, N_DISTINCT / 2).forEach(i -> sketch.add("user" + i));
+        IntStream.range(N_DISTINCT / 4, N_DISTINCT).forEach(i -> other.add("user" + i));
+        sketch.merge(other);
+
+        assertWithinError(N_DISTINCT, sketch.estimate());
+        assertThrowsExactly(IllegalArgumentException.class, () -> sketch.merge(new HyperLogLog<>(10)));
+    }
+
+    @Test
+    void testByteArray() {
+        IntStream.range(0, N_DISTINCT / 10).forEach(i -> sketch.add("user" + i));
+        HyperLogLog<String> restored = HyperLogLog.fromByteArray(sketch.toByteArray());
+
+        assertEquals(sketch.estimate(), restored.estimate());
+        assertEquals(sketch.getPrecision(), restored.getPrecision());
+        assertThrowsExactly(IllegalArgumentException.class, () -> HyperLogLog.fromByteArray(new byte[3]));
+    }
+
+    @Test
+    void testIllegalPrecision() {
+        assertThrowsExactly(IllegalArgumentException.class, () -> new HyperLogLog<>(3));
+        assertThrowsExactly(IllegalArgumentException.class, () -> new HyperLogLog<>(19));
+    }
+
+    private void assertWithinError(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) < expected * MAX_ERROR, "estimate: " + actual);
+    }
+}
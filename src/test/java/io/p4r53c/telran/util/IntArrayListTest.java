@@ -0,0 +1,172 @@
+package io.p4r53c.telran.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class IntArrayListTest extends ListTest {
+
+    private static final int[] DIVISORS = { 2, 3, 7, 64, -1, -6, Integer.MIN_VALUE };
+
+    IntArrayList intList;
+
+    @Override
+    @BeforeEach
+    void setUp() {
+        collection = new IntArrayList(3);
+        super.setUp();
+        intList = (IntArrayList) collection;
+    }
+
+    @Test
+    void testPrimitiveMethods() {
+        assertTrue(intList.add(17));
+        intList.add(0, -5);
+
+        assertEquals(-5, intList.getInt(0));
+        assertEquals(1, intList.indexOf(3));
+        assertEquals(8, intList.indexOf(17));
+        assertEquals(9, intList.lastIndexOf(17));
+        assertTrue(intList.contains(100));
+        assertFalse(intList.contains(1000));
+        assertEquals(-5, intList.set(0, 5));
+        assertEquals(5, intList.removeInt(0));
+        assertEquals(-10, intList.min());
+        assertEquals(100, intList.max());
+        assertEquals(166, intList.sum());
+        assertArrayEquals(new int[] { 3, -10, 20, 1, 10, 8, 100, 17, 17 }, intList.toIntArray());
+
+        intList.clear();
+        assertEquals(0, intList.sum());
+        assertThrowsExactly(NoSuchElementException.class, intList::min);
+        assertThrowsExactly(ArithmeticException.class, () -> intList.removeMultiplesOf(0));
+    }
+
+    /**
+     * Compares the kernels with scalar loops on lengths which are not
+     * multiples of the vector length, so that the tails are covered too.
+     */
+    @Test
+    void testKernelsMatchScalarLoops() {
+        Random random = new Random(1);
+
+        for (int length : new int[] { 0, 1, 7, 15, 33, 1_000, 100_003 }) {
+            int[] array = random.ints(length, -1_000, 1_000).toArray();
+            int value = length == 0 ? 0 : array[random.nextInt(length)];
+
+            assertEquals(VectorKernels.scalarIndexOf(array, 0, length, value),
+                    VectorKernels.indexOf(array, length, value));
+            assertEquals(VectorKernels.scalarLastIndexOf(array, length, value),
+                    VectorKernels.lastIndexOf(array, length, value));
+            assertEquals(-1, VectorKernels.indexOf(array, length, 1_000));
+            assertEquals(VectorKernels.scalarSum(array, 0, length), VectorKernels.sum(array, length));
+            assertEquals(VectorKernels.scalarMin(array, 0, length, Integer.MAX_VALUE),
+                    VectorKernels.min(array, length));
+            assertEquals(VectorKernels.scalarMax(array, 0, length, Integer.MIN_VALUE),
+                    VectorKernels.max(array, length));
+
+            for (int divisor : DIVISORS) {
+                int[] expected = array.clone();
+                int[] actual = array.clone();
+                int expectedLength = VectorKernels.scalarRemoveMultiplesOf(expected, 0, 0, length, divisor);
+                int actualLength = VectorKernels.removeMultiplesOf(actual, length, divisor);
+
+                assertArrayEquals(Arrays.copyOf(expected, expectedLength), Arrays.copyOf(actual, actualLength));
+            }
+        }
+    }
+
+    @Test
+    void testSumDoesNotOverflow() {
+        IntArrayList max = new IntArrayList();
+        IntArrayList min = new IntArrayList();
+        IntStream.range(0, N_ELEMENTS).forEach(i -> {
+            max.add(Integer.MAX_VALUE);
+            min.add(Integer.MIN_VALUE);
+        });
+
+        assertEquals((long) N_ELEMENTS * Integer.MAX_VALUE, max.sum());
+        assertEquals((long) N_ELEMENTS * Integer.MIN_VALUE, min.sum());
+    }
+
+    @Test
+    void testRemoveMultiplesOf() {
+        IntArrayList list = new IntArrayList();
+        new Random().ints(N_ELEMENTS).forEach(list::add);
+
+        assertTrue(list.removeMultiplesOf(2));
+        assertTrue(list.stream().allMatch(n -> n % 2 != 0));
+        assertFalse(list.removeMultiplesOf(2));
+    }
+
+    @Test
+    void testSnapshots() throws IOException {
+        IntArrayList big = new IntArrayList();
+        new Random().ints(N_ELEMENTS).forEach(big::add);
+        Path file = Files.createTempFile("ints", ".snapshot");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            big.writeSnapshot(channel);
+            intList.writeSnapshot(channel);
+
+            assertEquals(big.snapshotBytes() + intList.snapshotBytes(), channel.size());
+
+            channel.position(0);
+            assertArrayEquals(big.toIntArray(), IntArrayList.readSnapshot(channel).toIntArray());
+
+            channel.position(0);
+            IntBuffer mapped = IntArrayList.mapSnapshot(channel);
+            IntBuffer mappedSmall = IntArrayList.mapSnapshot(channel);
+
+            assertEquals(N_ELEMENTS, mapped.remaining());
+            assertEquals(big.getInt(N_ELEMENTS - 1), mapped.get(N_ELEMENTS - 1));
+            assertArrayEquals(intList.toIntArray(), IntStream.range(0, mappedSmall.remaining())
+                    .map(mappedSmall::get).toArray());
+            assertThrowsExactly(EOFException.class, () -> IntArrayList.mapSnapshot(channel));
+
+            channel.truncate(big.snapshotBytes() - 1);
+            channel.position(0);
+            assertThrowsExactly(EOFException.class, () -> IntArrayList.mapSnapshot(channel));
+        } finally {
+            Files.delete(file);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) intList.snapshotBytes() + 1);
+        intList.writeSnapshot(buffer);
+
+        assertEquals(1, buffer.remaining());
+        assertEquals(ByteOrder.BIG_ENDIAN, buffer.order());
+        assertThrowsExactly(BufferOverflowException.class, () -> intList.writeSnapshot(buffer));
+
+        buffer.flip();
+        assertArrayEquals(intList.toIntArray(), IntArrayList.readSnapshot(buffer).toIntArray());
+        assertEquals(0, buffer.remaining());
+
+        buffer.rewind();
+        assertThrowsExactly(StreamCorruptedException.class, () -> LongArrayList.readSnapshot(buffer));
+    }
+}
@@ -0,0 +1,137 @@
+package io.p4r53c.telran.util;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.util.Statistics;
+
+/**
+ * Measures the latency distribution of single operations in
+ * {@link Mode#SampleTime}, where the average hides the rare expensive ones: a
+ * {@link HashSet} rehash or an insert into a degenerate {@link TreeSet}. After
+ * the run p50, p99, p99.9 and the maximum of every benchmark are printed as a
+ * table.
+ * <p>
+ * {@code testChurn} keeps the set at a steady size by adding a new key and
+ * removing the oldest one, {@code testGrowth} fills a new set from empty over
+ * and over, so every resize is sampled. Keys are either ascending or a
+ * scrambled sequence, both without repetitions.
+ */
+@State(Scope.Thread)
+public class LatencyPerformanceTest {
+
+    private static final int N_ELEMENTS = 1 << 14;
+
+    /**
+     * An odd multiplier, which maps ascending numbers to distinct scrambled
+     * ones.
+     */
+    private static final int SCRAMBLER = 0x9E3779B9;
+
+    private static final double[] PERCENTILES = { 50, 99, 99.9 };
+
+    @Param({ "HashSet", "LinkedHashSet", "TreeSet", "TreeSetStandard" })
+    String implementation;
+
+    @Param({ "random", "sorted" })
+    String keys;
+
+    private Set<Integer> churnSet;
+    private Set<Integer> growthSet;
+    private int nextChurnKey;
+    private int nextGrowthKey;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        churnSet = newSet();
+
+        for (nextChurnKey = 0; nextChurnKey < N_ELEMENTS; nextChurnKey++) {
+            churnSet.add(key(nextChurnKey));
+        }
+
+        growthSet = newSet();
+        nextGrowthKey = 0;
+    }
+
+    @Disabled("Not for regular test cases")
+    @Test
+    void runBenchmarks() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(this.getClass().getName() + ".*")
+                .mode(Mode.SampleTime)
+                .warmupTime(TimeValue.seconds(1))
+                .warmupIterations(6)
+                .threads(1)
+                .measurementIterations(6)
+                .forks(1)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .build();
+
+        StringBuilder table = new StringBuilder(String.format("%-45s %12s %12s %12s %12s%n",
+                "benchmark", "p50, us", "p99, us", "p99.9, us", "max, us"));
+
+        for (RunResult result : new Runner(options).run()) {
+            String benchmark = result.getParams().getBenchmark();
+            Statistics statistics = result.getPrimaryResult().getStatistics();
+
+            table.append(String.format("%-45s", benchmark.substring(benchmark.lastIndexOf('.') + 1)
+                    + " " + result.getParams().getParam("implementation")
+                    + " " + result.getParams().getParam("keys")));
+
+            for (double percentile : PERCENTILES) {
+                table.append(String.format(" %12.2f", statistics.getPercentile(percentile)));
+            }
+
+            table.append(String.format(" %12.2f%n", statistics.getMax()));
+        }
+
+        System.out.println(table);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean testChurn() {
+        churnSet.add(key(nextChurnKey));
+        return churnSet.remove(key(nextChurnKey++ - N_ELEMENTS));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean testGrowth() {
+        if (nextGrowthKey == N_ELEMENTS) {
+            growthSet = newSet();
+            nextGrowthKey = 0;
+        }
+
+        return growthSet.add(key(nextGrowthKey++));
+    }
+
+    private Integer key(int index) {
+        return keys.equals("sorted") ? index : index * SCRAMBLER;
+    }
+
+    private Set<Integer> newSet() {
+        return switch (implementation) {
+            case "HashSet" -> new HashSet<>();
+            case "LinkedHashSet" -> new LinkedHashSet<>();
+            case "TreeSet" -> new TreeSet<>();
+            default -> new TreeSetStandard<>();
+        };
+    }
+}
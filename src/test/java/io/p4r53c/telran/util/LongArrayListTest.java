@@ -0,0 +1,191 @@
+package io.p4r53c.telran.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LongArrayListTest {
+
+    private static final long[] DIVISORS = { 2, 3, 7, 64, -1, -6, Long.MIN_VALUE };
+
+    private long[] array = { 3, -10, 20, 1, 10, 8, 100, 17 };
+
+    private LongArrayList list;
+
+    @BeforeEach
+    void setUp() {
+        list = new LongArrayList(3);
+        Arrays.stream(array).forEach(list::add);
+    }
+
+    @Test
+    void testListMethods() {
+        list.add(8, 17L);
+        list.add(0, -5L);
+
+        assertEquals(10, list.size());
+        assertEquals(-5, list.getLong(0));
+        assertEquals(3L, list.get(1));
+        assertEquals(8, list.indexOf(17));
+        assertEquals(9, list.lastIndexOf(17L));
+        assertEquals(-1, list.indexOf(1000));
+        assertTrue(list.contains(100));
+        assertTrue(list.remove(Long.valueOf(20)));
+        assertEquals(-5, list.removeLong(0));
+        assertEquals(3, list.set(0, 4));
+        assertThrowsExactly(IndexOutOfBoundsException.class, () -> list.get(8));
+
+        Iterator<Long> iterator = list.iterator();
+        iterator.next();
+        iterator.remove();
+
+        assertArrayEquals(new long[] { -10, 1, 10, 8, 100, 17, 17 }, list.toLongArray());
+        assertTrue(list.removeIf(n -> n > 10));
+        assertArrayEquals(new long[] { -10, 1, 10, 8 }, list.toLongArray());
+    }
+
+    @Test
+    void testAggregates() {
+        assertEquals(149, list.sum());
+        assertEquals(-10, list.min());
+        assertEquals(100, list.max());
+
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertEquals(0, list.sum());
+        assertThrowsExactly(NoSuchElementException.class, list::max);
+        assertThrowsExactly(ArithmeticException.class, () -> list.removeMultiplesOf(0));
+    }
+
+    /**
+     * Compares the kernels with scalar loops on lengths which are not
+     * multiples of the vector length, so that the tails are covered too.
+     */
+    @Test
+    void testKernelsMatchScalarLoops() {
+        Random random = new Random(1);
+
+        for (int length : new int[] { 0, 1, 3, 15, 33, 1_000, 100_003 }) {
+            long[] values = random.longs(length, -1_000, 1_000).toArray();
+            long value = length == 0 ? 0 : values[random.nextInt(length)];
+
+            assertEquals(VectorKernels.scalarIndexOf(values, 0, length, value),
+                    VectorKernels.indexOf(values, length, value));
+            assertEquals(VectorKernels.scalarLastIndexOf(values, length, value),
+                    VectorKernels.lastIndexOf(values, length, value));
+            assertEquals(VectorKernels.scalarSum(values, 0, length), VectorKernels.sum(values, length));
+            assertEquals(VectorKernels.scalarMin(values, 0, length, Long.MAX_VALUE),
+                    VectorKernels.min(values, length));
+            assertEquals(VectorKernels.scalarMax(values, 0, length, Long.MIN_VALUE),
+                    VectorKernels.max(values, length));
+
+            for (long divisor : DIVISORS) {
+                long[] expected = values.clone();
+                long[] actual = values.clone();
+                int expectedLength = VectorKernels.scalarRemoveMultiplesOf(expected, 0, 0, length, divisor);
+                int actualLength = VectorKernels.removeMultiplesOf(actual, length, divisor);
+
+                assertArrayEquals(Arrays.copyOf(expected, expectedLength), Arrays.copyOf(actual, actualLength));
+            }
+        }
+    }
+
+    @Test
+    void testRemoveMultiplesOf() {
+        LongArrayList big = new LongArrayList();
+        new Random().longs(1_000_000).forEach(big::add);
+
+        assertTrue(big.removeMultiplesOf(2));
+        assertTrue(big.stream().allMatch(n -> n % 2 != 0));
+        assertFalse(big.removeMultiplesOf(2));
+    }
+
+    @Test
+    void testSnapshots() throws IOException {
+        LongArrayList big = new LongArrayList();
+        new Random().longs(1_000_000).forEach(big::add);
+        Path file = Files.createTempFile("longs", ".snapshot");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            list.writeSnapshot(channel);
+            big.writeSnapshot(channel);
+
+            channel.position(0);
+            LongBuffer mappedSmall = LongArrayList.mapSnapshot(channel);
+            LongBuffer mapped = LongArrayList.mapSnapshot(channel);
+
+            assertEquals(list.size(), mappedSmall.remaining());
+            assertEquals(list.getLong(7), mappedSmall.get(7));
+            assertEquals(big.getLong(999_999), mapped.get(999_999));
+
+            channel.position(list.snapshotBytes());
+            assertArrayEquals(big.toLongArray(), LongArrayList.readSnapshot(channel).toLongArray());
+            assertThrowsExactly(EOFException.class, () -> LongArrayList.readSnapshot(channel));
+        } finally {
+            Files.delete(file);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) list.snapshotBytes());
+        list.writeSnapshot(buffer);
+        buffer.flip();
+
+        assertArrayEquals(list.toLongArray(), LongArrayList.readSnapshot(buffer).toLongArray());
+
+        buffer.rewind();
+        assertThrowsExactly(StreamCorruptedException.class, () -> IntArrayList.readSnapshot(buffer));
+
+        ByteBuffer empty = ByteBuffer.allocate(Snapshots.HEADER_BYTES);
+        new LongArrayList().writeSnapshot(empty);
+        empty.flip();
+
+        assertEquals(0, LongArrayList.readSnapshot(empty).size());
+    }
+
+    /**
+     * A snapshot beyond a single mapping is rejected before mapping, and a
+     * huge size in a header is not allocated before the elements arrive. The
+     * file is sparse, so only its header is written.
+     */
+    @Test
+    void testHugeSnapshots() throws IOException {
+        int size = Integer.MAX_VALUE / Long.BYTES + 1;
+        ByteBuffer header = ByteBuffer.allocate(Snapshots.HEADER_BYTES).order(Snapshots.ORDER);
+        header.putInt(Snapshots.MAGIC).putInt(CollectionCodec.KIND_LONGS).putLong(size).flip();
+        Path file = Files.createTempFile("huge", ".snapshot");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(header);
+            channel.write(ByteBuffer.allocate(1), Snapshots.bytes(size, Long.BYTES) - 1);
+
+            channel.position(0);
+            assertThrowsExactly(IllegalArgumentException.class, () -> LongArrayList.mapSnapshot(channel));
+
+            channel.truncate(Snapshots.HEADER_BYTES + Long.BYTES);
+            channel.position(0);
+            assertThrowsExactly(EOFException.class, () -> LongArrayList.readSnapshot(channel));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.p4r53c.telran.util;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Reports the heap reclaimed when a big {@link HashSet} or {@link ArrayList}
+ * is drained down to a few elements: the set shrinks its table automatically,
+ * the list is trimmed with {@link ArrayList#trimToSize()}. The reclaimed bytes
+ * are measured as the used heap after a full GC before and after draining and
+ * are reported as the {@code reclaimedBytes} secondary result.
+ */
+@State(Scope.Thread)
+public class MemoryReclaimPerformanceTest {
+
+    private static final int N_REMAINING = 1_000;
+
+    @Param({ "1000000", "5000000" })
+    int nElements;
+
+    private HashSet<Integer> set;
+    private ArrayList<Integer> list;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Reclaimed {
+        public long reclaimedBytes;
+    }
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        set = new HashSet<>();
+        list = new ArrayList<>();
+
+        for (int i = 0; i < nElements; i++) {
+            set.add(i);
+            list.add(i);
+        }
+    }
+
+    @Disabled("Not for regular test cases")
+    @Test
+    void runBenchmarks() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(this.getClass().getName() + ".*")
+                .mode(Mode.SingleShotTime)
+                .warmupIterations(2)
+                .threads(1)
+                .measurementIterations(6)
+                .forks(1)
+                .shouldFailOnError(true)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int testHashSetShrink(Reclaimed reclaimed) {
+        long before = usedMemory();
+        set.removeIf(n -> n >= N_REMAINING);
+        reclaimed.reclaimedBytes += before - usedMemory();
+
+        return set.size();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int testArrayListTrimToSize(Reclaimed reclaimed) {
+        long before = usedMemory();
+        list.removeIf(n -> n >= N_REMAINING);
+        list.trimToSize();
+        reclaimed.reclaimedBytes += before - usedMemory();
+
+        return list.size();
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,68 @@
+package io.p4r53c.telran.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+
+public class PersistentTreeMapTest extends AbstractMapTest {
+
+    PersistentTreeMap<Integer, Integer> persistentMap;
+
+    @Override
+    @BeforeEach
+    void setUp() {
+        map = new PersistentTreeMap<>();
+        super.setUp();
+        persistentMap = (PersistentTreeMap<Integer, Integer>) map;
+    }
+
+    @Test
+    void testSnapshotAfterPut() {
+        PersistentTreeMap<Integer, Integer> snapshot = persistentMap.snapshot();
+
+        assertEquals(49, persistentMap.put(7, 0));
+        assertEquals(1, persistentMap.remove(-1));
+
+        assertEquals(49, snapshot.get(7));
+        assertEquals(1, snapshot.get(-1));
+        assertEquals(0, persistentMap.get(7));
+        assertNull(persistentMap.get(-1));
+    }
+
+    @Test
+    void testWithWithout() {
+        PersistentTreeMap<Integer, Integer> withMap = persistentMap.with(4, 0);
+        PersistentTreeMap<Integer, Integer> withoutMap = persistentMap.without(4);
+
+        assertEquals(0, withMap.get(4));
+        assertEquals(16, persistentMap.get(4));
+        assertFalse(withoutMap.containsKey(4));
+        assertEquals(keySet.length - 1, withoutMap.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected <T> void runTest(T[] expected, T[] actual) {
+        Arrays.sort(expected, (o1, o2) -> ((Comparable<T>) o1).compareTo(o2));
+
+        for (T i : expected) {
+            assertEquals(i, actual[Arrays.asList(expected).indexOf(i)]);
+        }
+    }
+
+    @Override
+    protected <T> T[] fromCollection(Collection<T> collection, T[] array) {
+        int i = 0;
+
+        for (T o : collection) {
+            array[i++] = o;
+        }
+
+        return array;
+    }
+}
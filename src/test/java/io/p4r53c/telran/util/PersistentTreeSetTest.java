@@ -0,0 +1,79 @@
+package io.p4r53c.telran.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Iterator;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PersistentTreeSetTest extends SortedSetTest {
+
+    PersistentTreeSet<Integer> persistentSet;
+
+    @Override
+    @BeforeEach
+    void setUp() {
+        collection = new PersistentTreeSet<>();
+        super.setUp();
+        persistentSet = (PersistentTreeSet<Integer>) collection;
+    }
+
+    @Test
+    void testWithWithout() {
+        PersistentTreeSet<Integer> withSet = persistentSet.with(5);
+        PersistentTreeSet<Integer> withoutSet = persistentSet.without(3);
+
+        assertTrue(withSet.contains(5));
+        assertFalse(persistentSet.contains(5));
+        assertEquals(array.length + 1, withSet.size());
+
+        assertFalse(withoutSet.contains(3));
+        assertTrue(persistentSet.contains(3));
+        assertEquals(array.length - 1, withoutSet.size());
+    }
+
+    @Test
+    void testSnapshot() {
+        PersistentTreeSet<Integer> snapshot = persistentSet.snapshot();
+        Integer[] expected = snapshot.stream().toArray(Integer[]::new);
+
+        persistentSet.add(1000);
+        persistentSet.remove(-10);
+        persistentSet.removeIf(n -> n > 10);
+
+        assertArrayEquals(expected, snapshot.stream().toArray(Integer[]::new));
+        assertArrayEquals(new Integer[] { 1, 3, 8, 10 }, persistentSet.stream().toArray(Integer[]::new));
+    }
+
+    @Test
+    void testIteratorOverVersion() {
+        Iterator<Integer> iterator = persistentSet.iterator();
+        persistentSet.clear();
+
+        int count = 0;
+
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+
+        assertEquals(array.length, count);
+        assertTrue(persistentSet.isEmpty());
+    }
+
+    @Test
+    void testSortedAdd() {
+        PersistentTreeSet<Integer> localSet = new PersistentTreeSet<>();
+        IntStream.range(0, 100_000).boxed().forEach(localSet::add);
+
+        assertEquals(100_000, localSet.size());
+        assertEquals(0, localSet.first());
+        assertEquals(99_999, localSet.last());
+        assertEquals(1_000, localSet.subSet(5_000, 6_000).size());
+    }
+}
@@ -0,0 +1,67 @@
+package io.p4r53c.telran.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PersistentVectorTest extends ListTest {
+
+    private static final int N_VERSIONS = 40_000;
+
+    PersistentVector<Integer> vector;
+
+    @Override
+    @BeforeEach
+    void setUp() {
+        collection = new PersistentVector<>();
+        super.setUp();
+        vector = (PersistentVector<Integer>) collection;
+    }
+
+    /**
+     * Tests appending, replacing and removing the last element across several
+     * levels of the trie, checking that older versions are not changed.
+     */
+    @Test
+    void testVersions() {
+        PersistentVector<Integer> current = new PersistentVector<>();
+
+        for (int i = 0; i < N_VERSIONS; i++) {
+            current = current.with(i);
+        }
+
+        PersistentVector<Integer> replaced = current.with(1_000, -1);
+        PersistentVector<Integer> shortened = current;
+
+        for (int i = 0; i < N_VERSIONS - 10; i++) {
+            shortened = shortened.withoutLast();
+        }
+
+        assertEquals(N_VERSIONS, current.size());
+        assertEquals(1_000, current.get(1_000));
+        assertEquals(-1, replaced.get(1_000));
+        assertEquals(N_VERSIONS - 1, replaced.get(N_VERSIONS - 1));
+        assertEquals(10, shortened.size());
+        assertEquals(9, shortened.get(9));
+        assertEquals(N_VERSIONS - 1, current.lastIndexOf(N_VERSIONS - 1));
+
+        for (int i = 0; i < N_VERSIONS; i++) {
+            assertEquals(i, current.get(i));
+        }
+    }
+
+    @Test
+    void testSnapshot() {
+        PersistentVector<Integer> snapshot = vector.snapshot();
+        vector.add(0, 1000);
+        vector.remove(vector.size() - 1);
+
+        assertEquals(array.length, snapshot.size());
+        assertEquals(3, snapshot.get(0));
+        assertEquals(1000, vector.get(0));
+        assertEquals(100, vector.get(vector.size() - 1));
+        assertThrowsExactly(IndexOutOfBoundsException.class, () -> snapshot.with(array.length, 0));
+    }
+}
@@ -0,0 +1,119 @@
+package io.p4r53c.telran.util;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Compares intersections and lookups of dense id sets held in
+ * {@link RoaringBitmap} and {@link TreeSet}.
+ */
+@State(Scope.Thread)
+public class RoaringBitmapPerformanceTest {
+
+    private static final int N_IDS = 4_000_000;
+    private static final int N_KEYS = 1 << 16;
+
+    @Param({ "2", "16" })
+    int step;
+
+    private Random random = new Random();
+    private RoaringBitmap bitmap1;
+    private RoaringBitmap bitmap2;
+    private TreeSet<Integer> treeSet1;
+    private TreeSet<Integer> treeSet2;
+    private int[] keys = new int[N_KEYS];
+    private int keyIndex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        bitmap1 = new RoaringBitmap();
+        bitmap2 = new RoaringBitmap();
+        treeSet1 = new TreeSet<>();
+        treeSet2 = new TreeSet<>();
+
+        for (int id = 0; id < N_IDS; id += step) {
+            bitmap1.add(id);
+            treeSet1.add(id);
+        }
+
+        for (int id = N_IDS / 2; id < N_IDS * 3 / 2; id += 3) {
+            bitmap2.add(id);
+            treeSet2.add(id);
+        }
+
+        for (int i = 0; i < N_KEYS; i++) {
+            keys[i] = random.nextInt(N_IDS);
+        }
+    }
+
+    @Disabled("Not for regular test cases")
+    @Test
+    void runBenchmarks() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(this.getClass().getName() + ".*")
+                .mode(Mode.AverageTime)
+                .warmupTime(TimeValue.seconds(1))
+                .warmupIterations(6)
+                .threads(1)
+                .measurementIterations(6)
+                .forks(1)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int testRoaringBitmapAnd() {
+        return bitmap1.and(bitmap2).size();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int testTreeSetIntersection() {
+        TreeSet<Integer> result = new TreeSet<>();
+        treeSet1.forEach(id -> {
+            if (treeSet2.contains(id)) {
+                result.add(id);
+            }
+        });
+
+        return result.size();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean testRoaringBitmapContains() {
+        return bitmap1.contains(nextKey());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean testTreeSetContains() {
+        return treeSet1.contains(nextKey());
+    }
+
+    private int nextKey() {
+        keyIndex = (keyIndex + 1) & (N_KEYS - 1);
+        return keys[keyIndex];
+    }
+}
@@ -0,0 +1,169 @@
+package io.p4r53c.telran.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RoaringBitmapTest extends SortedSetTest {
+
+    private static final int N_DENSE = 1_000_000;
+
+    @Override
+    @BeforeEach
+    void setUp() {
+        collection = new RoaringBitmap();
+        super.setUp();
+    }
+
+    /**
+     * Tests array, bitmap and run containers against {@link java.util.TreeSet}
+     * on values around the sign boundary and the boundaries of chunks.
+     */
+    @Test
+    void testRandomAddRemove() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        java.util.TreeSet<Integer> expected = new java.util.TreeSet<>();
+        Random random = new Random(1);
+
+        for (int i = 0; i < 200_000; i++) {
+            Integer obj = random.nextInt(300_000) - 150_000;
+
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(obj), bitmap.remove(obj));
+            } else {
+                assertEquals(expected.add(obj), bitmap.add(obj));
+            }
+
+            assertEquals(expected.floor(obj), bitmap.floor(obj));
+            assertEquals(expected.ceiling(obj), bitmap.ceiling(obj));
+        }
+
+        assertEqualSets(expected, bitmap);
+
+        for (int obj = -100_000; obj < 100_000; obj++) {
+            expected.add(obj);
+            bitmap.add(obj);
+        }
+
+        assertTrue(bitmap.runOptimize());
+        assertEqualSets(expected, bitmap);
+
+        bitmap.removeIf(n -> n % 3 == 0);
+        expected.removeIf(n -> n % 3 == 0);
+        assertEqualSets(expected, bitmap);
+    }
+
+    private void assertEqualSets(java.util.TreeSet<Integer> expected, RoaringBitmap bitmap) {
+        assertEquals(expected.size(), bitmap.size());
+        assertEquals(expected.first(), bitmap.first());
+        assertEquals(expected.last(), bitmap.last());
+        assertArrayEquals(expected.toArray(), bitmap.stream().toArray());
+        assertArrayEquals(expected.subSet(-70_000, 70_000).toArray(),
+                bitmap.subSet(-70_000, 70_000).stream().toArray());
+        assertArrayEquals(expected.subSet(65_536, 131_072).toArray(),
+                bitmap.subSet(65_536, 131_072).stream().toArray());
+
+        for (int obj = -160_000; obj < 160_000; obj += 7) {
+            assertEquals(expected.contains(obj), bitmap.contains(obj));
+            assertEquals(expected.floor(obj), bitmap.floor(obj));
+            assertEquals(expected.ceiling(obj), bitmap.ceiling(obj));
+        }
+    }
+
+    @Test
+    void testExtremeValues() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        bitmap.add(Integer.MAX_VALUE);
+        bitmap.add(Integer.MIN_VALUE);
+        bitmap.add(-1);
+        bitmap.add(0);
+
+        assertArrayEquals(new Integer[] { Integer.MIN_VALUE, -1, 0, Integer.MAX_VALUE },
+                bitmap.stream().toArray(Integer[]::new));
+        assertEquals(Integer.MIN_VALUE, bitmap.first());
+        assertEquals(Integer.MAX_VALUE, bitmap.last());
+        assertEquals(-1, bitmap.floor(-1));
+        assertEquals(0, bitmap.ceiling(-1 + 1));
+        assertArrayEquals(new Integer[] { Integer.MIN_VALUE, -1 },
+                bitmap.subSet(Integer.MIN_VALUE, 0).stream().toArray(Integer[]::new));
+    }
+
+    @Test
+    void testSetAlgebra() {
+        RoaringBitmap evens = new RoaringBitmap();
+        RoaringBitmap range = new RoaringBitmap();
+        RoaringBitmap sparse = new RoaringBitmap();
+
+        for (int i = 0; i < N_DENSE; i += 2) {
+            evens.add(i);
+        }
+
+        for (int i = N_DENSE / 2; i < N_DENSE * 3 / 2; i++) {
+            range.add(i);
+        }
+
+        for (int i = 0; i < N_DENSE; i += 1_000) {
+            sparse.add(i + 1);
+        }
+
+        range.runOptimize();
+
+        assertEquals(N_DENSE / 4, evens.and(range).size());
+        assertEquals(N_DENSE / 2 + N_DENSE * 3 / 4, evens.or(range).size());
+        assertEquals(N_DENSE / 4, evens.andNot(range).size());
+        assertEquals(N_DENSE * 3 / 4, range.andNot(evens).size());
+        assertTrue(evens.and(sparse).isEmpty());
+        assertEquals(sparse.size() / 2, range.and(sparse).size());
+        assertEquals(N_DENSE / 2 + sparse.size(), evens.or(sparse).size());
+
+        RoaringBitmap intersection = evens.and(range);
+        assertEquals(N_DENSE / 2, intersection.first());
+        assertEquals(N_DENSE - 2, intersection.last());
+        assertEquals(N_DENSE / 2 + 2, intersection.ceiling(N_DENSE / 2 + 1));
+        assertFalse(intersection.contains(N_DENSE / 2 + 1));
+        assertEquals(N_DENSE / 2, evens.size());
+    }
+
+    @Test
+    void testSizeInBytes() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+
+        for (int i = 0; i < N_DENSE; i++) {
+            bitmap.add(i);
+        }
+
+        assertTrue(bitmap.getSizeInBytes() * Byte.SIZE < 2L * N_DENSE);
+        assertTrue(bitmap.runOptimize());
+        assertTrue(bitmap.getSizeInBytes() < 1_000);
+        assertTrue(bitmap.add(-1));
+        assertEquals(N_DENSE + 1, bitmap.size());
+    }
+
+    @Test
+    void testIteratorRemoveAcrossContainers() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+
+        for (int i = 0; i < 10; i++) {
+            bitmap.add(i << 16);
+        }
+
+        Iterator<Integer> iterator = bitmap.iterator();
+        int count = 0;
+
+        while (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            count++;
+        }
+
+        assertEquals(10, count);
+        assertTrue(bitmap.isEmpty());
+    }
+}
@@ -0,0 +1,107 @@
+package io.p4r53c.telran.util;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Compares point lookups and range scans of {@link TreeSet},
+ * {@link TreeSetStandard} and {@link BTreeSet}.
+ */
+@State(Scope.Thread)
+public class SortedSetsPerformanceTest {
+
+    private static final int N_ELEMENTS = 1_000_000;
+    private static final int N_KEYS = 1 << 16;
+    private static final int RANGE_SPAN = (int) (1_000 * ((1L << 32) / N_ELEMENTS));
+
+    @Param({ "TreeSet", "TreeSetStandard", "BTreeSet" })
+    String implementation;
+
+    private Random random = new Random();
+    private SortedSet<Integer> sortedSet;
+    private int[] keys = new int[N_KEYS];
+    private int keyIndex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sortedSet = switch (implementation) {
+            case "TreeSet" -> new TreeSet<>();
+            case "TreeSetStandard" -> new TreeSetStandard<>();
+            default -> new BTreeSet<>();
+        };
+
+        for (int i = 0; i < N_ELEMENTS; i++) {
+            sortedSet.add(random.nextInt());
+        }
+
+        for (int i = 0; i < N_KEYS; i++) {
+            keys[i] = random.nextInt();
+        }
+    }
+
+    @Disabled("Not for regular test cases")
+    @Test
+    void runBenchmarks() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(this.getClass().getName() + ".*")
+                .mode(Mode.AverageTime)
+                .warmupTime(TimeValue.seconds(1))
+                .warmupIterations(6)
+                .threads(1)
+                .measurementIterations(6)
+                .forks(1)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Integer testFloor() {
+        return sortedSet.floor(nextKey());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Integer testCeiling() {
+        return sortedSet.ceiling(nextKey());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean testContains() {
+        return sortedSet.contains(nextKey());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int testSubSet() {
+        int from = nextKey();
+        int to = (int) Math.min((long) from + RANGE_SPAN, Integer.MAX_VALUE);
+        return sortedSet.subSet(from, to).size();
+    }
+
+    private int nextKey() {
+        keyIndex = (keyIndex + 1) & (N_KEYS - 1);
+        return keys[keyIndex];
+    }
+}
@@ -0,0 +1,82 @@
+package io.p4r53c.telran.util;
+
+import org.junit.jupiter.api.BeforeEach;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class StampedMapTest extends AbstractMapTest {
+
+    private static final int N_PUTS = 10_000;
+
+    private static final long JOIN_TIMEOUT = 5_000;
+
+    @Override
+    @BeforeEach
+    void setUp() {
+        map = Collections.stampedMap(new TreeMap<>());
+        super.setUp();
+    }
+
+    @Test
+    void testConcurrentPutIfAbsent() throws InterruptedException {
+        Thread[] threads = new Thread[2];
+
+        for (int i = 0; i < threads.length; i++) {
+            int value = i;
+            threads[i] = new Thread(() -> IntStream.range(0, N_PUTS).forEach(key -> map.putIfAbsent(key, value)));
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(N_PUTS + 1, map.size());
+        assertEquals(N_PUTS + 1, map.keySet().size());
+        assertEquals(N_PUTS + 1, map.values().stream().count());
+        assertEquals(16, map.get(4));
+    }
+
+    @Test
+    void testReentrantForEach() throws InterruptedException {
+        int[] count = new int[1];
+        Thread thread = new Thread(() -> map.forEach((key, value) -> {
+            if (value.equals(map.get(key))) {
+                count[0]++;
+            }
+        }));
+
+        thread.start();
+        thread.join(JOIN_TIMEOUT);
+
+        assertFalse(thread.isAlive());
+        assertEquals(map.size(), count[0]);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected <T> void runTest(T[] expected, T[] actual) {
+        Arrays.sort(expected, (o1, o2) -> ((Comparable<T>) o1).compareTo(o2));
+
+        for (T i : expected) {
+            assertEquals(i, actual[Arrays.asList(expected).indexOf(i)]);
+        }
+    }
+
+    @Override
+    protected <T> T[] fromCollection(Collection<T> collection, T[] array) {
+        int i = 0;
+
+        for (T o : collection) {
+            array[i++] = o;
+        }
+
+        return array;
+    }
+}
@@ -0,0 +1,108 @@
+package io.p4r53c.telran.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Iterator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class StampedSortedSetTest extends SortedSetTest {
+
+    private static final int N_ELEMENTS_READ = 100_000;
+
+    private static final long JOIN_TIMEOUT = 5_000;
+
+    @Override
+    @BeforeEach
+    void setUp() {
+        collection = Collections.stampedSortedSet(new TreeSet<>());
+        super.setUp();
+    }
+
+    /**
+     * A reader runs point reads while a writer adds and removes odd numbers;
+     * even numbers must always be found. The tree is balanced before it is
+     * wrapped, so the reads stay logarithmic.
+     */
+    @Test
+    void testReadsUnderWrites() throws InterruptedException {
+        TreeSet<Integer> tree = new TreeSet<>();
+
+        for (int i = 0; i < N_ELEMENTS_READ; i += 2) {
+            tree.add(i);
+        }
+
+        tree.balance();
+        SortedSet<Integer> stamped = Collections.stampedSortedSet(tree);
+
+        Thread writer = new Thread(() -> {
+            for (int i = 1; i < N_ELEMENTS_READ; i += 2) {
+                stamped.add(i);
+                stamped.remove(i);
+            }
+        });
+
+        writer.start();
+
+        int found = 0;
+
+        for (int i = 0; i < N_ELEMENTS_READ; i += 2) {
+            if (stamped.contains(i) && stamped.floor(i) == i) {
+                found++;
+            }
+        }
+
+        writer.join();
+
+        assertEquals(N_ELEMENTS_READ / 2, found);
+        assertEquals(N_ELEMENTS_READ / 2, stamped.size());
+    }
+
+    @Test
+    void testSnapshotIteratorRemove() {
+        Iterator<Integer> iterator = collection.iterator();
+        collection.add(1000);
+
+        while (iterator.hasNext()) {
+            if (iterator.next() < 0) {
+                iterator.remove();
+            }
+        }
+
+        assertNull(set.get(-10));
+        assertEquals(1000, sortedSet.last());
+        assertEquals(array.length, collection.size());
+    }
+
+    /**
+     * Callbacks use the wrapper itself; the non-reentrant lock must not be
+     * held while they run. The element added by the predicate is not tested
+     * and stays.
+     */
+    @Test
+    void testReentrantCallbacks() throws InterruptedException {
+        int[] count = new int[1];
+        Thread thread = new Thread(() -> {
+            collection.removeIf(n -> {
+                if (n == 3) {
+                    collection.add(6);
+                }
+
+                return collection.contains(n + 2);
+            });
+            collection.forEach(n -> count[0] += collection.contains(n) ? 1 : 0);
+        });
+
+        thread.start();
+        thread.join(JOIN_TIMEOUT);
+
+        assertFalse(thread.isAlive());
+        assertEquals(array.length - 1, count[0]);
+        assertNull(set.get(1));
+        assertNull(set.get(8));
+        assertEquals(6, set.get(6));
+    }
+}
@@ -0,0 +1,38 @@
+package io.p4r53c.telran.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SynchronizedListTest extends ListTest {
+
+    private static final int N_THREADS = 4;
+    private static final int N_ADDS = 10_000;
+
+    @Override
+    @BeforeEach
+    void setUp() {
+        collection = Collections.synchronizedList(new ArrayList<>());
+        super.setUp();
+    }
+
+    @Test
+    void testConcurrentAdd() throws InterruptedException {
+        Thread[] threads = new Thread[N_THREADS];
+
+        for (int i = 0; i < N_THREADS; i++) {
+            threads[i] = new Thread(() -> IntStream.range(0, N_ADDS).forEach(collection::add));
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(array.length + N_THREADS * N_ADDS, collection.size());
+        assertEquals(N_THREADS, collection.stream().filter(n -> n == N_ADDS - 1).count());
+    }
+}
@@ -5,6 +5,11 @@ import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.p4r53c.telran.util.Map.Entry;
 
 public class TreeMapTest extends AbstractMapTest {
 
@@ -18,6 +23,18 @@ public class TreeMapTest extends AbstractMapTest {
         treeMap = (TreeMap<Integer, Integer>) map;
     }
 
+    @Test
+    void testFromSorted() {
+        TreeMap<Integer, Integer> localTreeMap = TreeMap.fromSorted(IntStream.range(0, 1_000)
+                .mapToObj(i -> new Entry<>(i, i * i))
+                .iterator());
+
+        assertEquals(1_000, localTreeMap.size());
+        assertEquals(81, localTreeMap.get(9));
+        assertEquals(998_001, localTreeMap.put(999, 0));
+        assertEquals(0, localTreeMap.get(999));
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     protected <T> void runTest(T[] expected, T[] actual) {
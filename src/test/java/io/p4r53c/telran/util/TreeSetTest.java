@@ -1,13 +1,17 @@
 package io.p4r53c.telran.util;
 
 import java.util.Arrays;
+import java.util.NoSuchElementException;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -82,6 +86,60 @@ class TreeSetTest extends SortedSetTest {
         assertEquals(4, localTreeSet.width());
     }
 
+    @Test
+    void testHeightWidthAfterRemove() {
+        assertTrue(treeSet.remove(8));
+        assertEquals(4, treeSet.height());
+        assertEquals(3, treeSet.width());
+
+        assertTrue(treeSet.remove(17));
+        assertEquals(3, treeSet.height());
+        assertEquals(3, treeSet.width());
+
+        assertTrue(treeSet.remove(20));
+        assertEquals(3, treeSet.height());
+        assertEquals(2, treeSet.width());
+
+        treeSet.clear();
+        assertEquals(0, treeSet.height());
+        assertEquals(0, treeSet.width());
+    }
+
+    /**
+     * Tests that traversals of a degenerate tree do not depend on the depth of
+     * the call stack. The tree is processed in a thread with a stack too small
+     * for a recursive traversal of its depth.
+     */
+    @Test
+    void testDegenerateTreeWithSmallStack() throws InterruptedException {
+        int nElements = 5_000;
+        TreeSet<Integer> localTreeSet = new TreeSet<>();
+        IntStream.range(0, nElements).boxed().forEach(localTreeSet::add);
+
+        Throwable[] error = new Throwable[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                assertEquals(nElements, localTreeSet.height());
+                assertEquals(1, localTreeSet.width());
+
+                localTreeSet.inversion();
+                assertEquals(nElements - 1, localTreeSet.first());
+                assertEquals(nElements, localTreeSet.height());
+
+                localTreeSet.balance();
+                assertEquals(13, localTreeSet.height());
+                assertEquals(nElements - 1, localTreeSet.first());
+            } catch (Throwable e) {
+                error[0] = e;
+            }
+        }, "small-stack", 1 << 16);
+
+        thread.start();
+        thread.join();
+
+        assertNull(error[0]);
+    }
+
     @Test
     void testBalancedTree() {
         TreeSet<Integer> localTreeSet = new TreeSet<>();
@@ -114,6 +172,77 @@ class TreeSetTest extends SortedSetTest {
         assertEquals((N_ELEMENTS + 1) / 2, localTreeSet.width());
     }
 
+    /**
+     * Tests that a tree set built from sorted input is balanced and keeps the
+     * order of the comparator.
+     */
+    @Test
+    void testFromSorted() {
+        Integer[] array = getBigArrayHW();
+        TreeSet<Integer> localTreeSet = TreeSet.fromSorted(array);
+
+        assertEquals(N_ELEMENTS, localTreeSet.size());
+        assertEquals(20, localTreeSet.height());
+        assertEquals((N_ELEMENTS + 1) / 2, localTreeSet.width());
+        assertEquals(1, localTreeSet.first());
+        assertEquals(N_ELEMENTS, localTreeSet.last());
+        assertTrue(localTreeSet.contains(N_ELEMENTS / 3));
+
+        TreeSet<Integer> emptyTreeSet = TreeSet.fromSorted(new Integer[0]);
+        assertTrue(emptyTreeSet.isEmpty());
+        assertTrue(emptyTreeSet.add(1));
+    }
+
+    @Test
+    void testFromSortedWithComparator() {
+        Integer[] array = { 100, 20, 17, 10, 8, 3, 1, -10 };
+        TreeSet<Integer> localTreeSet = TreeSet.fromSorted(array, (a, b) -> Integer.compare(b, a));
+
+        assertArrayEquals(array, localTreeSet.stream().toArray(Integer[]::new));
+        assertTrue(localTreeSet.add(5));
+        assertEquals(5, localTreeSet.ceiling(6));
+    }
+
+    /**
+     * Tests that a tree set linked from a sized iterator has the shape of one
+     * built from an array, and is a valid tree to be modified further.
+     */
+    @Test
+    void testFromSortedWithSize() {
+        Integer[] array = getBigArrayHW();
+        TreeSet<Integer> localTreeSet = TreeSet.fromSorted(Arrays.asList(array).iterator(), N_ELEMENTS);
+        TreeSet<Integer> arrayTreeSet = TreeSet.fromSorted(array);
+
+        assertEquals(N_ELEMENTS, localTreeSet.size());
+        assertEquals(arrayTreeSet.height(), localTreeSet.height());
+        assertEquals(arrayTreeSet.width(), localTreeSet.width());
+        assertTrue(localTreeSet.contains(N_ELEMENTS / 3));
+        assertTrue(localTreeSet.remove(N_ELEMENTS / 2));
+        assertTrue(localTreeSet.add(N_ELEMENTS + 1));
+        assertArrayEquals(IntStream.rangeClosed(1, N_ELEMENTS + 1).filter(i -> i != N_ELEMENTS / 2).boxed()
+                .toArray(Integer[]::new), localTreeSet.stream().toArray(Integer[]::new));
+
+        TreeSet<Integer> prefix = TreeSet.fromSorted(Arrays.asList(array).iterator(), 7, Integer::compare);
+        assertArrayEquals(new Integer[] { 1, 2, 3, 4, 5, 6, 7 }, prefix.stream().toArray(Integer[]::new));
+        assertEquals(3, prefix.height());
+        assertTrue(TreeSet.fromSorted(Arrays.asList(array).iterator(), 0).isEmpty());
+
+        assertThrowsExactly(NoSuchElementException.class,
+                () -> TreeSet.fromSorted(Arrays.asList(1, 2).iterator(), 3));
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> TreeSet.fromSorted(Arrays.asList(1, 3, 2).iterator(), 3));
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> TreeSet.fromSorted(Arrays.asList(1, 2).iterator(), -1));
+    }
+
+    @Test
+    void testFromSortedNotAscending() {
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> TreeSet.fromSorted(new Integer[] { 1, 2, 2, 3 }));
+        assertThrowsExactly(IllegalArgumentException.class,
+                () -> TreeSet.fromSorted(new Integer[] { 1, 3, 2 }));
+    }
+
     /**
      * Transforms the given array in-place by rotating it to the right by the
      * given number of positions and then reversing the resulting array.
@@ -156,4 +285,78 @@ class TreeSetTest extends SortedSetTest {
 
         return index;
     }
+
+    @Test
+    void testBloomFilter() {
+        TreeSet<Integer> set = new TreeSet<>();
+        set.enableBloomFilter(0.01);
+
+        for (int i = 0; i < 5_000; i++) {
+            set.add(2 * i);
+        }
+
+        assertTrue(IntStream.range(0, 5_000).allMatch(i -> set.contains(2 * i)));
+        assertTrue(IntStream.range(0, 5_000).noneMatch(i -> set.contains(2 * i + 1)));
+
+        set.remove(0);
+        set.removeIf(n -> n % 4 == 0);
+        set.balance();
+
+        assertNull(set.get(4));
+        assertEquals(6, set.get(6));
+        assertEquals(2_500, set.size());
+
+        set.clear();
+        set.add(1);
+
+        assertTrue(set.contains(1));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void testRemoveIfShape() {
+        TreeSet<Integer> set = new TreeSet<>();
+        IntStream.rangeClosed(1, 100).forEach(set::add);
+
+        assertFalse(set.removeIf(n -> n > 100));
+        assertEquals(100, set.height());
+
+        assertTrue(set.removeIf(n -> n == 50));
+        assertEquals(99, set.height());
+        assertEquals(99, set.size());
+        assertFalse(set.contains(50));
+
+        assertTrue(set.removeIf(n -> n % 2 == 0));
+        assertEquals(6, set.height());
+        assertEquals(50, set.size());
+        assertTrue(IntStream.rangeClosed(1, 100).allMatch(n -> set.contains(n) == (n % 2 == 1)));
+    }
+
+    @Test
+    void testMetrics() {
+        TreeSet<Integer> set = new TreeSet<>();
+        CollectionMetrics metrics = set.enableMetrics();
+        IntStream.rangeClosed(1, 100).forEach(set::add);
+
+        assertEquals(100, metrics.getHeight());
+        assertEquals(-1, metrics.getCapacity());
+        assertEquals(0, metrics.getBucketLengthHistogram().length);
+
+        metrics.reset();
+        set.contains(100);
+        set.contains(101);
+
+        assertEquals(2, metrics.getLookupCount());
+        assertEquals(200, metrics.getProbeCount());
+
+        set.balance();
+        metrics.reset();
+        set.contains(100);
+
+        assertEquals(7, metrics.getHeight());
+        assertTrue(metrics.getAverageProbes() <= 7);
+
+        set.disableMetrics();
+        assertNull(set.getMetrics());
+    }
 }
@@ -0,0 +1,120 @@
+package io.p4r53c.telran.util;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Compares the SIMD kernels of {@link VectorKernels} with the equivalent
+ * scalar loops and with the boxed {@link ArrayList} on 1M elements. The
+ * removal benchmarks work on a fresh copy of the array, which both pay for.
+ */
+@State(Scope.Thread)
+public class VectorKernelsPerformanceTest {
+
+    private static final int N_ELEMENTS = 1_000_000;
+
+    private int[] array;
+    private ArrayList<Integer> boxedList;
+    private int missing;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        array = new Random().ints(N_ELEMENTS, 0, Integer.MAX_VALUE).toArray();
+        boxedList = new ArrayList<>(N_ELEMENTS);
+
+        for (int n : array) {
+            boxedList.add(n);
+        }
+
+        missing = -1;
+    }
+
+    @Disabled("Not for regular test cases")
+    @Test
+    void runBenchmarks() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(this.getClass().getName() + ".*")
+                .mode(Mode.AverageTime)
+                .warmupTime(TimeValue.seconds(1))
+                .warmupIterations(6)
+                .threads(1)
+                .measurementIterations(6)
+                .forks(1)
+                .jvmArgsAppend("--add-modules", "jdk.incubator.vector")
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int testVectorIndexOf() {
+        return VectorKernels.indexOf(array, N_ELEMENTS, missing);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int testScalarIndexOf() {
+        return VectorKernels.scalarIndexOf(array, 0, N_ELEMENTS, missing);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int testBoxedIndexOf() {
+        return boxedList.indexOf(missing);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long testVectorSum() {
+        return VectorKernels.sum(array, N_ELEMENTS);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long testScalarSum() {
+        return VectorKernels.scalarSum(array, 0, N_ELEMENTS);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int testVectorMax() {
+        return VectorKernels.max(array, N_ELEMENTS);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int testScalarMax() {
+        return VectorKernels.scalarMax(array, 0, N_ELEMENTS, Integer.MIN_VALUE);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int testVectorRemoveEven() {
+        return VectorKernels.removeMultiplesOf(array.clone(), N_ELEMENTS, 2);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int testScalarRemoveEven() {
+        return VectorKernels.scalarRemoveMultiplesOf(array.clone(), 0, 0, N_ELEMENTS, 2);
+    }
+}